@@ -0,0 +1,304 @@
+package edu.ntnu.idatt2106.project.sparesti.badges;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeTierEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Immutable in-memory catalog of the badges and their tiers. The badges are loaded once when the
+ * application starts, so awarding a badge does not query the badge tables. The tiers of each badge
+ * are kept sorted by target, so the tiers reached between two progress values are found in
+ * logarithmic time.
+ *
+ * <p>Every badge, and every tier of a badge, is given an ordinal, in order of badge id and tier.
+ * The badges a user has completed are kept as a bitset of these ordinals, stored with the user
+ * together with the layout of the catalog it was built for. Checking whether a user holds a badge,
+ * and listing the badges of a user, therefore does not load the completed badges of the user. The
+ * bitset is rebuilt from the completed badges if the badges in the catalog have changed.
+ */
+@Log
+@Component
+public class BadgeCatalog {
+
+  private final BadgeRepository badgeRepository;
+  private volatile Snapshot snapshot = new Snapshot(Map.of(), List.of(), 0);
+
+  /**
+   * Constructs a BadgeCatalog with necessary dependencies.
+   *
+   * @param badgeRepository repository the badges are loaded from
+   */
+  public BadgeCatalog(BadgeRepository badgeRepository) {
+    this.badgeRepository = badgeRepository;
+  }
+
+  /** Loads every badge and its tiers, replacing the badges loaded before. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void reload() {
+    List<BadgeEntity> loaded = new ArrayList<>(badgeRepository.findAllWithTiers());
+    loaded.sort(Comparator.comparing(BadgeEntity::getId));
+    Map<String, BadgeDefinition> badges = new HashMap<>();
+    List<CompletedBadgeDefinition> ordinals = new ArrayList<>();
+    for (BadgeEntity badge : loaded) {
+      badges.put(badge.getName(), new BadgeDefinition(badge, ordinals));
+    }
+    int layout = 1;
+    for (CompletedBadgeDefinition completed : ordinals) {
+      layout = 31 * layout + Objects.hash(completed.badgeId, completed.tier);
+    }
+    snapshot = new Snapshot(Map.copyOf(badges), List.copyOf(ordinals), layout);
+    log.info("Loaded " + badges.size() + " badges.");
+  }
+
+  /**
+   * Finds a badge by its name.
+   *
+   * @param name The name of the badge.
+   * @return The badge, or an empty optional if there is no badge with the name.
+   */
+  public Optional<BadgeDefinition> find(String name) {
+    return Optional.ofNullable(snapshot.badges.get(name));
+  }
+
+  /**
+   * Gets the number of badges in the catalog.
+   *
+   * @return The number of badges.
+   */
+  public int size() {
+    return snapshot.badges.size();
+  }
+
+  /**
+   * Checks whether a user has completed a badge or tier.
+   *
+   * @param user The user.
+   * @param ordinal The ordinal of the badge or tier.
+   * @return True if the user has completed the badge or tier.
+   */
+  public boolean isCompleted(UserEntity user, int ordinal) {
+    return completedBitsOf(user, snapshot).get(ordinal);
+  }
+
+  /**
+   * Marks a badge or tier as completed by a user. The user is updated, but not saved.
+   *
+   * @param user The user.
+   * @param ordinal The ordinal of the badge or tier.
+   * @return True if the user had not completed the badge or tier before.
+   */
+  public boolean markCompleted(UserEntity user, int ordinal) {
+    BitSet completed = completedBitsOf(user, snapshot);
+    if (completed.get(ordinal)) {
+      return false;
+    }
+    completed.set(ordinal);
+    user.setCompletedBadgeMask(completed.toByteArray());
+    return true;
+  }
+
+  /**
+   * Lists the badges and tiers a user has completed, in order of badge id and tier.
+   *
+   * @param user The user.
+   * @return The completed badges and tiers.
+   */
+  public List<CompletedBadgeDefinition> completedBy(UserEntity user) {
+    Snapshot current = snapshot;
+    BitSet completed = completedBitsOf(user, current);
+    List<CompletedBadgeDefinition> badges = new ArrayList<>(completed.cardinality());
+    for (int i = completed.nextSetBit(0); i >= 0; i = completed.nextSetBit(i + 1)) {
+      badges.add(current.ordinals.get(i));
+    }
+    return badges;
+  }
+
+  /**
+   * Gets the completed badges of a user as a bitset of ordinals. The bitset is decoded once per
+   * loaded user, and rebuilt from the completed badges of the user if it was stored for another
+   * layout of the catalog.
+   *
+   * @param user The user.
+   * @param current The catalog the ordinals belong to.
+   * @return The completed badges of the user.
+   */
+  private BitSet completedBitsOf(UserEntity user, Snapshot current) {
+    boolean sameLayout = Objects.equals(user.getCompletedBadgeLayout(), current.layout);
+    if (sameLayout && user.getCompletedBadgeBits() != null) {
+      return user.getCompletedBadgeBits();
+    }
+    BitSet completed;
+    if (sameLayout && user.getCompletedBadgeMask() != null) {
+      completed = BitSet.valueOf(user.getCompletedBadgeMask());
+    } else {
+      completed = new BitSet(current.ordinals.size());
+      if (user.getCompletedBadges() != null) {
+        for (CompletedBadgeEntity badge : user.getCompletedBadges()) {
+          int ordinal = current.ordinalOf(badge.getName(), badge.getTier());
+          if (ordinal >= 0) {
+            completed.set(ordinal);
+          }
+        }
+      }
+      user.setCompletedBadgeMask(completed.toByteArray());
+      user.setCompletedBadgeLayout(current.layout);
+    }
+    user.setCompletedBadgeBits(completed);
+    return completed;
+  }
+
+  /** The badges of the catalog, with the layout of their ordinals. */
+  private static final class Snapshot {
+
+    private final Map<String, BadgeDefinition> badges;
+    private final List<CompletedBadgeDefinition> ordinals;
+    private final int layout;
+
+    private Snapshot(
+        Map<String, BadgeDefinition> badges, List<CompletedBadgeDefinition> ordinals, int layout) {
+      this.badges = badges;
+      this.ordinals = ordinals;
+      this.layout = layout;
+    }
+
+    private int ordinalOf(String name, Integer tier) {
+      BadgeDefinition badge = badges.get(name);
+      if (badge == null) {
+        return -1;
+      }
+      if (tier == null) {
+        return badge.ordinal;
+      }
+      TierDefinition found = badge.tiersByNumber.get(tier);
+      return found == null ? -1 : found.ordinal;
+    }
+  }
+
+  /** An immutable badge, with its tiers sorted by target. */
+  @Getter
+  public static final class BadgeDefinition {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final int ordinal;
+
+    @Getter(AccessLevel.NONE)
+    private final NavigableMap<Integer, List<TierDefinition>> tiersByTarget;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, TierDefinition> tiersByNumber;
+
+    private BadgeDefinition(BadgeEntity badge, List<CompletedBadgeDefinition> ordinals) {
+      this.id = badge.getId();
+      this.name = badge.getName();
+      this.description = badge.getDescription();
+      this.ordinal = ordinals.size();
+      ordinals.add(new CompletedBadgeDefinition(ordinal, id, name, null, description));
+
+      List<BadgeTierEntity> sortedTiers = new ArrayList<>();
+      if (badge.getBadgeTiers() != null) {
+        for (BadgeTierEntity tier : badge.getBadgeTiers()) {
+          if (tier.getTier() != null) {
+            sortedTiers.add(tier);
+          }
+        }
+      }
+      sortedTiers.sort(Comparator.comparing(BadgeTierEntity::getTier));
+
+      TreeMap<Integer, List<TierDefinition>> tiers = new TreeMap<>();
+      Map<Integer, TierDefinition> numbers = new HashMap<>();
+      for (BadgeTierEntity tier : sortedTiers) {
+        if (numbers.containsKey(tier.getTier())) {
+          continue;
+        }
+        TierDefinition definition =
+            new TierDefinition(
+                ordinals.size(), tier.getTier(), tier.getTarget(), tier.getDescription());
+        ordinals.add(
+            new CompletedBadgeDefinition(
+                definition.ordinal, id, name, tier.getTier(), tier.getDescription()));
+        numbers.put(tier.getTier(), definition);
+        if (tier.getTarget() != null) {
+          tiers.computeIfAbsent(tier.getTarget(), target -> new ArrayList<>()).add(definition);
+        }
+      }
+      tiers.replaceAll((target, tiersWithTarget) -> List.copyOf(tiersWithTarget));
+      this.tiersByTarget = Collections.unmodifiableNavigableMap(tiers);
+      this.tiersByNumber = Map.copyOf(numbers);
+    }
+
+    /**
+     * Finds the tiers whose target is above one progress value and at most another, in ascending
+     * order of target.
+     *
+     * @param previous The progress before, whose tiers have already been reached.
+     * @param current The progress after.
+     * @return The tiers reached by going from the previous to the current progress.
+     */
+    public List<TierDefinition> tiersReachedBetween(int previous, int current) {
+      if (current <= previous) {
+        return List.of();
+      }
+      List<TierDefinition> reached = new ArrayList<>();
+      tiersByTarget.subMap(previous, false, current, true).values().forEach(reached::addAll);
+      return reached;
+    }
+  }
+
+  /** An immutable tier of a badge. */
+  @Getter
+  public static final class TierDefinition {
+
+    private final int ordinal;
+    private final Integer tier;
+    private final Integer target;
+    private final String description;
+
+    private TierDefinition(int ordinal, Integer tier, Integer target, String description) {
+      this.ordinal = ordinal;
+      this.tier = tier;
+      this.target = target;
+      this.description = description;
+    }
+  }
+
+  /** An immutable badge or tier that can be completed, with its ordinal. */
+  @Getter
+  public static final class CompletedBadgeDefinition {
+
+    private final int ordinal;
+    private final Long badgeId;
+    private final String name;
+    private final Integer tier;
+    private final String description;
+
+    private CompletedBadgeDefinition(
+        int ordinal, Long badgeId, String name, Integer tier, String description) {
+      this.ordinal = ordinal;
+      this.badgeId = badgeId;
+      this.name = name;
+      this.tier = tier;
+      this.description = description;
+    }
+  }
+}
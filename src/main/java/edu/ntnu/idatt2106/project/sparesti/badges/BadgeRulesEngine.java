@@ -0,0 +1,236 @@
+package edu.ntnu.idatt2106.project.sparesti.badges;
+
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeCatalog.BadgeDefinition;
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeCatalog.TierDefinition;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeProgressEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.BadgeTrigger;
+import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+import org.springframework.stereotype.Component;
+
+/**
+ * Awards badges to users when they do something a badge is awarded for. Which badges an event
+ * counts towards is declared in {@link #RULES}, and the badges and their tiers are read from the
+ * {@link BadgeCatalog}, so evaluating an event does not query the badge tables.
+ *
+ * <p>The progress stored for a tiered badge only ever grows, and every tier up to the stored
+ * progress has already been awarded. The tiers to award for an event are therefore the tiers
+ * between the stored progress and the new progress, which the catalog finds in logarithmic time,
+ * without checking the badges the user has already completed. A badge or tier is still only awarded
+ * if it is not already set in the bitset of completed badges the catalog keeps for the user, so it
+ * is never awarded twice.
+ */
+@Component
+public class BadgeRulesEngine {
+
+  /** The rules deciding which badges each event counts towards. */
+  private static final List<BadgeRule> RULES =
+      List.of(
+          BadgeRule.once(BadgeTrigger.CHALLENGE_FINISHED, "Griseflink sparer"),
+          BadgeRule.count(BadgeTrigger.CHALLENGE_FINISHED, "Teenage Mutant Ninja-piggy"),
+          BadgeRule.once(BadgeTrigger.GOAL_COMPLETED, "Svinerik"),
+          BadgeRule.count(BadgeTrigger.GOAL_COMPLETED, "Supersparings-gris"),
+          BadgeRule.highest(BadgeTrigger.STREAK_CHANGED, "Griseflex", BadgeRulesEngine::streakOf),
+          BadgeRule.highest(
+              BadgeTrigger.AMOUNT_SAVED, "Grisebank-er", BadgeRulesEngine::totalSavedOf),
+          BadgeRule.once(BadgeTrigger.LOGIN, "Griseglad"),
+          BadgeRule.count(BadgeTrigger.LOGIN, "Sus-pig-us"));
+
+  private final Map<BadgeTrigger, List<BadgeRule>> rulesByTrigger;
+  private final BadgeCatalog badgeCatalog;
+  private final BadgeRepository badgeRepository;
+
+  /**
+   * Constructs a BadgeRulesEngine with necessary dependencies.
+   *
+   * @param badgeCatalog catalog of the badges and their tiers
+   * @param badgeRepository repository used to reference badges from the progress of a user
+   */
+  public BadgeRulesEngine(BadgeCatalog badgeCatalog, BadgeRepository badgeRepository) {
+    this.badgeCatalog = badgeCatalog;
+    this.badgeRepository = badgeRepository;
+    Map<BadgeTrigger, List<BadgeRule>> rules = new EnumMap<>(BadgeTrigger.class);
+    for (BadgeRule rule : RULES) {
+      rules.computeIfAbsent(rule.trigger, trigger -> new ArrayList<>()).add(rule);
+    }
+    rules.replaceAll((trigger, rulesOfTrigger) -> List.copyOf(rulesOfTrigger));
+    this.rulesByTrigger = Collections.unmodifiableMap(rules);
+  }
+
+  /**
+   * Updates the badge progress of a user after an event, and awards the badges and tiers the user
+   * has reached. The user is updated, but not saved.
+   *
+   * @param user The user the event happened to.
+   * @param trigger The event.
+   * @return The badges awarded to the user.
+   */
+  public List<CompletedBadgeEntity> evaluate(UserEntity user, BadgeTrigger trigger) {
+    List<BadgeRule> rules = rulesByTrigger.getOrDefault(trigger, List.of());
+    List<CompletedBadgeEntity> awarded = new ArrayList<>();
+    Map<Long, BadgeProgressEntity> progressByBadge = null;
+    for (BadgeRule rule : rules) {
+      Optional<BadgeDefinition> badge = badgeCatalog.find(rule.badgeName);
+      if (badge.isEmpty()) {
+        continue;
+      }
+      if (progressByBadge == null) {
+        progressByBadge = indexProgress(user);
+      }
+      awarded.addAll(apply(rule, badge.get(), user, progressByBadge));
+    }
+    awarded.forEach(user::addCompletedBadge);
+    return awarded;
+  }
+
+  /**
+   * Applies a rule to the progress of a user on its badge.
+   *
+   * @param rule The rule to apply.
+   * @param badge The badge of the rule.
+   * @param user The user to apply the rule to.
+   * @param progressByBadge The progress of the user, by the id of the badge.
+   * @return The badges to award.
+   */
+  private List<CompletedBadgeEntity> apply(
+      BadgeRule rule,
+      BadgeDefinition badge,
+      UserEntity user,
+      Map<Long, BadgeProgressEntity> progressByBadge) {
+    BadgeProgressEntity progress = progressByBadge.get(badge.getId());
+    if (rule.metric == null) {
+      if (progress != null) {
+        return List.of();
+      }
+      addProgress(user, badge, null, progressByBadge);
+      if (!badgeCatalog.markCompleted(user, badge.getOrdinal())) {
+        return List.of();
+      }
+      return List.of(
+          CompletedBadgeEntity.builder()
+              .name(badge.getName())
+              .description(badge.getDescription())
+              .build());
+    }
+
+    int previous = progress == null || progress.getProgress() == null ? 0 : progress.getProgress();
+    int current = rule.metric.applyAsInt(user) + (rule.counting ? previous : 0);
+    if (current <= previous) {
+      return List.of();
+    }
+    if (progress == null) {
+      addProgress(user, badge, current, progressByBadge);
+    } else {
+      progress.setProgress(current);
+    }
+    List<CompletedBadgeEntity> awarded = new ArrayList<>();
+    for (TierDefinition tier : badge.tiersReachedBetween(previous, current)) {
+      if (!badgeCatalog.markCompleted(user, tier.getOrdinal())) {
+        continue;
+      }
+      awarded.add(
+          CompletedBadgeEntity.builder()
+              .name(badge.getName())
+              .tier(tier.getTier())
+              .description(tier.getDescription())
+              .build());
+    }
+    return awarded;
+  }
+
+  /**
+   * Starts tracking the progress of a user on a badge.
+   *
+   * @param user The user.
+   * @param badge The badge.
+   * @param value The initial progress, or null for badges without tiers.
+   * @param progressByBadge The progress of the user, by the id of the badge.
+   */
+  private void addProgress(
+      UserEntity user,
+      BadgeDefinition badge,
+      Integer value,
+      Map<Long, BadgeProgressEntity> progressByBadge) {
+    BadgeProgressEntity progress =
+        BadgeProgressEntity.builder()
+            .userEntity(user)
+            .badgeEntity(badgeRepository.getReferenceById(badge.getId()))
+            .progress(value)
+            .build();
+    user.addBadgeProgress(progress);
+    progressByBadge.put(badge.getId(), progress);
+  }
+
+  /**
+   * Indexes the badge progress of a user by the id of the badge. The number of entries is bounded
+   * by the number of badges.
+   *
+   * @param user The user.
+   * @return The progress of the user, by the id of the badge.
+   */
+  private static Map<Long, BadgeProgressEntity> indexProgress(UserEntity user) {
+    Map<Long, BadgeProgressEntity> progressByBadge = new HashMap<>();
+    if (user.getBadgeProgress() != null) {
+      for (BadgeProgressEntity progress : user.getBadgeProgress()) {
+        if (progress.getBadgeEntity() != null) {
+          progressByBadge.putIfAbsent(progress.getBadgeEntity().getId(), progress);
+        }
+      }
+    }
+    return progressByBadge;
+  }
+
+  private static int streakOf(UserEntity user) {
+    return user.getCurrentStreak() == null ? 0 : user.getCurrentStreak();
+  }
+
+  private static int totalSavedOf(UserEntity user) {
+    return user.getTotalSaved() == null ? 0 : user.getTotalSaved().intValue();
+  }
+
+  /**
+   * A rule awarding a badge for an event. A badge without tiers is awarded the first time the event
+   * happens. The progress on a tiered badge is either counted up by one for each event, or set to
+   * the highest value of a metric of the user seen at the event.
+   */
+  private static final class BadgeRule {
+
+    private final BadgeTrigger trigger;
+    private final String badgeName;
+    private final ToIntFunction<UserEntity> metric;
+    private final boolean counting;
+
+    private BadgeRule(
+        BadgeTrigger trigger,
+        String badgeName,
+        ToIntFunction<UserEntity> metric,
+        boolean counting) {
+      this.trigger = trigger;
+      this.badgeName = badgeName;
+      this.metric = metric;
+      this.counting = counting;
+    }
+
+    static BadgeRule once(BadgeTrigger trigger, String badgeName) {
+      return new BadgeRule(trigger, badgeName, null, false);
+    }
+
+    static BadgeRule count(BadgeTrigger trigger, String badgeName) {
+      return new BadgeRule(trigger, badgeName, user -> 1, true);
+    }
+
+    static BadgeRule highest(
+        BadgeTrigger trigger, String badgeName, ToIntFunction<UserEntity> metric) {
+      return new BadgeRule(trigger, badgeName, metric, false);
+    }
+  }
+}
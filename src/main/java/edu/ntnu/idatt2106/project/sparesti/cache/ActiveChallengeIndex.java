@@ -0,0 +1,142 @@
+package edu.ntnu.idatt2106.project.sparesti.cache;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
+import edu.ntnu.idatt2106.project.sparesti.repositories.SavingChallengeRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.java.Log;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index from a bank account and a transaction category to the saving challenges in
+ * progress that track spending on that category from that account, which is the source account of
+ * the goal of the challenge. Used to find the challenges affected by a new transaction without
+ * querying the challenges.
+ *
+ * <p>The index may hold challenges that are no longer in progress, or that have been deleted, until
+ * they are removed or the index is rebuilt. Users of the index must therefore still check the state
+ * of the challenges it returns. The index is built when the application starts, and rebuilt every
+ * night after the challenge states have been updated. A rebuild fills new maps and swaps them in,
+ * so lookups, which do not take the lock, never see a partly built index.
+ */
+@Log
+@Component
+public class ActiveChallengeIndex implements CacheStatisticsProvider {
+
+  private final SavingChallengeRepository savingChallengeRepository;
+  private volatile Map<SpendingKey, Set<Long>> challengesBySpending = new ConcurrentHashMap<>();
+  private Map<Long, SpendingKey> spendingByChallenge = new HashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder rebuilds = new LongAdder();
+
+  /**
+   * Constructs an ActiveChallengeIndex with necessary dependencies.
+   *
+   * @param savingChallengeRepository repository the index is built from
+   */
+  public ActiveChallengeIndex(SavingChallengeRepository savingChallengeRepository) {
+    this.savingChallengeRepository = savingChallengeRepository;
+  }
+
+  /** Builds the index from the challenges in progress in the database. */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    Map<SpendingKey, Set<Long>> rebuiltChallengesBySpending = new ConcurrentHashMap<>();
+    Map<Long, SpendingKey> rebuiltSpendingByChallenge = new HashMap<>();
+    List<Object[]> rows =
+        savingChallengeRepository.findSpendingKeysByState(ChallengeState.IN_PROGRESS);
+    for (Object[] row : rows) {
+      SpendingKey key = new SpendingKey((Long) row[1], (Long) row[2]);
+      rebuiltChallengesBySpending
+          .computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet())
+          .add((Long) row[0]);
+      rebuiltSpendingByChallenge.put((Long) row[0], key);
+    }
+    spendingByChallenge = rebuiltSpendingByChallenge;
+    challengesBySpending = rebuiltChallengesBySpending;
+    rebuilds.increment();
+    log.info("Indexed " + spendingByChallenge.size() + " saving challenges in progress.");
+  }
+
+  /**
+   * Finds the challenges tracking spending on a category from a bank account.
+   *
+   * @param bankAccountId The id of the bank account.
+   * @param transactionCategoryId The id of the transaction category.
+   * @return The ids of the challenges, which is empty if there are none.
+   */
+  public List<Long> find(Long bankAccountId, Long transactionCategoryId) {
+    Set<Long> challengeIds =
+        challengesBySpending.get(new SpendingKey(bankAccountId, transactionCategoryId));
+    if (challengeIds == null) {
+      misses.increment();
+      return List.of();
+    }
+    hits.increment();
+    return List.copyOf(challengeIds);
+  }
+
+  /**
+   * Adds a challenge to the index, or moves it if it is already indexed under another account or
+   * category.
+   *
+   * @param challengeId The id of the challenge.
+   * @param bankAccountId The id of the source account of the goal of the challenge.
+   * @param transactionCategoryId The id of the category of the challenge.
+   */
+  public synchronized void add(Long challengeId, Long bankAccountId, Long transactionCategoryId) {
+    remove(challengeId);
+    SpendingKey key = new SpendingKey(bankAccountId, transactionCategoryId);
+    challengesBySpending.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(challengeId);
+    spendingByChallenge.put(challengeId, key);
+  }
+
+  /**
+   * Removes a challenge from the index.
+   *
+   * @param challengeId The id of the challenge.
+   */
+  public synchronized void remove(Long challengeId) {
+    SpendingKey key = spendingByChallenge.remove(challengeId);
+    if (key != null) {
+      Set<Long> challengeIds = challengesBySpending.get(key);
+      challengeIds.remove(challengeId);
+      if (challengeIds.isEmpty()) {
+        challengesBySpending.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Gets the number of challenges in the index.
+   *
+   * @return The number of challenges.
+   */
+  public synchronized int size() {
+    return spendingByChallenge.size();
+  }
+
+  /**
+   * {@inheritDoc} A hit is a lookup that found challenges, and a miss is a lookup that found none.
+   */
+  @Override
+  public synchronized CacheStatisticsDto getStatistics() {
+    return CacheStatisticsDto.builder()
+        .name("active-challenges")
+        .size(spendingByChallenge.size())
+        .hits(hits.sum())
+        .misses(misses.sum())
+        .rebuilds(rebuilds.sum())
+        .build();
+  }
+
+  private record SpendingKey(Long bankAccountId, Long transactionCategoryId) {}
+}
@@ -0,0 +1,14 @@
+package edu.ntnu.idatt2106.project.sparesti.cache;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+
+/** An in-memory cache that exposes its statistics. */
+public interface CacheStatisticsProvider {
+
+  /**
+   * Gets the current statistics of the cache.
+   *
+   * @return The statistics of the cache.
+   */
+  CacheStatisticsDto getStatistics();
+}
@@ -0,0 +1,219 @@
+package edu.ntnu.idatt2106.project.sparesti.cache;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeView;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
+import edu.ntnu.idatt2106.project.sparesti.events.TransactionRecordedEvent;
+import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory running spending of the saving challenges in progress. The spending of a challenge is
+ * seeded from the daily spending rollup the first time it is asked for, and is then kept up to date
+ * by adding the expenses recorded on the source account of its goal in its category, once the
+ * transaction that recorded them commits. Challenges that are no longer in progress are not kept,
+ * and their spending is always read from the database.
+ *
+ * <p>A lookup that misses is answered with a single read of the committed spending by the {@link
+ * SpendingSeeder}, which only seeds the counter with it if no expense was being recorded on the
+ * account and category while it was read, since the read could otherwise miss an expense that has
+ * not yet been added to the counter, or include one that is about to be added. The spending is read
+ * within the transaction of the caller instead if the seeder does not read it.
+ */
+@Component
+public class ChallengeSpendingCounters implements CacheStatisticsProvider {
+
+  private final BankAccountService bankAccountService;
+  private final ActiveChallengeIndex activeChallengeIndex;
+  private final SpendingSeeder spendingSeeder;
+  private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder rebuilds = new LongAdder();
+
+  /**
+   * Constructs a ChallengeSpendingCounters with necessary dependencies.
+   *
+   * @param bankAccountService service used to read the spending of a challenge from the rollup
+   * @param activeChallengeIndex index used to find the challenges affected by an expense
+   * @param spendingSeeder seeder used to seed the counters without missing an expense
+   */
+  public ChallengeSpendingCounters(
+      BankAccountService bankAccountService,
+      ActiveChallengeIndex activeChallengeIndex,
+      SpendingSeeder spendingSeeder) {
+    this.bankAccountService = bankAccountService;
+    this.activeChallengeIndex = activeChallengeIndex;
+    this.spendingSeeder = spendingSeeder;
+  }
+
+  /**
+   * Gets the current spending of a challenge, from memory if the challenge is in progress and its
+   * counter has been seeded.
+   *
+   * @param savingChallenge The challenge to get the spending of.
+   * @return The amount spent on the category of the challenge between its start and ending date.
+   */
+  public double getSpending(SavingChallengeEntity savingChallenge) {
+    return lookupSpending(
+        savingChallenge.getId(),
+        savingChallenge.getState(),
+        savingChallenge.getSavingGoal().getSourceBankAccount().getId(),
+        savingChallenge.getTransactionCategory().getId(),
+        savingChallenge.getStartDate(),
+        savingChallenge.getEndingDate());
+  }
+
+  /**
+   * Gets the current spending of a challenge read as a view, from memory if the challenge is in
+   * progress and its counter has been seeded.
+   *
+   * @param savingChallenge The view of the challenge to get the spending of.
+   * @return The amount spent on the category of the challenge between its start and ending date.
+   */
+  public double getSpending(SavingChallengeView savingChallenge) {
+    return lookupSpending(
+        savingChallenge.getId(),
+        savingChallenge.getState(),
+        savingChallenge.getSourceBankAccountId(),
+        savingChallenge.getTransactionCategoryId(),
+        savingChallenge.getStartDate(),
+        savingChallenge.getEndingDate());
+  }
+
+  /**
+   * Adds recorded expenses to the counters of the challenges they affect, once the transaction that
+   * recorded them commits. Runs within that transaction, so the expenses are known to be in flight
+   * from before they can be read until they have been added.
+   *
+   * @param event The event of the recorded expenses.
+   */
+  @EventListener
+  public void onTransactionRecorded(TransactionRecordedEvent event) {
+    spendingSeeder.onExpensesRecorded(event, this::addSpending);
+  }
+
+  /**
+   * Drops the counters of challenges, for example because they are no longer in progress.
+   *
+   * @param challengeIds The ids of the challenges.
+   */
+  public void drop(Collection<Long> challengeIds) {
+    challengeIds.forEach(counters::remove);
+  }
+
+  /** Drops every counter, so they are seeded again from the database when they are next read. */
+  public void clear() {
+    spendingSeeder.invalidate();
+    counters.clear();
+    rebuilds.increment();
+  }
+
+  @Override
+  public CacheStatisticsDto getStatistics() {
+    return CacheStatisticsDto.builder()
+        .name("challenge-spending")
+        .size(counters.size())
+        .hits(hits.sum())
+        .misses(misses.sum())
+        .rebuilds(rebuilds.sum())
+        .build();
+  }
+
+  /**
+   * Adds expenses to the counters of the challenges in their account and category, for the days
+   * within the period of each challenge.
+   *
+   * @param event The event of the recorded expenses.
+   */
+  private void addSpending(TransactionRecordedEvent event) {
+    for (Long challengeId :
+        activeChallengeIndex.find(event.getBankAccountId(), event.getTransactionCategoryId())) {
+      Counter counter = counters.get(challengeId);
+      if (counter != null) {
+        event
+            .getSpentPerDay()
+            .forEach(
+                (day, spent) -> {
+                  if (!day.isBefore(counter.startDate) && !day.isAfter(counter.endingDate)) {
+                    counter.spent.add(spent);
+                  }
+                });
+      }
+    }
+  }
+
+  /**
+   * Gets the current spending of a challenge, seeding its counter from the daily spending rollup if
+   * it is in progress and has no counter yet.
+   *
+   * @param challengeId The id of the challenge.
+   * @param state The state of the challenge.
+   * @param bankAccountId The id of the source account of the goal of the challenge.
+   * @param transactionCategoryId The id of the category of the challenge.
+   * @param startDate The start date of the challenge.
+   * @param endingDate The ending date of the challenge.
+   * @return The amount spent on the category between the start and ending date.
+   */
+  private double lookupSpending(
+      Long challengeId,
+      ChallengeState state,
+      Long bankAccountId,
+      Long transactionCategoryId,
+      LocalDate startDate,
+      LocalDate endingDate) {
+    if (!ChallengeState.IN_PROGRESS.equals(state)) {
+      counters.remove(challengeId);
+      misses.increment();
+      return bankAccountService.getAmountUsedOnCategoryBetweenDays(
+          bankAccountId, transactionCategoryId, startDate, endingDate);
+    }
+    Counter counter = counters.get(challengeId);
+    if (counter != null) {
+      hits.increment();
+      return counter.spent.sum();
+    }
+    misses.increment();
+    Map<Long, Double> seeded =
+        spendingSeeder.seed(
+            bankAccountId,
+            Collections.singletonList(transactionCategoryId),
+            () ->
+                Collections.singletonMap(
+                    transactionCategoryId,
+                    bankAccountService.getAmountUsedOnCategoryBetweenDays(
+                        bankAccountId, transactionCategoryId, startDate, endingDate)),
+            (categoryId, committedSpent) -> {
+              Counter seededCounter = new Counter(startDate, endingDate);
+              seededCounter.spent.add(committedSpent);
+              counters.putIfAbsent(challengeId, seededCounter);
+            });
+    if (seeded != null) {
+      return seeded.get(transactionCategoryId);
+    }
+    return bankAccountService.getAmountUsedOnCategoryBetweenDays(
+        bankAccountId, transactionCategoryId, startDate, endingDate);
+  }
+
+  /** The running spending of one challenge, and the period the spending is counted in. */
+  private static class Counter {
+
+    private final LocalDate startDate;
+    private final LocalDate endingDate;
+    private final DoubleAdder spent = new DoubleAdder();
+
+    Counter(LocalDate startDate, LocalDate endingDate) {
+      this.startDate = startDate;
+      this.endingDate = endingDate;
+    }
+  }
+}
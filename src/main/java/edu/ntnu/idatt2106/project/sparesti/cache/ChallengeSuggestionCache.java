@@ -0,0 +1,120 @@
+package edu.ntnu.idatt2106.project.sparesti.cache;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-memory cache of the saving challenge suggestions of each saving goal. The suggestions
+ * of a goal only change when the spending on its source account changes, when a challenge of its
+ * user starts or ends, or when the day changes. An entry is therefore stored with the source
+ * account of the goal and its activity version, which is increased every time the balance of the
+ * account changes, the categories the user has challenges in progress in, and the day it was
+ * computed. It is only used while all of them are unchanged, so an entry computed before the goal
+ * moved to another source account is never used for the new account.
+ *
+ * <p>The cache holds at most sparesti.suggestions.cache-size goals, and evicts the least recently
+ * used goal when it is full.
+ */
+@Component
+public class ChallengeSuggestionCache implements CacheStatisticsProvider {
+
+  private final Map<Long, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder loadNanos = new LongAdder();
+
+  /**
+   * Constructs a ChallengeSuggestionCache.
+   *
+   * @param maximumSize the maximum number of goals to keep suggestions for
+   */
+  public ChallengeSuggestionCache(
+      @Value("${sparesti.suggestions.cache-size:1000}") int maximumSize) {
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > maximumSize) {
+              evictions.increment();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Gets the suggestions of a goal, computing them if they are not cached for the current activity
+   * of the goal.
+   *
+   * @param goalId The id of the goal.
+   * @param sourceAccountId The id of the source account of the goal.
+   * @param activityVersion The activity version of the source account of the goal.
+   * @param categoriesInProgress The sorted ids of the categories the user of the goal has
+   *     challenges in progress in.
+   * @param day The day the suggestions start.
+   * @param loader Computes the suggestions if they are not cached.
+   * @return The suggestions of the goal.
+   */
+  public List<SavingChallengeResponseDto> get(
+      Long goalId,
+      Long sourceAccountId,
+      long activityVersion,
+      List<Long> categoriesInProgress,
+      LocalDate day,
+      Supplier<List<SavingChallengeResponseDto>> loader) {
+    Key key = new Key(sourceAccountId, activityVersion, List.copyOf(categoriesInProgress), day);
+    synchronized (entries) {
+      Entry entry = entries.get(goalId);
+      if (entry != null && entry.key.equals(key)) {
+        hits.increment();
+        return entry.suggestions;
+      }
+    }
+    misses.increment();
+    long start = System.nanoTime();
+    List<SavingChallengeResponseDto> suggestions = List.copyOf(loader.get());
+    loadNanos.add(System.nanoTime() - start);
+    synchronized (entries) {
+      entries.put(goalId, new Entry(key, suggestions));
+    }
+    return suggestions;
+  }
+
+  /**
+   * {@inheritDoc} The rebuilds are the goals evicted because the cache was full, and the load time
+   * is the average time spent computing the suggestions of a goal on a miss.
+   */
+  @Override
+  public CacheStatisticsDto getStatistics() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    long loads = misses.sum();
+    return CacheStatisticsDto.builder()
+        .name("challenge-suggestions")
+        .size(size)
+        .hits(hits.sum())
+        .misses(loads)
+        .rebuilds(evictions.sum())
+        .averageLoadMillis(loads == 0 ? 0 : loadNanos.sum() / 1_000_000.0 / loads)
+        .build();
+  }
+
+  /** What the suggestions of a goal were computed from. */
+  private record Key(
+      Long sourceAccountId, long activityVersion, List<Long> categoriesInProgress, LocalDate day) {}
+
+  /** The suggestions of a goal, with what they were computed from. */
+  private record Entry(Key key, List<SavingChallengeResponseDto> suggestions) {}
+}
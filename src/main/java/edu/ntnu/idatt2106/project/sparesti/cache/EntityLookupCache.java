@@ -0,0 +1,124 @@
+package edu.ntnu.idatt2106.project.sparesti.cache;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import jakarta.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache of the entities looked up by id or username within one unit of work, which is the
+ * transaction of the request. An entity looked up several times while handling a request is only
+ * read from the database the first time. The lookups are bound to the transaction, and forgotten
+ * when it completes, so an entity is never shared between requests. Outside a transaction every
+ * lookup goes to the database.
+ *
+ * <p>An entity is only reused while it is managed by the persistence context of the transaction. If
+ * the context has been cleared, for instance by a bulk update, the entity is read again.
+ */
+@Component
+public class EntityLookupCache implements CacheStatisticsProvider {
+
+  private final EntityManager entityManager;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder unitsOfWork = new LongAdder();
+  private final LongAdder openLookups = new LongAdder();
+  private final LongAdder loadNanos = new LongAdder();
+
+  /**
+   * Constructs an EntityLookupCache.
+   *
+   * @param entityManager the entity manager of the transactions the lookups are bound to
+   */
+  public EntityLookupCache(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  /**
+   * Gets an entity, loading it if it has not been looked up in the current transaction yet. Nothing
+   * is cached if the loader throws, so a lookup of a missing entity fails every time.
+   *
+   * @param type The type of the entity.
+   * @param key The id or username the entity is looked up by.
+   * @param loader Loads the entity if it is not cached.
+   * @param <T> The type of the entity.
+   * @return The entity.
+   */
+  public <T> T find(Class<T> type, Object key, Supplier<T> loader) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return load(loader);
+    }
+    Map<Key, Object> lookups = currentLookups();
+    Key lookupKey = new Key(type, key);
+    Object cached = lookups.get(lookupKey);
+    if (cached != null && entityManager.contains(cached)) {
+      hits.increment();
+      return type.cast(cached);
+    }
+    T entity = load(loader);
+    if (lookups.put(lookupKey, entity) == null) {
+      openLookups.increment();
+    }
+    return entity;
+  }
+
+  /**
+   * {@inheritDoc} The size is the number of entities held by the transactions in progress, the
+   * rebuilds are the completed transactions that looked up entities, and the load time is the
+   * average time spent reading an entity on a miss.
+   */
+  @Override
+  public CacheStatisticsDto getStatistics() {
+    long loads = misses.sum();
+    return CacheStatisticsDto.builder()
+        .name("entity-lookups")
+        .size((int) openLookups.sum())
+        .hits(hits.sum())
+        .misses(loads)
+        .rebuilds(unitsOfWork.sum())
+        .averageLoadMillis(loads == 0 ? 0 : loadNanos.sum() / 1_000_000.0 / loads)
+        .build();
+  }
+
+  private <T> T load(Supplier<T> loader) {
+    misses.increment();
+    long start = System.nanoTime();
+    T entity = loader.get();
+    loadNanos.add(System.nanoTime() - start);
+    return entity;
+  }
+
+  /**
+   * Gets the lookups of the current transaction, binding an empty map to it the first time, which
+   * is unbound again when the transaction completes.
+   */
+  @SuppressWarnings("unchecked")
+  private Map<Key, Object> currentLookups() {
+    Map<Key, Object> lookups =
+        (Map<Key, Object>) TransactionSynchronizationManager.getResource(this);
+    if (lookups == null) {
+      Map<Key, Object> bound = new HashMap<>();
+      TransactionSynchronizationManager.bindResource(this, bound);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(EntityLookupCache.this);
+              openLookups.add(-bound.size());
+              unitsOfWork.increment();
+            }
+          });
+      lookups = bound;
+    }
+    return lookups;
+  }
+
+  /** An entity type and the id or username an entity of it was looked up by. */
+  private record Key(Class<?> type, Object key) {}
+}
@@ -0,0 +1,409 @@
+package edu.ntnu.idatt2106.project.sparesti.cache;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.java.Log;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory index of the scores of all users, ordered as on the leaderboard: by score from high to
+ * low, and by user id among users with the same score. Serves a page of the leaderboard, and the
+ * rank of a user with the users around them, in logarithmic time in the number of users, without
+ * querying or sorting the users.
+ *
+ * <p>The index is an order-statistic treap, where every node knows the size of its subtree. The
+ * nodes are kept in primitive arrays, so a million users take a few tens of megabytes. Reads may
+ * run concurrently, while updates are exclusive.
+ *
+ * <p>The index may hold users that have been deleted until it is rebuilt, so users of the index
+ * must skip the users they cannot find. The index is built when the application starts, and updated
+ * whenever a user is created or their score changes.
+ */
+@Log
+@Component
+public class LeaderboardIndex implements CacheStatisticsProvider {
+
+  private final UserRepository userRepository;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Lock rebuildLock = new ReentrantLock();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder rebuilds = new LongAdder();
+  private Treap treap = new Treap();
+  private Map<Long, Integer> updatesDuringRebuild;
+
+  /**
+   * Constructs a LeaderboardIndex with necessary dependencies.
+   *
+   * @param userRepository repository the index is built from
+   */
+  public LeaderboardIndex(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  /**
+   * Builds the index from the scores of the users in the database. The new index is built before it
+   * replaces the current one, so the leaderboard can be read while it is rebuilt. The updates made
+   * while the scores are read and indexed are recorded, and applied to the new index before it
+   * replaces the current one, since the scores read may be older than them.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    rebuildLock.lock();
+    try {
+      lock.writeLock().lock();
+      try {
+        updatesDuringRebuild = new HashMap<>();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      Treap rebuilt = new Treap();
+      try {
+        for (Object[] row : userRepository.findAllScores()) {
+          rebuilt.put((Long) row[0], (Integer) row[1]);
+        }
+      } catch (RuntimeException e) {
+        swap(null);
+        throw e;
+      }
+      swap(rebuilt);
+      rebuilds.increment();
+      log.info("Indexed the scores of " + rebuilt.size() + " users.");
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  /**
+   * Stops recording the updates made during a rebuild, and replaces the index with the rebuilt one
+   * after applying them to it.
+   *
+   * @param rebuilt The rebuilt index, or null to keep the current one if the rebuild failed.
+   */
+  private void swap(Treap rebuilt) {
+    lock.writeLock().lock();
+    try {
+      if (rebuilt != null) {
+        updatesDuringRebuild.forEach(rebuilt::put);
+        treap = rebuilt;
+      }
+      updatesDuringRebuild = null;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a user to the index, or moves them to their new score if they are already indexed. If the
+   * index is being rebuilt, the update is also applied to the new index.
+   *
+   * @param userId The id of the user.
+   * @param score The score of the user.
+   */
+  public void update(Long userId, int score) {
+    lock.writeLock().lock();
+    try {
+      treap.put(userId, score);
+      if (updatesDuringRebuild != null) {
+        updatesDuringRebuild.put(userId, score);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Updates the score of a user once the current transaction commits, so the index never holds a
+   * score that was rolled back. Updates it immediately if there is no transaction.
+   *
+   * @param userId The id of the user.
+   * @param score The score of the user.
+   */
+  public void updateAfterCommit(Long userId, int score) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              update(userId, score);
+            }
+          });
+    } else {
+      update(userId, score);
+    }
+  }
+
+  /**
+   * Gets a page of the leaderboard.
+   *
+   * @param offset The number of entries before the page, starting from the top.
+   * @param limit The maximum number of entries on the page.
+   * @return The entries on the page, which is empty if the offset is past the last entry.
+   */
+  public List<Entry> page(int offset, int limit) {
+    lock.readLock().lock();
+    try {
+      return treap.range(offset, Math.min(treap.size(), offset + limit));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the entry of a user on the leaderboard, and the given number of entries above and below
+   * it.
+   *
+   * @param userId The id of the user.
+   * @param neighbours The number of entries to include on each side of the user.
+   * @return The entries around the user from the top down, or an empty list if the user is not
+   *     indexed.
+   */
+  public List<Entry> around(Long userId, int neighbours) {
+    lock.readLock().lock();
+    try {
+      int position = treap.positionOf(userId);
+      if (position < 0) {
+        misses.increment();
+        return List.of();
+      }
+      hits.increment();
+      return treap.range(
+          Math.max(0, position - neighbours), Math.min(treap.size(), position + neighbours + 1));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of users in the index.
+   *
+   * @return The number of users.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return treap.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc} A hit is a rank lookup of an indexed user, and a miss is a lookup of a user that
+   * is not indexed.
+   */
+  @Override
+  public CacheStatisticsDto getStatistics() {
+    return CacheStatisticsDto.builder()
+        .name("leaderboard")
+        .size(size())
+        .hits(hits.sum())
+        .misses(misses.sum())
+        .rebuilds(rebuilds.sum())
+        .build();
+  }
+
+  /**
+   * An entry on the leaderboard.
+   *
+   * @param userId The id of the user.
+   * @param score The score of the user.
+   * @param rank The position of the user on the leaderboard, starting at 1.
+   */
+  public record Entry(Long userId, int score, int rank) {}
+
+  /**
+   * Treap of (score, user id) pairs, ordered by score from high to low and then by user id. Node 0
+   * is the empty tree, and removed nodes are reused. Not thread safe.
+   */
+  private static final class Treap {
+
+    private static final int NIL = 0;
+
+    private final Map<Long, Integer> scoreByUser = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private long[] userIds = new long[16];
+    private int[] scores = new int[16];
+    private int[] priorities = new int[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int[] sizes = new int[16];
+    private int root = NIL;
+    private int nextNode = 1;
+    private int freeNodes = NIL;
+    private int splitLeft;
+    private int splitRight;
+
+    int size() {
+      return sizes[root];
+    }
+
+    void put(long userId, int score) {
+      Integer previous = scoreByUser.put(userId, score);
+      if (previous != null) {
+        if (previous == score) {
+          return;
+        }
+        root = erase(root, previous, userId);
+      }
+      int node = allocate(userId, score);
+      split(root, score, userId);
+      root = merge(merge(splitLeft, node), splitRight);
+    }
+
+    /** Gets the position of a user from the top, starting at 0, or -1 if it is not indexed. */
+    int positionOf(long userId) {
+      Integer score = scoreByUser.get(userId);
+      if (score == null) {
+        return -1;
+      }
+      int position = 0;
+      int node = root;
+      while (node != NIL) {
+        if (before(node, score, userId)) {
+          position += sizes[left[node]] + 1;
+          node = right[node];
+        } else {
+          node = left[node];
+        }
+      }
+      return position;
+    }
+
+    /** Gets the entries from one position, inclusive, to another, exclusive. */
+    List<Entry> range(int from, int to) {
+      List<Entry> entries = new ArrayList<>(Math.max(0, to - from));
+      for (int position = from; position < to; position++) {
+        int node = select(position);
+        entries.add(new Entry(userIds[node], scores[node], position + 1));
+      }
+      return entries;
+    }
+
+    private int select(int position) {
+      int node = root;
+      while (true) {
+        int leftSize = sizes[left[node]];
+        if (position < leftSize) {
+          node = left[node];
+        } else if (position == leftSize) {
+          return node;
+        } else {
+          position -= leftSize + 1;
+          node = right[node];
+        }
+      }
+    }
+
+    /** Whether a node comes before the given score and user id on the leaderboard. */
+    private boolean before(int node, int score, long userId) {
+      return scores[node] > score || (scores[node] == score && userIds[node] < userId);
+    }
+
+    /**
+     * Splits a tree into the nodes before the given score and user id, left in splitLeft, and the
+     * other nodes, left in splitRight.
+     */
+    private void split(int node, int score, long userId) {
+      if (node == NIL) {
+        splitLeft = NIL;
+        splitRight = NIL;
+      } else if (before(node, score, userId)) {
+        split(right[node], score, userId);
+        right[node] = splitLeft;
+        resize(node);
+        splitLeft = node;
+      } else {
+        split(left[node], score, userId);
+        left[node] = splitRight;
+        resize(node);
+        splitRight = node;
+      }
+    }
+
+    /** Merges two trees, where every node of the first comes before every node of the second. */
+    private int merge(int first, int second) {
+      if (first == NIL) {
+        return second;
+      }
+      if (second == NIL) {
+        return first;
+      }
+      if (priorities[first] > priorities[second]) {
+        right[first] = merge(right[first], second);
+        resize(first);
+        return first;
+      }
+      left[second] = merge(first, left[second]);
+      resize(second);
+      return second;
+    }
+
+    private int erase(int node, int score, long userId) {
+      if (node == NIL) {
+        return NIL;
+      }
+      if (scores[node] == score && userIds[node] == userId) {
+        int merged = merge(left[node], right[node]);
+        left[node] = freeNodes;
+        freeNodes = node;
+        return merged;
+      }
+      if (before(node, score, userId)) {
+        right[node] = erase(right[node], score, userId);
+      } else {
+        left[node] = erase(left[node], score, userId);
+      }
+      resize(node);
+      return node;
+    }
+
+    private void resize(int node) {
+      sizes[node] = sizes[left[node]] + sizes[right[node]] + 1;
+    }
+
+    private int allocate(long userId, int score) {
+      int node;
+      if (freeNodes != NIL) {
+        node = freeNodes;
+        freeNodes = left[node];
+      } else {
+        if (nextNode == userIds.length) {
+          grow(userIds.length * 2);
+        }
+        node = nextNode++;
+      }
+      userIds[node] = userId;
+      scores[node] = score;
+      priorities[node] = random.nextInt();
+      left[node] = NIL;
+      right[node] = NIL;
+      sizes[node] = 1;
+      return node;
+    }
+
+    private void grow(int capacity) {
+      userIds = Arrays.copyOf(userIds, capacity);
+      scores = Arrays.copyOf(scores, capacity);
+      priorities = Arrays.copyOf(priorities, capacity);
+      left = Arrays.copyOf(left, capacity);
+      right = Arrays.copyOf(right, capacity);
+      sizes = Arrays.copyOf(sizes, capacity);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package edu.ntnu.idatt2106.project.sparesti.cache;
+
+import edu.ntnu.idatt2106.project.sparesti.events.TransactionRecordedEvent;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Seeds the in-memory spending caches from the database without missing or double counting an
+ * expense. Used by the {@link ChallengeSpendingCounters} and the {@link SpendingStatisticsStore}.
+ *
+ * <p>Expenses are tracked by account and category, spread over a fixed number of stripes. Each
+ * stripe counts the expenses that have been recorded but whose transaction has not completed, and a
+ * version that changes whenever an expense is recorded or completes. A value is read for seeding in
+ * a read-committed transaction of its own, so it holds exactly the committed expenses, and it is
+ * only stored if no expense of its stripe was in flight and the version of the stripe did not
+ * change while it was read. Expenses of other accounts and categories do not prevent seeding,
+ * except for the few sharing a stripe.
+ *
+ * <p>Nothing is seeded for a caller within a transaction. Its view of the rollup may be older than
+ * the expenses already added to the caches, or include changes of its own that are not tracked, and
+ * reading in a new transaction would make it hold a second connection while it waits for one, which
+ * can exhaust the connection pool under load.
+ *
+ * <p>The rollup can also change without expenses being recorded, when it is rebuilt. The caches are
+ * cleared when that happens, which also makes the seeds that are being read when they are cleared
+ * be discarded.
+ */
+@Component
+public class SpendingSeeder {
+
+  /** The number of stripes the accounts and categories are spread over. A power of two. */
+  static final int STRIPES = 1024;
+
+  private final AtomicLongArray expensesInFlight = new AtomicLongArray(STRIPES);
+  private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+  private final Object[] locks = new Object[STRIPES];
+  private final AtomicLong generation = new AtomicLong();
+  private final TransactionTemplate committedRead;
+
+  /**
+   * Constructs a SpendingSeeder with necessary dependencies.
+   *
+   * @param transactionManager transaction manager used to read the seeded values in a transaction
+   *     of their own
+   */
+  public SpendingSeeder(PlatformTransactionManager transactionManager) {
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      locks[stripe] = new Object();
+    }
+    this.committedRead = new TransactionTemplate(transactionManager);
+    this.committedRead.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    this.committedRead.setReadOnly(true);
+  }
+
+  /**
+   * Tracks recorded expenses, and adds them to a cache once the transaction that recorded them
+   * commits. Must be called within that transaction, so the expenses are known to be in flight from
+   * before they can be read until they have been added. Adds them immediately if there is no
+   * transaction.
+   *
+   * @param event The event of the recorded expenses.
+   * @param addSpending Adds the expenses to the cache.
+   */
+  public void onExpensesRecorded(
+      TransactionRecordedEvent event, Consumer<TransactionRecordedEvent> addSpending) {
+    int stripe = stripeOf(event.getBankAccountId(), event.getTransactionCategoryId());
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      versions.incrementAndGet(stripe);
+      synchronized (locks[stripe]) {
+        addSpending.accept(event);
+        versions.incrementAndGet(stripe);
+      }
+      return;
+    }
+    expensesInFlight.incrementAndGet(stripe);
+    versions.incrementAndGet(stripe);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            synchronized (locks[stripe]) {
+              if (status == STATUS_COMMITTED) {
+                addSpending.accept(event);
+              }
+              versions.incrementAndGet(stripe);
+              expensesInFlight.decrementAndGet(stripe);
+            }
+          }
+        });
+  }
+
+  /**
+   * Discards the seeds that are being read, for example because the cache they are read for is
+   * cleared.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Reads the values of an account in the given categories in a read-committed transaction, and
+   * stores the value of each category whose expenses stayed quiet while it was read. Nothing is
+   * read if every category has expenses in flight, or if the caller is within a transaction, in
+   * which case the caller reads the values itself.
+   *
+   * @param bankAccountId The id of the bank account.
+   * @param transactionCategoryIds The ids of the categories.
+   * @param read Reads the value of every given category, by the id of the category.
+   * @param store Stores the value of a category in the cache.
+   * @param <T> The type of the values.
+   * @return The values read, by the id of the category, or null if nothing was read.
+   */
+  public <T> Map<Long, T> seed(
+      Long bankAccountId,
+      Collection<Long> transactionCategoryIds,
+      Supplier<Map<Long, T>> read,
+      BiConsumer<Long, T> store) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return null;
+    }
+    long generationBefore = generation.get();
+    Long[] categoryIds = transactionCategoryIds.toArray(Long[]::new);
+    int[] stripes = new int[categoryIds.length];
+    long[] versionsBefore = new long[categoryIds.length];
+    boolean anyQuiet = false;
+    for (int i = 0; i < categoryIds.length; i++) {
+      stripes[i] = stripeOf(bankAccountId, categoryIds[i]);
+      versionsBefore[i] = versions.get(stripes[i]);
+      anyQuiet |= expensesInFlight.get(stripes[i]) == 0;
+    }
+    if (!anyQuiet) {
+      return null;
+    }
+    Map<Long, T> values = committedRead.execute(status -> read.get());
+    for (int i = 0; i < categoryIds.length; i++) {
+      T value = values == null ? null : values.get(categoryIds[i]);
+      if (value == null) {
+        continue;
+      }
+      synchronized (locks[stripes[i]]) {
+        if (expensesInFlight.get(stripes[i]) == 0
+            && versions.get(stripes[i]) == versionsBefore[i]
+            && generation.get() == generationBefore) {
+          store.accept(categoryIds[i], value);
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Gets the stripe of an account and category.
+   *
+   * @param bankAccountId The id of the bank account.
+   * @param transactionCategoryId The id of the category.
+   * @return The stripe.
+   */
+  private static int stripeOf(Long bankAccountId, Long transactionCategoryId) {
+    int hash = Objects.hash(bankAccountId, transactionCategoryId);
+    return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+  }
+}
@@ -0,0 +1,422 @@
+package edu.ntnu.idatt2106.project.sparesti.cache;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.SpendingStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.DailySpendingEntity;
+import edu.ntnu.idatt2106.project.sparesti.events.TransactionRecordedEvent;
+import edu.ntnu.idatt2106.project.sparesti.repositories.DailySpendingRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory spending statistics of each account and transaction category. The statistics of an
+ * account and category are seeded from the daily spending rollup the first time they are asked for,
+ * and are then kept up to date by adding the expenses recorded on the account in the category, once
+ * the transaction that recorded them commits.
+ *
+ * <p>Each entry holds the spending of the last 91 days, one bucket per day, from which the rolling
+ * 7, 30 and 90 day sums are read, each covering exactly that many days with today included. When a
+ * week has passed, its total is folded into an exponentially weighted moving average and a
+ * histogram of weekly spending, from which the median and the 90th percentile are read. Expenses
+ * dated in a week that has already been folded only count towards the rolling sums.
+ *
+ * <p>The statistics that are not in memory are read once from the rollup by the {@link
+ * SpendingSeeder}, which answers the caller with them and stores them if no expense was being
+ * recorded on their account and category while they were read. They are read within the transaction
+ * of the caller instead if the seeder does not read them.
+ *
+ * <p>An entry takes a little over a kilobyte. The store holds at most
+ * sparesti.spending-statistics.max-entries entries, and evicts the least recently used entry when
+ * it is full.
+ */
+@Component
+public class SpendingStatisticsStore implements CacheStatisticsProvider {
+
+  /** The number of days of spending kept for each account and category. */
+  static final int DAYS = 91;
+
+  /** The weight of the latest week in the weekly average. */
+  static final double WEEKLY_AVERAGE_WEIGHT = 0.3;
+
+  private final DailySpendingRepository dailySpendingRepository;
+  private final SpendingSeeder spendingSeeder;
+  private final Map<StatisticsKey, Statistics> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder rebuilds = new LongAdder();
+
+  /**
+   * Constructs a SpendingStatisticsStore with necessary dependencies.
+   *
+   * @param dailySpendingRepository repository the statistics are seeded from
+   * @param spendingSeeder seeder used to seed the entries without missing an expense
+   * @param maximumEntries the maximum number of accounts and categories to keep statistics for
+   */
+  public SpendingStatisticsStore(
+      DailySpendingRepository dailySpendingRepository,
+      SpendingSeeder spendingSeeder,
+      @Value("${sparesti.spending-statistics.max-entries:20000}") int maximumEntries) {
+    this.dailySpendingRepository = dailySpendingRepository;
+    this.spendingSeeder = spendingSeeder;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<StatisticsKey, Statistics> eldest) {
+            if (size() > maximumEntries) {
+              rebuilds.increment();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Gets the spending statistics of an account in a category.
+   *
+   * @param bankAccountId The id of the bank account.
+   * @param transactionCategoryId The id of the transaction category.
+   * @return The spending statistics.
+   */
+  public SpendingStatisticsDto find(Long bankAccountId, Long transactionCategoryId) {
+    return findAll(bankAccountId, List.of(transactionCategoryId)).get(transactionCategoryId);
+  }
+
+  /**
+   * Gets the spending statistics of an account in each of the given categories. The categories that
+   * are not in memory are seeded with a single query.
+   *
+   * @param bankAccountId The id of the bank account.
+   * @param transactionCategoryIds The ids of the transaction categories.
+   * @return The spending statistics of every given category, by the id of the category.
+   */
+  public Map<Long, SpendingStatisticsDto> findAll(
+      Long bankAccountId, Collection<Long> transactionCategoryIds) {
+    LocalDate today = LocalDate.now();
+    Map<Long, SpendingStatisticsDto> statistics = new HashMap<>();
+    List<Long> missing = new ArrayList<>();
+    for (Long categoryId : transactionCategoryIds) {
+      Statistics entry;
+      synchronized (entries) {
+        entry = entries.get(new StatisticsKey(bankAccountId, categoryId));
+      }
+      if (entry != null) {
+        hits.increment();
+        statistics.put(categoryId, entry.snapshot(today));
+      } else if (!missing.contains(categoryId)) {
+        misses.increment();
+        missing.add(categoryId);
+      }
+    }
+    if (!missing.isEmpty()) {
+      Map<Long, Statistics> read =
+          spendingSeeder.seed(
+              bankAccountId,
+              missing,
+              () -> read(bankAccountId, missing, today),
+              (categoryId, entry) -> store(new StatisticsKey(bankAccountId, categoryId), entry));
+      if (read == null) {
+        read = read(bankAccountId, missing, today);
+      }
+      read.forEach((categoryId, entry) -> statistics.put(categoryId, entry.snapshot(today)));
+    }
+    return statistics;
+  }
+
+  /**
+   * Adds recorded expenses to the statistics of their account and category, once the transaction
+   * that recorded them commits. Runs within that transaction, so the expenses are known to be in
+   * flight from before they can be read until they have been added.
+   *
+   * @param event The event of the recorded expenses.
+   */
+  @EventListener
+  public void onTransactionRecorded(TransactionRecordedEvent event) {
+    spendingSeeder.onExpensesRecorded(event, this::addSpending);
+  }
+
+  /** Drops every entry, so they are seeded again from the database when they are next read. */
+  public void clear() {
+    spendingSeeder.invalidate();
+    synchronized (entries) {
+      entries.clear();
+    }
+    rebuilds.increment();
+  }
+
+  /**
+   * {@inheritDoc} The rebuilds are the times the store was cleared and the entries evicted because
+   * the store was full.
+   */
+  @Override
+  public CacheStatisticsDto getStatistics() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    return CacheStatisticsDto.builder()
+        .name("spending-statistics")
+        .size(size)
+        .hits(hits.sum())
+        .misses(misses.sum())
+        .rebuilds(rebuilds.sum())
+        .build();
+  }
+
+  /**
+   * Reads the spending of the last 91 days of an account in the given categories from the rollup,
+   * and builds the statistics of each category from it.
+   *
+   * @param bankAccountId The id of the bank account.
+   * @param transactionCategoryIds The ids of the categories.
+   * @param today The current day.
+   * @return The statistics of every given category, by the id of the category.
+   */
+  private Map<Long, Statistics> read(
+      Long bankAccountId, List<Long> transactionCategoryIds, LocalDate today) {
+    List<DailySpendingEntity> rows =
+        dailySpendingRepository.findByAccountAndCategoriesBetweenDays(
+            bankAccountId, transactionCategoryIds, today.minusDays(DAYS - 1), today);
+    Map<Long, Statistics> statistics = new HashMap<>();
+    for (Long categoryId : transactionCategoryIds) {
+      statistics.put(categoryId, new Statistics(today));
+    }
+    for (DailySpendingEntity row : rows) {
+      statistics
+          .get(row.getId().getTransactionCategoryId())
+          .seed(row.getId().getSpendingDay(), row);
+    }
+    return statistics;
+  }
+
+  /**
+   * Stores the statistics of an account and category, unless they are already stored, evicting the
+   * least recently used entry if the store is full.
+   *
+   * @param key The account and category.
+   * @param entry The statistics.
+   */
+  private void store(StatisticsKey key, Statistics entry) {
+    synchronized (entries) {
+      entries.putIfAbsent(key, entry);
+    }
+  }
+
+  /**
+   * Adds expenses to the statistics of their account and category, if they are in memory.
+   *
+   * @param event The event of the recorded expenses.
+   */
+  private void addSpending(TransactionRecordedEvent event) {
+    Statistics entry;
+    synchronized (entries) {
+      entry =
+          entries.get(
+              new StatisticsKey(event.getBankAccountId(), event.getTransactionCategoryId()));
+    }
+    if (entry != null) {
+      LocalDate today = LocalDate.now();
+      event.getSpentPerDay().forEach((day, spent) -> entry.add(day, spent, today));
+    }
+  }
+
+  /**
+   * Gets the index of the week, starting on Monday, that a day belongs to.
+   *
+   * @param epochDay The day, as a number of days since 1970-01-01, which was a Thursday.
+   * @return The index of the week.
+   */
+  static long weekOf(long epochDay) {
+    return Math.floorDiv(epochDay + 3, 7);
+  }
+
+  /** The spending statistics of one account in one category. */
+  static final class Statistics {
+
+    private final double[] spentPerDay = new double[DAYS];
+    private final int[] dayOfBucket = new int[DAYS];
+    private final WeeklySpendingHistogram histogram = new WeeklySpendingHistogram();
+    private double weeklyAverage;
+    private long lastFoldedWeek;
+
+    /**
+     * Creates empty statistics. The week that is only partly within the last 91 days is not counted
+     * in the weekly figures.
+     *
+     * @param today The current day.
+     */
+    Statistics(LocalDate today) {
+      Arrays.fill(dayOfBucket, Integer.MIN_VALUE);
+      lastFoldedWeek = weekOf(today.toEpochDay() - DAYS);
+    }
+
+    /**
+     * Sets the spending of a day while seeding.
+     *
+     * @param day The day.
+     * @param row The spending of the day.
+     */
+    synchronized void seed(LocalDate day, DailySpendingEntity row) {
+      int bucket = bucketOf(day.toEpochDay());
+      dayOfBucket[bucket] = (int) day.toEpochDay();
+      spentPerDay[bucket] = row.getSpent();
+    }
+
+    /**
+     * Adds spending to a day. Spending more than 90 days before today is ignored.
+     *
+     * @param day The day.
+     * @param spent The amount spent.
+     * @param today The current day.
+     */
+    synchronized void add(LocalDate day, double spent, LocalDate today) {
+      fold(today);
+      long epochDay = day.toEpochDay();
+      if (epochDay <= today.toEpochDay() - DAYS) {
+        return;
+      }
+      int bucket = bucketOf(epochDay);
+      if (dayOfBucket[bucket] > epochDay) {
+        return;
+      }
+      if (dayOfBucket[bucket] < epochDay) {
+        dayOfBucket[bucket] = (int) epochDay;
+        spentPerDay[bucket] = 0;
+      }
+      spentPerDay[bucket] += spent;
+    }
+
+    /**
+     * Gets the statistics as of today.
+     *
+     * @param today The current day.
+     * @return The statistics.
+     */
+    synchronized SpendingStatisticsDto snapshot(LocalDate today) {
+      fold(today);
+      long epochDay = today.toEpochDay();
+      return SpendingStatisticsDto.builder()
+          .spentLast7Days(spentBetween(epochDay - 6, epochDay))
+          .spentLast30Days(spentBetween(epochDay - 29, epochDay))
+          .spentLast90Days(spentBetween(epochDay - 89, epochDay))
+          .weeklyAverage(weeklyAverage)
+          .weeklyMedian(histogram.quantile(0.5))
+          .weeklyNinetiethPercentile(histogram.quantile(0.9))
+          .weeksCounted(histogram.count())
+          .build();
+    }
+
+    /**
+     * Folds the weeks that have ended since the last fold into the weekly average and histogram.
+     *
+     * @param today The current day.
+     */
+    private void fold(LocalDate today) {
+      long currentWeek = weekOf(today.toEpochDay());
+      while (lastFoldedWeek < currentWeek - 1) {
+        lastFoldedWeek++;
+        long monday = lastFoldedWeek * 7 - 3;
+        double spent = spentBetween(monday, monday + 6);
+        weeklyAverage =
+            histogram.count() == 0
+                ? spent
+                : WEEKLY_AVERAGE_WEIGHT * spent + (1 - WEEKLY_AVERAGE_WEIGHT) * weeklyAverage;
+        histogram.add(spent);
+      }
+    }
+
+    private double spentBetween(long firstDay, long lastDay) {
+      double spent = 0;
+      for (long day = firstDay; day <= lastDay; day++) {
+        int bucket = bucketOf(day);
+        if (dayOfBucket[bucket] == day) {
+          spent += spentPerDay[bucket];
+        }
+      }
+      return spent;
+    }
+
+    private static int bucketOf(long epochDay) {
+      return (int) Math.floorMod(epochDay, (long) DAYS);
+    }
+  }
+
+  /**
+   * Streaming histogram of weekly spending with logarithmic buckets, so a quantile is estimated
+   * within about 5 percent. Spending below 1 is counted as 0. Only the buckets that have been used
+   * are kept, sorted, which is a handful for the weeks of one account and category.
+   */
+  static final class WeeklySpendingHistogram {
+
+    private static final double GROWTH = 1.1;
+    private static final int BUCKETS = 256;
+
+    private short[] buckets = new short[0];
+    private int[] counts = new int[0];
+    private long count;
+
+    void add(double spent) {
+      short bucket =
+          (short)
+              (spent < 1
+                  ? 0
+                  : Math.min(
+                      BUCKETS - 1, 1 + (int) Math.floor(Math.log(spent) / Math.log(GROWTH))));
+      int index = Arrays.binarySearch(buckets, bucket);
+      if (index < 0) {
+        index = -index - 1;
+        buckets = insert(buckets, index, bucket);
+        counts = insert(counts, index);
+      }
+      counts[index]++;
+      count++;
+    }
+
+    long count() {
+      return count;
+    }
+
+    double quantile(double quantile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(quantile * count));
+      long seen = 0;
+      for (int index = 0; index < buckets.length; index++) {
+        seen += counts[index];
+        if (seen >= rank) {
+          int bucket = buckets[index];
+          return bucket == 0 ? 0 : Math.pow(GROWTH, bucket - 1) * (1 + GROWTH) / 2;
+        }
+      }
+      return Math.pow(GROWTH, BUCKETS - 1);
+    }
+
+    private static short[] insert(short[] values, int index, short value) {
+      short[] inserted = new short[values.length + 1];
+      System.arraycopy(values, 0, inserted, 0, index);
+      inserted[index] = value;
+      System.arraycopy(values, index, inserted, index + 1, values.length - index);
+      return inserted;
+    }
+
+    private static int[] insert(int[] values, int index) {
+      int[] inserted = new int[values.length + 1];
+      System.arraycopy(values, 0, inserted, 0, index);
+      System.arraycopy(values, index, inserted, index + 1, values.length - index);
+      return inserted;
+    }
+  }
+
+  private record StatisticsKey(Long bankAccountId, Long transactionCategoryId) {}
+}
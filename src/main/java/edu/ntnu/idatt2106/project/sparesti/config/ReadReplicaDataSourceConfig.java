@@ -0,0 +1,62 @@
+package edu.ntnu.idatt2106.project.sparesti.config;
+
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Configuration routing read-only transactions to a read replica of the database. Only active when
+ * sparesti.datasource.replica.url is set; the replica is configured with the same keys as
+ * spring.datasource, under sparesti.datasource.replica. Without a replica, read-only transactions
+ * run against the primary database like any other transaction.
+ */
+@Configuration
+@ConditionalOnProperty("sparesti.datasource.replica.url")
+public class ReadReplicaDataSourceConfig {
+
+  /**
+   * Creates the connection settings of the primary database from spring.datasource.
+   *
+   * @return The settings of the primary database.
+   */
+  @Bean
+  @Primary
+  @ConfigurationProperties("spring.datasource")
+  public DataSourceProperties primaryDataSourceProperties() {
+    return new DataSourceProperties();
+  }
+
+  /**
+   * Creates the connection settings of the read replica from sparesti.datasource.replica.
+   *
+   * @return The settings of the read replica.
+   */
+  @Bean
+  @ConfigurationProperties("sparesti.datasource.replica")
+  public DataSourceProperties replicaDataSourceProperties() {
+    return new DataSourceProperties();
+  }
+
+  /**
+   * Creates the data source used by the application. Connections are only fetched when the first
+   * statement is run, from the replica if the transaction is read-only and from the primary
+   * database otherwise.
+   *
+   * @return The routing data source.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource() {
+    LazyConnectionDataSourceProxy dataSource =
+        new LazyConnectionDataSourceProxy(
+            primaryDataSourceProperties().initializeDataSourceBuilder().build());
+    dataSource.setReadOnlyDataSource(
+        replicaDataSourceProperties().initializeDataSourceBuilder().build());
+    return dataSource;
+  }
+}
@@ -1,10 +1,16 @@
 package edu.ntnu.idatt2106.project.sparesti.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.ProjectedDailyExpenseDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.SpendingStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchResultDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
 import edu.ntnu.idatt2106.project.sparesti.security.UserInfoFromTokenService;
 import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
+import edu.ntnu.idatt2106.project.sparesti.services.IdempotencyService;
+import edu.ntnu.idatt2106.project.sparesti.services.impl.TransactionBatchReader;
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +19,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -28,6 +35,8 @@ public class BankAccountController {
 
   private final BankAccountService bankAccountService;
   private final UserInfoFromTokenService userInfoFromTokenService;
+  private final ObjectMapper objectMapper;
+  private final IdempotencyService idempotencyService;
 
   /**
    * Constructs a BankAccountController with a dependency on BankAccountService and the
@@ -36,12 +45,19 @@ public class BankAccountController {
    * @param bankAccountService The service that handles the business logic for bank account
    *     operations
    * @param userInfoFromTokenService The service that validates tokens.
+   * @param objectMapper The object mapper used to read streamed transaction batches.
+   * @param idempotencyService The service that replays retried requests.
    */
   @Autowired
   public BankAccountController(
-      BankAccountService bankAccountService, UserInfoFromTokenService userInfoFromTokenService) {
+      BankAccountService bankAccountService,
+      UserInfoFromTokenService userInfoFromTokenService,
+      ObjectMapper objectMapper,
+      IdempotencyService idempotencyService) {
     this.bankAccountService = bankAccountService;
     this.userInfoFromTokenService = userInfoFromTokenService;
+    this.objectMapper = objectMapper;
+    this.idempotencyService = idempotencyService;
   }
 
   /**
@@ -52,15 +68,54 @@ public class BankAccountController {
    *     correspond to an existing account.
    * @param transactionDto The data transfer object containing all required details of the
    *     transaction to be added.
+   * @param idempotencyKey An optional key chosen by the client. A retry with the same key gets the
+   *     response of the first request instead of adding the transaction again. Keys are scoped to
+   *     the authenticated user, so clients of different users cannot replay each other's responses.
+   * @param request the HttpServletRequest, used to read the authenticated user from the token.
    * @return ResponseEntity containing a success message and HTTP status code if the transaction is
    *     successfully added, or an error message and status code if an error occurs.
    */
   @PostMapping("/{accountId}/transactions")
   public ResponseEntity<String> addTransactionToAccount(
-      @PathVariable Long accountId, @RequestBody TransactionDto transactionDto) {
-    bankAccountService.addTransactionToAccount(accountId, transactionDto);
-    return new ResponseEntity<>(
-        "Transaction successfully added to the account.", HttpStatus.CREATED);
+      @PathVariable Long accountId,
+      @RequestBody TransactionDto transactionDto,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+      HttpServletRequest request) {
+    return idempotencyService.execute(
+        "subjects/"
+            + userInfoFromTokenService.getSubFromAccessToken(request)
+            + "/accounts/"
+            + accountId
+            + "/transactions",
+        idempotencyKey,
+        transactionDto,
+        String.class,
+        () -> {
+          bankAccountService.addTransactionToAccount(accountId, transactionDto);
+          return new ResponseEntity<>(
+              "Transaction successfully added to the account.", HttpStatus.CREATED);
+        });
+  }
+
+  /**
+   * Adds a batch of transactions to a specified bank account. The body is either a JSON array of
+   * transactions or newline-delimited JSON with one transaction per line, and is read as a stream.
+   * Rows that are invalid are reported in the response instead of rejecting the whole batch.
+   *
+   * @param accountId The ID of the bank account to which the transactions are to be added.
+   * @param request The request whose body holds the transactions.
+   * @return ResponseEntity containing the number of rows received and added, the net change of the
+   *     balance and the rows that were rejected.
+   * @throws IOException If the request body cannot be read.
+   */
+  @PostMapping("/{accountId}/transactions/batch")
+  public ResponseEntity<TransactionBatchResultDto> addTransactionBatchToAccount(
+      @PathVariable Long accountId, HttpServletRequest request) throws IOException {
+    try (TransactionBatchReader rows =
+        new TransactionBatchReader(objectMapper, request.getInputStream())) {
+      return new ResponseEntity<>(
+          bankAccountService.addTransactionBatchToAccount(accountId, rows), HttpStatus.CREATED);
+    }
   }
 
   /**
@@ -91,4 +146,31 @@ public class BankAccountController {
             bankAccountService.getAverageExpenditureOnCategory(accountId, categoryId, 1)),
         HttpStatus.OK);
   }
+
+  /**
+   * Retrieves the spending statistics of a specific user, account, and category: the rolling 7, 30
+   * and 90 day sums, and the moving average, median and 90th percentile of the weekly spending.
+   *
+   * @param username the username to validate for data access.
+   * @param accountId the ID of the bank account from which to fetch the statistics.
+   * @param categoryId the ID of the category to fetch the statistics of.
+   * @param request the HttpServletRequest, used for authorization purposes.
+   * @return a {@link ResponseEntity} containing a {@link SpendingStatisticsDto} if the user is
+   *     authorized, or a forbidden status if the user is not authorized to access the data.
+   */
+  @CrossOrigin("http://localhost:5173")
+  @GetMapping("/{username}/{accountId}/{categoryId}/spending-statistics")
+  public ResponseEntity<SpendingStatisticsDto> getSpendingStatistics(
+      @PathVariable String username,
+      @PathVariable Long accountId,
+      @PathVariable Long categoryId,
+      HttpServletRequest request) {
+
+    if (!userInfoFromTokenService.validateUserAuthorization(request, username)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    return new ResponseEntity<>(
+        bankAccountService.getSpendingStatistics(accountId, categoryId), HttpStatus.OK);
+  }
 }
@@ -0,0 +1,40 @@
+package edu.ntnu.idatt2106.project.sparesti.controllers;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.CacheStatisticsProvider;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller exposing the statistics of the in-memory caches, such as how often lookups are
+ * answered from memory and how often the caches are rebuilt.
+ */
+@RestController
+public class CacheStatisticsController {
+
+  private List<CacheStatisticsProvider> cacheStatisticsProviders;
+
+  /**
+   * Constructs a new CacheStatisticsController with the caches to report on.
+   *
+   * @param cacheStatisticsProviders the in-memory caches exposing their statistics
+   */
+  public CacheStatisticsController(List<CacheStatisticsProvider> cacheStatisticsProviders) {
+    this.cacheStatisticsProviders = cacheStatisticsProviders;
+  }
+
+  /**
+   * Retrieves the current statistics of every in-memory cache.
+   *
+   * @return a list of {@link CacheStatisticsDto}, one for each cache
+   */
+  @CrossOrigin("http://localhost:5173")
+  @GetMapping("api/secure/cache-statistics")
+  public ResponseEntity<List<CacheStatisticsDto>> getCacheStatistics() {
+    return ResponseEntity.ok(
+        cacheStatisticsProviders.stream().map(CacheStatisticsProvider::getStatistics).toList());
+  }
+}
@@ -4,6 +4,7 @@ import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingCha
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoDetailsResponse;
 import edu.ntnu.idatt2106.project.sparesti.security.UserInfoFromTokenService;
+import edu.ntnu.idatt2106.project.sparesti.services.IdempotencyService;
 import edu.ntnu.idatt2106.project.sparesti.services.SavingChallengeService;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -26,11 +28,22 @@ public class SavingChallengeController {
 
   private UserInfoFromTokenService userInfoFromTokenService;
 
+  private final IdempotencyService idempotencyService;
+
+  /**
+   * Constructs a SavingChallengeController with its dependencies.
+   *
+   * @param savingChallengeService The service handling saving challenges.
+   * @param userInfoFromTokenService The service that validates tokens.
+   * @param idempotencyService The service that replays retried requests.
+   */
   public SavingChallengeController(
       SavingChallengeService savingChallengeService,
-      UserInfoFromTokenService userInfoFromTokenService) {
+      UserInfoFromTokenService userInfoFromTokenService,
+      IdempotencyService idempotencyService) {
     this.savingChallengeService = savingChallengeService;
     this.userInfoFromTokenService = userInfoFromTokenService;
+    this.idempotencyService = idempotencyService;
   }
 
   /**
@@ -58,6 +71,32 @@ public class SavingChallengeController {
     return new ResponseEntity<>(createdChallenge, HttpStatus.CREATED);
   }
 
+  /**
+   * Endpoint responsible for creating several saving challenges at once and assigning them to a
+   * saving goal. Either all challenges are created, or none.
+   *
+   * @param savingChallengeDtos The saving challenges to be created
+   * @param goalId ID of the goal to assign the challenges to
+   * @return The created saving challenges, in the order they were sent
+   */
+  @CrossOrigin("http://localhost:5173")
+  @PostMapping("api/secure/users/{username}/goals/{goalId}/challenges/batch")
+  public ResponseEntity<List<SavingChallengeResponseDto>> createSavingChallenges(
+      @RequestBody List<SavingChallengeRequestDto> savingChallengeDtos,
+      @PathVariable String goalId,
+      @PathVariable String username,
+      HttpServletRequest request) {
+
+    // Validate user authorization
+    if (!userInfoFromTokenService.validateUserAuthorization(request, username)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    List<SavingChallengeResponseDto> createdChallenges =
+        savingChallengeService.createSavingChallenges(savingChallengeDtos, Long.parseLong(goalId));
+    return new ResponseEntity<>(createdChallenges, HttpStatus.CREATED);
+  }
+
   /**
    * Gets only a list of challenges in a savings goal, with no other information about the goal.
    *
@@ -108,19 +147,30 @@ public class SavingChallengeController {
    * Processes the challenge as complete through the SavingChallengeService.
    *
    * @param challengeId the id for the challenge to complete.
+   * @param idempotencyKey an optional key chosen by the client. A retry with the same key gets the
+   *     response of the first request instead of transferring the savings again.
    * @return a response dto containing data about the completed challenge, including the amount
    *     saved throughout the challenge.
    */
   @CrossOrigin("http://localhost:5173")
   @PostMapping("api/secure/users/{username}/{challengeId}/transfer")
   public ResponseEntity<SavingChallengeResponseDto> completeChallenge(
-      @PathVariable String username, @PathVariable Long challengeId, HttpServletRequest request) {
+      @PathVariable String username,
+      @PathVariable Long challengeId,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+      HttpServletRequest request) {
     if (!userInfoFromTokenService.validateUserAuthorization(request, username)) {
       return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
     }
 
-    return new ResponseEntity<>(
-        savingChallengeService.finishChallenge(challengeId, username), HttpStatus.OK);
+    return idempotencyService.execute(
+        "users/" + username + "/" + challengeId + "/transfer",
+        idempotencyKey,
+        null,
+        SavingChallengeResponseDto.class,
+        () ->
+            new ResponseEntity<>(
+                savingChallengeService.finishChallenge(challengeId, username), HttpStatus.OK));
   }
 
   /**
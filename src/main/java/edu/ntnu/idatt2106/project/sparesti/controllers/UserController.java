@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -33,6 +34,8 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping("api/secure/users")
 @RestController
 public class UserController {
+  private static final int DEFAULT_LEADERBOARD_PAGE_SIZE = 10;
+
   /** Used for Dependency Injection. */
   private final UserService userService;
 
@@ -50,16 +53,22 @@ public class UserController {
   }
 
   /**
-   * Endpoint for checking if a user exists and save if not.
+   * Endpoint for checking if a user exists and save if not. This is the login hook: the client
+   * calls it every time a user logs in, so every call records a login of the user the access token
+   * belongs to, if they already exist. The user is found by the sub claim of the token, never by
+   * the body, so a caller cannot record the login of another user.
    *
    * @param userDto the user dto to potentially save.
+   * @param request the HttpServletRequest, used to read the sub claim of the access token.
    * @return the new saved user or an error response.
    */
   @PostMapping
   public ResponseEntity<UserDto> saveUser(
       @RequestBody UserDto userDto, HttpServletRequest request) {
     try {
-      userDto.setSubId(userInfoFromTokenService.getSubFromAccessToken(request));
+      String subId = userInfoFromTokenService.getSubFromAccessToken(request);
+      userDto.setSubId(subId);
+      userService.recordLogin(subId);
       UserDto savedUser = userService.createUserWithDefaultBankAccounts(userDto);
       return new ResponseEntity<>(savedUser, HttpStatus.CREATED);
     } catch (Exception e) {
@@ -125,13 +134,41 @@ public class UserController {
   }
 
   /**
-   * Endpoint for getting the global leaderboard of user based on points.
+   * Endpoint for getting the global leaderboard of users based on points. Without page and size,
+   * the whole leaderboard is returned, as before the leaderboard was paged. With either of them, a
+   * single page is returned, where the page defaults to 0 and the size to 10.
    *
-   * @return list of users in point-descending order.
+   * @param page The number of the page, starting at 0.
+   * @param size The number of users on a page, at most 100.
+   * @return list of users on the page, or of every user, in point-descending order, with their
+   *     ranks.
    */
   @CrossOrigin("http://localhost:5173")
   @GetMapping("/leaderboard")
-  public ResponseEntity<List<UserLeaderboardDto>> getGlobalLeaderboard() {
-    return new ResponseEntity<>(userService.getGlobalLeaderboard(), HttpStatus.OK);
+  public ResponseEntity<List<UserLeaderboardDto>> getGlobalLeaderboard(
+      @RequestParam(required = false) Integer page, @RequestParam(required = false) Integer size) {
+    if (page == null && size == null) {
+      return new ResponseEntity<>(userService.getGlobalLeaderboard(), HttpStatus.OK);
+    }
+    return new ResponseEntity<>(
+        userService.getGlobalLeaderboard(
+            page == null ? 0 : page, size == null ? DEFAULT_LEADERBOARD_PAGE_SIZE : size),
+        HttpStatus.OK);
+  }
+
+  /**
+   * Endpoint for getting the rank of a user on the global leaderboard, with the users right above
+   * and below them.
+   *
+   * @param username Username of the user to get the rank of
+   * @param neighbours The number of users to include above and below the user, at most 50.
+   * @return list of users around the user in point-descending order, with their ranks.
+   */
+  @CrossOrigin("http://localhost:5173")
+  @GetMapping("/leaderboard/{username}")
+  public ResponseEntity<List<UserLeaderboardDto>> getLeaderboardAroundUser(
+      @PathVariable String username, @RequestParam(defaultValue = "2") int neighbours) {
+    return new ResponseEntity<>(
+        userService.getLeaderboardAroundUser(username, neighbours), HttpStatus.OK);
   }
 }
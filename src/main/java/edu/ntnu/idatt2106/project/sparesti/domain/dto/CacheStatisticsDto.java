@@ -0,0 +1,36 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A dto holding the statistics of an in-memory cache: how many entries it holds, how many lookups
+ * were answered from memory and from the database, how many times it has been rebuilt, and, for
+ * caches that measure it, the average time it took to load an entry on a miss.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatisticsDto {
+  private String name;
+  private int size;
+  private long hits;
+  private long misses;
+  private long rebuilds;
+  private double averageLoadMillis;
+
+  /**
+   * Gets the share of the lookups that were answered from memory.
+   *
+   * @return The hit ratio, between 0 and 1, or 0 if there have been no lookups.
+   */
+  public double getHitRatio() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+}
@@ -0,0 +1,22 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Data Transfer Object (DTO) for carrying the total amount spent within a single transaction
+ * category. Used as the result of aggregate queries, so the individual transactions never have to
+ * be loaded to compute a category total.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorySpendingDto {
+  private Long categoryId;
+  private Double totalSpent;
+}
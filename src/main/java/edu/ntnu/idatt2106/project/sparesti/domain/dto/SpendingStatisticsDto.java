@@ -0,0 +1,28 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A dto holding the spending statistics of one account in one transaction category. The rolling
+ * sums cover the given number of days, today included, so the last 7 days are today and the 6 days
+ * before it. The weekly figures are computed from the spending of the full weeks, Monday to Sunday,
+ * before the current week.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingStatisticsDto {
+  private double spentLast7Days;
+  private double spentLast30Days;
+  private double spentLast90Days;
+  private double weeklyAverage;
+  private double weeklyMedian;
+  private double weeklyNinetiethPercentile;
+  private long weeksCounted;
+}
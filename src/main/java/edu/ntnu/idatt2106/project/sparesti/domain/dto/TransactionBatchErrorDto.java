@@ -0,0 +1,18 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** A dto holding the reason a row of a transaction batch was rejected. */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchErrorDto {
+  private int index;
+  private String message;
+}
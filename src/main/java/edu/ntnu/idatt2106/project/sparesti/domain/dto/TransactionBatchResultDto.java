@@ -0,0 +1,25 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A dto holding the outcome of a transaction batch: how many rows were received and added, the net
+ * change of the account balance, and the rows that were rejected.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchResultDto {
+  private int received;
+  private int accepted;
+  private double balanceChange;
+  @Builder.Default private List<TransactionBatchErrorDto> errors = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A dto holding one row of a transaction batch: its position in the batch, and either the parsed
+ * transaction or the reason it could not be read.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchRowDto {
+  private int index;
+  private TransactionDto transaction;
+  private String error;
+}
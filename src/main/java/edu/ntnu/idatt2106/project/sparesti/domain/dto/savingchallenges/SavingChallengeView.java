@@ -0,0 +1,37 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * A read-only projection of a saving challenge, holding the columns needed to list it together with
+ * the ids of the source account of its goal and of its category. Read with a single query instead
+ * of loading the challenge, its goal and its category as entities.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class SavingChallengeView {
+  private Long id;
+
+  private Integer expectedExpense;
+
+  private Integer spendingGoal;
+
+  private LocalDate startDate;
+
+  private LocalDate endingDate;
+
+  private ChallengeState state;
+
+  private Double amountSaved;
+
+  private Long sourceBankAccountId;
+
+  private Long transactionCategoryId;
+
+  private String transactionCategoryName;
+}
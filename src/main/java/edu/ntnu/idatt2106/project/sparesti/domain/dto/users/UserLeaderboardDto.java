@@ -12,4 +12,32 @@ import lombok.Setter;
 @NoArgsConstructor
 public class UserLeaderboardDto extends UserDto {
   private Integer currentStreak;
+
+  /** The position of the user on the leaderboard, starting at 1. */
+  private Integer rank;
+
+  /**
+   * Constructs a leaderboard entry without a rank, as read from the database.
+   *
+   * @param id The id of the user.
+   * @param username The username of the user.
+   * @param email The email of the user.
+   * @param fullName The full name of the user.
+   * @param imageUrl The profile picture url of the user.
+   * @param score The score of the user.
+   * @param subId The sub id of the user.
+   * @param currentStreak The current streak of the user.
+   */
+  public UserLeaderboardDto(
+      Long id,
+      String username,
+      String email,
+      String fullName,
+      String imageUrl,
+      int score,
+      String subId,
+      Integer currentStreak) {
+    super(id, username, email, fullName, imageUrl, score, subId);
+    this.currentStreak = currentStreak;
+  }
 }
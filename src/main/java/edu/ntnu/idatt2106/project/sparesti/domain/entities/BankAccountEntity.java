@@ -32,6 +32,9 @@ public class BankAccountEntity {
 
   private double sum;
 
+  /** Increased every time the balance changes, so caches can tell when the account was used. */
+  private long activityVersion;
+
   @OneToMany(
       mappedBy = "bankAccount",
       cascade = CascadeType.ALL,
@@ -0,0 +1,32 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.entities;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An Entity holding the total amount spent on one account, in one transaction category, on one day.
+ * The rows are a rollup of the negative transactions in the transaction table, kept up to date when
+ * transactions are added, so that spending over a period can be summed per day instead of per
+ * transaction. The spent amount is stored as a positive number.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@Table(name = "daily_spending")
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailySpendingEntity {
+
+  @EmbeddedId private DailySpendingId id;
+
+  private double spent;
+
+  private long transactionCount;
+}
@@ -0,0 +1,30 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Composite key of a {@link DailySpendingEntity}: one row per account, category and day. */
+@Embeddable
+@Getter
+@Setter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySpendingId implements Serializable {
+
+  @Column(name = "bank_account_id")
+  private Long bankAccountId;
+
+  @Column(name = "transaction_category_id")
+  private Long transactionCategoryId;
+
+  @Column(name = "spending_day")
+  private LocalDate spendingDay;
+}
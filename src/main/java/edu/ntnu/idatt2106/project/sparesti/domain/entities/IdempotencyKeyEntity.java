@@ -0,0 +1,45 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An Entity holding the response of a request that was sent with an idempotency key, so that
+ * retries of the request get the same response instead of repeating the request. The id is the
+ * scope of the request combined with the key, so the same key can be used on different endpoints.
+ * The version starts out null, which makes saving a new key an insert that fails if the key is
+ * already stored. The hash of the request body is stored with the key, so a request that reuses a
+ * key with a different body can be rejected.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@Table(name = "idempotency_key")
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyKeyEntity {
+
+  @Id private String id;
+
+  @Version private Long version;
+
+  @Column(length = 64)
+  private String requestHash;
+
+  private int status;
+
+  @Column(columnDefinition = "longtext")
+  private String body;
+
+  private LocalDateTime createdAt;
+}
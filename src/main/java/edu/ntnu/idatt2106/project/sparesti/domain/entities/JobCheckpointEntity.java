@@ -0,0 +1,32 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An Entity holding how far a batch job has come. Every key up to and including the last key has
+ * been processed and committed, so a job that is restarted continues after it. The checkpoint is
+ * deleted when the job finishes, so the next run starts from the beginning.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@Table(name = "job_checkpoint")
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobCheckpointEntity {
+
+  @Id private String jobName;
+
+  private long lastKey;
+
+  private LocalDateTime updatedAt;
+}
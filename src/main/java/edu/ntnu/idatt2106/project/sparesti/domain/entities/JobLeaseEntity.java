@@ -0,0 +1,32 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An Entity holding which instance of the application is running a batch job. The owner renews the
+ * heartbeat while the job runs, and clears the owner when it is done. A lease without an owner, or
+ * whose heartbeat is older than the lease timeout, may be claimed by any instance.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@Table(name = "job_lease")
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobLeaseEntity {
+
+  @Id private String jobName;
+
+  private String owner;
+
+  private LocalDateTime heartbeatAt;
+}
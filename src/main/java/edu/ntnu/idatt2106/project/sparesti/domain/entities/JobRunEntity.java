@@ -0,0 +1,51 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.entities;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.JobRunStatus;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An Entity holding the history of one run of a batch job: when it started, how long it took, how
+ * many rows it processed and how many of them failed, and which instance of the application ran it.
+ * A run that is still RUNNING when an instance starts, and whose instance no longer holds a live
+ * lease, was cut short by a restart, and is marked as INTERRUPTED.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@Table(name = "job_run")
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobRunEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE)
+  private Long id;
+
+  private String jobName;
+
+  private String owner;
+
+  private LocalDateTime startedAt;
+
+  private Long durationMillis;
+
+  private long rowsProcessed;
+
+  private long failures;
+
+  @Enumerated(EnumType.STRING)
+  private JobRunStatus status;
+}
@@ -8,6 +8,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -21,9 +22,17 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-/** An Entity holding information about a saving challenge Object. */
+/**
+ * An Entity holding information about a saving challenge Object. Indexed on goal, state and
+ * category, which is the access path of the checks for challenges in progress in a category.
+ */
 @Entity
-@Table(name = "savings_challenge")
+@Table(
+    name = "savings_challenge",
+    indexes =
+        @Index(
+            name = "idx_savings_challenge_goal_state_category",
+            columnList = "savings_goal_id, state, transaction_category_id"))
 @Builder
 @Getter
 @Setter
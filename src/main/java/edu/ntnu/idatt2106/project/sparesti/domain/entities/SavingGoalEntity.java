@@ -11,6 +11,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -26,9 +27,15 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-/** An Entity holding information about a saving goal Object. */
+/**
+ * An Entity holding information about a saving goal Object. Indexed on state and ending date, which
+ * is the access path of the job that settles the goals in progress that are due.
+ */
 @Entity
-@Table(name = "savings_goal")
+@Table(
+    name = "savings_goal",
+    indexes =
+        @Index(name = "idx_savings_goal_state_ending_date", columnList = "state, ending_date"))
 @Getter
 @Setter
 @Builder
@@ -5,6 +5,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -15,12 +16,20 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-/** An Entity holding information about a transaction Object. */
+/**
+ * An Entity holding information about a transaction Object. Indexed on account, category and date,
+ * which is the access path of the spending aggregates.
+ */
 @Entity
 @Getter
 @Setter
 @Builder
-@Table(name = "transaction")
+@Table(
+    name = "transaction",
+    indexes =
+        @Index(
+            name = "idx_transaction_account_category_date",
+            columnList = "bank_account_id, transaction_category_id, date"))
 @AllArgsConstructor
 @NoArgsConstructor
 public class TransactionEntity {
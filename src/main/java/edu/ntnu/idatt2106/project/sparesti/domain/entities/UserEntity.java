@@ -6,14 +6,17 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 import lombok.AllArgsConstructor;
@@ -23,12 +26,17 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-/** An Entity holding information about a user Object. */
+/**
+ * An Entity holding information about a user Object. Indexed on username, which is how the users of
+ * requests are looked up.
+ */
 @Getter
 @Setter
 @Builder
 @Entity
-@Table(name = "user_entity")
+@Table(
+    name = "user_entity",
+    indexes = @Index(name = "idx_user_entity_username", columnList = "username"))
 @AllArgsConstructor
 @NoArgsConstructor
 public class UserEntity {
@@ -86,6 +94,15 @@ public class UserEntity {
   @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
   private List<CompletedBadgeEntity> completedBadges;
 
+  /** The completed badges as a bitset of the ordinals in the badge catalog. */
+  private byte[] completedBadgeMask;
+
+  /** The layout of the badge catalog the completed badge mask was built for. */
+  private Integer completedBadgeLayout;
+
+  /** The decoded completed badge mask, kept while the user is loaded. */
+  @Transient private BitSet completedBadgeBits;
+
   /**
    * Adds a bank account to the list of bank accounts for this user. If the list is null, it
    * initializes a new list before adding the bank account. Sets the user reference in the bank
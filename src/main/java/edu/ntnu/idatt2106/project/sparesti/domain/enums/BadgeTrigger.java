@@ -0,0 +1,10 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.enums;
+
+/** Enum that represents the events of a user that badges can be awarded for. */
+public enum BadgeTrigger {
+  CHALLENGE_FINISHED,
+  GOAL_COMPLETED,
+  STREAK_CHANGED,
+  AMOUNT_SAVED,
+  LOGIN
+}
@@ -0,0 +1,9 @@
+package edu.ntnu.idatt2106.project.sparesti.domain.enums;
+
+/** Enum that represents the state of a JobRunEntity. */
+public enum JobRunStatus {
+  RUNNING,
+  COMPLETED,
+  FAILED,
+  INTERRUPTED
+}
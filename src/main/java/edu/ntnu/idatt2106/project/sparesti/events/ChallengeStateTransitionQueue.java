@@ -0,0 +1,58 @@
+package edu.ntnu.idatt2106.project.sparesti.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queue of saving challenges that were found to have failed or ended while they were being read,
+ * and whose state has not yet been updated. The read paths only derive the new state of such a
+ * challenge and queue it, so that reads never write, and the queue is drained in batches that are
+ * settled with bulk updates. A challenge is queued at most once until it is drained.
+ */
+@Component
+public class ChallengeStateTransitionQueue {
+
+  private final Queue<Long> queue = new ConcurrentLinkedQueue<>();
+  private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Queues a challenge for its state to be updated, unless it is already queued.
+   *
+   * @param challengeId The id of the challenge.
+   */
+  public void offer(Long challengeId) {
+    if (queued.add(challengeId)) {
+      queue.add(challengeId);
+    }
+  }
+
+  /**
+   * Takes up to a given number of challenges off the queue, in the order they were queued.
+   *
+   * @param limit The maximum number of challenges to take.
+   * @return The ids of the challenges taken off the queue.
+   */
+  public List<Long> drain(int limit) {
+    List<Long> challengeIds = new ArrayList<>();
+    Long challengeId;
+    while (challengeIds.size() < limit && (challengeId = queue.poll()) != null) {
+      queued.remove(challengeId);
+      challengeIds.add(challengeId);
+    }
+    return challengeIds;
+  }
+
+  /**
+   * Gets the number of challenges waiting in the queue.
+   *
+   * @return The number of queued challenges.
+   */
+  public int size() {
+    return queued.size();
+  }
+}
@@ -0,0 +1,38 @@
+package edu.ntnu.idatt2106.project.sparesti.events;
+
+import edu.ntnu.idatt2106.project.sparesti.services.SavingChallengeService;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-evaluates the saving challenges affected by a new expense by leveraging the {@link
+ * SavingChallengeService}. The listener runs synchronously within the transaction that recorded the
+ * expense, so a challenge is marked as FAILED in the same transaction as the expense that made it
+ * overspend.
+ */
+@Component
+public class SavingChallengeTransactionListener {
+
+  private SavingChallengeService savingChallengeService;
+
+  /**
+   * Creates a new instance of SavingChallengeTransactionListener.
+   *
+   * @param savingChallengeService The service responsible for managing saving challenge operations,
+   *     provided via dependency injection.
+   */
+  public SavingChallengeTransactionListener(SavingChallengeService savingChallengeService) {
+    this.savingChallengeService = savingChallengeService;
+  }
+
+  /**
+   * Fails the challenges that the recorded expense made overspend.
+   *
+   * @param event The event of the recorded expense.
+   */
+  @EventListener
+  public void onTransactionRecorded(TransactionRecordedEvent event) {
+    savingChallengeService.failOverspentChallenges(
+        event.getBankAccountId(), event.getTransactionCategoryId());
+  }
+}
@@ -0,0 +1,59 @@
+package edu.ntnu.idatt2106.project.sparesti.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queue of users with saving goals that were found to be due while they were being listed, and
+ * whose state has not yet been updated. The goals are queued by user, since completing a goal also
+ * updates the badges of its user, and the goals of one user are settled together. The listing only
+ * derives the new state of a due goal and queues its user, so that reads never write. A user is
+ * queued at most once until it is drained.
+ */
+@Component
+public class SavingGoalStateTransitionQueue {
+
+  private final Queue<Long> queue = new ConcurrentLinkedQueue<>();
+  private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Queues a user for their due saving goals to be settled, unless the user is already queued.
+   *
+   * @param userId The id of the user.
+   */
+  public void offer(Long userId) {
+    if (queued.add(userId)) {
+      queue.add(userId);
+    }
+  }
+
+  /**
+   * Takes up to a given number of users off the queue, in the order they were queued.
+   *
+   * @param limit The maximum number of users to take.
+   * @return The ids of the users taken off the queue.
+   */
+  public List<Long> drain(int limit) {
+    List<Long> userIds = new ArrayList<>();
+    Long userId;
+    while (userIds.size() < limit && (userId = queue.poll()) != null) {
+      queued.remove(userId);
+      userIds.add(userId);
+    }
+    return userIds;
+  }
+
+  /**
+   * Gets the number of users waiting in the queue.
+   *
+   * @return The number of queued users.
+   */
+  public int size() {
+    return queued.size();
+  }
+}
@@ -0,0 +1,23 @@
+package edu.ntnu.idatt2106.project.sparesti.events;
+
+import java.time.LocalDate;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Event published when expenses have been recorded on a bank account, after the daily spending
+ * rollup has been updated but before the transaction commits. Published once per category, so a
+ * batch of transactions publishes one event for each category it spends on.
+ */
+@Value
+public class TransactionRecordedEvent {
+
+  /** The id of the bank account the expenses were recorded on. */
+  Long bankAccountId;
+
+  /** The id of the category of the expenses. */
+  Long transactionCategoryId;
+
+  /** The amount spent on each day, as a positive number. */
+  Map<LocalDate, Double> spentPerDay;
+}
@@ -0,0 +1,37 @@
+package edu.ntnu.idatt2106.project.sparesti.jobs;
+
+import java.util.List;
+
+/**
+ * A job that processes rows in chunks, run by the {@link BatchJobRunner}. Rows are identified by a
+ * key that increases in the order the rows are read, so the job can be resumed after the last key
+ * that was processed.
+ */
+public interface BatchJob {
+
+  /**
+   * Gets the name of the job, which identifies its checkpoint and its run history.
+   *
+   * @return The name of the job.
+   */
+  String getName();
+
+  /**
+   * Reads the keys of the next chunk of rows to process.
+   *
+   * @param afterKey The key after which to read, or 0 to read from the beginning.
+   * @param limit The maximum number of keys to read.
+   * @return The keys of the next chunk in ascending order, or an empty list if there are no more
+   *     rows to process.
+   */
+  List<Long> readChunk(long afterKey, int limit);
+
+  /**
+   * Processes a chunk of rows. Is called within a transaction, which is committed when the chunk
+   * has been processed. Chunks may be processed in parallel, so the rows of different chunks must
+   * not share state that is updated.
+   *
+   * @param keys The keys of the rows to process.
+   */
+  void processChunk(List<Long> keys);
+}
@@ -0,0 +1,355 @@
+package edu.ntnu.idatt2106.project.sparesti.jobs;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobCheckpointEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobLeaseEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobRunEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.JobRunStatus;
+import edu.ntnu.idatt2106.project.sparesti.repositories.JobCheckpointRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.JobLeaseRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.JobRunRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs {@link BatchJob}s in chunks. Chunks are read one after another by key, and are processed in
+ * parallel on virtual threads, each in its own transaction. How many chunks are processed at once
+ * and how many rows a chunk holds are set by the properties sparesti.jobs.parallelism and
+ * sparesti.jobs.chunk-size.
+ *
+ * <p>After each chunk, the last key before which every chunk has been committed is stored as the
+ * checkpoint of the job, so a job that is cut short by a restart continues from there when the
+ * application starts again. If a chunk fails, its rows are retried one by one, and the rows that
+ * still fail are counted as failures of the run instead of stopping the job. Anything else that
+ * goes wrong while processing a chunk, such as an error or a failure to store the checkpoint, stops
+ * the job and marks the run as FAILED, keeping the checkpoint. Every run is recorded with its
+ * duration, the number of rows processed and the number of failures.
+ *
+ * <p>A job is only run by one instance of the application at a time. Before running or resuming a
+ * job, the instance claims its lease in the database, which only succeeds if no other instance
+ * holds it or the heartbeat of the holder is older than sparesti.jobs.lease-timeout milliseconds.
+ * The heartbeat is renewed after every chunk, and a run whose lease was taken over by another
+ * instance stops and is marked as FAILED.
+ */
+@Log
+@Component
+public class BatchJobRunner {
+
+  private final List<BatchJob> jobs;
+  private final JobRunRepository jobRunRepository;
+  private final JobCheckpointRepository jobCheckpointRepository;
+  private final JobLeaseRepository jobLeaseRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final int parallelism;
+  private final int chunkSize;
+  private final Duration leaseTimeout;
+  private final String owner = UUID.randomUUID().toString();
+  private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Constructs a BatchJobRunner with necessary dependencies.
+   *
+   * @param jobs the jobs that are resumed when the application starts
+   * @param jobRunRepository repository for the run history
+   * @param jobCheckpointRepository repository for the checkpoints of the jobs
+   * @param jobLeaseRepository repository for the leases of the jobs
+   * @param transactionTemplate template running each chunk in its own transaction
+   * @param parallelism the maximum number of chunks processed at once
+   * @param chunkSize the maximum number of rows in a chunk
+   * @param leaseTimeoutMillis the time after which the lease of a job whose holder has not renewed
+   *     its heartbeat may be claimed by another instance
+   */
+  public BatchJobRunner(
+      List<BatchJob> jobs,
+      JobRunRepository jobRunRepository,
+      JobCheckpointRepository jobCheckpointRepository,
+      JobLeaseRepository jobLeaseRepository,
+      TransactionTemplate transactionTemplate,
+      @Value("${sparesti.jobs.parallelism:4}") int parallelism,
+      @Value("${sparesti.jobs.chunk-size:100}") int chunkSize,
+      @Value("${sparesti.jobs.lease-timeout:300000}") long leaseTimeoutMillis) {
+    this.jobs = jobs;
+    this.jobRunRepository = jobRunRepository;
+    this.jobCheckpointRepository = jobCheckpointRepository;
+    this.jobLeaseRepository = jobLeaseRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.parallelism = parallelism;
+    this.chunkSize = chunkSize;
+    this.leaseTimeout = Duration.ofMillis(leaseTimeoutMillis);
+  }
+
+  /**
+   * Marks the runs that were cut short by a restart as INTERRUPTED, and resumes the jobs that have
+   * a checkpoint in the background. Only the runs of instances that no longer hold a live lease are
+   * marked, and a job is only resumed if its lease can be claimed.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void resumeInterruptedJobs() {
+    LocalDateTime staleBefore = LocalDateTime.now().minus(leaseTimeout);
+    transactionTemplate.executeWithoutResult(
+        status ->
+            jobRunRepository.updateStatusOfStaleRuns(
+                JobRunStatus.RUNNING, JobRunStatus.INTERRUPTED, staleBefore));
+    for (BatchJob job : jobs) {
+      if (jobCheckpointRepository.existsById(job.getName())) {
+        log.info("Resuming interrupted job " + job.getName() + ".");
+        Thread.ofVirtual().name("job-" + job.getName()).start(() -> run(job));
+      }
+    }
+  }
+
+  /**
+   * Runs a job, continuing after its checkpoint if it has one. Returns once every chunk has been
+   * processed. A job is only run once at a time, so a call made while the job is already running on
+   * this or another instance returns null without running it.
+   *
+   * @param job The job to run.
+   * @return The recorded run, or null if the job was already running.
+   */
+  public JobRunEntity run(BatchJob job) {
+    if (!runningJobs.add(job.getName())) {
+      log.warning("Job " + job.getName() + " is already running.");
+      return null;
+    }
+    try {
+      if (!claimLease(job.getName())) {
+        log.info("Job " + job.getName() + " is running on another instance.");
+        return null;
+      }
+      try {
+        return execute(job);
+      } finally {
+        transactionTemplate.executeWithoutResult(
+            status -> jobLeaseRepository.release(job.getName(), owner));
+      }
+    } finally {
+      runningJobs.remove(job.getName());
+    }
+  }
+
+  /**
+   * Claims the lease of a job for this instance, creating the lease if the job has none.
+   *
+   * @param jobName The name of the job.
+   * @return Whether the lease was claimed.
+   */
+  private boolean claimLease(String jobName) {
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            if (!jobLeaseRepository.existsById(jobName)) {
+              jobLeaseRepository.saveAndFlush(JobLeaseEntity.builder().jobName(jobName).build());
+            }
+          });
+    } catch (DataIntegrityViolationException e) {
+      // Another instance created the lease at the same time.
+    }
+    LocalDateTime now = LocalDateTime.now();
+    Integer claimed =
+        transactionTemplate.execute(
+            status -> jobLeaseRepository.claim(jobName, owner, now, now.minus(leaseTimeout)));
+    return claimed != null && claimed == 1;
+  }
+
+  /**
+   * Runs a job and records the run.
+   *
+   * @param job The job to run.
+   * @return The recorded run.
+   */
+  private JobRunEntity execute(BatchJob job) {
+    Instant start = Instant.now();
+    JobRunEntity run =
+        jobRunRepository.save(
+            JobRunEntity.builder()
+                .jobName(job.getName())
+                .owner(owner)
+                .startedAt(LocalDateTime.now())
+                .status(JobRunStatus.RUNNING)
+                .build());
+    long checkpoint =
+        jobCheckpointRepository
+            .findById(job.getName())
+            .map(JobCheckpointEntity::getLastKey)
+            .orElse(0L);
+    Progress progress = new Progress(job.getName(), checkpoint);
+    AtomicLong rowsProcessed = new AtomicLong();
+    AtomicLong failures = new AtomicLong();
+    Semaphore permits = new Semaphore(parallelism);
+    JobRunStatus status = JobRunStatus.COMPLETED;
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      long afterKey = checkpoint;
+      List<Long> keys = job.readChunk(afterKey, chunkSize);
+      while (!keys.isEmpty() && progress.failure() == null) {
+        permits.acquire();
+        List<Long> chunk = keys;
+        long lastKey = chunk.get(chunk.size() - 1);
+        progress.started(lastKey);
+        executor.execute(
+            () -> {
+              try {
+                failures.addAndGet(processChunk(job, chunk));
+                rowsProcessed.addAndGet(chunk.size());
+                progress.finished(lastKey);
+              } catch (Throwable e) {
+                progress.failed(e);
+              } finally {
+                permits.release();
+              }
+            });
+        afterKey = lastKey;
+        keys = job.readChunk(afterKey, chunkSize);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      status = JobRunStatus.INTERRUPTED;
+    } catch (RuntimeException e) {
+      log.severe("Job " + job.getName() + " failed: " + e.getMessage());
+      status = JobRunStatus.FAILED;
+    }
+    if (progress.failure() != null) {
+      log.severe("Job " + job.getName() + " failed: " + progress.failure());
+      status = JobRunStatus.FAILED;
+    } else if (status == JobRunStatus.COMPLETED) {
+      jobCheckpointRepository.deleteById(job.getName());
+    }
+    run.setDurationMillis(Duration.between(start, Instant.now()).toMillis());
+    run.setRowsProcessed(rowsProcessed.get());
+    run.setFailures(failures.get());
+    run.setStatus(status);
+    log.info(
+        "Job "
+            + job.getName()
+            + " "
+            + status
+            + " after "
+            + run.getDurationMillis()
+            + " ms: "
+            + run.getRowsProcessed()
+            + " rows processed, "
+            + run.getFailures()
+            + " failed.");
+    return jobRunRepository.save(run);
+  }
+
+  /**
+   * Processes a chunk in one transaction. If the transaction fails, the rows of the chunk are
+   * retried one by one, each in its own transaction.
+   *
+   * @param job The job processing the chunk.
+   * @param keys The keys of the rows in the chunk.
+   * @return The number of rows that could not be processed.
+   */
+  private int processChunk(BatchJob job, List<Long> keys) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> job.processChunk(keys));
+      return 0;
+    } catch (RuntimeException e) {
+      if (keys.size() == 1) {
+        log.warning(
+            "Job " + job.getName() + " failed on row " + keys.get(0) + ": " + e.getMessage());
+        return 1;
+      }
+    }
+    int failures = 0;
+    for (Long key : keys) {
+      failures += processChunk(job, List.of(key));
+    }
+    return failures;
+  }
+
+  /**
+   * Tracks which chunks of a run are being processed, and stores the checkpoint whenever every
+   * chunk up to a later key has been committed. Chunks may finish out of order, so the checkpoint
+   * is the last key of the latest finished chunk that no unfinished chunk comes before. Guarded by
+   * a lock rather than synchronized, as the checkpoint is stored while holding it, and a virtual
+   * thread blocked on a query inside synchronized would pin its carrier thread. Also renews the
+   * lease of the job after every chunk, and holds the first failure of a chunk that was not a
+   * failure of its rows, which fails the run.
+   */
+  private class Progress {
+
+    private final Lock lock = new ReentrantLock();
+    private final String jobName;
+    private final TreeSet<Long> unfinished = new TreeSet<>();
+    private final TreeSet<Long> finished = new TreeSet<>();
+    private long checkpoint;
+    private volatile Throwable failure;
+
+    Progress(String jobName, long checkpoint) {
+      this.jobName = jobName;
+      this.checkpoint = checkpoint;
+    }
+
+    Throwable failure() {
+      return failure;
+    }
+
+    void failed(Throwable e) {
+      lock.lock();
+      try {
+        if (failure == null) {
+          failure = e;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void started(long lastKey) {
+      lock.lock();
+      try {
+        unfinished.add(lastKey);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void finished(long lastKey) {
+      lock.lock();
+      try {
+        Integer renewed =
+            transactionTemplate.execute(
+                status -> jobLeaseRepository.renew(jobName, owner, LocalDateTime.now()));
+        if (renewed == null || renewed != 1) {
+          throw new IllegalStateException("The lease of the job was taken over.");
+        }
+        unfinished.remove(lastKey);
+        finished.add(lastKey);
+        Long committed =
+            unfinished.isEmpty() ? finished.last() : finished.lower(unfinished.first());
+        if (committed != null && committed > checkpoint) {
+          jobCheckpointRepository.save(
+              JobCheckpointEntity.builder()
+                  .jobName(jobName)
+                  .lastKey(committed)
+                  .updatedAt(LocalDateTime.now())
+                  .build());
+          checkpoint = committed;
+          finished.headSet(committed, true).clear();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package edu.ntnu.idatt2106.project.sparesti.jobs;
+
+import edu.ntnu.idatt2106.project.sparesti.services.SavingChallengeService;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Job that settles the saving challenges in progress that have ended by leveraging the {@link
+ * SavingChallengeService}. Challenges are failed as soon as an expense makes them overspend, so the
+ * job only has to handle challenges whose ending date has passed. The challenges are read in chunks
+ * of challenge ids, and each chunk is evaluated with bulk updates.
+ */
+@Component
+public class SavingChallengeStateJob implements BatchJob {
+
+  private SavingChallengeService savingChallengeService;
+
+  /**
+   * Creates a new instance of SavingChallengeStateJob.
+   *
+   * @param savingChallengeService The service responsible for managing saving challenge operations,
+   *     provided via dependency injection.
+   */
+  public SavingChallengeStateJob(SavingChallengeService savingChallengeService) {
+    this.savingChallengeService = savingChallengeService;
+  }
+
+  @Override
+  public String getName() {
+    return "saving-challenge-states";
+  }
+
+  @Override
+  public List<Long> readChunk(long afterKey, int limit) {
+    return savingChallengeService.findEndedSavingChallengeIdsInProgress(afterKey, limit);
+  }
+
+  @Override
+  public void processChunk(List<Long> keys) {
+    savingChallengeService.updateSavingChallengeStates(keys);
+  }
+}
@@ -0,0 +1,42 @@
+package edu.ntnu.idatt2106.project.sparesti.jobs;
+
+import edu.ntnu.idatt2106.project.sparesti.services.SavingGoalService;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Job that completes or fails the saving goals in progress that are due by leveraging the {@link
+ * SavingGoalService}. Only users with goals past their ending date or with their goal sum saved are
+ * read, in chunks of users, since the goals of one user update the same badges and must be
+ * processed together. Each chunk is settled with bulk updates.
+ */
+@Component
+public class SavingGoalStateJob implements BatchJob {
+
+  private SavingGoalService savingGoalService;
+
+  /**
+   * Creates a new instance of SavingGoalStateJob.
+   *
+   * @param savingGoalService The service responsible for managing saving goal operations, provided
+   *     via dependency injection.
+   */
+  public SavingGoalStateJob(SavingGoalService savingGoalService) {
+    this.savingGoalService = savingGoalService;
+  }
+
+  @Override
+  public String getName() {
+    return "saving-goal-states";
+  }
+
+  @Override
+  public List<Long> readChunk(long afterKey, int limit) {
+    return savingGoalService.findUserIdsWithDueSavingGoals(afterKey, limit);
+  }
+
+  @Override
+  public void processChunk(List<Long> keys) {
+    savingGoalService.updateSavingGoalStatesForUsers(keys);
+  }
+}
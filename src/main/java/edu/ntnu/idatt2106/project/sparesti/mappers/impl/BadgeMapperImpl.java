@@ -1,29 +1,35 @@
 package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeTierDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeTierEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import org.modelmapper.ModelMapper;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.stereotype.Component;
 
-/** Mapper responsible for mapping between Badge entities and badge dtos. */
+/** Mapper responsible for mapping between Badge entities and badge dtos, with their tiers. */
 @Component
 public class BadgeMapperImpl implements Mapper<BadgeEntity, BadgeDto> {
-  private ModelMapper modelMapper;
-
-  public BadgeMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
-  }
 
   /**
    * Takes in an object of Class A and maps it to Class B.
    *
    * @param badgeEntity Object to convert.
-   * @return Converted object.
+   * @return Converted object, or null if the object is null.
    */
   @Override
   public BadgeDto mapTo(BadgeEntity badgeEntity) {
-    return modelMapper.map(badgeEntity, BadgeDto.class);
+    if (badgeEntity == null) {
+      return null;
+    }
+    return BadgeDto.builder()
+        .id(badgeEntity.getId())
+        .name(badgeEntity.getName())
+        .description(badgeEntity.getDescription())
+        .badgeTiers(mapBadgeTiers(badgeEntity.getBadgeTiers()))
+        .build();
   }
 
   /**
@@ -36,4 +42,21 @@ public class BadgeMapperImpl implements Mapper<BadgeEntity, BadgeDto> {
   public BadgeEntity mapFrom(BadgeDto badgeDto) {
     return null;
   }
+
+  private static List<BadgeTierDto> mapBadgeTiers(List<BadgeTierEntity> badgeTiers) {
+    if (badgeTiers == null) {
+      return null;
+    }
+    List<BadgeTierDto> badgeTierDtos = new ArrayList<>(badgeTiers.size());
+    for (BadgeTierEntity badgeTier : badgeTiers) {
+      badgeTierDtos.add(
+          BadgeTierDto.builder()
+              .id(badgeTier.getId())
+              .description(badgeTier.getDescription())
+              .tier(badgeTier.getTier())
+              .target(badgeTier.getTarget())
+              .build());
+    }
+    return badgeTierDtos;
+  }
 }
@@ -1,29 +1,42 @@
 package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeProgressDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeProgressEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 /** Mapper responsible for mapping between badge progress entities and dtos. */
 @Component
 public class BadgeProgressMapperImpl implements Mapper<BadgeProgressEntity, BadgeProgressDto> {
-  private ModelMapper modelMapper;
 
-  public BadgeProgressMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
+  private final Mapper<BadgeEntity, BadgeDto> badgeMapper;
+
+  /**
+   * Constructs a BadgeProgressMapperImpl.
+   *
+   * @param badgeMapper The mapper of the badge the progress is made towards.
+   */
+  public BadgeProgressMapperImpl(Mapper<BadgeEntity, BadgeDto> badgeMapper) {
+    this.badgeMapper = badgeMapper;
   }
 
   /**
    * Takes in an object of Class A and maps it to Class B.
    *
    * @param badgeProgressEntity Object to convert.
-   * @return Converted object.
+   * @return Converted object, or null if the object is null.
    */
   @Override
   public BadgeProgressDto mapTo(BadgeProgressEntity badgeProgressEntity) {
-    return modelMapper.map(badgeProgressEntity, BadgeProgressDto.class);
+    if (badgeProgressEntity == null) {
+      return null;
+    }
+    return new BadgeProgressDto(
+        badgeProgressEntity.getId(),
+        badgeProgressEntity.getProgress(),
+        badgeMapper.mapTo(badgeProgressEntity.getBadgeEntity()));
   }
 
   /**
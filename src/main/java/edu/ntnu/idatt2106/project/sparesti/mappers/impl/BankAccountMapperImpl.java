@@ -2,48 +2,54 @@ package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 /**
  * Implementation of the Mapper interface for converting between BankAccountEntity and
- * BankAccountDto objects. This class uses ModelMapper to map properties between DTO (Data Transfer
- * Object) and entity classes.
+ * BankAccountDto objects. The properties are copied by hand, so no reflection is used at runtime.
  */
 @Component
 public class BankAccountMapperImpl implements Mapper<BankAccountEntity, BankAccountDto> {
-  private final ModelMapper modelMapper;
 
   /**
-   * Constructs a new BankAccountMapperImpl with the specified ModelMapper. Used for dependency
-   * injection
+   * Converts a BankAccountEntity instance to a BankAccountDto instance. Only the id of the user of
+   * the account is read.
    *
-   * @param modelMapper The ModelMapper to use for mapping between object types.
-   */
-  public BankAccountMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
-  }
-
-  /**
-   * Converts a BankAccountEntity instance to a BankAccountDto instance.
-   *
-   * @param bankAccountEntity The bank account entity to convert to DTO.
-   * @return The corresponding BankAccountDto object.
+   * @param bankAccountEntity The BankAccount entity to convert to a DTO.
+   * @return The corresponding BankAccountDto object, or null if the entity is null.
    */
   @Override
   public BankAccountDto mapTo(BankAccountEntity bankAccountEntity) {
-    return modelMapper.map(bankAccountEntity, BankAccountDto.class);
+    if (bankAccountEntity == null) {
+      return null;
+    }
+    UserEntity userEntity = bankAccountEntity.getUserEntity();
+    return BankAccountDto.builder()
+        .id(bankAccountEntity.getId())
+        .userEntityId(userEntity == null ? null : userEntity.getId())
+        .name(bankAccountEntity.getName())
+        .sum(bankAccountEntity.getSum())
+        .build();
   }
 
   /**
-   * Converts a BankAccountDto instance back to a BankAccountEntity instance.
+   * Converts a BankAccountDto instance back to a BankAccountEntity instance. The user of the
+   * account is not set, as it is set when the account is added to its user.
    *
-   * @param bankAccountDto The bank account DTO to convert back to an entity.
-   * @return The corresponding BankAccountEntity object.
+   * @param bankAccountDto The BankAccount DTO to convert back to an entity.
+   * @return The corresponding BankAccountEntity object, or null if the DTO is null.
    */
   @Override
   public BankAccountEntity mapFrom(BankAccountDto bankAccountDto) {
-    return modelMapper.map(bankAccountDto, BankAccountEntity.class);
+    if (bankAccountDto == null) {
+      return null;
+    }
+    return BankAccountEntity.builder()
+        .id(bankAccountDto.getId())
+        .name(bankAccountDto.getName())
+        .sum(bankAccountDto.getSum())
+        .build();
   }
 }
@@ -3,27 +3,29 @@ package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.CompletedBadgeDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 /** Mapper used for mapping between completed badge entities and dtos. */
 @Component
 public class CompletedBadgeMapperImpl implements Mapper<CompletedBadgeEntity, CompletedBadgeDto> {
-  private ModelMapper modelMapper;
-
-  public CompletedBadgeMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
-  }
 
   /**
    * Takes in an object of Class A and maps it to Class B.
    *
    * @param completedBadge Object to convert.
-   * @return Converted object.
+   * @return Converted object, or null if the object is null.
    */
   @Override
   public CompletedBadgeDto mapTo(CompletedBadgeEntity completedBadge) {
-    return modelMapper.map(completedBadge, CompletedBadgeDto.class);
+    if (completedBadge == null) {
+      return null;
+    }
+    return CompletedBadgeDto.builder()
+        .id(completedBadge.getId())
+        .name(completedBadge.getName())
+        .description(completedBadge.getDescription())
+        .tier(completedBadge.getTier())
+        .build();
   }
 
   /**
@@ -1,33 +1,58 @@
 package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionCategoryDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import lombok.extern.java.Log;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
-/** Mapper responsible for mapping between SavingChallengeDtos and SavingChallengeEntities. */
+/**
+ * Mapper responsible for mapping between SavingChallengeDtos and SavingChallengeEntities. The
+ * current spending of a challenge is not stored on the entity, and is left at zero for the caller
+ * to fill in.
+ */
 @Component
-@Log
 public class SavingChallengeMapperImpl
     implements Mapper<SavingChallengeEntity, SavingChallengeResponseDto> {
 
-  private final ModelMapper modelMapper;
+  private final Mapper<TransactionCategoryEntity, TransactionCategoryDto> transactionCategoryMapper;
 
-  public SavingChallengeMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
+  /**
+   * Constructs a SavingChallengeMapperImpl.
+   *
+   * @param transactionCategoryMapper The mapper of the category of a challenge.
+   */
+  public SavingChallengeMapperImpl(
+      Mapper<TransactionCategoryEntity, TransactionCategoryDto> transactionCategoryMapper) {
+    this.transactionCategoryMapper = transactionCategoryMapper;
   }
 
   /**
    * Takes in an object of Class A and maps it to Class B.
    *
    * @param savingChallengeEntity Object to convert.
-   * @return Converted object.
+   * @return Converted object, or null if the object is null.
    */
   @Override
   public SavingChallengeResponseDto mapTo(SavingChallengeEntity savingChallengeEntity) {
-    return modelMapper.map(savingChallengeEntity, SavingChallengeResponseDto.class);
+    if (savingChallengeEntity == null) {
+      return null;
+    }
+    return SavingChallengeResponseDto.builder()
+        .id(savingChallengeEntity.getId())
+        .expectedExpense(savingChallengeEntity.getExpectedExpense())
+        .spendingGoal(savingChallengeEntity.getSpendingGoal())
+        .startDate(savingChallengeEntity.getStartDate())
+        .endingDate(savingChallengeEntity.getEndingDate())
+        .state(savingChallengeEntity.getState())
+        .amountSaved(
+            savingChallengeEntity.getAmountSaved() == null
+                ? 0
+                : savingChallengeEntity.getAmountSaved())
+        .transactionCategory(
+            transactionCategoryMapper.mapTo(savingChallengeEntity.getTransactionCategory()))
+        .build();
   }
 
   /**
@@ -0,0 +1,82 @@
+package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoDetailsResponse;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
+import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * A Mapper responsible for mapping Saving Goal Entities to the detailed view of a goal, with its
+ * accounts and challenges. The fields are copied by hand, so nothing is resolved by reflection, and
+ * only the fields of the view are read.
+ */
+@Component
+public class SavingGoalDetailsMapperImpl
+    implements Mapper<SavingGoalEntity, SavingGoalDtoDetailsResponse> {
+
+  private final Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper;
+
+  private final Mapper<SavingChallengeEntity, SavingChallengeResponseDto> savingChallengeMapper;
+
+  /**
+   * Constructor for the mapper, injecting the mappers of the accounts and challenges of a goal.
+   *
+   * @param bankAccountMapper The mapper of the source and destination accounts
+   * @param savingChallengeMapper The mapper of the challenges
+   */
+  public SavingGoalDetailsMapperImpl(
+      Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper,
+      Mapper<SavingChallengeEntity, SavingChallengeResponseDto> savingChallengeMapper) {
+    this.bankAccountMapper = bankAccountMapper;
+    this.savingChallengeMapper = savingChallengeMapper;
+  }
+
+  /**
+   * Handles mapping from an entity to a dto.
+   *
+   * @param savingGoalEntity Saving Goal Entity to convert
+   * @return Converted detailed Saving Goal Dto
+   */
+  @Override
+  public SavingGoalDtoDetailsResponse mapTo(SavingGoalEntity savingGoalEntity) {
+    SavingGoalDtoDetailsResponse savingGoalDto = new SavingGoalDtoDetailsResponse();
+    savingGoalDto.setId(savingGoalEntity.getId());
+    savingGoalDto.setTitle(savingGoalEntity.getTitle());
+    savingGoalDto.setGoalSum(savingGoalEntity.getGoalSum());
+    savingGoalDto.setEndingDate(savingGoalEntity.getEndingDate());
+    savingGoalDto.setImageUrl(savingGoalEntity.getImageUrl());
+    savingGoalDto.setAmountSaved(savingGoalEntity.getAmountSaved());
+    savingGoalDto.setState(savingGoalEntity.getState());
+    savingGoalDto.setSourceBankAccount(
+        bankAccountMapper.mapTo(savingGoalEntity.getSourceBankAccount()));
+    savingGoalDto.setDestinationBankAccount(
+        bankAccountMapper.mapTo(savingGoalEntity.getDestinationBankAccount()));
+    List<SavingChallengeEntity> savingChallenges = savingGoalEntity.getSavingChallenges();
+    if (savingChallenges != null) {
+      List<SavingChallengeResponseDto> savingChallengeDtos =
+          new ArrayList<>(savingChallenges.size());
+      for (SavingChallengeEntity savingChallenge : savingChallenges) {
+        savingChallengeDtos.add(savingChallengeMapper.mapTo(savingChallenge));
+      }
+      savingGoalDto.setSavingChallenges(savingChallengeDtos);
+    }
+    return savingGoalDto;
+  }
+
+  /**
+   * Mapping a detailed dto back to an entity is not supported.
+   *
+   * @param savingGoalDto Detailed Saving Goal Dto
+   * @return null
+   */
+  @Override
+  public SavingGoalEntity mapFrom(SavingGoalDtoDetailsResponse savingGoalDto) {
+    return null;
+  }
+}
@@ -1,40 +1,52 @@
 package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoGeneralResponse;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import lombok.extern.java.Log;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 /** A Mapper responsible for mapping between Saving Goal Entities and DTOs. */
 @Component
-@Log
 public class SavingGoalMapperImpl
     implements Mapper<SavingGoalEntity, SavingGoalDtoGeneralResponse> {
 
-  private ModelMapper modelMapper;
+  private final Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper;
 
   /**
-   * Constructor for the mapper, injecting the modelMapper dependency.
+   * Constructor for the mapper, injecting the mapper of the accounts of a goal.
    *
-   * @param modelMapper The modelMapper dependency
+   * @param bankAccountMapper The mapper of the source and destination accounts
    */
-  public SavingGoalMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
+  public SavingGoalMapperImpl(Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper) {
+    this.bankAccountMapper = bankAccountMapper;
   }
 
   /**
    * Handles mapping from an entity to a dto.
    *
    * @param savingGoalEntity Saving Goal Entity to convert
-   * @return Converted Saving Goal Dto
+   * @return Converted Saving Goal Dto, or null if the entity is null
    */
   @Override
   public SavingGoalDtoGeneralResponse mapTo(SavingGoalEntity savingGoalEntity) {
-    SavingGoalDtoGeneralResponse savingGoalDtoGeneralResponse =
-        modelMapper.map(savingGoalEntity, SavingGoalDtoGeneralResponse.class);
-    return savingGoalDtoGeneralResponse;
+    if (savingGoalEntity == null) {
+      return null;
+    }
+    SavingGoalDtoGeneralResponse savingGoalDto = new SavingGoalDtoGeneralResponse();
+    savingGoalDto.setId(savingGoalEntity.getId());
+    savingGoalDto.setTitle(savingGoalEntity.getTitle());
+    savingGoalDto.setGoalSum(savingGoalEntity.getGoalSum());
+    savingGoalDto.setEndingDate(savingGoalEntity.getEndingDate());
+    savingGoalDto.setImageUrl(savingGoalEntity.getImageUrl());
+    savingGoalDto.setAmountSaved(savingGoalEntity.getAmountSaved());
+    savingGoalDto.setState(savingGoalEntity.getState());
+    savingGoalDto.setSourceBankAccount(
+        bankAccountMapper.mapTo(savingGoalEntity.getSourceBankAccount()));
+    savingGoalDto.setDestinationBankAccount(
+        bankAccountMapper.mapTo(savingGoalEntity.getDestinationBankAccount()));
+    return savingGoalDto;
   }
 
   /**
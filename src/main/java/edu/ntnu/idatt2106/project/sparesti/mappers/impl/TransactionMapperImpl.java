@@ -1,49 +1,70 @@
 package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 /**
  * Implementation of the Mapper interface for converting between TransactionEntity and
- * TransactionDto objects. This class uses ModelMapper to efficiently map attributes between
- * Transaction DTOs and entities.
+ * TransactionDto objects. The attributes are copied by hand, and the account and category of a
+ * transaction are only referred to by id, so mapping a transaction never loads them.
  */
 @Component
 public class TransactionMapperImpl implements Mapper<TransactionEntity, TransactionDto> {
-  private ModelMapper modelMapper;
-
-  /**
-   * Constructs a new TransactionMapperImpl with a specified ModelMapper. Used for dependency
-   * injection
-   *
-   * @param modelMapper The ModelMapper to use for mapping between object types.
-   */
-  public TransactionMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
-  }
 
   /**
    * Converts a TransactionEntity to a TransactionDto.
    *
    * @param transactionEntity The Transaction entity to be converted to DTO.
-   * @return The corresponding TransactionDto.
+   * @return The corresponding TransactionDto, or null if the entity is null.
    */
   @Override
   public TransactionDto mapTo(TransactionEntity transactionEntity) {
-    return modelMapper.map(transactionEntity, TransactionDto.class);
+    if (transactionEntity == null) {
+      return null;
+    }
+    BankAccountEntity bankAccount = transactionEntity.getBankAccount();
+    TransactionCategoryEntity category = transactionEntity.getTransactionCategoryEntity();
+    return TransactionDto.builder()
+        .id(transactionEntity.getId())
+        .date(transactionEntity.getDate())
+        .sum(transactionEntity.getSum())
+        .description(transactionEntity.getDescription())
+        .bankAccountEntityId(bankAccount == null ? null : bankAccount.getId())
+        .categoryEntityId(category == null ? null : category.getId())
+        .build();
   }
 
   /**
-   * Converts a TransactionDto back to a TransactionEntity.
+   * Converts a TransactionDto back to a TransactionEntity. The account and the category are set to
+   * entities holding only their ids, to be replaced by references before the transaction is saved.
    *
    * @param transactionDto The Transaction DTO to be converted back to an entity.
-   * @return The corresponding TransactionEntity.
+   * @return The corresponding TransactionEntity, or null if the DTO is null.
    */
   @Override
   public TransactionEntity mapFrom(TransactionDto transactionDto) {
-    return modelMapper.map(transactionDto, TransactionEntity.class);
+    if (transactionDto == null) {
+      return null;
+    }
+    return TransactionEntity.builder()
+        .id(transactionDto.getId())
+        .date(transactionDto.getDate())
+        .sum(transactionDto.getSum())
+        .description(transactionDto.getDescription())
+        .bankAccount(accountWithId(transactionDto.getBankAccountEntityId()))
+        .transactionCategoryEntity(categoryWithId(transactionDto.getCategoryEntityId()))
+        .build();
+  }
+
+  private static BankAccountEntity accountWithId(Long id) {
+    return id == null ? null : BankAccountEntity.builder().id(id).build();
+  }
+
+  private static TransactionCategoryEntity categoryWithId(Long id) {
+    return id == null ? null : TransactionCategoryEntity.builder().id(id).build();
   }
 }
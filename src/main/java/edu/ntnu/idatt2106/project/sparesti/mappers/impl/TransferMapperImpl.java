@@ -1,48 +1,67 @@
 package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransferDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransferEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 /**
  * Implementation of the Mapper interface for converting between TransferEntity and TransferDto
- * objects. This class uses ModelMapper to efficiently map attributes between Transfer DTOs and
- * entities.
+ * objects. The attributes are copied by hand, and the accounts of a transfer are only referred to
+ * by id, so mapping a transfer never loads them.
  */
 @Component
 public class TransferMapperImpl implements Mapper<TransferEntity, TransferDto> {
-  private final ModelMapper modelMapper;
-
-  /**
-   * Constructs a new TransferMapperImpl with a specified ModelMapper. Used for dependency injection
-   *
-   * @param modelMapper The ModelMapper to use for object property mapping.
-   */
-  public TransferMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
-  }
 
   /**
    * Converts a TransferEntity instance to a TransferDto instance.
    *
    * @param transferEntity The Transfer entity to convert to a DTO.
-   * @return The corresponding TransferDto object.
+   * @return The corresponding TransferDto object, or null if the entity is null.
    */
   @Override
   public TransferDto mapTo(TransferEntity transferEntity) {
-    return modelMapper.map(transferEntity, TransferDto.class);
+    if (transferEntity == null) {
+      return null;
+    }
+    return TransferDto.builder()
+        .id(transferEntity.getId())
+        .date(transferEntity.getDate())
+        .sum(transferEntity.getSum())
+        .description(transferEntity.getDescription())
+        .sourceBankAccountId(idOf(transferEntity.getSourceBankAccount()))
+        .destinationBankAccountId(idOf(transferEntity.getDestinationBankAccount()))
+        .build();
   }
 
   /**
-   * Converts a TransferDto instance back to a TransferEntity instance.
+   * Converts a TransferDto instance back to a TransferEntity instance. The accounts are set to
+   * entities holding only their ids, to be replaced by references before the transfer is saved.
    *
    * @param transferDto The Transfer DTO to convert back to an entity.
-   * @return The corresponding TransferEntity object.
+   * @return The corresponding TransferEntity object, or null if the DTO is null.
    */
   @Override
   public TransferEntity mapFrom(TransferDto transferDto) {
-    return modelMapper.map(transferDto, TransferEntity.class);
+    if (transferDto == null) {
+      return null;
+    }
+    return TransferEntity.builder()
+        .id(transferDto.getId())
+        .date(transferDto.getDate())
+        .sum(transferDto.getSum())
+        .description(transferDto.getDescription())
+        .sourceBankAccount(accountWithId(transferDto.getSourceBankAccountId()))
+        .destinationBankAccount(accountWithId(transferDto.getDestinationBankAccountId()))
+        .build();
+  }
+
+  private static Long idOf(BankAccountEntity bankAccount) {
+    return bankAccount == null ? null : bankAccount.getId();
+  }
+
+  private static BankAccountEntity accountWithId(Long id) {
+    return id == null ? null : BankAccountEntity.builder().id(id).build();
   }
 }
@@ -0,0 +1,94 @@
+package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeProgressDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.CompletedBadgeDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDetails;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeProgressEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapper class that maps UserEntities to their details, with their preferred accounts, their badge
+ * progress and their completed badges.
+ */
+@Component
+public class UserDetailsMapperImpl implements Mapper<UserEntity, UserDetails> {
+
+  private final Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper;
+
+  private final Mapper<BadgeProgressEntity, BadgeProgressDto> badgeProgressMapper;
+
+  private final Mapper<CompletedBadgeEntity, CompletedBadgeDto> completedBadgeMapper;
+
+  /**
+   * Constructs a UserDetailsMapperImpl.
+   *
+   * @param bankAccountMapper The mapper of the preferred accounts of a user.
+   * @param badgeProgressMapper The mapper of the badge progress of a user.
+   * @param completedBadgeMapper The mapper of the completed badges of a user.
+   */
+  public UserDetailsMapperImpl(
+      Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper,
+      Mapper<BadgeProgressEntity, BadgeProgressDto> badgeProgressMapper,
+      Mapper<CompletedBadgeEntity, CompletedBadgeDto> completedBadgeMapper) {
+    this.bankAccountMapper = bankAccountMapper;
+    this.badgeProgressMapper = badgeProgressMapper;
+    this.completedBadgeMapper = completedBadgeMapper;
+  }
+
+  /**
+   * Maps an UserEntity-instance to its UserDetails.
+   *
+   * @param userEntity Object to convert.
+   * @return Mapped UserDetails object, or null if the object is null.
+   */
+  @Override
+  public UserDetails mapTo(UserEntity userEntity) {
+    if (userEntity == null) {
+      return null;
+    }
+    UserDetails userDetails = new UserDetails();
+    UserMapperImpl.copyUserFields(userEntity, userDetails);
+    userDetails.setPreferredSavingsAccount(
+        bankAccountMapper.mapTo(userEntity.getPreferredSavingsAccount()));
+    userDetails.setPreferredCheckingAccount(
+        bankAccountMapper.mapTo(userEntity.getPreferredCheckingAccount()));
+    userDetails.setBadgeProgress(mapAll(userEntity.getBadgeProgress(), badgeProgressMapper));
+    userDetails.setCompletedBadges(mapAll(userEntity.getCompletedBadges(), completedBadgeMapper));
+    userDetails.setCompletedChallenges(userEntity.getCompletedChallenges());
+    userDetails.setCompletedGoals(userEntity.getCompletedGoals());
+    userDetails.setCurrentStreak(userEntity.getCurrentStreak());
+    userDetails.setLastCompletedChallengeDate(userEntity.getLastCompletedChallengeDate());
+    userDetails.setLastStreakDate(userEntity.getLastStreakDate());
+    userDetails.setTotalSaved(userEntity.getTotalSaved());
+    return userDetails;
+  }
+
+  /**
+   * Mapping user details back to a user is not supported.
+   *
+   * @param userDetails Object to convert.
+   * @return null
+   */
+  @Override
+  public UserEntity mapFrom(UserDetails userDetails) {
+    return null;
+  }
+
+  private static <A, B> List<B> mapAll(List<A> entities, Mapper<A, B> mapper) {
+    if (entities == null) {
+      return null;
+    }
+    List<B> dtos = new ArrayList<>(entities.size());
+    for (A entity : entities) {
+      dtos.add(mapper.mapTo(entity));
+    }
+    return dtos;
+  }
+}
@@ -3,44 +3,64 @@ package edu.ntnu.idatt2106.project.sparesti.mappers.impl;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 /** Mapper class that maps between UserDTOs and UserEntities. */
 @Component
 public class UserMapperImpl implements Mapper<UserEntity, UserDto> {
 
-  /** Used for dependency injection. */
-  private final ModelMapper modelMapper;
-
-  /**
-   * Used for dependency injection of ModelMapper object.
-   *
-   * @param modelMapper The injected ModelMapper object.
-   */
-  public UserMapperImpl(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
-  }
-
   /**
    * Maps an UserEntity-instance to a UserDto.
    *
    * @param userEntity Object to convert.
-   * @return Mapped UserDto object.
+   * @return Mapped UserDto object, or null if the object is null.
    */
   @Override
   public UserDto mapTo(UserEntity userEntity) {
-    return modelMapper.map(userEntity, UserDto.class);
+    if (userEntity == null) {
+      return null;
+    }
+    UserDto userDto = new UserDto();
+    copyUserFields(userEntity, userDto);
+    return userDto;
   }
 
   /**
-   * Maps UserDto-instance to a UserEntity.
+   * Maps UserDto-instance to a UserEntity. Only the fields of the dto are set.
    *
    * @param userDto Object to convert.
-   * @return Mapped userEntity object.
+   * @return Mapped userEntity object, or null if the object is null.
    */
   @Override
   public UserEntity mapFrom(UserDto userDto) {
-    return modelMapper.map(userDto, UserEntity.class);
+    if (userDto == null) {
+      return null;
+    }
+    return UserEntity.builder()
+        .id(userDto.getId())
+        .username(userDto.getUsername())
+        .email(userDto.getEmail())
+        .fullName(userDto.getFullName())
+        .imageUrl(userDto.getImageUrl())
+        .score(userDto.getScore())
+        .subId(userDto.getSubId())
+        .build();
+  }
+
+  /**
+   * Copies the fields every user dto has from a user entity. Used by the mappers of the dtos that
+   * extend {@link UserDto}.
+   *
+   * @param userEntity The user to copy from.
+   * @param userDto The dto to copy to.
+   */
+  static void copyUserFields(UserEntity userEntity, UserDto userDto) {
+    userDto.setId(userEntity.getId());
+    userDto.setUsername(userEntity.getUsername());
+    userDto.setEmail(userEntity.getEmail());
+    userDto.setFullName(userEntity.getFullName());
+    userDto.setImageUrl(userEntity.getImageUrl());
+    userDto.setScore(userEntity.getScore());
+    userDto.setSubId(userEntity.getSubId());
   }
 }
@@ -1,11 +1,21 @@
 package edu.ntnu.idatt2106.project.sparesti.repositories;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /** Repository responsible for providing database operations against the badge repository. */
 @Repository
 public interface BadgeRepository extends JpaRepository<BadgeEntity, Long> {
   BadgeEntity findBadgeEntityByName(String name);
+
+  /**
+   * Finds every badge together with its tiers.
+   *
+   * @return The badges, with their tiers loaded.
+   */
+  @Query("SELECT DISTINCT b FROM BadgeEntity b LEFT JOIN FETCH b.badgeTiers")
+  List<BadgeEntity> findAllWithTiers();
 }
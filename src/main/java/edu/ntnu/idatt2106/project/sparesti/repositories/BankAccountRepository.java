@@ -2,6 +2,9 @@ package edu.ntnu.idatt2106.project.sparesti.repositories;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -10,4 +13,32 @@ import org.springframework.stereotype.Repository;
  * additional custom queries specifically for BankAccountEntity.
  */
 @Repository
-public interface BankAccountRepository extends JpaRepository<BankAccountEntity, Long> {}
+public interface BankAccountRepository extends JpaRepository<BankAccountEntity, Long> {
+
+  /**
+   * Adds an amount to the balance of an account in a single statement, unless the balance would end
+   * up below zero. The check and the write happen in the database, so concurrent updates of the
+   * same account are never lost. The activity version of the account is increased as well.
+   *
+   * @param id The ID of the bank account.
+   * @param amount The amount to add to the balance. Negative to withdraw.
+   * @return 1 if the balance was updated, 0 if the account does not exist or the balance would end
+   *     up below zero.
+   */
+  @Modifying
+  @Query(
+      "UPDATE BankAccountEntity b "
+          + "SET b.sum = b.sum + :amount, b.activityVersion = b.activityVersion + 1 "
+          + "WHERE b.id = :id AND b.sum + :amount >= 0")
+  int adjustBalance(@Param("id") Long id, @Param("amount") double amount);
+
+  /**
+   * Checks if a bank account belongs to a user, without loading the account or the user. Looks the
+   * account up by its primary key, and the user by its unique username.
+   *
+   * @param id The ID of the bank account.
+   * @param username The username of the user.
+   * @return true if the account exists and belongs to the user.
+   */
+  boolean existsByIdAndUserEntityUsername(Long id, String username);
+}
@@ -0,0 +1,144 @@
+package edu.ntnu.idatt2106.project.sparesti.repositories;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CategorySpendingDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.DailySpendingEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.DailySpendingId;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for DailySpendingEntity. Besides the standard CRUD operations it provides an
+ * upsert used to keep the rollup up to date when transactions are added, range sums over the
+ * rollup, and the statements used to rebuild the rollup from the transaction table.
+ */
+@Repository
+public interface DailySpendingRepository
+    extends JpaRepository<DailySpendingEntity, DailySpendingId> {
+
+  /**
+   * Adds spending to the row of an account, category and day, creating the row if it does not exist
+   * yet.
+   *
+   * @param bankAccountId The ID of the bank account.
+   * @param transactionCategoryId The ID of the transaction category.
+   * @param spendingDay The day the spending happened.
+   * @param spent The amount spent, as a positive number.
+   * @param transactionCount The number of transactions the amount is made up of.
+   * @return The number of rows affected.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO daily_spending "
+              + "(bank_account_id, transaction_category_id, spending_day, spent, "
+              + "transaction_count) "
+              + "VALUES (:bankAccountId, :transactionCategoryId, :spendingDay, :spent, "
+              + ":transactionCount) "
+              + "ON DUPLICATE KEY UPDATE spent = spent + :spent, "
+              + "transaction_count = transaction_count + :transactionCount",
+      nativeQuery = true)
+  int addSpending(
+      @Param("bankAccountId") Long bankAccountId,
+      @Param("transactionCategoryId") Long transactionCategoryId,
+      @Param("spendingDay") LocalDate spendingDay,
+      @Param("spent") double spent,
+      @Param("transactionCount") long transactionCount);
+
+  /**
+   * Sums the spending of an account in a category between two days, both inclusive.
+   *
+   * @param bankAccountId The ID of the bank account.
+   * @param transactionCategoryId The ID of the transaction category.
+   * @param startDay The first day of the range.
+   * @param endDay The last day of the range.
+   * @return The amount spent, or 0 if there is no spending in the range.
+   */
+  @Query(
+      "SELECT COALESCE(SUM(d.spent), 0.0) FROM DailySpendingEntity d "
+          + "WHERE d.id.bankAccountId = :bankAccountId "
+          + "AND d.id.transactionCategoryId = :transactionCategoryId "
+          + "AND d.id.spendingDay BETWEEN :startDay AND :endDay")
+  double sumSpentByAccountAndCategoryBetweenDays(
+      @Param("bankAccountId") Long bankAccountId,
+      @Param("transactionCategoryId") Long transactionCategoryId,
+      @Param("startDay") LocalDate startDay,
+      @Param("endDay") LocalDate endDay);
+
+  /**
+   * Sums the spending of an account between two days, both inclusive, grouped by category.
+   * Categories without spending in the range are not part of the result.
+   *
+   * @param bankAccountId The ID of the bank account.
+   * @param transactionCategoryIds The IDs of the transaction categories to include.
+   * @param startDay The first day of the range.
+   * @param endDay The last day of the range.
+   * @return One CategorySpendingDto per category with spending in the range.
+   */
+  @Query(
+      "SELECT new edu.ntnu.idatt2106.project.sparesti.domain.dto.CategorySpendingDto("
+          + "d.id.transactionCategoryId, SUM(d.spent)) FROM DailySpendingEntity d "
+          + "WHERE d.id.bankAccountId = :bankAccountId "
+          + "AND d.id.transactionCategoryId IN :transactionCategoryIds "
+          + "AND d.id.spendingDay BETWEEN :startDay AND :endDay "
+          + "GROUP BY d.id.transactionCategoryId")
+  List<CategorySpendingDto> sumSpentByAccountPerCategoryBetweenDays(
+      @Param("bankAccountId") Long bankAccountId,
+      @Param("transactionCategoryIds") Collection<Long> transactionCategoryIds,
+      @Param("startDay") LocalDate startDay,
+      @Param("endDay") LocalDate endDay);
+
+  /**
+   * Finds the rows of an account in the given categories between two days, both inclusive.
+   *
+   * @param bankAccountId The ID of the bank account.
+   * @param transactionCategoryIds The IDs of the transaction categories to include.
+   * @param startDay The first day of the range.
+   * @param endDay The last day of the range.
+   * @return The rows of every category and day with spending in the range.
+   */
+  @Query(
+      "SELECT d FROM DailySpendingEntity d "
+          + "WHERE d.id.bankAccountId = :bankAccountId "
+          + "AND d.id.transactionCategoryId IN :transactionCategoryIds "
+          + "AND d.id.spendingDay BETWEEN :startDay AND :endDay")
+  List<DailySpendingEntity> findByAccountAndCategoriesBetweenDays(
+      @Param("bankAccountId") Long bankAccountId,
+      @Param("transactionCategoryIds") Collection<Long> transactionCategoryIds,
+      @Param("startDay") LocalDate startDay,
+      @Param("endDay") LocalDate endDay);
+
+  /**
+   * Deletes every row of the rollup.
+   *
+   * @return The number of rows deleted.
+   */
+  @Modifying
+  @Query(value = "DELETE FROM daily_spending", nativeQuery = true)
+  int deleteAllSpending();
+
+  /**
+   * Fills the rollup from the negative transactions in the transaction table. The rollup should be
+   * empty when this is called.
+   *
+   * @return The number of rows inserted.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO daily_spending "
+              + "(bank_account_id, transaction_category_id, spending_day, spent, "
+              + "transaction_count) "
+              + "SELECT t.bank_account_id, t.transaction_category_id, CAST(t.date AS DATE), "
+              + "-SUM(t.sum), COUNT(*) FROM transaction t "
+              + "WHERE t.sum < 0 AND t.bank_account_id IS NOT NULL "
+              + "AND t.transaction_category_id IS NOT NULL AND t.date IS NOT NULL "
+              + "GROUP BY t.bank_account_id, t.transaction_category_id, CAST(t.date AS DATE)",
+      nativeQuery = true)
+  int insertSpendingFromTransactions();
+}
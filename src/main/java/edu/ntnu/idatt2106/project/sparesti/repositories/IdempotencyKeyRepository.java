@@ -0,0 +1,24 @@
+package edu.ntnu.idatt2106.project.sparesti.repositories;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.IdempotencyKeyEntity;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/** Repository interface for IdempotencyKey entities. */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+  /**
+   * Deletes the keys stored before a point in time.
+   *
+   * @param cutoff The point in time before which keys are deleted.
+   * @return The number of keys deleted.
+   */
+  @Modifying
+  @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.createdAt < :cutoff")
+  int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,9 @@
+package edu.ntnu.idatt2106.project.sparesti.repositories;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/** Repository interface for JobCheckpoint entities. */
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpointEntity, String> {}
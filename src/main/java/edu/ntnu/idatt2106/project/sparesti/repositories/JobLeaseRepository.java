@@ -0,0 +1,63 @@
+package edu.ntnu.idatt2106.project.sparesti.repositories;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobLeaseEntity;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/** Repository interface for JobLease entities. */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLeaseEntity, String> {
+
+  /**
+   * Claims the lease of a job, if it has no owner or its heartbeat is older than a given time.
+   *
+   * @param jobName The name of the job.
+   * @param owner The instance claiming the lease.
+   * @param now The current time, stored as the heartbeat.
+   * @param staleBefore The time before which a heartbeat is stale.
+   * @return 1 if the lease was claimed, otherwise 0.
+   */
+  @Modifying
+  @Query(
+      "UPDATE JobLeaseEntity l SET l.owner = :owner, l.heartbeatAt = :now "
+          + "WHERE l.jobName = :jobName AND (l.owner IS NULL OR l.heartbeatAt < :staleBefore)")
+  int claim(
+      @Param("jobName") String jobName,
+      @Param("owner") String owner,
+      @Param("now") LocalDateTime now,
+      @Param("staleBefore") LocalDateTime staleBefore);
+
+  /**
+   * Renews the heartbeat of a lease, if it is still held by the given owner.
+   *
+   * @param jobName The name of the job.
+   * @param owner The instance holding the lease.
+   * @param now The current time, stored as the heartbeat.
+   * @return 1 if the lease is still held by the owner, otherwise 0.
+   */
+  @Modifying
+  @Query(
+      "UPDATE JobLeaseEntity l SET l.heartbeatAt = :now "
+          + "WHERE l.jobName = :jobName AND l.owner = :owner")
+  int renew(
+      @Param("jobName") String jobName,
+      @Param("owner") String owner,
+      @Param("now") LocalDateTime now);
+
+  /**
+   * Releases a lease, if it is still held by the given owner.
+   *
+   * @param jobName The name of the job.
+   * @param owner The instance holding the lease.
+   * @return 1 if the lease was released, otherwise 0.
+   */
+  @Modifying
+  @Query(
+      "UPDATE JobLeaseEntity l SET l.owner = NULL "
+          + "WHERE l.jobName = :jobName AND l.owner = :owner")
+  int release(@Param("jobName") String jobName, @Param("owner") String owner);
+}
@@ -0,0 +1,43 @@
+package edu.ntnu.idatt2106.project.sparesti.repositories;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobRunEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.JobRunStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/** Repository interface for JobRun entities. */
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRunEntity, Long> {
+
+  /**
+   * Finds the runs of a job, the most recent first.
+   *
+   * @param jobName The name of the job.
+   * @return The runs of the job.
+   */
+  List<JobRunEntity> findByJobNameOrderByStartedAtDesc(String jobName);
+
+  /**
+   * Changes the status of every run with a given status whose owner does not hold a lease with a
+   * heartbeat from a given time or later, so the runs of other live instances are left alone.
+   *
+   * @param from The status of the runs to change.
+   * @param to The new status of the runs.
+   * @param staleBefore The time before which a heartbeat is stale.
+   * @return The number of runs changed.
+   */
+  @Modifying
+  @Query(
+      "UPDATE JobRunEntity r SET r.status = :to WHERE r.status = :from AND NOT EXISTS "
+          + "(SELECT l FROM JobLeaseEntity l "
+          + "WHERE l.owner = r.owner AND l.heartbeatAt >= :staleBefore)")
+  int updateStatusOfStaleRuns(
+      @Param("from") JobRunStatus from,
+      @Param("to") JobRunStatus to,
+      @Param("staleBefore") LocalDateTime staleBefore);
+}
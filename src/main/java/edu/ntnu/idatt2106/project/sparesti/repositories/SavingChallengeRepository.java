@@ -1,11 +1,187 @@
 package edu.ntnu.idatt2106.project.sparesti.repositories;
 
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeView;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /** Repository providing CRUD functionality against saving challenges. */
 @Repository
-public interface SavingChallengeRepository extends JpaRepository<SavingChallengeEntity, Long> {}
+public interface SavingChallengeRepository extends JpaRepository<SavingChallengeEntity, Long> {
+
+  /**
+   * Finds the challenges of a saving goal as read-only views, ordered by id.
+   *
+   * @param goalId The id of the saving goal.
+   * @return The views of the challenges in the goal.
+   */
+  @Query(
+      "SELECT new edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges"
+          + ".SavingChallengeView(c.id, c.expectedExpense, c.spendingGoal, c.startDate, "
+          + "c.endingDate, c.state, c.amountSaved, g.sourceBankAccount.id, t.id, t.name) "
+          + "FROM SavingChallengeEntity c JOIN c.savingGoal g LEFT JOIN c.transactionCategory t "
+          + "WHERE g.id = :goalId ORDER BY c.id")
+  List<SavingChallengeView> findViewsBySavingGoalId(@Param("goalId") Long goalId);
+
+  /**
+   * Finds the challenges in every saving goal of a user as read-only views, ordered by goal and
+   * then by challenge.
+   *
+   * @param username The username of the user.
+   * @return The views of the challenges of the user.
+   */
+  @Query(
+      "SELECT new edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges"
+          + ".SavingChallengeView(c.id, c.expectedExpense, c.spendingGoal, c.startDate, "
+          + "c.endingDate, c.state, c.amountSaved, g.sourceBankAccount.id, t.id, t.name) "
+          + "FROM SavingChallengeEntity c JOIN c.savingGoal g LEFT JOIN c.transactionCategory t "
+          + "WHERE g.userEntity.username = :username ORDER BY g.id, c.id")
+  List<SavingChallengeView> findViewsByUsername(@Param("username") String username);
+
+  /**
+   * Finds the ids of the challenges in a given state that ended before a given day, in ascending
+   * order, starting after a given id. Used to read the ended challenges in chunks.
+   *
+   * @param state The state of the challenges.
+   * @param today The day before which the challenges ended.
+   * @param afterId The id after which to start.
+   * @param pageable The maximum number of ids to find.
+   * @return The ids of the challenges.
+   */
+  @Query(
+      "SELECT c.id FROM SavingChallengeEntity c WHERE c.state = :state "
+          + "AND c.endingDate < :today AND c.id > :afterId ORDER BY c.id")
+  List<Long> findEndedIdsByStateAfter(
+      @Param("state") ChallengeState state,
+      @Param("today") LocalDate today,
+      @Param("afterId") long afterId,
+      Pageable pageable);
+
+  /**
+   * Checks whether a user has a challenge in a given state and category in any of their saving
+   * goals.
+   *
+   * @param userId The id of the user.
+   * @param state The state of the challenge.
+   * @param transactionCategoryId The id of the category of the challenge.
+   * @return true if such a challenge exists, false otherwise.
+   */
+  boolean existsBySavingGoalUserEntityIdAndStateAndTransactionCategoryId(
+      Long userId, ChallengeState state, Long transactionCategoryId);
+
+  /**
+   * Finds the distinct categories of the challenges in a given state in the saving goals of a user.
+   *
+   * @param userId The id of the user.
+   * @param state The state of the challenges.
+   * @return The ids of the categories, in ascending order.
+   */
+  @Query(
+      "SELECT DISTINCT c.transactionCategory.id FROM SavingChallengeEntity c "
+          + "WHERE c.savingGoal.userEntity.id = :userId AND c.state = :state "
+          + "ORDER BY c.transactionCategory.id")
+  List<Long> findDistinctCategoryIdsByUserIdAndState(
+      @Param("userId") Long userId, @Param("state") ChallengeState state);
+
+  /**
+   * Finds the challenges in a given state together with the source account of their goal and their
+   * category, without loading the challenges.
+   *
+   * @param state The state of the challenges.
+   * @return One row per challenge, holding the id of the challenge, the id of the source account
+   *     and the id of the category.
+   */
+  @Query(
+      "SELECT c.id, c.savingGoal.sourceBankAccount.id, c.transactionCategory.id "
+          + "FROM SavingChallengeEntity c WHERE c.state = :state")
+  List<Object[]> findSpendingKeysByState(@Param("state") ChallengeState state);
+
+  /**
+   * Finds the challenges of the given saving goals that are in a given state.
+   *
+   * @param goalIds The ids of the saving goals.
+   * @param state The state of the challenges.
+   * @return The ids of the challenges in the state.
+   */
+  @Query(
+      "SELECT c.id FROM SavingChallengeEntity c "
+          + "WHERE c.savingGoal.id IN :goalIds AND c.state = :state")
+  List<Long> findIdsBySavingGoalIdInAndState(
+      @Param("goalIds") Collection<Long> goalIds, @Param("state") ChallengeState state);
+
+  /**
+   * Moves the challenges of the given saving goals that are in a given state to a new state.
+   *
+   * @param goalIds The ids of the saving goals.
+   * @param state The state the challenges must be in.
+   * @param newState The new state of the challenges.
+   * @return The number of challenges updated.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE SavingChallengeEntity c SET c.state = :newState "
+          + "WHERE c.savingGoal.id IN :goalIds AND c.state = :state")
+  int updateStateBySavingGoalIdInAndState(
+      @Param("goalIds") Collection<Long> goalIds,
+      @Param("state") ChallengeState state,
+      @Param("newState") ChallengeState newState);
+
+  /**
+   * Finds which of the given challenges are in a given state.
+   *
+   * @param ids The ids of the challenges.
+   * @param state The state of the challenges.
+   * @return The ids of the challenges in the state.
+   */
+  @Query("SELECT c.id FROM SavingChallengeEntity c WHERE c.id IN :ids AND c.state = :state")
+  List<Long> findIdsByIdInAndState(
+      @Param("ids") Collection<Long> ids, @Param("state") ChallengeState state);
+
+  /**
+   * Marks each of the given challenges that is in progress as FAILED if the spending on its
+   * category, from the source account of its goal and between its start and ending date, exceeds
+   * its spending goal. The spending of all challenges is summed from the daily spending rollup
+   * within the same statement.
+   *
+   * @param ids The ids of the challenges to check.
+   * @return The number of challenges marked as FAILED.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      value =
+          "UPDATE savings_challenge SET state = 'FAILED' "
+              + "WHERE state = 'IN_PROGRESS' AND spending_goal < ("
+              + "SELECT COALESCE(SUM(d.spent), 0) FROM daily_spending d "
+              + "JOIN savings_goal g ON g.source_bank_account_id = d.bank_account_id "
+              + "WHERE g.id = savings_challenge.savings_goal_id "
+              + "AND d.transaction_category_id = savings_challenge.transaction_category_id "
+              + "AND d.spending_day BETWEEN savings_challenge.start_date "
+              + "AND savings_challenge.ending_date) AND id IN (:ids)",
+      nativeQuery = true)
+  int failOverspentChallenges(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Marks each of the given challenges that is in progress and ended before the given day as
+   * COMPLETED. Run after {@link #failOverspentChallenges(Collection)}, so only challenges that kept
+   * within their spending goal are completed.
+   *
+   * @param ids The ids of the challenges to check.
+   * @param today The current day.
+   * @return The number of challenges marked as COMPLETED.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      value =
+          "UPDATE savings_challenge SET state = 'COMPLETED' "
+              + "WHERE state = 'IN_PROGRESS' AND ending_date < :today AND id IN (:ids)",
+      nativeQuery = true)
+  int completeEndedChallenges(@Param("ids") Collection<Long> ids, @Param("today") LocalDate today);
+}
@@ -3,8 +3,105 @@ package edu.ntnu.idatt2106.project.sparesti.repositories;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /** Repository providing CRUD functionality against saving goals. */
-public interface SavingGoalRepository extends JpaRepository<SavingGoalEntity, Long> {}
+public interface SavingGoalRepository extends JpaRepository<SavingGoalEntity, Long> {
+
+  /**
+   * Finds the saving goals of a user, ordered by id, together with their user and their source and
+   * destination bank accounts, so the goals can be listed without further queries.
+   *
+   * @param username The username of the user.
+   * @return The saving goals of the user.
+   */
+  @Query(
+      "SELECT g FROM SavingGoalEntity g JOIN FETCH g.userEntity u "
+          + "LEFT JOIN FETCH g.sourceBankAccount LEFT JOIN FETCH g.destinationBankAccount "
+          + "WHERE u.username = :username ORDER BY g.id")
+  List<SavingGoalEntity> findWithBankAccountsByUsername(@Param("username") String username);
+
+  /**
+   * Finds a saving goal together with its user, its source and destination bank accounts, and its
+   * challenges with their transaction categories, so the details of the goal can be shown without
+   * further queries.
+   *
+   * @param id The id of the saving goal.
+   * @return The saving goal, if it exists.
+   */
+  @Query(
+      "SELECT DISTINCT g FROM SavingGoalEntity g LEFT JOIN FETCH g.userEntity "
+          + "LEFT JOIN FETCH g.sourceBankAccount LEFT JOIN FETCH g.destinationBankAccount "
+          + "LEFT JOIN FETCH g.savingChallenges c LEFT JOIN FETCH c.transactionCategory "
+          + "WHERE g.id = :id")
+  Optional<SavingGoalEntity> findWithChallengesById(@Param("id") Long id);
+
+  /**
+   * Finds the ids of the users that have saving goals in a given state that are due, in ascending
+   * order, starting after a given id. A goal is due when its ending date has passed or its goal sum
+   * has been saved. Used to read the due saving goals in chunks of users.
+   *
+   * @param state The state of the saving goals.
+   * @param today The current day.
+   * @param afterId The user id after which to start.
+   * @param pageable The maximum number of ids to find.
+   * @return The ids of the users.
+   */
+  @Query(
+      "SELECT DISTINCT g.userEntity.id FROM SavingGoalEntity g "
+          + "WHERE g.state = :state AND (g.endingDate < :today OR g.amountSaved >= g.goalSum) "
+          + "AND g.userEntity.id > :afterId ORDER BY g.userEntity.id")
+  List<Long> findUserIdsWithDueGoalsAfter(
+      @Param("state") GoalState state,
+      @Param("today") LocalDate today,
+      @Param("afterId") long afterId,
+      Pageable pageable);
+
+  /**
+   * Finds the saving goals in a given state that are due and belong to any of the given users, as
+   * rows of the goal id, the user id, the amount saved and the goal sum. The goals are locked until
+   * the transaction ends, so a concurrent update of the same goals waits, and then no longer finds
+   * the goals that were moved out of the state.
+   *
+   * @param userIds The ids of the users.
+   * @param state The state of the saving goals.
+   * @param today The current day.
+   * @return One row per due goal.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query(
+      "SELECT g.id, g.userEntity.id, g.amountSaved, g.goalSum FROM SavingGoalEntity g "
+          + "WHERE g.userEntity.id IN :userIds AND g.state = :state "
+          + "AND (g.endingDate < :today OR g.amountSaved >= g.goalSum)")
+  List<Object[]> findDueGoalsByUserIds(
+      @Param("userIds") Collection<Long> userIds,
+      @Param("state") GoalState state,
+      @Param("today") LocalDate today);
+
+  /**
+   * Moves the given saving goals that are in a given state to a new state.
+   *
+   * @param ids The ids of the saving goals.
+   * @param state The state the goals must be in.
+   * @param newState The new state of the goals.
+   * @return The number of goals updated.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE SavingGoalEntity g SET g.state = :newState WHERE g.id IN :ids AND g.state = :state")
+  int updateStateByIdInAndState(
+      @Param("ids") Collection<Long> ids,
+      @Param("state") GoalState state,
+      @Param("newState") GoalState newState);
+}
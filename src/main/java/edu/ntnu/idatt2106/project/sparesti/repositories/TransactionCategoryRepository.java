@@ -2,7 +2,9 @@ package edu.ntnu.idatt2106.project.sparesti.repositories;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
 import java.util.List;
+import java.util.Set;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -15,4 +17,12 @@ import org.springframework.stereotype.Repository;
 public interface TransactionCategoryRepository
     extends JpaRepository<TransactionCategoryEntity, Long> {
   List<TransactionCategoryEntity> findByIdNotIn(List<Long> ids);
+
+  /**
+   * Finds the ids of all transaction categories, without loading the categories themselves.
+   *
+   * @return The ids of all transaction categories.
+   */
+  @Query("SELECT c.id FROM TransactionCategoryEntity c")
+  Set<Long> findAllIds();
 }
@@ -1,9 +1,13 @@
 package edu.ntnu.idatt2106.project.sparesti.repositories;
 
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CategorySpendingDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionEntity;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -52,4 +56,50 @@ public interface TransactionRepository extends JpaRepository<TransactionEntity,
       Long transactionCategoryId,
       LocalDateTime startDate,
       LocalDateTime endDate);
+
+  /**
+   * Sums the expenses (transactions with a negative sum) for a given bank account, under a specific
+   * transaction category, within a specified date range. The sum is computed by the database, so no
+   * transactions are loaded.
+   *
+   * @param bankAccountId The ID of the bank account.
+   * @param transactionCategoryId The ID of the transaction category.
+   * @param startDate The start date of the date range.
+   * @param endDate The end date of the date range.
+   * @return The sum of the negative transactions, or 0 if there are none. The value is negative.
+   */
+  @Query(
+      "SELECT COALESCE(SUM(t.sum), 0.0) FROM TransactionEntity t "
+          + "WHERE t.bankAccount.id = :bankAccountId "
+          + "AND t.transactionCategoryEntity.id = :transactionCategoryId "
+          + "AND t.date BETWEEN :startDate AND :endDate AND t.sum < 0")
+  double sumExpensesByAccountAndCategoryBetweenDate(
+      @Param("bankAccountId") Long bankAccountId,
+      @Param("transactionCategoryId") Long transactionCategoryId,
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate);
+
+  /**
+   * Sums the expenses (transactions with a negative sum) for a given bank account within a
+   * specified date range, grouped by transaction category. Categories without any expenses in the
+   * range are not part of the result.
+   *
+   * @param bankAccountId The ID of the bank account.
+   * @param transactionCategoryIds The IDs of the transaction categories to include.
+   * @param startDate The start date of the date range.
+   * @param endDate The end date of the date range.
+   * @return One CategorySpendingDto per category with expenses. The totals are negative.
+   */
+  @Query(
+      "SELECT new edu.ntnu.idatt2106.project.sparesti.domain.dto.CategorySpendingDto("
+          + "t.transactionCategoryEntity.id, SUM(t.sum)) FROM TransactionEntity t "
+          + "WHERE t.bankAccount.id = :bankAccountId "
+          + "AND t.transactionCategoryEntity.id IN :transactionCategoryIds "
+          + "AND t.date BETWEEN :startDate AND :endDate AND t.sum < 0 "
+          + "GROUP BY t.transactionCategoryEntity.id")
+  List<CategorySpendingDto> sumExpensesByAccountPerCategoryBetweenDate(
+      @Param("bankAccountId") Long bankAccountId,
+      @Param("transactionCategoryIds") Collection<Long> transactionCategoryIds,
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate);
 }
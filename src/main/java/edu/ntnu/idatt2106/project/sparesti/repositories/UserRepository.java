@@ -1,10 +1,14 @@
 package edu.ntnu.idatt2106.project.sparesti.repositories;
 
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserLeaderboardDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /** Provides basic CRUD functionality against the database through JPA. */
@@ -14,5 +18,30 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
   Optional<UserEntity> findUserEntityByUsername(String username);
 
-  List<UserEntity> findAllByOrderByScoreDesc();
+  Optional<UserEntity> findUserEntityByEmailIgnoreCase(String email);
+
+  Optional<UserEntity> findUserEntityBySubId(String subId);
+
+  boolean existsByUsername(String username);
+
+  /**
+   * Finds the id and score of every user, without loading the users.
+   *
+   * @return The id and the score of each user.
+   */
+  @Query("SELECT u.id, u.score FROM UserEntity u")
+  List<Object[]> findAllScores();
+
+  /**
+   * Finds the leaderboard entries of the given users, reading only the fields shown on the
+   * leaderboard. The rank of the entries is not set.
+   *
+   * @param ids The ids of the users.
+   * @return The entries of the users that exist, in no particular order.
+   */
+  @Query(
+      "SELECT new edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserLeaderboardDto("
+          + "u.id, u.username, u.email, u.fullName, u.imageUrl, u.score, u.subId, u.currentStreak) "
+          + "FROM UserEntity u WHERE u.id IN :ids")
+  List<UserLeaderboardDto> findLeaderboardEntriesByIdIn(@Param("ids") Collection<Long> ids);
 }
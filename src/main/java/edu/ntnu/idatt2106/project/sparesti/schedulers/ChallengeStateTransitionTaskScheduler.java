@@ -0,0 +1,69 @@
+package edu.ntnu.idatt2106.project.sparesti.schedulers;
+
+import edu.ntnu.idatt2106.project.sparesti.events.ChallengeStateTransitionQueue;
+import edu.ntnu.idatt2106.project.sparesti.services.SavingChallengeService;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedules the draining of the {@link ChallengeStateTransitionQueue}. The challenges that the read
+ * paths found to have failed or ended are settled in batches through the {@link
+ * SavingChallengeService}, so their states are written with a few bulk updates instead of one write
+ * per read. How often the queue is drained and how many challenges a batch holds are set by the
+ * properties sparesti.challenges.transition-interval and sparesti.jobs.chunk-size.
+ */
+@Log
+@Component
+public class ChallengeStateTransitionTaskScheduler {
+
+  private ChallengeStateTransitionQueue challengeStateTransitionQueue;
+
+  private SavingChallengeService savingChallengeService;
+
+  private int batchSize;
+
+  /**
+   * Creates a new instance of ChallengeStateTransitionTaskScheduler.
+   *
+   * @param challengeStateTransitionQueue The queue of challenges to settle, provided via dependency
+   *     injection.
+   * @param savingChallengeService The service that updates the states of the challenges, provided
+   *     via dependency injection.
+   * @param batchSize The maximum number of challenges settled in one transaction.
+   */
+  public ChallengeStateTransitionTaskScheduler(
+      ChallengeStateTransitionQueue challengeStateTransitionQueue,
+      SavingChallengeService savingChallengeService,
+      @Value("${sparesti.jobs.chunk-size:100}") int batchSize) {
+    this.challengeStateTransitionQueue = challengeStateTransitionQueue;
+    this.savingChallengeService = savingChallengeService;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Settles every queued challenge, one batch at a time. A batch that fails to settle does not stop
+   * the other batches, and its challenges are queued again to be retried by the next run. This
+   * method is invoked automatically a fixed interval after the previous run finished.
+   */
+  @Scheduled(
+      fixedDelayString = "${sparesti.challenges.transition-interval:5000}",
+      initialDelayString = "${sparesti.challenges.transition-interval:5000}")
+  public void drainStateTransitions() {
+    List<Long> failedChallengeIds = new ArrayList<>();
+    List<Long> challengeIds = challengeStateTransitionQueue.drain(batchSize);
+    while (!challengeIds.isEmpty()) {
+      try {
+        savingChallengeService.updateSavingChallengeStates(challengeIds);
+      } catch (RuntimeException e) {
+        log.warning("Failed to settle challenges " + challengeIds + ": " + e.getMessage());
+        failedChallengeIds.addAll(challengeIds);
+      }
+      challengeIds = challengeStateTransitionQueue.drain(batchSize);
+    }
+    failedChallengeIds.forEach(challengeStateTransitionQueue::offer);
+  }
+}
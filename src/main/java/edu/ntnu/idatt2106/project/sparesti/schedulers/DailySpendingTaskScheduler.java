@@ -0,0 +1,45 @@
+package edu.ntnu.idatt2106.project.sparesti.schedulers;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
+import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedules the rebuild of the daily spending rollup by leveraging the {@link BankAccountService}.
+ * The rollup is kept up to date as transactions are added, so the rebuild only repairs any drift
+ * once a week. It is not run when the application starts, as rewriting the whole rollup on every
+ * deploy would hold the rollup tables while traffic comes in. The running spending of the
+ * challenges is seeded from the rollup, so it is cleared whenever the rollup is rebuilt.
+ */
+@Component
+public class DailySpendingTaskScheduler {
+
+  private BankAccountService bankAccountService;
+
+  private ChallengeSpendingCounters challengeSpendingCounters;
+
+  /**
+   * Creates a new instance of DailySpendingTaskScheduler.
+   *
+   * @param bankAccountService The service responsible for maintaining the daily spending rollup,
+   *     provided via dependency injection.
+   * @param challengeSpendingCounters The running spending of the challenges, provided via
+   *     dependency injection.
+   */
+  public DailySpendingTaskScheduler(
+      BankAccountService bankAccountService, ChallengeSpendingCounters challengeSpendingCounters) {
+    this.bankAccountService = bankAccountService;
+    this.challengeSpendingCounters = challengeSpendingCounters;
+  }
+
+  /**
+   * Executes a scheduled task to rebuild the daily spending rollup. This method is invoked
+   * automatically at 3 AM Oslo time every Sunday.
+   */
+  @Scheduled(cron = "0 0 3 * * SUN", zone = "Europe/Oslo")
+  public void rebuildDailySpending() {
+    bankAccountService.rebuildDailySpending();
+    challengeSpendingCounters.clear();
+  }
+}
@@ -0,0 +1,32 @@
+package edu.ntnu.idatt2106.project.sparesti.schedulers;
+
+import edu.ntnu.idatt2106.project.sparesti.services.IdempotencyService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedules the cleanup of stored idempotency keys by leveraging the {@link IdempotencyService}.
+ * Keys only need to be kept for as long as a client might retry a request, so old keys are deleted
+ * to keep the table small.
+ */
+@Component
+public class IdempotencyKeyTaskScheduler {
+
+  private IdempotencyService idempotencyService;
+
+  /**
+   * Creates a new instance of IdempotencyKeyTaskScheduler.
+   *
+   * @param idempotencyService The service that stores the idempotency keys, provided via dependency
+   *     injection.
+   */
+  public IdempotencyKeyTaskScheduler(IdempotencyService idempotencyService) {
+    this.idempotencyService = idempotencyService;
+  }
+
+  /** Deletes expired idempotency keys. This method is invoked automatically at 4 AM Oslo time. */
+  @Scheduled(cron = "0 0 4 * * ?", zone = "Europe/Oslo")
+  public void purgeExpiredKeys() {
+    idempotencyService.purgeExpiredKeys();
+  }
+}
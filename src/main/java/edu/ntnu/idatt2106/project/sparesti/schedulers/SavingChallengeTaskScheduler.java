@@ -1,5 +1,9 @@
 package edu.ntnu.idatt2106.project.sparesti.schedulers;
 
+import edu.ntnu.idatt2106.project.sparesti.cache.ActiveChallengeIndex;
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
+import edu.ntnu.idatt2106.project.sparesti.jobs.BatchJobRunner;
+import edu.ntnu.idatt2106.project.sparesti.jobs.SavingChallengeStateJob;
 import edu.ntnu.idatt2106.project.sparesti.services.SavingChallengeService;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -14,25 +18,48 @@ import org.springframework.stereotype.Component;
  */
 @Component
 public class SavingChallengeTaskScheduler {
-  private SavingChallengeService savingChallengeService;
+  private BatchJobRunner batchJobRunner;
+
+  private SavingChallengeStateJob savingChallengeStateJob;
+
+  private ActiveChallengeIndex activeChallengeIndex;
+
+  private ChallengeSpendingCounters challengeSpendingCounters;
 
   /**
-   * Constructs a new SavingChallengeTaskScheduler with the necessary service to operate on saving
-   * challenges.
+   * Constructs a new SavingChallengeTaskScheduler with the job that operates on saving challenges
+   * and the runner that runs it.
    *
-   * @param savingChallengeService The service responsible for managing saving challenge operations,
-   *     provided via dependency injection.
+   * @param batchJobRunner The runner that runs the job in chunks, provided via dependency
+   *     injection.
+   * @param savingChallengeStateJob The job updating the saving challenges through the {@link
+   *     SavingChallengeService}, provided via dependency injection.
+   * @param activeChallengeIndex The index of the challenges in progress, which is rebuilt after the
+   *     job has run, provided via dependency injection.
+   * @param challengeSpendingCounters The running spending of the challenges in progress, which is
+   *     cleared after the job has run, provided via dependency injection.
    */
-  public SavingChallengeTaskScheduler(SavingChallengeService savingChallengeService) {
-    this.savingChallengeService = savingChallengeService;
+  public SavingChallengeTaskScheduler(
+      BatchJobRunner batchJobRunner,
+      SavingChallengeStateJob savingChallengeStateJob,
+      ActiveChallengeIndex activeChallengeIndex,
+      ChallengeSpendingCounters challengeSpendingCounters) {
+    this.batchJobRunner = batchJobRunner;
+    this.savingChallengeStateJob = savingChallengeStateJob;
+    this.activeChallengeIndex = activeChallengeIndex;
+    this.challengeSpendingCounters = challengeSpendingCounters;
   }
 
   /**
-   * Scheduled task that triggers the update of all saving challenge states. This method is executed
-   * automatically at 2 AM Oslo time every day.
+   * Scheduled task that settles the ended saving challenges by running the {@link
+   * SavingChallengeStateJob}, and then rebuilds the {@link ActiveChallengeIndex} and clears the
+   * {@link ChallengeSpendingCounters} so they no longer hold the settled challenges. This method is
+   * executed automatically at 2 AM Oslo time every day.
    */
   @Scheduled(cron = "0 0 2 * * ?", zone = "Europe/Oslo")
   public void updateSavingChallengesState() {
-    savingChallengeService.updateAllSavingChallengeStates();
+    batchJobRunner.run(savingChallengeStateJob);
+    activeChallengeIndex.rebuild();
+    challengeSpendingCounters.clear();
   }
 }
@@ -0,0 +1,69 @@
+package edu.ntnu.idatt2106.project.sparesti.schedulers;
+
+import edu.ntnu.idatt2106.project.sparesti.events.SavingGoalStateTransitionQueue;
+import edu.ntnu.idatt2106.project.sparesti.services.SavingGoalService;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedules the draining of the {@link SavingGoalStateTransitionQueue}. The due saving goals that
+ * the goal listing found are settled in batches of users through the {@link SavingGoalService}, so
+ * their states are written with a few bulk updates instead of on every read. How often the queue is
+ * drained and how many users a batch holds are set by the properties
+ * sparesti.goals.transition-interval and sparesti.jobs.chunk-size.
+ */
+@Log
+@Component
+public class SavingGoalStateTransitionTaskScheduler {
+
+  private SavingGoalStateTransitionQueue savingGoalStateTransitionQueue;
+
+  private SavingGoalService savingGoalService;
+
+  private int batchSize;
+
+  /**
+   * Creates a new instance of SavingGoalStateTransitionTaskScheduler.
+   *
+   * @param savingGoalStateTransitionQueue The queue of users whose goals to settle, provided via
+   *     dependency injection.
+   * @param savingGoalService The service that updates the states of the goals, provided via
+   *     dependency injection.
+   * @param batchSize The maximum number of users whose goals are settled in one transaction.
+   */
+  public SavingGoalStateTransitionTaskScheduler(
+      SavingGoalStateTransitionQueue savingGoalStateTransitionQueue,
+      SavingGoalService savingGoalService,
+      @Value("${sparesti.jobs.chunk-size:100}") int batchSize) {
+    this.savingGoalStateTransitionQueue = savingGoalStateTransitionQueue;
+    this.savingGoalService = savingGoalService;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Settles the due goals of every queued user, one batch at a time. A batch that fails to settle
+   * does not stop the other batches, and its users are queued again to be retried by the next run.
+   * This method is invoked automatically a fixed interval after the previous run finished.
+   */
+  @Scheduled(
+      fixedDelayString = "${sparesti.goals.transition-interval:5000}",
+      initialDelayString = "${sparesti.goals.transition-interval:5000}")
+  public void drainStateTransitions() {
+    List<Long> failedUserIds = new ArrayList<>();
+    List<Long> userIds = savingGoalStateTransitionQueue.drain(batchSize);
+    while (!userIds.isEmpty()) {
+      try {
+        savingGoalService.updateSavingGoalStatesForUsers(userIds);
+      } catch (RuntimeException e) {
+        log.warning("Failed to settle the goals of users " + userIds + ": " + e.getMessage());
+        failedUserIds.addAll(userIds);
+      }
+      userIds = savingGoalStateTransitionQueue.drain(batchSize);
+    }
+    failedUserIds.forEach(savingGoalStateTransitionQueue::offer);
+  }
+}
@@ -1,5 +1,7 @@
 package edu.ntnu.idatt2106.project.sparesti.schedulers;
 
+import edu.ntnu.idatt2106.project.sparesti.jobs.BatchJobRunner;
+import edu.ntnu.idatt2106.project.sparesti.jobs.SavingGoalStateJob;
 import edu.ntnu.idatt2106.project.sparesti.services.SavingGoalService;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -15,29 +17,34 @@ import org.springframework.stereotype.Component;
 @Component
 public class SavingGoalTaskScheduler {
 
-  private SavingGoalService savingGoalService;
+  private BatchJobRunner batchJobRunner;
+
+  private SavingGoalStateJob savingGoalStateJob;
 
   /**
-   * Creates a new instance of SavingGoalTaskScheduler, initializing it with a service that handles
-   * operations related to saving goals.
+   * Creates a new instance of SavingGoalTaskScheduler, initializing it with the job that updates
+   * the saving goals and the runner that runs it.
    *
-   * @param savingGoalService The service responsible for managing saving goal operations, provided
-   *     via dependency injection. This service is essential for the task execution logic
-   *     encapsulated in this scheduler.
+   * @param batchJobRunner The runner that runs the job in chunks, provided via dependency
+   *     injection.
+   * @param savingGoalStateJob The job updating the saving goals through the {@link
+   *     SavingGoalService}, provided via dependency injection.
    */
-  public SavingGoalTaskScheduler(SavingGoalService savingGoalService) {
-    this.savingGoalService = savingGoalService;
+  public SavingGoalTaskScheduler(
+      BatchJobRunner batchJobRunner, SavingGoalStateJob savingGoalStateJob) {
+    this.batchJobRunner = batchJobRunner;
+    this.savingGoalStateJob = savingGoalStateJob;
   }
 
   /**
    * Executes a scheduled task to update the states of all saving goals. This method is invoked
    * automatically at 1 AM Oslo time daily.
    *
-   * <p>The method calls the updateAllSavingGoalsStates method of the {@link SavingGoalService} to
-   * perform necessary state updates on all saving goals managed within the system.
+   * <p>The method runs the {@link SavingGoalStateJob} on the {@link BatchJobRunner}, which performs
+   * the necessary state updates on all saving goals in progress in chunks.
    */
   @Scheduled(cron = "0 0 1 * * ?", zone = "Europe/Oslo")
   public void updateSavingGoalsState() {
-    savingGoalService.updateAllSavingGoalsStates();
+    batchJobRunner.run(savingGoalStateJob);
   }
 }
@@ -2,10 +2,17 @@ package edu.ntnu.idatt2106.project.sparesti.services;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.ProjectedDailyExpenseDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.SpendingStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchResultDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchRowDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransferDto;
 import jakarta.transaction.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
  * Service interface for managing bank accounts. Provides methods for creating bank accounts,
@@ -35,6 +42,36 @@ public interface BankAccountService {
   double getAmountUsedOnTransactionsOnCategoryBetweenDate(
       Long bankAccountId, Long categoryId, LocalDateTime startDate, LocalDateTime endDate);
 
+  /**
+   * Calculates the total amount spent on transactions for each of the given categories over a
+   * specified time period, using a single query.
+   *
+   * @param bankAccountId The ID of the bank account.
+   * @param categoryIds The IDs of the categories for which transactions are to be totaled.
+   * @param startDate The start date of the period for which to calculate the total amounts.
+   * @param endDate The end date of the period for which to calculate the total amounts.
+   * @return A map from category ID to the total amount spent in that category. Every requested
+   *     category is present in the map.
+   */
+  Map<Long, Double> getAmountUsedOnTransactionsPerCategoryBetweenDate(
+      Long bankAccountId,
+      Collection<Long> categoryIds,
+      LocalDateTime startDate,
+      LocalDateTime endDate);
+
+  /**
+   * Calculates the total amount spent within a specific category between two days, both inclusive.
+   * The ids are not validated; an unknown account or category gives 0.
+   *
+   * @param bankAccountId The ID of the bank account.
+   * @param categoryId The ID of the category for which spending is to be totaled.
+   * @param startDay The first day of the period.
+   * @param endDay The last day of the period.
+   * @return The total amount spent in the category over the period.
+   */
+  double getAmountUsedOnCategoryBetweenDays(
+      Long bankAccountId, Long categoryId, LocalDate startDay, LocalDate endDay);
+
   /**
    * Retrieves the details of a bank account by its ID.
    *
@@ -59,6 +96,18 @@ public interface BankAccountService {
    */
   void addTransferToAccounts(TransferDto transferDto);
 
+  /**
+   * Adds a batch of transactions to a bank account. Rows that cannot be read or fail validation are
+   * reported in the result and skipped, while the remaining rows are added. The balance of the
+   * account is updated once with the net sum of the added transactions.
+   *
+   * @param accountId The ID of the bank account the transactions are added to.
+   * @param rows The rows of the batch, read one at a time.
+   * @return The number of rows received and added, the net balance change and the rejected rows.
+   */
+  TransactionBatchResultDto addTransactionBatchToAccount(
+      Long accountId, Iterator<TransactionBatchRowDto> rows);
+
   /**
    * Assigns a user some default bank accounts for testing purposes.
    *
@@ -69,7 +118,7 @@ public interface BankAccountService {
   /**
    * Calculates the average daily expenditure on a specified category over a custom period defined
    * by the number of days provided. The average is computed based on the expenditure from the last
-   * 30 days and then extrapolated to the number of days specified.
+   * 30 days, today included, and then extrapolated to the number of days specified.
    *
    * @param accountId the ID of the account for which expenditures are being calculated.
    * @param categoryId the ID of the category for which expenditures are being calculated.
@@ -82,6 +131,30 @@ public interface BankAccountService {
    */
   double getAverageExpenditureOnCategory(Long accountId, Long categoryId, int projectionDays);
 
+  /**
+   * Calculates the average expenditure for each of the given categories, in the same way as {@link
+   * #getAverageExpenditureOnCategory(Long, Long, int)}, using a single query for all categories.
+   * The ids are not validated.
+   *
+   * @param accountId the ID of the account for which expenditures are being calculated.
+   * @param categoryIds the IDs of the categories for which expenditures are being calculated.
+   * @param projectionDays the number of days over which the average should be extrapolated.
+   * @return a map from category ID to the projected expenditure. Every requested category is
+   *     present in the map.
+   */
+  Map<Long, Double> getAverageExpenditurePerCategory(
+      Long accountId, Collection<Long> categoryIds, int projectionDays);
+
+  /**
+   * Gets the spending statistics of an account in a category: the rolling 7, 30 and 90 day sums,
+   * and the moving average, median and 90th percentile of the weekly spending.
+   *
+   * @param accountId the ID of the account.
+   * @param categoryId the ID of the category.
+   * @return the spending statistics of the account in the category.
+   */
+  SpendingStatisticsDto getSpendingStatistics(Long accountId, Long categoryId);
+
   /**
    * Converts a double value to a projectedExpenseDto.
    *
@@ -89,4 +162,12 @@ public interface BankAccountService {
    * @return The projectedExpenseDto.
    */
   ProjectedDailyExpenseDto convertToProjectedExpenseDto(double projectedExpense);
+
+  /**
+   * Rebuilds the daily spending rollup from the transactions stored in the database. Used to
+   * backfill the rollup and to repair it if it has drifted from the transaction table.
+   *
+   * @return The number of rollup rows written.
+   */
+  int rebuildDailySpending();
 }
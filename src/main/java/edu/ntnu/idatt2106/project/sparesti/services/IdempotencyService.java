@@ -0,0 +1,42 @@
+package edu.ntnu.idatt2106.project.sparesti.services;
+
+import java.util.function.Supplier;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Service interface for idempotency keys. Lets clients safely retry requests that change data, by
+ * storing the response of the first request with a key and answering later requests with the same
+ * key with the stored response.
+ */
+public interface IdempotencyService {
+
+  /**
+   * Runs a request once per idempotency key. The first request with a key runs the action and
+   * stores its response in the same transaction as the changes the action makes. Later requests
+   * with the same key in the same scope get the stored response without running the action, as long
+   * as they send the same request. A later request with the same key but a different request is
+   * rejected with 422 Unprocessable Entity.
+   *
+   * @param scope The caller, endpoint and resource the key belongs to.
+   * @param key The idempotency key sent by the client, or null to always run the action.
+   * @param request The body of the request, or null if it has none. Compared by its JSON.
+   * @param bodyType The type of the response body, used to read back stored responses.
+   * @param action The request to run.
+   * @param <T> The type of the response body.
+   * @return The response of the action, or the stored response if the key has been used before.
+   */
+  <T> ResponseEntity<T> execute(
+      String scope,
+      String key,
+      Object request,
+      Class<T> bodyType,
+      Supplier<ResponseEntity<T>> action);
+
+  /**
+   * Deletes the stored keys that are older than the retention period, after which a retry is no
+   * longer expected.
+   *
+   * @return The number of keys deleted.
+   */
+  int purgeExpiredKeys();
+}
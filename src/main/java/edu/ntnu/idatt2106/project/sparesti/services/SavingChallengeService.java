@@ -20,6 +20,17 @@ public interface SavingChallengeService {
   public SavingChallengeResponseDto createSavingChallenge(
       SavingChallengeRequestDto savingChallengeDto, Long goalId);
 
+  /**
+   * Service responsible for creating several saving challenges as part of a savings goal at once.
+   * Either all challenges are created, or none.
+   *
+   * @param savingChallengeDtos Dtos containing necessary data to create the saving challenges
+   * @param goalId Id of the related saving goal
+   * @return The created saving challenges with additional response data, in the requested order
+   */
+  public List<SavingChallengeResponseDto> createSavingChallenges(
+      List<SavingChallengeRequestDto> savingChallengeDtos, Long goalId);
+
   /**
    * Service responsible for getting a list of all challenges within a goal.
    *
@@ -57,8 +68,32 @@ public interface SavingChallengeService {
   public List<SavingChallengeResponseDto> getChallengeSuggestions(Long goalId);
 
   /**
-   * Checks and updates the state of all the challenges in the database that are currently in the
-   * Challenge-state of IN_PROGRESS.
+   * Finds the ids of the challenges that are currently in the Challenge-state of IN_PROGRESS and
+   * have ended, in ascending order, starting after a given id.
+   *
+   * @param afterId The id after which to start, or 0 to start from the first challenge.
+   * @param limit The maximum number of ids to find.
+   * @return The ids of the ended challenges in progress.
+   */
+  List<Long> findEndedSavingChallengeIdsInProgress(long afterId, int limit);
+
+  /**
+   * Checks and updates the state of the given challenges that are currently in the Challenge-state
+   * of IN_PROGRESS. Challenges that have overspent are marked as FAILED, and challenges that have
+   * ended are marked as COMPLETED.
+   *
+   * @param challengeIds The ids of the challenges to check.
+   * @return The number of challenges whose state changed.
+   */
+  int updateSavingChallengeStates(List<Long> challengeIds);
+
+  /**
+   * Marks the challenges in progress that track spending on a category from a bank account as
+   * FAILED if they have overspent. Called when an expense is recorded on the account.
+   *
+   * @param bankAccountId The id of the bank account the expense was recorded on.
+   * @param transactionCategoryId The id of the category of the expense.
+   * @return The number of challenges marked as FAILED.
    */
-  void updateAllSavingChallengeStates();
+  int failOverspentChallenges(Long bankAccountId, Long transactionCategoryId);
 }
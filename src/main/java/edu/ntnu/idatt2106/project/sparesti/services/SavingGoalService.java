@@ -48,7 +48,22 @@ public interface SavingGoalService {
   SavingGoalDtoDetailsResponse getSavingGoal(Long goalId);
 
   /**
-   * Checks the progress and updates all Saving Goals that are currently in progress in Database.
+   * Finds the ids of the users that have Saving Goals in progress that are due, because their
+   * ending date has passed or their goal sum has been saved, in ascending order, starting after a
+   * given id.
+   *
+   * @param afterUserId The user id after which to start, or 0 to start from the first user.
+   * @param limit The maximum number of ids to find.
+   * @return The ids of the users with due Saving Goals.
+   */
+  List<Long> findUserIdsWithDueSavingGoals(long afterUserId, int limit);
+
+  /**
+   * Completes or fails the Saving Goals in progress that are due for the given users, together with
+   * their challenges in progress.
+   *
+   * @param userIds The ids of the users whose Saving Goals should be checked.
+   * @return The number of Saving Goals whose state changed.
    */
-  void updateAllSavingGoalsStates();
+  int updateSavingGoalStatesForUsers(List<Long> userIds);
 }
@@ -17,6 +17,13 @@ public interface UserService {
    */
   UserDto createUser(UserDto userDto);
 
+  /**
+   * Records a login of an existing user.
+   *
+   * @param subId The sub claim of the access token of the user logging in.
+   */
+  void recordLogin(String subId);
+
   /**
    * Service for checking if a user exists in the database.
    *
@@ -61,12 +68,33 @@ public interface UserService {
   UserDetails editUser(String username, UserDetailsRequestDto userDetails);
 
   /**
-   * Used for getting a leader board of users.
+   * Used for getting the whole leader board of users. Users with the same score are ordered by
+   * their id.
    *
-   * @return list of user Dtos sorted by points (high to low).
+   * @return list of every user Dto sorted by points (high to low), with their ranks.
    */
   public List<UserLeaderboardDto> getGlobalLeaderboard();
 
+  /**
+   * Used for getting a page of the leader board of users. Users with the same score are ordered by
+   * their id.
+   *
+   * @param page The number of the page, starting at 0.
+   * @param size The number of users on a page.
+   * @return list of user Dtos on the page sorted by points (high to low), with their ranks.
+   */
+  public List<UserLeaderboardDto> getGlobalLeaderboard(int page, int size);
+
+  /**
+   * Used for getting the rank of a user on the leader board, and the users right above and below
+   * them.
+   *
+   * @param username The username of the user.
+   * @param neighbours The number of users to include above and below the user.
+   * @return list of user Dtos around the user sorted by points (high to low), with their ranks.
+   */
+  public List<UserLeaderboardDto> getLeaderboardAroundUser(String username, int neighbours);
+
   /**
    * Method for gettung the sub id for a user.
    *
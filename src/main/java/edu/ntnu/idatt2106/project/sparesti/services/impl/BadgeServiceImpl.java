@@ -1,16 +1,16 @@
 package edu.ntnu.idatt2106.project.sparesti.services.impl;
 
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeCatalog;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeProgressDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.CompletedBadgeDto;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
 import edu.ntnu.idatt2106.project.sparesti.mappers.impl.BadgeMapperImpl;
 import edu.ntnu.idatt2106.project.sparesti.mappers.impl.BadgeProgressMapperImpl;
-import edu.ntnu.idatt2106.project.sparesti.mappers.impl.CompletedBadgeMapperImpl;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
 import edu.ntnu.idatt2106.project.sparesti.services.BadgeService;
+import jakarta.transaction.Transactional;
 import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -27,7 +27,7 @@ public class BadgeServiceImpl implements BadgeService {
 
   private BadgeProgressMapperImpl badgeProgressMapper;
 
-  private CompletedBadgeMapperImpl completedBadgeMapper;
+  private BadgeCatalog badgeCatalog;
 
   /**
    * Constructor for the badge service.
@@ -35,27 +35,31 @@ public class BadgeServiceImpl implements BadgeService {
    * @param userRepository The user repository storing data about users
    * @param badgeMapper The mappers responsible for mapping between badge entities and dtos
    * @param badgeRepository The badge repository storing data about badges
+   * @param badgeCatalog The catalog of badges keeping track of the badges users have completed
    */
   public BadgeServiceImpl(
       UserRepository userRepository,
       BadgeMapperImpl badgeMapper,
       BadgeRepository badgeRepository,
       BadgeProgressMapperImpl badgeProgressMapper,
-      CompletedBadgeMapperImpl completedBadgeMapper) {
+      BadgeCatalog badgeCatalog) {
     this.userRepository = userRepository;
     this.badgeRepository = badgeRepository;
     this.badgeMapper = badgeMapper;
     this.badgeProgressMapper = badgeProgressMapper;
-    this.completedBadgeMapper = completedBadgeMapper;
+    this.badgeCatalog = badgeCatalog;
   }
 
   /**
-   * Service that finds all badges registered on a user.
+   * Service that finds all badges registered on a user. The badges are read from the bitset of
+   * completed badges stored with the user, so the completed badges of the user are not loaded. The
+   * id of each badge is its ordinal in the badge catalog, which is unique for every badge and tier.
    *
    * @param username Username of the user to check for
    * @return List of found badges
    */
   @Override
+  @Transactional
   public List<CompletedBadgeDto> getBadgesByUser(String username) {
     UserEntity userEntity =
         userRepository
@@ -64,8 +68,15 @@ public class BadgeServiceImpl implements BadgeService {
                 () ->
                     new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "No user with that username."));
-    return userEntity.getCompletedBadges().stream()
-        .map(badgeEntity -> completedBadgeMapper.mapTo(badgeEntity))
+    return badgeCatalog.completedBy(userEntity).stream()
+        .map(
+            badge ->
+                CompletedBadgeDto.builder()
+                    .id((long) badge.getOrdinal())
+                    .name(badge.getName())
+                    .description(badge.getDescription())
+                    .tier(badge.getTier())
+                    .build())
         .toList();
   }
 
@@ -1,27 +1,48 @@
 package edu.ntnu.idatt2106.project.sparesti.services.impl;
 
+import edu.ntnu.idatt2106.project.sparesti.cache.SpendingStatisticsStore;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.ProjectedDailyExpenseDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.SpendingStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchErrorDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchResultDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchRowDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransferDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.DailySpendingId;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransferEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.events.TransactionRecordedEvent;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.DailySpendingRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionCategoryRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransferRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
 import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
 import edu.ntnu.idatt2106.project.sparesti.services.TestIdCounterService;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import lombok.extern.java.Log;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 /**
@@ -29,6 +50,7 @@ import org.springframework.web.server.ResponseStatusException;
  * provides detailed implementations for creating, querying, and updating bank account data,
  * handling transactions, and managing transfers between accounts.
  */
+@Log
 @Service
 public class BankAccountServiceImpl implements BankAccountService {
 
@@ -36,11 +58,15 @@ public class BankAccountServiceImpl implements BankAccountService {
   private TransactionRepository transactionRepository;
   private TransactionCategoryRepository transactionCategoryRepository;
   private TransferRepository transferRepository;
+  private DailySpendingRepository dailySpendingRepository;
+  private SpendingStatisticsStore spendingStatisticsStore;
   private UserRepository userRepository;
   private TestIdCounterService testIdCounterService;
   private Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper;
   private Mapper<TransactionEntity, TransactionDto> transactionMapper;
   private Mapper<TransferEntity, TransferDto> transferMapper;
+  private EntityManager entityManager;
+  private ApplicationEventPublisher eventPublisher;
 
   private static final String DEFAULT_SAVING_ACCOUNT = "Default Sparekonto";
   private static final String DEFAULT_BUFFER_ACCOUNT = "Default Bufferkonto";
@@ -49,6 +75,8 @@ public class BankAccountServiceImpl implements BankAccountService {
   private static final int BASE_SUM = 50000;
   private static final int SUM_VARIATION_LIMIT = 100;
   private static final int SUM_VARIATION_MULTIPLIER = 1000;
+  private static final int TRANSACTION_BATCH_CHUNK_SIZE = 500;
+  private static final int AVERAGE_EXPENDITURE_DAYS = 30;
 
   /**
    * Constructs a BankAccountServiceImpl with necessary dependencies. Used for field injection.
@@ -57,31 +85,43 @@ public class BankAccountServiceImpl implements BankAccountService {
    * @param transactionRepository repository for transaction operations
    * @param transactionCategoryRepository repository for transaction category operations
    * @param transferRepository repository for transfer operations
+   * @param dailySpendingRepository repository for the daily spending rollup
+   * @param spendingStatisticsStore in-memory spending statistics of each account and category
    * @param testIdCounterService service for finding the next id.
    * @param userRepository repository for user operations
    * @param bankAccountMapper mapper for converting between BankAccountEntity and BankAccountDto
    * @param transactionMapper mapper for converting between TransactionEntity and TransactionDto
    * @param transferMapper mapper for converting between TransferEntity and TransferDto
+   * @param entityManager entity manager used to flush and clear large batches
+   * @param eventPublisher publisher of the events for recorded expenses
    */
   public BankAccountServiceImpl(
       BankAccountRepository bankAccountRepository,
       TransactionRepository transactionRepository,
       TransactionCategoryRepository transactionCategoryRepository,
       TransferRepository transferRepository,
+      DailySpendingRepository dailySpendingRepository,
+      SpendingStatisticsStore spendingStatisticsStore,
       UserRepository userRepository,
       TestIdCounterService testIdCounterService,
       Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper,
       Mapper<TransactionEntity, TransactionDto> transactionMapper,
-      Mapper<TransferEntity, TransferDto> transferMapper) {
+      Mapper<TransferEntity, TransferDto> transferMapper,
+      EntityManager entityManager,
+      ApplicationEventPublisher eventPublisher) {
     this.bankAccountRepository = bankAccountRepository;
     this.transactionRepository = transactionRepository;
     this.transactionCategoryRepository = transactionCategoryRepository;
     this.testIdCounterService = testIdCounterService;
     this.transferRepository = transferRepository;
+    this.dailySpendingRepository = dailySpendingRepository;
+    this.spendingStatisticsStore = spendingStatisticsStore;
     this.userRepository = userRepository;
     this.bankAccountMapper = bankAccountMapper;
     this.transactionMapper = transactionMapper;
     this.transferMapper = transferMapper;
+    this.entityManager = entityManager;
+    this.eventPublisher = eventPublisher;
   }
 
   /**
@@ -116,23 +156,51 @@ public class BankAccountServiceImpl implements BankAccountService {
   @Override
   public double getAmountUsedOnTransactionsOnCategoryBetweenDate(
       Long bankAccountId, Long categoryId, LocalDateTime startDate, LocalDateTime endDate) {
-    bankAccountRepository
-        .findById(bankAccountId)
-        .orElseThrow(
-            () ->
-                new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not find Bank Account."));
-
+    checkForBankAccountNotFoundException(bankAccountId);
     checkForCategoryNotFoundException(categoryId);
 
-    List<TransactionEntity> transactionsFound =
-        transactionRepository.findByBankAccount_IdAndTransactionCategoryEntity_IdAndDateBetween(
-            bankAccountId, categoryId, startDate, endDate);
-
     return Math.abs(
-        transactionsFound.stream()
-            .filter(transaction -> transaction.getSum() < 0)
-            .mapToDouble(TransactionEntity::getSum)
-            .sum());
+        transactionRepository.sumExpensesByAccountAndCategoryBetweenDate(
+            bankAccountId, categoryId, startDate, endDate));
+  }
+
+  /**
+   * {@inheritDoc} Throws BankAccountNotFoundException if the bank account is not found. Categories
+   * that do not exist are reported with an amount of 0.
+   */
+  @Override
+  public Map<Long, Double> getAmountUsedOnTransactionsPerCategoryBetweenDate(
+      Long bankAccountId,
+      Collection<Long> categoryIds,
+      LocalDateTime startDate,
+      LocalDateTime endDate) {
+    checkForBankAccountNotFoundException(bankAccountId);
+
+    Map<Long, Double> amountUsedPerCategory = new HashMap<>();
+    if (categoryIds.isEmpty()) {
+      return amountUsedPerCategory;
+    }
+    categoryIds.forEach(categoryId -> amountUsedPerCategory.put(categoryId, 0.0));
+
+    transactionRepository
+        .sumExpensesByAccountPerCategoryBetweenDate(bankAccountId, categoryIds, startDate, endDate)
+        .forEach(
+            categorySpending ->
+                amountUsedPerCategory.put(
+                    categorySpending.getCategoryId(), Math.abs(categorySpending.getTotalSpent())));
+
+    return amountUsedPerCategory;
+  }
+
+  /**
+   * {@inheritDoc} The amount is read from the daily spending rollup, so the cost depends on the
+   * number of days in the range rather than the number of transactions.
+   */
+  @Override
+  public double getAmountUsedOnCategoryBetweenDays(
+      Long bankAccountId, Long categoryId, LocalDate startDay, LocalDate endDay) {
+    return dailySpendingRepository.sumSpentByAccountAndCategoryBetweenDays(
+        bankAccountId, categoryId, startDay, endDay);
   }
 
   /** {@inheritDoc} Throws BankAccountNotFoundException if the bank account is not found. */
@@ -149,6 +217,12 @@ public class BankAccountServiceImpl implements BankAccountService {
 
   /**
    * {@inheritDoc} Throws CategoryNotFoundException if the transaction category is not found. Throws
+   * BankAccountNotFoundException if the bank account is not found. The transaction is inserted
+   * directly against the account, so the transaction list of the account is never loaded and the
+   * cost of the write does not grow with the history of the account. The balance is updated before
+   * the transaction is inserted, so the row lock on the account is the first lock taken. An expense
+   * publishes a {@link TransactionRecordedEvent}, so the challenges it affects are re-evaluated in
+   * the same transaction.
    */
   @Transactional
   @Override
@@ -157,24 +231,36 @@ public class BankAccountServiceImpl implements BankAccountService {
 
     TransactionEntity transactionEntity = transactionMapper.mapFrom(transactionDto);
 
-    BankAccountEntity bankAccountEntity =
-        bankAccountRepository
-            .findById(accountId)
-            .orElseThrow(
-                () ->
-                    new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "Could not find Bank Account."));
-
-    bankAccountEntity.addTransaction(transactionEntity);
-
-    bankAccountRepository.save(bankAccountEntity);
-
-    updateBalanceOfAccount(bankAccountEntity, transactionEntity.getSum());
+    adjustBalanceOfAccount(accountId, transactionDto.getSum(), "Could not find Bank Account.");
+
+    transactionEntity.setBankAccount(bankAccountRepository.getReferenceById(accountId));
+    transactionEntity.setTransactionCategoryEntity(
+        transactionCategoryRepository.getReferenceById(transactionDto.getCategoryEntityId()));
+    transactionRepository.save(transactionEntity);
+
+    addToDailySpending(
+        accountId,
+        transactionDto.getCategoryEntityId(),
+        transactionEntity.getDate(),
+        transactionEntity.getSum());
+    if (transactionEntity.getSum() < 0) {
+      eventPublisher.publishEvent(
+          new TransactionRecordedEvent(
+              accountId,
+              transactionDto.getCategoryEntityId(),
+              Map.of(transactionEntity.getDate().toLocalDate(), -transactionEntity.getSum())));
+    }
   }
 
   /**
    * {@inheritDoc} Throws BankAccountNotFoundException if either the source or destination account
-   * is not found. Throws Exception for invalid transfer details.
+   * is not found. Throws Exception for invalid transfer details. Like transactions, the transfer is
+   * inserted directly, without loading the transfer lists of either account.
+   *
+   * <p>Both balances are changed by conditional updates, and each update locks the row of its
+   * account until the transaction ends. The updates are always applied in ascending account id
+   * order, so two transfers in opposite directions between the same accounts queue up on the same
+   * first row instead of each holding the row the other one needs.
    */
   @Transactional
   @Override
@@ -182,41 +268,184 @@ public class BankAccountServiceImpl implements BankAccountService {
     validateTransferDto(transferDto);
 
     TransferEntity transferEntity = transferMapper.mapFrom(transferDto);
+    Long sourceAccountId = transferEntity.getSourceBankAccount().getId();
+    Long destinationAccountId = transferEntity.getDestinationBankAccount().getId();
+
+    if (sourceAccountId <= destinationAccountId) {
+      debitTransferSource(sourceAccountId, transferEntity.getSum());
+      creditTransferDestination(destinationAccountId, transferEntity.getSum());
+    } else {
+      creditTransferDestination(destinationAccountId, transferEntity.getSum());
+      debitTransferSource(sourceAccountId, transferEntity.getSum());
+    }
 
-    BankAccountEntity bankAccountEntitySentFrom =
-        bankAccountRepository
-            .findById(transferEntity.getSourceBankAccount().getId())
-            .orElseThrow(
-                () ->
-                    new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "The source account was not found."));
-    BankAccountEntity bankAccountEntitySentTo =
-        bankAccountRepository
-            .findById(transferEntity.getDestinationBankAccount().getId())
-            .orElseThrow(
-                () ->
-                    new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "The destination account was not found."));
-
+    transferEntity.setSourceBankAccount(bankAccountRepository.getReferenceById(sourceAccountId));
+    transferEntity.setDestinationBankAccount(
+        bankAccountRepository.getReferenceById(destinationAccountId));
     transferRepository.save(transferEntity);
+  }
 
-    bankAccountEntitySentFrom.addTransferSent(transferEntity);
-    bankAccountEntitySentTo.addTransferReceived(transferEntity);
-
-    updateBalanceOfAccount(bankAccountEntitySentFrom, -transferEntity.getSum());
-    updateBalanceOfAccount(bankAccountEntitySentTo, transferEntity.getSum());
+  /**
+   * {@inheritDoc} Throws BankAccountNotFoundException if the bank account is not found, and
+   * ResponseStatusException if the net sum of the batch would bring the balance below zero, in
+   * which case none of the rows are added. Categories are validated against ids loaded once per
+   * batch, and the rows are inserted in chunks that are flushed and cleared from the persistence
+   * context, so the memory used does not grow with the size of the batch. One {@link
+   * TransactionRecordedEvent} is published for each category the batch spends on.
+   */
+  @Transactional
+  @Override
+  public TransactionBatchResultDto addTransactionBatchToAccount(
+      Long accountId, Iterator<TransactionBatchRowDto> rows) {
+    checkForBankAccountNotFoundException(accountId);
+    Set<Long> categoryIds = transactionCategoryRepository.findAllIds();
+
+    TransactionBatchResultDto result = new TransactionBatchResultDto();
+    Map<DailySpendingId, double[]> spendingPerDay = new HashMap<>();
+    List<TransactionEntity> chunk = new ArrayList<>();
+    double balanceChange = 0;
+
+    while (rows.hasNext()) {
+      TransactionBatchRowDto row = rows.next();
+      result.setReceived(result.getReceived() + 1);
+
+      String error =
+          row.getError() != null
+              ? row.getError()
+              : validateBatchTransaction(accountId, row.getTransaction(), categoryIds);
+      if (error != null) {
+        result.getErrors().add(new TransactionBatchErrorDto(row.getIndex(), error));
+        continue;
+      }
+
+      TransactionDto transactionDto = row.getTransaction();
+      chunk.add(
+          TransactionEntity.builder()
+              .description(transactionDto.getDescription())
+              .sum(transactionDto.getSum())
+              .date(transactionDto.getDate())
+              .transactionCategoryEntity(
+                  transactionCategoryRepository.getReferenceById(
+                      transactionDto.getCategoryEntityId()))
+              .bankAccount(bankAccountRepository.getReferenceById(accountId))
+              .build());
+      balanceChange += transactionDto.getSum();
+      if (transactionDto.getSum() < 0) {
+        double[] spending =
+            spendingPerDay.computeIfAbsent(
+                new DailySpendingId(
+                    accountId,
+                    transactionDto.getCategoryEntityId(),
+                    transactionDto.getDate().toLocalDate()),
+                key -> new double[2]);
+        spending[0] -= transactionDto.getSum();
+        spending[1]++;
+      }
+
+      if (chunk.size() == TRANSACTION_BATCH_CHUNK_SIZE) {
+        saveTransactionChunk(chunk);
+      }
+      result.setAccepted(result.getAccepted() + 1);
+    }
+    saveTransactionChunk(chunk);
+
+    spendingPerDay.forEach(
+        (key, spending) ->
+            dailySpendingRepository.addSpending(
+                key.getBankAccountId(),
+                key.getTransactionCategoryId(),
+                key.getSpendingDay(),
+                spending[0],
+                (long) spending[1]));
+    Map<Long, Map<LocalDate, Double>> spentPerCategory = new HashMap<>();
+    spendingPerDay.forEach(
+        (key, spending) ->
+            spentPerCategory
+                .computeIfAbsent(key.getTransactionCategoryId(), categoryId -> new HashMap<>())
+                .put(key.getSpendingDay(), spending[0]));
+    spentPerCategory.forEach(
+        (categoryId, spentPerDay) ->
+            eventPublisher.publishEvent(
+                new TransactionRecordedEvent(accountId, categoryId, spentPerDay)));
+
+    adjustBalanceOfAccount(accountId, balanceChange, "Could not find Bank Account.");
+    result.setBalanceChange(balanceChange);
+    return result;
   }
 
-  /** {@inheritDoc} */
+  /**
+   * {@inheritDoc} Throws BankAccountNotFoundException if the bank account is not found. Throws
+   * CategoryNotFoundException if the transaction category is not found. The spending is read from
+   * the spending statistics store, whose 30 day sum covers exactly the 30 days it is divided by.
+   */
   @Override
   public double getAverageExpenditureOnCategory(
       Long accountId, Long categoryId, int projectionDays) {
-    LocalDateTime currentTime = LocalDateTime.now();
+    checkForBankAccountNotFoundException(accountId);
+    checkForCategoryNotFoundException(categoryId);
 
     double totalAmountUsedLastMonth =
-        getAmountUsedOnTransactionsOnCategoryBetweenDate(
-            accountId, categoryId, currentTime.minusDays(30), currentTime);
-    return (totalAmountUsedLastMonth / 30) * projectionDays;
+        spendingStatisticsStore.find(accountId, categoryId).getSpentLast30Days();
+    return (totalAmountUsedLastMonth / AVERAGE_EXPENDITURE_DAYS) * projectionDays;
+  }
+
+  /**
+   * {@inheritDoc} The spending is read from the spending statistics store, which seeds the
+   * categories it does not hold with one query on the daily spending rollup.
+   */
+  @Override
+  public Map<Long, Double> getAverageExpenditurePerCategory(
+      Long accountId, Collection<Long> categoryIds, int projectionDays) {
+    Map<Long, Double> averagePerCategory = new HashMap<>();
+    if (categoryIds.isEmpty()) {
+      return averagePerCategory;
+    }
+
+    spendingStatisticsStore
+        .findAll(accountId, categoryIds)
+        .forEach(
+            (categoryId, statistics) ->
+                averagePerCategory.put(
+                    categoryId,
+                    (statistics.getSpentLast30Days() / AVERAGE_EXPENDITURE_DAYS) * projectionDays));
+
+    return averagePerCategory;
+  }
+
+  /**
+   * {@inheritDoc} Throws BankAccountNotFoundException if the bank account is not found. Throws
+   * CategoryNotFoundException if the transaction category is not found.
+   */
+  @Override
+  public SpendingStatisticsDto getSpendingStatistics(Long accountId, Long categoryId) {
+    checkForBankAccountNotFoundException(accountId);
+    checkForCategoryNotFoundException(categoryId);
+
+    return spendingStatisticsStore.find(accountId, categoryId);
+  }
+
+  /**
+   * {@inheritDoc} The rollup is emptied and refilled within one transaction, so readers never see a
+   * partially rebuilt rollup. The spending statistics store is cleared before the rebuild and again
+   * once it commits, so it is seeded from the rebuilt rollup.
+   */
+  @Transactional
+  @Override
+  public int rebuildDailySpending() {
+    spendingStatisticsStore.clear();
+    dailySpendingRepository.deleteAllSpending();
+    int rows = dailySpendingRepository.insertSpendingFromTransactions();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              spendingStatisticsStore.clear();
+            }
+          });
+    }
+    log.info("Rebuilt daily spending rollup with " + rows + " rows.");
+    return rows;
   }
 
   @Override
@@ -230,33 +459,84 @@ public class BankAccountServiceImpl implements BankAccountService {
    * @param categoryId The ID being checked.
    */
   private void checkForCategoryNotFoundException(Long categoryId) {
-    transactionCategoryRepository
-        .findById(categoryId)
-        .orElseThrow(
-            () ->
-                new ResponseStatusException(
-                    HttpStatus.NOT_FOUND, "Could not find Transaction category."));
+    if (!transactionCategoryRepository.existsById(categoryId)) {
+      throw new ResponseStatusException(
+          HttpStatus.NOT_FOUND, "Could not find Transaction category.");
+    }
   }
 
   /**
-   * Updates the balance of an account.
+   * Checks if a bank account of a certain ID exists. If not it throws a
+   * BankAccountNotFoundException.
    *
-   * @param bankAccount The account that has its balance changed.
-   * @param amount The amount that the balance is being changed by. Throws ResponseStatusException
-   *     exception if an account's sum would be less than zero.
+   * @param bankAccountId The ID being checked.
    */
-  private void updateBalanceOfAccount(BankAccountEntity bankAccount, double amount) {
-    double currentSum = bankAccount.getSum();
+  private void checkForBankAccountNotFoundException(Long bankAccountId) {
+    if (!bankAccountRepository.existsById(bankAccountId)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not find Bank Account.");
+    }
+  }
 
-    double newSum = currentSum + amount;
+  /**
+   * Adds an expense to the daily spending rollup of its account, category and day. Transactions
+   * that are not expenses are ignored.
+   *
+   * @param accountId The account the transaction belongs to.
+   * @param categoryId The category of the transaction.
+   * @param date The date of the transaction.
+   * @param sum The sum of the transaction.
+   */
+  private void addToDailySpending(Long accountId, Long categoryId, LocalDateTime date, double sum) {
+    if (sum < 0) {
+      dailySpendingRepository.addSpending(accountId, categoryId, date.toLocalDate(), -sum, 1);
+    }
+  }
 
-    if (newSum < 0) {
+  /**
+   * Updates the balance of an account with a single conditional update, so concurrent updates of
+   * the same account neither get lost nor need a lock held across the transaction. If the account
+   * is already loaded in the persistence context, it is refreshed to show the new balance.
+   *
+   * @param accountId The account that has its balance changed.
+   * @param amount The amount that the balance is being changed by. Throws ResponseStatusException
+   *     exception if an account's sum would be less than zero.
+   * @param notFoundMessage The message of the exception thrown if the account does not exist.
+   */
+  private void adjustBalanceOfAccount(Long accountId, double amount, String notFoundMessage) {
+    if (bankAccountRepository.adjustBalance(accountId, amount) == 0) {
+      if (!bankAccountRepository.existsById(accountId)) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, notFoundMessage);
+      }
       throw new ResponseStatusException(
           HttpStatus.BAD_REQUEST,
           "A bank account's balance cannot be updated to be less than zero");
     }
 
-    bankAccount.setSum(currentSum + amount);
+    BankAccountEntity bankAccountEntity =
+        entityManager.getReference(BankAccountEntity.class, accountId);
+    if (Hibernate.isInitialized(bankAccountEntity)) {
+      entityManager.refresh(bankAccountEntity);
+    }
+  }
+
+  /**
+   * Withdraws the sum of a transfer from its source account.
+   *
+   * @param sourceAccountId The account the transfer is sent from.
+   * @param sum The sum of the transfer.
+   */
+  private void debitTransferSource(Long sourceAccountId, double sum) {
+    adjustBalanceOfAccount(sourceAccountId, -sum, "The source account was not found.");
+  }
+
+  /**
+   * Deposits the sum of a transfer to its destination account.
+   *
+   * @param destinationAccountId The account the transfer is sent to.
+   * @param sum The sum of the transfer.
+   */
+  private void creditTransferDestination(Long destinationAccountId, double sum) {
+    adjustBalanceOfAccount(destinationAccountId, sum, "The destination account was not found.");
   }
 
   /**
@@ -307,6 +587,53 @@ public class BankAccountServiceImpl implements BankAccountService {
     }
   }
 
+  /**
+   * Validates a transaction of a batch in the same way as {@link
+   * #validateTransactionDto(TransactionDto)}, but reports the problem instead of throwing, so the
+   * rest of the batch can still be added.
+   *
+   * @param accountId The account the batch is added to.
+   * @param transactionDto The transaction to validate.
+   * @param categoryIds The ids of all transaction categories.
+   * @return The reason the transaction is rejected, or null if it is valid.
+   */
+  private String validateBatchTransaction(
+      Long accountId, TransactionDto transactionDto, Set<Long> categoryIds) {
+    if (transactionDto == null) {
+      return "Transaction cannot be null.";
+    }
+    if (!categoryIds.contains(transactionDto.getCategoryEntityId())) {
+      return "Could not find Transaction category.";
+    }
+    if (transactionDto.getId() != null) {
+      return "Transaction id is auto-generated and cannot be predeterminedly set.";
+    }
+    if (transactionDto.getDate() == null) {
+      return "Date cannot be null.";
+    }
+    if (transactionDto.getBankAccountEntityId() != null
+        && !transactionDto.getBankAccountEntityId().equals(accountId)) {
+      return "Transaction belongs to another Bank Account.";
+    }
+    return null;
+  }
+
+  /**
+   * Inserts a chunk of transactions as JDBC batches, and clears them from the persistence context
+   * so they are not kept in memory for the rest of the batch.
+   *
+   * @param chunk The transactions to insert. Emptied afterwards.
+   */
+  private void saveTransactionChunk(List<TransactionEntity> chunk) {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    transactionRepository.saveAll(chunk);
+    entityManager.flush();
+    entityManager.clear();
+    chunk.clear();
+  }
+
   /**
    * Validates the given TransferDto to ensure it has no predetermined ID, has a non-null date, and
    * the amount is positive and non-zero.
@@ -0,0 +1,289 @@
+package edu.ntnu.idatt2106.project.sparesti.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.IdempotencyKeyEntity;
+import edu.ntnu.idatt2106.project.sparesti.repositories.IdempotencyKeyRepository;
+import edu.ntnu.idatt2106.project.sparesti.services.IdempotencyService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.java.Log;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Implementation of the IdempotencyService interface.
+ *
+ * <p>Stored responses are kept in the database, so retries are recognized across restarts, and the
+ * most recently used ones are also kept in a bounded in-memory cache, so that a replay is usually
+ * answered without a query. A key is inserted before the action runs, in the same transaction, so a
+ * concurrent retry with the same key waits on the insert and then replays the response instead of
+ * running the action a second time. The SHA-256 hash of the JSON of the request body is stored with
+ * the key, and a replay is only answered if the hash matches.
+ */
+@Log
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+  private static final int MAX_KEY_LENGTH = 128;
+  private static final int CACHE_CAPACITY = 10000;
+  private static final Duration CACHE_TTL = Duration.ofHours(1);
+  private static final Duration KEY_RETENTION = Duration.ofDays(7);
+
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final Map<String, CachedResponse> recentResponses =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+          return size() > CACHE_CAPACITY;
+        }
+      };
+
+  /**
+   * Constructs an IdempotencyServiceImpl with necessary dependencies.
+   *
+   * @param idempotencyKeyRepository repository for the stored responses
+   * @param transactionTemplate template running the action and the key insert in one transaction
+   * @param objectMapper object mapper used to store and read back response bodies
+   */
+  public IdempotencyServiceImpl(
+      IdempotencyKeyRepository idempotencyKeyRepository,
+      TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper) {
+    this.idempotencyKeyRepository = idempotencyKeyRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * {@inheritDoc} Throws ResponseStatusException if the key is blank or longer than 128 characters.
+   * If the action throws, its changes and the key are rolled back, so the request can be retried
+   * with the same key. Keys stored before request hashes were recorded are replayed without the
+   * check.
+   */
+  @Override
+  public <T> ResponseEntity<T> execute(
+      String scope,
+      String key,
+      Object request,
+      Class<T> bodyType,
+      Supplier<ResponseEntity<T>> action) {
+    if (key == null) {
+      return action.get();
+    }
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Idempotency key must be between 1 and 128 characters.");
+    }
+    String id = scope + "|" + key;
+    String requestHash = hashRequest(request);
+
+    CachedResponse storedResponse = findStoredResponse(id);
+    if (storedResponse != null) {
+      return replay(storedResponse, requestHash, bodyType);
+    }
+
+    ResponseEntity<T> response =
+        transactionTemplate.execute(status -> runOnce(id, requestHash, action, status));
+    if (response != null) {
+      return response;
+    }
+    log.info("Concurrent request with idempotency key " + id + ", replaying its response.");
+
+    storedResponse = findStoredResponse(id);
+    if (storedResponse == null) {
+      throw new ResponseStatusException(
+          HttpStatus.CONFLICT, "A request with this idempotency key could not be completed.");
+    }
+    return replay(storedResponse, requestHash, bodyType);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int purgeExpiredKeys() {
+    int deleted =
+        transactionTemplate.execute(
+            status ->
+                idempotencyKeyRepository.deleteCreatedBefore(
+                    LocalDateTime.now().minus(KEY_RETENTION)));
+    log.info("Purged " + deleted + " expired idempotency keys.");
+    return deleted;
+  }
+
+  /**
+   * Claims a key and runs the action. Must be called within a transaction, so the claim is rolled
+   * back with the changes of the action if the action fails. The response is cached once the
+   * transaction commits. Only a failure to claim the key is taken as the key being claimed by
+   * another request, so a data integrity violation thrown by the action is passed on.
+   *
+   * @param id The scoped key.
+   * @param requestHash The hash of the request body.
+   * @param action The request to run.
+   * @param status The status of the transaction, rolled back if the key could not be claimed.
+   * @param <T> The type of the response body.
+   * @return The response of the action, or null if the key was claimed by another request.
+   */
+  private <T> ResponseEntity<T> runOnce(
+      String id, String requestHash, Supplier<ResponseEntity<T>> action, TransactionStatus status) {
+    IdempotencyKeyEntity idempotencyKey;
+    try {
+      idempotencyKey =
+          idempotencyKeyRepository.saveAndFlush(
+              IdempotencyKeyEntity.builder()
+                  .id(id)
+                  .requestHash(requestHash)
+                  .createdAt(LocalDateTime.now())
+                  .build());
+    } catch (DataIntegrityViolationException e) {
+      status.setRollbackOnly();
+      return null;
+    }
+
+    ResponseEntity<T> response = action.get();
+
+    idempotencyKey.setStatus(response.getStatusCode().value());
+    idempotencyKey.setBody(writeBody(response.getBody()));
+    idempotencyKeyRepository.save(idempotencyKey);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            cacheResponse(id, idempotencyKey);
+          }
+        });
+    return response;
+  }
+
+  /**
+   * Finds the stored response of a key, first in the cache and then in the database.
+   *
+   * @param id The scoped key.
+   * @return The stored response, or null if the key has not been used.
+   */
+  private CachedResponse findStoredResponse(String id) {
+    synchronized (recentResponses) {
+      CachedResponse cachedResponse = recentResponses.get(id);
+      if (cachedResponse != null) {
+        if (cachedResponse.expiresAt() > System.nanoTime()) {
+          return cachedResponse;
+        }
+        recentResponses.remove(id);
+      }
+    }
+    return idempotencyKeyRepository
+        .findById(id)
+        .map(idempotencyKey -> cacheResponse(id, idempotencyKey))
+        .orElse(null);
+  }
+
+  /**
+   * Adds the response of a key to the cache.
+   *
+   * @param id The scoped key.
+   * @param idempotencyKey The stored key holding the response.
+   * @return The cached response.
+   */
+  private CachedResponse cacheResponse(String id, IdempotencyKeyEntity idempotencyKey) {
+    CachedResponse cachedResponse =
+        new CachedResponse(
+            idempotencyKey.getRequestHash(),
+            idempotencyKey.getStatus(),
+            idempotencyKey.getBody(),
+            System.nanoTime() + CACHE_TTL.toNanos());
+    synchronized (recentResponses) {
+      recentResponses.put(id, cachedResponse);
+    }
+    return cachedResponse;
+  }
+
+  /**
+   * Creates a response from a stored response. Throws ResponseStatusException with 422
+   * Unprocessable Entity if the stored response is of a different request.
+   *
+   * @param storedResponse The stored response.
+   * @param requestHash The hash of the body of the request being replayed.
+   * @param bodyType The type of the response body.
+   * @param <T> The type of the response body.
+   * @return The response.
+   */
+  private <T> ResponseEntity<T> replay(
+      CachedResponse storedResponse, String requestHash, Class<T> bodyType) {
+    if (storedResponse.requestHash() != null && !storedResponse.requestHash().equals(requestHash)) {
+      throw new ResponseStatusException(
+          HttpStatus.UNPROCESSABLE_ENTITY,
+          "Idempotency key was already used with a different request.");
+    }
+    try {
+      T body =
+          storedResponse.body() == null
+              ? null
+              : objectMapper.readValue(storedResponse.body(), bodyType);
+      return ResponseEntity.status(storedResponse.status())
+          .header("Idempotent-Replayed", "true")
+          .body(body);
+    } catch (JsonProcessingException e) {
+      throw new ResponseStatusException(
+          HttpStatus.INTERNAL_SERVER_ERROR, "Could not read stored response.");
+    }
+  }
+
+  /**
+   * Hashes the JSON of a request body with SHA-256.
+   *
+   * @param request The request body, or null if there is none.
+   * @return The hash as 64 hexadecimal characters.
+   */
+  private String hashRequest(Object request) {
+    try {
+      return HexFormat.of()
+          .formatHex(
+              MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request)));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new ResponseStatusException(
+          HttpStatus.INTERNAL_SERVER_ERROR, "Could not read request.");
+    }
+  }
+
+  /**
+   * Writes a response body as JSON.
+   *
+   * @param body The response body.
+   * @return The body as JSON, or null if there is no body.
+   */
+  private String writeBody(Object body) {
+    if (body == null) {
+      return null;
+    }
+    try {
+      return objectMapper.writeValueAsString(body);
+    } catch (JsonProcessingException e) {
+      throw new ResponseStatusException(
+          HttpStatus.INTERNAL_SERVER_ERROR, "Could not store response.");
+    }
+  }
+
+  /**
+   * A stored response held in the cache.
+   *
+   * @param requestHash The hash of the body of the request the response is of.
+   * @param status The HTTP status of the response.
+   * @param body The body of the response as JSON.
+   * @param expiresAt The value of {@link System#nanoTime()} after which the entry is stale.
+   */
+  private record CachedResponse(String requestHash, int status, String body, long expiresAt) {}
+}
@@ -1,22 +1,25 @@
 package edu.ntnu.idatt2106.project.sparesti.services.impl;
 
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeRulesEngine;
+import edu.ntnu.idatt2106.project.sparesti.cache.ActiveChallengeIndex;
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSuggestionCache;
+import edu.ntnu.idatt2106.project.sparesti.cache.LeaderboardIndex;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionCategoryDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransferDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeRequestDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeProgressEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeTierEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeView;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.BadgeTrigger;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
+import edu.ntnu.idatt2106.project.sparesti.events.ChallengeStateTransitionQueue;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.SavingChallengeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.SavingGoalRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionCategoryRepository;
@@ -28,12 +31,20 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.extern.java.Log;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 /**
@@ -54,7 +65,19 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
 
   private BankAccountService bankAccountService;
 
-  private BadgeRepository badgeRepository;
+  private BadgeRulesEngine badgeRulesEngine;
+
+  private ActiveChallengeIndex activeChallengeIndex;
+
+  private ChallengeSpendingCounters challengeSpendingCounters;
+
+  private ChallengeStateTransitionQueue challengeStateTransitionQueue;
+
+  private ChallengeSuggestionCache challengeSuggestionCache;
+
+  private LeaderboardIndex leaderboardIndex;
+
+  private TransactionTemplate readOnlyTransaction;
 
   /**
    * Constructor for the SavingChallengeServiceImpl with necessary dependencies.
@@ -66,7 +89,14 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
    *     challenges.
    * @param userRepository Repository for accessing user data.
    * @param bankAccountService Service for accessing bank account information.
-   * @param badgeRepository Repository for accessing badges
+   * @param badgeRulesEngine Engine awarding the badges of finished challenges.
+   * @param activeChallengeIndex Index of the challenges in progress per account and category.
+   * @param challengeSpendingCounters Running spending of the challenges in progress.
+   * @param challengeStateTransitionQueue Queue of challenges whose state is to be updated.
+   * @param challengeSuggestionCache Cache of the challenge suggestions of each goal.
+   * @param leaderboardIndex Index of the scores of the users, updated when a score changes.
+   * @param transactionManager Transaction manager used to run the listings in read-only
+   *     transactions.
    */
   public SavingChallengeServiceImpl(
       SavingChallengeRepository savingChallengeRepository,
@@ -75,14 +105,27 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
       Mapper<SavingChallengeEntity, SavingChallengeResponseDto> savingChallengeMapper,
       UserRepository userRepository,
       BankAccountService bankAccountService,
-      BadgeRepository badgeRepository) {
+      BadgeRulesEngine badgeRulesEngine,
+      ActiveChallengeIndex activeChallengeIndex,
+      ChallengeSpendingCounters challengeSpendingCounters,
+      ChallengeStateTransitionQueue challengeStateTransitionQueue,
+      ChallengeSuggestionCache challengeSuggestionCache,
+      LeaderboardIndex leaderboardIndex,
+      PlatformTransactionManager transactionManager) {
     this.savingChallengeRepository = savingChallengeRepository;
     this.savingGoalRepository = savingGoalRepository;
     this.transactionCategoryRepository = transactionCategoryRepository;
     this.savingChallengeMapper = savingChallengeMapper;
     this.userRepository = userRepository;
     this.bankAccountService = bankAccountService;
-    this.badgeRepository = badgeRepository;
+    this.badgeRulesEngine = badgeRulesEngine;
+    this.activeChallengeIndex = activeChallengeIndex;
+    this.challengeSpendingCounters = challengeSpendingCounters;
+    this.challengeStateTransitionQueue = challengeStateTransitionQueue;
+    this.challengeSuggestionCache = challengeSuggestionCache;
+    this.leaderboardIndex = leaderboardIndex;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
   }
 
   /**
@@ -96,6 +139,98 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   @Override
   public SavingChallengeResponseDto createSavingChallenge(
       SavingChallengeRequestDto savingChallengeDto, Long goalId) {
+    validateChallengeRequest(savingChallengeDto);
+
+    SavingGoalEntity savingGoalEntity = findGoalInProgress(goalId);
+
+    UserEntity userEntity = savingGoalEntity.getUserEntity();
+
+    if (savingChallengeRepository.existsBySavingGoalUserEntityIdAndStateAndTransactionCategoryId(
+        userEntity.getId(), ChallengeState.IN_PROGRESS, savingChallengeDto.getCategoryId())) {
+      log.info("Saving challenge with that category already exists.");
+      throw new ResponseStatusException(
+          HttpStatus.INTERNAL_SERVER_ERROR, "Saving challenge with the category already exists.");
+    }
+
+    TransactionCategoryEntity transactionCategoryEntity =
+        transactionCategoryRepository
+            .findById(savingChallengeDto.getCategoryId())
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(HttpStatus.NOT_FOUND, "No category with that id."));
+
+    SavingChallengeEntity savedChallenge =
+        savingChallengeRepository.save(
+            buildChallenge(savingChallengeDto, savingGoalEntity, transactionCategoryEntity));
+    return registerCreatedChallenge(savedChallenge);
+  }
+
+  /**
+   * Creates several saving challenges as part of a specified savings goal. The goal is loaded once,
+   * and all challenges are validated together against one snapshot of the categories the user has
+   * challenges in progress in, so either all of them are created or none. The challenges are
+   * inserted in one batch.
+   *
+   * @param savingChallengeDtos The DTOs containing the data needed to create the challenges.
+   * @param goalId The ID of the goal under which the challenges will be created.
+   * @return The newly created saving challenges as DTOs, in the order they were requested.
+   * @throws ResponseStatusException If the list is empty or a challenge is invalid, if the goal or
+   *     a category does not exist, or if a category already has a challenge in progress.
+   */
+  @Override
+  @Transactional
+  public List<SavingChallengeResponseDto> createSavingChallenges(
+      List<SavingChallengeRequestDto> savingChallengeDtos, Long goalId) {
+    if (savingChallengeDtos == null || savingChallengeDtos.isEmpty()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No challenges in request.");
+    }
+    savingChallengeDtos.forEach(this::validateChallengeRequest);
+
+    SavingGoalEntity savingGoalEntity = findGoalInProgress(goalId);
+
+    Set<Long> categoriesInProgress =
+        new HashSet<>(
+            savingChallengeRepository.findDistinctCategoryIdsByUserIdAndState(
+                savingGoalEntity.getUserEntity().getId(), ChallengeState.IN_PROGRESS));
+    for (SavingChallengeRequestDto savingChallengeDto : savingChallengeDtos) {
+      if (!categoriesInProgress.add(savingChallengeDto.getCategoryId())) {
+        log.info("Saving challenge with that category already exists.");
+        throw new ResponseStatusException(
+            HttpStatus.INTERNAL_SERVER_ERROR, "Saving challenge with the category already exists.");
+      }
+    }
+
+    Map<Long, TransactionCategoryEntity> categories =
+        transactionCategoryRepository
+            .findAllById(
+                savingChallengeDtos.stream().map(SavingChallengeRequestDto::getCategoryId).toList())
+            .stream()
+            .collect(Collectors.toMap(TransactionCategoryEntity::getId, category -> category));
+    if (categories.size() != savingChallengeDtos.size()) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No category with that id.");
+    }
+
+    List<SavingChallengeEntity> savedChallenges =
+        savingChallengeRepository.saveAll(
+            savingChallengeDtos.stream()
+                .map(
+                    savingChallengeDto ->
+                        buildChallenge(
+                            savingChallengeDto,
+                            savingGoalEntity,
+                            categories.get(savingChallengeDto.getCategoryId())))
+                .toList());
+    return savedChallenges.stream().map(this::registerCreatedChallenge).toList();
+  }
+
+  /**
+   * Checks that a request to create a saving challenge has all its fields, and that the amounts are
+   * positive.
+   *
+   * @param savingChallengeDto The request to check.
+   * @throws ResponseStatusException If a field is missing or bad.
+   */
+  private void validateChallengeRequest(SavingChallengeRequestDto savingChallengeDto) {
     if (savingChallengeDto.getCategoryId() == null
         || savingChallengeDto.getSpendingGoal() == null
         || savingChallengeDto.getSpendingGoal() <= 0
@@ -106,58 +241,79 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
       throw new ResponseStatusException(
           HttpStatus.BAD_REQUEST, "Missing or bad fields in request.");
     }
+  }
 
+  /**
+   * Finds a saving goal that challenges can be added to.
+   *
+   * @param goalId The ID of the goal.
+   * @return The goal.
+   * @throws ResponseStatusException If the goal does not exist or is not in progress.
+   */
+  private SavingGoalEntity findGoalInProgress(Long goalId) {
     SavingGoalEntity savingGoalEntity =
         savingGoalRepository
             .findById(goalId)
             .orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No goal with that id."));
 
-    UserEntity userEntity = savingGoalEntity.getUserEntity();
-
     if (!savingGoalEntity.getState().equals(GoalState.IN_PROGRESS)) {
       log.info("Cannot add challenge to saving goal not in progress.");
       throw new ResponseStatusException(
           HttpStatus.BAD_REQUEST, "Cannot add challenge to saving goal not in progress.");
     }
+    return savingGoalEntity;
+  }
 
-    List<SavingChallengeEntity> allSavingChallengeEntities =
-        userEntity.getSavingGoals().stream()
-            .flatMap(goal -> goal.getSavingChallenges().stream())
-            .collect(Collectors.toList());
-
-    if (allSavingChallengeEntities.stream()
-        .anyMatch(
-            savingChallengeEntity ->
-                savingChallengeEntity
-                        .getTransactionCategory()
-                        .getId()
-                        .equals(savingChallengeDto.getCategoryId())
-                    && savingChallengeEntity.getState().equals(ChallengeState.IN_PROGRESS))) {
-      log.info("Saving challenge with that category already exists.");
-      throw new ResponseStatusException(
-          HttpStatus.INTERNAL_SERVER_ERROR, "Saving challenge with the category already exists.");
-    }
-
-    TransactionCategoryEntity transactionCategoryEntity =
-        transactionCategoryRepository
-            .findById(savingChallengeDto.getCategoryId())
-            .orElseThrow(
-                () ->
-                    new ResponseStatusException(HttpStatus.NOT_FOUND, "No category with that id."));
-
-    SavingChallengeEntity savingChallengeEntity =
-        SavingChallengeEntity.builder()
-            .savingGoal(savingGoalEntity)
-            .transactionCategory(transactionCategoryEntity)
-            .expectedExpense(savingChallengeDto.getExpectedExpense())
-            .endingDate(savingChallengeDto.getEndingDate())
-            .startDate(savingChallengeDto.getStartDate())
-            .spendingGoal(savingChallengeDto.getSpendingGoal())
-            .state(ChallengeState.IN_PROGRESS)
-            .build();
+  /**
+   * Builds a new saving challenge in progress from a request.
+   *
+   * @param savingChallengeDto The request.
+   * @param savingGoalEntity The goal the challenge is part of.
+   * @param transactionCategoryEntity The category of the challenge.
+   * @return The unsaved challenge.
+   */
+  private SavingChallengeEntity buildChallenge(
+      SavingChallengeRequestDto savingChallengeDto,
+      SavingGoalEntity savingGoalEntity,
+      TransactionCategoryEntity transactionCategoryEntity) {
+    return SavingChallengeEntity.builder()
+        .savingGoal(savingGoalEntity)
+        .transactionCategory(transactionCategoryEntity)
+        .expectedExpense(savingChallengeDto.getExpectedExpense())
+        .endingDate(savingChallengeDto.getEndingDate())
+        .startDate(savingChallengeDto.getStartDate())
+        .spendingGoal(savingChallengeDto.getSpendingGoal())
+        .state(ChallengeState.IN_PROGRESS)
+        .build();
+  }
 
-    SavingChallengeEntity savedChallenge = savingChallengeRepository.save(savingChallengeEntity);
+  /**
+   * Adds a newly saved challenge to the index of challenges in progress once the transaction
+   * commits, so a challenge that is rolled back is never indexed, and maps it to a DTO.
+   *
+   * @param savedChallenge The saved challenge.
+   * @return The challenge as a DTO, with nothing spent yet.
+   */
+  private SavingChallengeResponseDto registerCreatedChallenge(
+      SavingChallengeEntity savedChallenge) {
+    SavingGoalEntity savingGoalEntity = savedChallenge.getSavingGoal();
+    if (savingGoalEntity.getSourceBankAccount() != null) {
+      Long challengeId = savedChallenge.getId();
+      Long bankAccountId = savingGoalEntity.getSourceBankAccount().getId();
+      Long transactionCategoryId = savedChallenge.getTransactionCategory().getId();
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+              @Override
+              public void afterCommit() {
+                activeChallengeIndex.add(challengeId, bankAccountId, transactionCategoryId);
+              }
+            });
+      } else {
+        activeChallengeIndex.add(challengeId, bankAccountId, transactionCategoryId);
+      }
+    }
 
     SavingChallengeResponseDto responseDto = savingChallengeMapper.mapTo(savedChallenge);
     responseDto.setCurrentSpending(0);
@@ -165,27 +321,30 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   }
 
   /**
-   * Service that gets all saving challenges tied to a goal. Also calls the
-   * findCurrentSpendingOnChallenge method to track the progress on the challenges.
+   * Service that gets all saving challenges tied to a goal. Also finds the current spending on each
+   * challenge to track the progress on the challenges. The challenges are read as views in a
+   * read-only transaction, and nothing is written; see {@link #processChallengeViews(List)}.
    *
    * @param goalId the chosen goal to get all challenges to.
    * @return a list og saving challenge Dto's.
-   * @throws ResponseStatusException If the user does not exist.
+   * @throws ResponseStatusException If the goal does not exist.
    */
   @Override
   public List<SavingChallengeResponseDto> getAndProcessAllChallengesInGoal(Long goalId) {
-    SavingGoalEntity savingGoalEntity =
-        savingGoalRepository
-            .findById(goalId)
-            .orElseThrow(
-                () ->
-                    new ResponseStatusException(HttpStatus.NOT_FOUND, "That goal does not exist"));
-    return processChallenges(savingGoalEntity.getSavingChallenges());
+    return readOnlyTransaction.execute(
+        status -> {
+          if (!savingGoalRepository.existsById(goalId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "That goal does not exist");
+          }
+          return processChallengeViews(savingChallengeRepository.findViewsBySavingGoalId(goalId));
+        });
   }
 
   /**
    * Service that gets all saving goals tied to a user, then every challenge tied to each goal. Also
-   * calls the findCurrentSpendingOnChallenge method to track the progress on the challenges.
+   * finds the current spending on each challenge to track the progress on the challenges. The
+   * challenges are read as views in a read-only transaction, and nothing is written; see {@link
+   * #processChallengeViews(List)}.
    *
    * @param username the chosen user to get all challenges to.
    * @return a list og saving challenge Dto's.
@@ -193,19 +352,13 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
    */
   @Override
   public List<SavingChallengeResponseDto> getAndProcessUserChallenges(String username) {
-    UserEntity userEntity =
-        userRepository
-            .findUserEntityByUsername(username)
-            .orElseThrow(
-                () ->
-                    new ResponseStatusException(HttpStatus.NOT_FOUND, "That user does not exist"));
-
-    List<SavingChallengeEntity> allSavingChallengeEntities =
-        userEntity.getSavingGoals().stream()
-            .flatMap(goal -> goal.getSavingChallenges().stream())
-            .collect(Collectors.toList());
-
-    return processChallenges(allSavingChallengeEntities);
+    return readOnlyTransaction.execute(
+        status -> {
+          if (!userRepository.existsByUsername(username)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "That user does not exist");
+          }
+          return processChallengeViews(savingChallengeRepository.findViewsByUsername(username));
+        });
   }
 
   /**
@@ -220,6 +373,10 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   @Transactional
   public SavingChallengeResponseDto finishChallenge(Long savingChallengeId, String username) {
     SavingChallengeEntity savingChallenge = fetchChallenge(savingChallengeId);
+    if (savingChallenge.getState().equals(ChallengeState.IN_PROGRESS)
+        && checkIfChallengeEnded(savingChallenge)) {
+      savingChallenge.setState(ChallengeState.COMPLETED);
+    }
 
     if (!savingChallenge.getState().equals(ChallengeState.COMPLETED)) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Challenge is not completed.");
@@ -238,35 +395,9 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
     responseDto.setState(ChallengeState.COMPLETED_AND_TRANSFERRED);
 
     UserEntity userEntity = savingChallenge.getSavingGoal().getUserEntity();
-    BadgeEntity badgeEntity1 = badgeRepository.findBadgeEntityByName("Teenage Mutant Ninja-piggy");
-    BadgeEntity badgeEntity2 = badgeRepository.findBadgeEntityByName("Griseflink sparer");
-
-    if (userEntity.getBadgeProgressEntityByName("Griseflink sparer") == null) {
-      BadgeProgressEntity badgeProgressEntity =
-          BadgeProgressEntity.builder().userEntity(userEntity).badgeEntity(badgeEntity2).build();
-
-      CompletedBadgeEntity completedBadge =
-          CompletedBadgeEntity.builder()
-              .name(badgeEntity2.getName())
-              .description(badgeEntity2.getDescription())
-              .build();
-      userEntity.addCompletedBadge(completedBadge);
-      userEntity.addBadgeProgress(badgeProgressEntity);
-    }
+    userEntity.increaseCompletedChallenges();
+    badgeRulesEngine.evaluate(userEntity, BadgeTrigger.CHALLENGE_FINISHED);
 
-    if (userEntity.getBadgeProgressEntityByName("Teenage Mutant Ninja-piggy") == null) {
-      BadgeProgressEntity badgeProgress =
-          BadgeProgressEntity.builder()
-              .badgeEntity(badgeEntity1)
-              .userEntity(userEntity)
-              .progress(1)
-              .build();
-      userEntity.addBadgeProgress(badgeProgress);
-      userEntity.increaseCompletedChallenges();
-    } else {
-      userEntity.getBadgeProgressEntityByName("Teenage Mutant Ninja-piggy").increaseProgress();
-      userEntity.increaseCompletedChallenges();
-    }
     if (userEntity.getLastCompletedChallengeDate() == null
         || ChronoUnit.DAYS.between(userEntity.getLastCompletedChallengeDate(), LocalDate.now())
             > 7) {
@@ -279,24 +410,8 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
       userEntity.setLastStreakDate(LocalDate.now());
     }
     userEntity.setLastCompletedChallengeDate(LocalDate.now());
+    badgeRulesEngine.evaluate(userEntity, BadgeTrigger.STREAK_CHANGED);
 
-    for (BadgeTierEntity badgeTier : badgeEntity1.getBadgeTiers()) {
-      CompletedBadgeEntity completedBadge =
-          CompletedBadgeEntity.builder()
-              .name(badgeEntity1.getName())
-              .tier(badgeTier.getTier())
-              .description(badgeTier.getDescription())
-              .build();
-      if (userEntity.getBadgeProgressEntityByName("Teenage Mutant Ninja-piggy").getProgress()
-              >= badgeTier.getTarget()
-          && !userEntity.getCompletedBadges().stream()
-              .anyMatch(
-                  completed ->
-                      completed.getName().equals(badgeEntity1.getName())
-                          && completed.getTier().equals(badgeTier.getTier()))) {
-        userEntity.addCompletedBadge(completedBadge);
-      }
-    }
     savingChallenge.setAmountSaved(responseDto.getAmountSaved());
 
     savingChallengeRepository.save(savingChallenge);
@@ -311,7 +426,10 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
     int newUserScore = getScoreFromSavingChallenge(savingChallenge) + user.getScore();
     user.setScore(newUserScore);
     user.increaseTotalSaved(savingChallenge.getAmountSaved());
+    badgeRulesEngine.evaluate(user, BadgeTrigger.AMOUNT_SAVED);
     userRepository.save(user);
+    leaderboardIndex.updateAfterCommit(user.getId(), newUserScore);
+    forgetAfterCommit(List.of(savingChallengeId));
 
     updateSavingGoalAfterChallengeTransfer(savingChallenge);
 
@@ -325,21 +443,94 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   }
 
   @Override
-  public void updateAllSavingChallengeStates() {
-    savingChallengeRepository.findAll().stream()
-        .filter(savingChallenge -> savingChallenge.getState().equals(ChallengeState.IN_PROGRESS))
-        .forEach(
-            savingChallenge -> {
-              if (updateChallengeState(
-                  findCurrentSpendingOnChallenge(savingChallenge), savingChallenge)) {
-                savingChallengeRepository.save(savingChallenge);
-              }
-            });
+  public List<Long> findEndedSavingChallengeIdsInProgress(long afterId, int limit) {
+    return savingChallengeRepository.findEndedIdsByStateAfter(
+        ChallengeState.IN_PROGRESS, LocalDate.now(), afterId, Pageable.ofSize(limit));
+  }
+
+  /**
+   * {@inheritDoc} The challenges are evaluated with two bulk updates instead of one by one: first
+   * every overspent challenge is marked as FAILED, then every remaining challenge that has ended is
+   * marked as COMPLETED. No challenges are loaded into memory. Overspent challenges are normally
+   * failed as soon as the expense is recorded, so this is a final settlement of ended challenges.
+   * Also settles the challenges queued in the {@link ChallengeStateTransitionQueue}.
+   */
+  @Transactional
+  @Override
+  public int updateSavingChallengeStates(List<Long> challengeIds) {
+    int failed = savingChallengeRepository.failOverspentChallenges(challengeIds);
+    int completed =
+        savingChallengeRepository.completeEndedChallenges(challengeIds, LocalDate.now());
+    log.fine(
+        "Updated saving challenge states: " + failed + " failed, " + completed + " completed.");
+    if (failed + completed > 0) {
+      forgetEndedChallenges(challengeIds);
+    }
+    return failed + completed;
   }
 
+  /**
+   * {@inheritDoc} The affected challenges are found in the {@link ActiveChallengeIndex}, so an
+   * expense on an account or category without challenges costs no queries. The challenges that are
+   * no longer in progress are removed from the index once the transaction commits.
+   */
+  @Transactional
+  @Override
+  public int failOverspentChallenges(Long bankAccountId, Long transactionCategoryId) {
+    List<Long> challengeIds = activeChallengeIndex.find(bankAccountId, transactionCategoryId);
+    if (challengeIds.isEmpty()) {
+      return 0;
+    }
+    int failed = savingChallengeRepository.failOverspentChallenges(challengeIds);
+    if (failed > 0) {
+      forgetEndedChallenges(challengeIds);
+    }
+    return failed;
+  }
+
+  /**
+   * Removes the given challenges that are no longer in progress from the {@link
+   * ActiveChallengeIndex} and the {@link ChallengeSpendingCounters}, once the transaction commits.
+   *
+   * @param challengeIds The ids of the challenges that may have ended.
+   */
+  private void forgetEndedChallenges(List<Long> challengeIds) {
+    Set<Long> inProgress =
+        new HashSet<>(
+            savingChallengeRepository.findIdsByIdInAndState(
+                challengeIds, ChallengeState.IN_PROGRESS));
+    forgetAfterCommit(challengeIds.stream().filter(id -> !inProgress.contains(id)).toList());
+  }
+
+  /**
+   * Removes challenges that have ended from the {@link ActiveChallengeIndex} and the {@link
+   * ChallengeSpendingCounters}, once the transaction commits.
+   *
+   * @param ended The ids of the challenges that have ended.
+   */
+  private void forgetAfterCommit(List<Long> ended) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              ended.forEach(activeChallengeIndex::remove);
+              challengeSpendingCounters.drop(ended);
+            }
+          });
+    } else {
+      ended.forEach(activeChallengeIndex::remove);
+      challengeSpendingCounters.drop(ended);
+    }
+  }
+
+  /**
+   * {@inheritDoc} The suggestions are cached per goal, and only computed again when the source
+   * account of the goal or its balance has changed, when a challenge of the user has started or
+   * ended, or on a new day.
+   */
   @Override
   public List<SavingChallengeResponseDto> getChallengeSuggestions(Long goalId) {
-    List<SavingChallengeResponseDto> savingChallengeSuggestions = new ArrayList<>();
     SavingGoalEntity savingGoal =
         savingGoalRepository
             .findById(goalId)
@@ -347,13 +538,42 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Saving goal not found."));
 
     BankAccountEntity sourceAccount = savingGoal.getSourceBankAccount();
+    List<Long> categoriesInProgress =
+        savingChallengeRepository.findDistinctCategoryIdsByUserIdAndState(
+            savingGoal.getUserEntity().getId(), ChallengeState.IN_PROGRESS);
+
+    return challengeSuggestionCache.get(
+        goalId,
+        sourceAccount.getId(),
+        sourceAccount.getActivityVersion(),
+        categoriesInProgress,
+        LocalDate.now(),
+        () -> generateChallengeSuggestions(sourceAccount, categoriesInProgress));
+  }
 
-    List<TransactionCategoryEntity> validCategories =
-        findAvailableCategoriesForUser(savingGoal.getUserEntity());
+  /**
+   * Generates a saving challenge suggestion for every category the user has no challenge in
+   * progress in, sorted by the difference between the expected expense and the spending goal.
+   *
+   * @param sourceAccount The source account of the saving goal.
+   * @param categoriesInProgress The ids of the categories the user has challenges in progress in.
+   * @return The suggestions.
+   */
+  private List<SavingChallengeResponseDto> generateChallengeSuggestions(
+      BankAccountEntity sourceAccount, List<Long> categoriesInProgress) {
+    List<SavingChallengeResponseDto> savingChallengeSuggestions = new ArrayList<>();
+    List<TransactionCategoryEntity> validCategories = findAvailableCategories(categoriesInProgress);
+
+    Map<Long, Double> projectedWeeklyExpenditures =
+        bankAccountService.getAverageExpenditurePerCategory(
+            sourceAccount.getId(),
+            validCategories.stream().map(TransactionCategoryEntity::getId).toList(),
+            7);
 
     for (TransactionCategoryEntity category : validCategories) {
       Optional<SavingChallengeResponseDto> generatedChallenge =
-          generateChallengeSuggestionForCategory(sourceAccount.getId(), category);
+          generateChallengeSuggestionForCategory(
+              projectedWeeklyExpenditures.getOrDefault(category.getId(), 0.0), category);
       generatedChallenge.ifPresent(savingChallengeSuggestions::add);
     }
 
@@ -363,20 +583,18 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   }
 
   /**
-   * Generates a saving challenge suggestion for a specific bank account and category. The
-   * suggestion is based on the average expenditure on that category over the past week and
-   * calculated spending goal, which is determined from the difference between projected expenditure
-   * and suggested amount.
+   * Generates a saving challenge suggestion for a specific category. The suggestion is based on the
+   * projected expenditure on that category over the next week and calculated spending goal, which
+   * is determined from the difference between projected expenditure and suggested amount.
    *
-   * @param bankAccountId The ID of the bank account associated with the saving goal.
+   * @param projectedWeeklyExpenditure The projected expenditure on the category for the source
+   *     account of the saving goal.
    * @param category The transaction category for which to generate a challenge suggestion.
    * @return An {@link Optional} containing a {@link SavingChallengeResponseDto} if a valid
    *     challenge can be created, or an empty Optional otherwise.
    */
   private Optional<SavingChallengeResponseDto> generateChallengeSuggestionForCategory(
-      Long bankAccountId, TransactionCategoryEntity category) {
-    double projectedWeeklyExpenditure =
-        bankAccountService.getAverageExpenditureOnCategory(bankAccountId, category.getId(), 7);
+      double projectedWeeklyExpenditure, TransactionCategoryEntity category) {
     Optional<Integer> savingAmountOptional =
         generateSavingAmount(projectedWeeklyExpenditure, category);
     int expectedExpense = (int) Math.round(projectedWeeklyExpenditure);
@@ -421,35 +639,16 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   }
 
   /**
-   * Retrieves all saving challenges in progress associated with all saving goals for a given user.
+   * Identifies and returns a list of transaction categories that the user currently has no active
+   * saving challenges in.
    *
-   * @param userEntity The user entity whose saving challenges are to be retrieved.
-   * @return A list of {@link SavingChallengeEntity} objects representing all challenges associated
-   *     with the user.
-   */
-  private List<SavingChallengeEntity> getAllChallengesInProgressInUser(UserEntity userEntity) {
-    return userEntity.getSavingGoals().stream()
-        .flatMap(goal -> goal.getSavingChallenges().stream())
-        .filter(challenge -> challenge.getState() == ChallengeState.IN_PROGRESS)
-        .collect(Collectors.toList());
-  }
-
-  /**
-   * Identifies and returns a list of transaction categories associated with a user that currently
-   * have no active saving challenges.
-   *
-   * @param user The user entity to check for available transaction categories.
+   * @param uniqueTransactionCategoryIds The ids of the categories the user has active challenges
+   *     in.
    * @return A list of {@link TransactionCategoryEntity} objects representing categories with no
    *     active challenges.
    */
-  private List<TransactionCategoryEntity> findAvailableCategoriesForUser(UserEntity user) {
-    List<SavingChallengeEntity> savingChallengesInUser = getAllChallengesInProgressInUser(user);
-    List<Long> uniqueTransactionCategoryIds =
-        savingChallengesInUser.stream()
-            .map(SavingChallengeEntity::getTransactionCategory)
-            .distinct()
-            .map(TransactionCategoryEntity::getId)
-            .toList();
+  private List<TransactionCategoryEntity> findAvailableCategories(
+      List<Long> uniqueTransactionCategoryIds) {
     if (uniqueTransactionCategoryIds.isEmpty()) {
       return transactionCategoryRepository.findAll();
     } else {
@@ -473,8 +672,9 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   }
 
   /**
-   * Maps a SavingChallengeEntity to a response-dto. Calls the findCurrentSpendingOnChallenge method
-   * and adds the result to the dto.
+   * Maps a SavingChallengeEntity to a response-dto. The current spending of the challenge is read
+   * from the {@link ChallengeSpendingCounters}, so the spending of a challenge in progress is
+   * usually known without a query.
    *
    * @param savingChallengeEntity The Saving challenge mapped to the dto
    * @return The dto
@@ -482,29 +682,10 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   private SavingChallengeResponseDto mapSavingChallengeEntityToResponseDto(
       SavingChallengeEntity savingChallengeEntity) {
     SavingChallengeResponseDto dto = savingChallengeMapper.mapTo(savingChallengeEntity);
-    double currentSpending = findCurrentSpendingOnChallenge(savingChallengeEntity);
-    dto.setCurrentSpending(currentSpending);
+    dto.setCurrentSpending(challengeSpendingCounters.getSpending(savingChallengeEntity));
     return dto;
   }
 
-  /**
-   * Retrieves the current spending for a specified saving challenge. This method calculates the
-   * total amount spent on transactions belonging to a specific category and occurring within the
-   * date range of the saving challenge.
-   *
-   * @param savingChallenge The saving challenge for which current spending is to be calculated.
-   * @return The total spending as a double.
-   * @throws ResponseStatusException if the saving challenge does not exist or the ID is not found.
-   */
-  private double findCurrentSpendingOnChallenge(SavingChallengeEntity savingChallenge) {
-    BankAccountEntity sourceAccount = savingChallenge.getSavingGoal().getSourceBankAccount();
-
-    return bankAccountService.getAmountUsedOnTransactionsOnCategoryBetweenDate(
-        sourceAccount.getId(), savingChallenge.getTransactionCategory().getId(),
-        savingChallenge.getStartDate().atStartOfDay(),
-            savingChallenge.getEndingDate().atStartOfDay());
-  }
-
   /**
    * Fetches a SavingChallengeEntity based on the provided challenge ID.
    *
@@ -586,75 +767,56 @@ public class SavingChallengeServiceImpl implements SavingChallengeService {
   }
 
   /**
-   * Handles the completion of a saving challenge. If the challenge has ended and has not previously
-   * been marked as failed, this method sets the challenge state to COMPLETED.
+   * Maps views of saving challenges to response DTOs without writing anything. The state of a
+   * challenge in progress that has failed or ended is derived from its current spending and ending
+   * date, and the challenge is queued in the {@link ChallengeStateTransitionQueue} so its state is
+   * updated in a later batch.
    *
-   * @param savingChallenge The saving challenge entity whose end status is being checked and
-   *     potentially updated.
-   * @return A boolean that is true if the challenges state was changed and saved.
-   */
-  private boolean handleChallengeEnding(SavingChallengeEntity savingChallenge) {
-    if (checkIfChallengeEnded(savingChallenge)) {
-      savingChallenge.setState(ChallengeState.COMPLETED);
-      savingChallengeRepository.save(savingChallenge);
-      return true;
-    }
-    return false;
-  }
-
-  /**
-   * Processes and maps a list of SavingChallengeEntities to a list of SavingChallengeResponseDtos.
-   *
-   * @param challenges The list of challenge entities to process.
+   * @param challenges The views of the challenges to process.
    * @return A list of corresponding DTOs.
    */
-  public List<SavingChallengeResponseDto> processChallenges(
-      List<SavingChallengeEntity> challenges) {
-    return challenges.stream().map(this::processChallenge).collect(Collectors.toList());
+  private List<SavingChallengeResponseDto> processChallengeViews(
+      List<SavingChallengeView> challenges) {
+    return challenges.stream().map(this::processChallengeView).collect(Collectors.toList());
   }
 
   /**
-   * Processes a given saving challenge entity to update its state based on current spending and
-   * challenge conditions, and maps it to a response DTO. This method first converts a
-   * SavingChallengeEntity to its corresponding response DTO form. It then checks if the challenge
-   * is still in progress and updates its state if necessary based on the current spending. If the
-   * state is updated (either to FAILED or COMPLETED), the entity is saved, and the DTO's state is
-   * updated accordingly.
+   * Maps a view of a saving challenge to a response DTO with its current spending and derived
+   * state, queueing the challenge if its state needs to be updated.
    *
-   * @param challenge The saving challenge entity to be processed.
-   * @return The response DTO with potentially updated state information.
+   * @param challenge The view of the challenge to process.
+   * @return The response DTO of the challenge.
    */
-  private SavingChallengeResponseDto processChallenge(SavingChallengeEntity challenge) {
-    SavingChallengeResponseDto dto = mapSavingChallengeEntityToResponseDto(challenge);
-    if (challenge.getState().equals(ChallengeState.IN_PROGRESS)) {
-      if (updateChallengeState(dto.getCurrentSpending(), challenge)) {
-        savingChallengeRepository.save(challenge);
-        dto.setState(challenge.getState());
+  private SavingChallengeResponseDto processChallengeView(SavingChallengeView challenge) {
+    double currentSpending = challengeSpendingCounters.getSpending(challenge);
+    ChallengeState state = challenge.getState();
+    if (ChallengeState.IN_PROGRESS.equals(state)) {
+      if (currentSpending > challenge.getSpendingGoal()) {
+        state = ChallengeState.FAILED;
+      } else if (challenge.getEndingDate().isBefore(LocalDate.now())) {
+        state = ChallengeState.COMPLETED;
+      }
+      if (state != ChallengeState.IN_PROGRESS) {
+        challengeStateTransitionQueue.offer(challenge.getId());
       }
     }
-    return dto;
-  }
-
-  /**
-   * Updates the state of a saving challenge based on its current spending relative to its defined
-   * goals. This method evaluates whether the challenge has failed due to exceeding spending limits
-   * or if it should be marked as completed based on its ending conditions. The state of the
-   * challenge is updated accordingly, and the method returns true if any state change occurs.
-   *
-   * @param currentSpending The current spending against the challenge's budget.
-   * @param challenge The saving challenge entity whose state needs to be evaluated and possibly
-   *     updated.
-   * @return true if the challenge's state was updated, false otherwise.
-   */
-  private boolean updateChallengeState(double currentSpending, SavingChallengeEntity challenge) {
-    if (checkIfSpendingChallengeFailed(currentSpending, challenge)) {
-      challenge.setState(ChallengeState.FAILED);
-      return true;
-    } else if (handleChallengeEnding(challenge)) {
-      challenge.setState(ChallengeState.COMPLETED);
-      return true;
-    }
-    return false;
+    return SavingChallengeResponseDto.builder()
+        .id(challenge.getId())
+        .expectedExpense(challenge.getExpectedExpense())
+        .spendingGoal(challenge.getSpendingGoal())
+        .startDate(challenge.getStartDate())
+        .endingDate(challenge.getEndingDate())
+        .state(state)
+        .currentSpending(currentSpending)
+        .amountSaved(challenge.getAmountSaved() == null ? 0 : challenge.getAmountSaved())
+        .transactionCategory(
+            challenge.getTransactionCategoryId() == null
+                ? null
+                : TransactionCategoryDto.builder()
+                    .id(challenge.getTransactionCategoryId())
+                    .name(challenge.getTransactionCategoryName())
+                    .build())
+        .build();
   }
 
   /**
@@ -1,33 +1,38 @@
 package edu.ntnu.idatt2106.project.sparesti.services.impl;
 
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeRulesEngine;
+import edu.ntnu.idatt2106.project.sparesti.cache.ActiveChallengeIndex;
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
+import edu.ntnu.idatt2106.project.sparesti.cache.EntityLookupCache;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoDetailsResponse;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoGeneralResponse;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoPost;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeProgressEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeTierEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.BadgeTrigger;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
+import edu.ntnu.idatt2106.project.sparesti.events.SavingGoalStateTransitionQueue;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.SavingChallengeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.SavingGoalRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
 import edu.ntnu.idatt2106.project.sparesti.services.SavingGoalService;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import lombok.extern.java.Log;
-import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 /** Implementation of the SavingGoalService interface. */
@@ -41,10 +46,22 @@ public class SavingGoalServiceImpl implements SavingGoalService {
 
   private BankAccountRepository bankAccountRepository;
 
-  private BadgeRepository badgeRepository;
+  private BadgeRulesEngine badgeRulesEngine;
 
   private Mapper<SavingGoalEntity, SavingGoalDtoGeneralResponse> savingGoalMapper;
 
+  private ActiveChallengeIndex activeChallengeIndex;
+
+  private ChallengeSpendingCounters challengeSpendingCounters;
+
+  private SavingChallengeRepository savingChallengeRepository;
+
+  private SavingGoalStateTransitionQueue savingGoalStateTransitionQueue;
+
+  private EntityLookupCache entityLookupCache;
+
+  private Mapper<SavingGoalEntity, SavingGoalDtoDetailsResponse> savingGoalDetailsMapper;
+
   /**
    * Constructor for the SavingGoalServiceImpl, responsible for injecting necessary dependencies.
    *
@@ -52,18 +69,37 @@ public class SavingGoalServiceImpl implements SavingGoalService {
    * @param bankAccountRepository Repository containing bank account data
    * @param savingGoalMapper Mapper responsible for converting between saving goal dtos and entities
    * @param savingGoalRepository Repository containing saving goal data
+   * @param badgeRulesEngine Engine awarding the badges of completed goals
+   * @param activeChallengeIndex Index of the challenges in progress per account and category
+   * @param challengeSpendingCounters Running spending of the challenges in progress
+   * @param savingChallengeRepository Repository containing saving challenge data
+   * @param savingGoalStateTransitionQueue Queue of users whose due goals are to be settled
+   * @param entityLookupCache Cache of the entities looked up within a request
+   * @param savingGoalDetailsMapper Mapper converting saving goals to their detailed dtos
    */
   public SavingGoalServiceImpl(
       UserRepository userRepository,
       BankAccountRepository bankAccountRepository,
       Mapper<SavingGoalEntity, SavingGoalDtoGeneralResponse> savingGoalMapper,
       SavingGoalRepository savingGoalRepository,
-      BadgeRepository badgeRepository) {
+      BadgeRulesEngine badgeRulesEngine,
+      ActiveChallengeIndex activeChallengeIndex,
+      ChallengeSpendingCounters challengeSpendingCounters,
+      SavingChallengeRepository savingChallengeRepository,
+      SavingGoalStateTransitionQueue savingGoalStateTransitionQueue,
+      EntityLookupCache entityLookupCache,
+      Mapper<SavingGoalEntity, SavingGoalDtoDetailsResponse> savingGoalDetailsMapper) {
     this.userRepository = userRepository;
     this.bankAccountRepository = bankAccountRepository;
     this.savingGoalMapper = savingGoalMapper;
     this.savingGoalRepository = savingGoalRepository;
-    this.badgeRepository = badgeRepository;
+    this.badgeRulesEngine = badgeRulesEngine;
+    this.activeChallengeIndex = activeChallengeIndex;
+    this.challengeSpendingCounters = challengeSpendingCounters;
+    this.savingChallengeRepository = savingChallengeRepository;
+    this.savingGoalStateTransitionQueue = savingGoalStateTransitionQueue;
+    this.entityLookupCache = entityLookupCache;
+    this.savingGoalDetailsMapper = savingGoalDetailsMapper;
   }
 
   @Override
@@ -91,7 +127,13 @@ public class SavingGoalServiceImpl implements SavingGoalService {
     return createdGoalDto;
   }
 
+  /**
+   * {@inheritDoc} The goal, its user and the accounts are each read once, and the accounts are
+   * checked to belong to the user with indexed exists queries, without loading the accounts of the
+   * user.
+   */
   @Override
+  @Transactional
   public SavingGoalDtoGeneralResponse editSavingGoal(
       SavingGoalDtoPost savingGoalDto, String username, Long goalId) {
     if (username == null) {
@@ -108,11 +150,15 @@ public class SavingGoalServiceImpl implements SavingGoalService {
       }
     }
 
-    if (!findUserEntity(username).getSavingGoals().contains(findSavingGoal(goalId))) {
+    SavingGoalEntity originalGoal = findSavingGoal(goalId);
+    if (originalGoal.getUserEntity() == null
+        || !username.equals(originalGoal.getUserEntity().getUsername())) {
+      if (!userRepository.existsByUsername(username)) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No user with that username.");
+      }
       throw new ResponseStatusException(
           HttpStatus.UNAUTHORIZED, "You are not allowed to modify this goal.");
     }
-    SavingGoalEntity originalGoal = findSavingGoal(goalId);
 
     if (savingGoalDto.getTitle() != null && !savingGoalDto.getTitle().isEmpty()) {
       originalGoal.setTitle(savingGoalDto.getTitle());
@@ -127,65 +173,115 @@ public class SavingGoalServiceImpl implements SavingGoalService {
     }
 
     if (savingGoalDto.getDestinationBankAccountId() != null) {
-      if (findUserEntity(username)
-          .getBankAccounts()
-          .contains(findBankAccountEntity(savingGoalDto.getDestinationBankAccountId()))) {
-        originalGoal.setDestinationBankAccount(
-            findBankAccountEntity(savingGoalDto.getDestinationBankAccountId()));
-      } else {
-        throw new ResponseStatusException(
-            HttpStatus.UNAUTHORIZED, "You do not have access to this account.");
-      }
+      originalGoal.setDestinationBankAccount(
+          findOwnedBankAccountEntity(savingGoalDto.getDestinationBankAccountId(), username));
     }
 
     if (savingGoalDto.getSourceBankAccountId() != null) {
-      if (findUserEntity(username)
-          .getBankAccounts()
-          .contains(findBankAccountEntity(savingGoalDto.getSourceBankAccountId()))) {
-        originalGoal.setSourceBankAccount(
-            findBankAccountEntity(savingGoalDto.getSourceBankAccountId()));
-      } else {
-        throw new ResponseStatusException(
-            HttpStatus.UNAUTHORIZED, "You do not have access to this account.");
-      }
+      originalGoal.setSourceBankAccount(
+          findOwnedBankAccountEntity(savingGoalDto.getSourceBankAccountId(), username));
     }
 
-    if (findSavingGoal(goalId)
+    if (originalGoal
         .getSourceBankAccount()
         .getId()
-        .equals(findSavingGoal(goalId).getDestinationBankAccount().getId())) {
+        .equals(originalGoal.getDestinationBankAccount().getId())) {
       throw new ResponseStatusException(
           HttpStatus.FORBIDDEN, "Cannot set sender and receiver to same account.");
     }
 
     updateSavingGoalStateIfNeeded(originalGoal);
 
-    return savingGoalMapper.mapTo(savingGoalRepository.save(originalGoal));
+    SavingGoalEntity savedGoal = savingGoalRepository.save(originalGoal);
+    if (savingGoalDto.getSourceBankAccountId() != null && savedGoal.getSavingChallenges() != null) {
+      reindexChallengesInProgress(savedGoal);
+    }
+    return savingGoalMapper.mapTo(savedGoal);
+  }
+
+  /**
+   * Moves the challenges in progress of a goal to its current source account in the {@link
+   * ActiveChallengeIndex}, so expenses on the new source account re-evaluate them, and drops their
+   * running spending, which was counted on the old source account. The index is changed once the
+   * transaction commits, so a rolled back edit leaves the challenges under their old account.
+   *
+   * @param savingGoal The goal whose source account changed.
+   */
+  private void reindexChallengesInProgress(SavingGoalEntity savingGoal) {
+    Long sourceBankAccountId = savingGoal.getSourceBankAccount().getId();
+    Map<Long, Long> categoryByChallenge = new HashMap<>();
+    for (SavingChallengeEntity savingChallenge : savingGoal.getSavingChallenges()) {
+      if (savingChallenge.getState().equals(ChallengeState.IN_PROGRESS)) {
+        categoryByChallenge.put(
+            savingChallenge.getId(), savingChallenge.getTransactionCategory().getId());
+      }
+    }
+    if (categoryByChallenge.isEmpty()) {
+      return;
+    }
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              reindex(categoryByChallenge, sourceBankAccountId);
+            }
+          });
+    } else {
+      reindex(categoryByChallenge, sourceBankAccountId);
+    }
   }
 
+  /**
+   * Indexes challenges under a source account, and drops their running spending.
+   *
+   * @param categoryByChallenge The id of the category of each challenge, by the id of the
+   *     challenge.
+   * @param sourceBankAccountId The id of the source account of the goal of the challenges.
+   */
+  private void reindex(Map<Long, Long> categoryByChallenge, Long sourceBankAccountId) {
+    categoryByChallenge.forEach(
+        (challengeId, categoryId) ->
+            activeChallengeIndex.add(challengeId, sourceBankAccountId, categoryId));
+    challengeSpendingCounters.drop(categoryByChallenge.keySet());
+  }
+
+  /**
+   * {@inheritDoc} The goals are read with their bank accounts in one query, and nothing is written.
+   * A goal in progress that is due is listed with the state it is due to get, and its user is
+   * queued in the {@link SavingGoalStateTransitionQueue} to have the goal settled.
+   */
   @Override
   public List<SavingGoalDtoGeneralResponse> getAllSavingGoalsForUser(String username) {
-    UserEntity userEntity = findUserEntity(username);
-    List<SavingGoalEntity> savingGoalEntities = userEntity.getSavingGoals();
-    List<SavingGoalDtoGeneralResponse> savingGoalDtos =
-        savingGoalEntities.stream()
-            .map(
-                savingGoalEntity -> {
-                  if (updateSavingGoalStateIfNeeded(savingGoalEntity)) {
-                    savingGoalRepository.save(savingGoalEntity);
-                  }
-                  return savingGoalMapper.mapTo(savingGoalEntity);
-                })
-            .collect(Collectors.toList());
+    List<SavingGoalEntity> savingGoalEntities =
+        savingGoalRepository.findWithBankAccountsByUsername(username);
+    if (savingGoalEntities.isEmpty() && !userRepository.existsByUsername(username)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No user with that username.");
+    }
 
+    List<SavingGoalDtoGeneralResponse> savingGoalDtos = new ArrayList<>();
+    for (SavingGoalEntity savingGoalEntity : savingGoalEntities) {
+      SavingGoalDtoGeneralResponse savingGoalDto = savingGoalMapper.mapTo(savingGoalEntity);
+      GoalState dueState = dueStateOf(savingGoalEntity);
+      if (dueState != null) {
+        savingGoalDto.setState(dueState);
+        savingGoalStateTransitionQueue.offer(savingGoalEntity.getUserEntity().getId());
+      }
+      savingGoalDtos.add(savingGoalDto);
+    }
     return savingGoalDtos;
   }
 
+  /**
+   * {@inheritDoc} The goal is read together with its accounts, challenges and their categories in
+   * one query, and mapped by a mapper that copies only the fields of the detailed view.
+   */
   @Override
   public SavingGoalDtoDetailsResponse getSavingGoal(Long goalId) {
     SavingGoalEntity savingGoalEntity =
         savingGoalRepository
-            .findById(goalId)
+            .findWithChallengesById(goalId)
             .orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No goal with that id."));
 
@@ -193,21 +289,94 @@ public class SavingGoalServiceImpl implements SavingGoalService {
       savingGoalRepository.save(savingGoalEntity);
     }
 
-    SavingGoalDtoDetailsResponse savingGoalDto =
-        new ModelMapper().map(savingGoalEntity, SavingGoalDtoDetailsResponse.class);
-    return savingGoalDto;
+    return savingGoalDetailsMapper.mapTo(savingGoalEntity);
+  }
+
+  @Override
+  public List<Long> findUserIdsWithDueSavingGoals(long afterUserId, int limit) {
+    return savingGoalRepository.findUserIdsWithDueGoalsAfter(
+        GoalState.IN_PROGRESS, LocalDate.now(), afterUserId, Pageable.ofSize(limit));
   }
 
+  /**
+   * {@inheritDoc} Only the goals that are due are read, as rows rather than entities, and they are
+   * locked until the transaction ends, so only the goals this transaction moves are credited to
+   * their users even if the same users are updated concurrently. The goals and their challenges in
+   * progress are moved to their new states with bulk updates, and the badges of the completed goals
+   * are then awarded per user, with the users loaded in one query. The goals are read per user
+   * rather than per goal, since completing a goal also updates the badges of its user, and the
+   * goals of one user must therefore not be updated in parallel.
+   */
   @Override
   @Transactional
-  public void updateAllSavingGoalsStates() {
-    List<SavingGoalEntity> allSavingGoalsInDb = savingGoalRepository.findAll();
+  public int updateSavingGoalStatesForUsers(List<Long> userIds) {
+    List<Long> completedGoalIds = new ArrayList<>();
+    List<Long> failedGoalIds = new ArrayList<>();
+    Map<Long, Integer> completedGoalsPerUser = new HashMap<>();
+    for (Object[] goal :
+        savingGoalRepository.findDueGoalsByUserIds(
+            userIds, GoalState.IN_PROGRESS, LocalDate.now())) {
+      Long goalId = (Long) goal[0];
+      Integer goalSum = (Integer) goal[3];
+      if (goalSum != null && goalSum <= (Double) goal[2]) {
+        completedGoalIds.add(goalId);
+        completedGoalsPerUser.merge((Long) goal[1], 1, Integer::sum);
+      } else {
+        failedGoalIds.add(goalId);
+      }
+    }
 
-    for (SavingGoalEntity savingGoal : allSavingGoalsInDb) {
-      if (updateSavingGoalStateIfNeeded(savingGoal)) {
-        savingGoalRepository.save(savingGoal);
+    int updated =
+        settleGoals(completedGoalIds, GoalState.COMPLETED, ChallengeState.COMPLETED)
+            + settleGoals(failedGoalIds, GoalState.FAILED, ChallengeState.FAILED);
+
+    if (!completedGoalsPerUser.isEmpty()) {
+      for (UserEntity userEntity : userRepository.findAllById(completedGoalsPerUser.keySet())) {
+        for (int i = 0; i < completedGoalsPerUser.get(userEntity.getId()); i++) {
+          userEntity.increaseCompletedGoals();
+          badgeRulesEngine.evaluate(userEntity, BadgeTrigger.GOAL_COMPLETED);
+        }
       }
     }
+    return updated;
+  }
+
+  /**
+   * Moves saving goals in progress and their challenges in progress to new states with bulk
+   * updates. The challenges are removed from the {@link ActiveChallengeIndex} and the {@link
+   * ChallengeSpendingCounters} once the transaction commits.
+   *
+   * @param goalIds The ids of the goals.
+   * @param goalState The new state of the goals.
+   * @param challengeState The new state of their challenges in progress.
+   * @return The number of goals updated.
+   */
+  private int settleGoals(List<Long> goalIds, GoalState goalState, ChallengeState challengeState) {
+    if (goalIds.isEmpty()) {
+      return 0;
+    }
+    List<Long> challengeIds =
+        savingChallengeRepository.findIdsBySavingGoalIdInAndState(
+            goalIds, ChallengeState.IN_PROGRESS);
+    savingChallengeRepository.updateStateBySavingGoalIdInAndState(
+        goalIds, ChallengeState.IN_PROGRESS, challengeState);
+    int updated =
+        savingGoalRepository.updateStateByIdInAndState(goalIds, GoalState.IN_PROGRESS, goalState);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              challengeIds.forEach(activeChallengeIndex::remove);
+              challengeSpendingCounters.drop(challengeIds);
+            }
+          });
+    } else {
+      challengeIds.forEach(activeChallengeIndex::remove);
+      challengeSpendingCounters.drop(challengeIds);
+    }
+    return updated;
   }
 
   /**
@@ -224,70 +393,42 @@ public class SavingGoalServiceImpl implements SavingGoalService {
    * @return true if the state was updated, false otherwise
    */
   private boolean updateSavingGoalStateIfNeeded(SavingGoalEntity savingGoal) {
-    if (savingGoal.getState().equals(GoalState.IN_PROGRESS)) {
-      if (savingGoal.getGoalSum() <= savingGoal.getAmountSaved()) {
-        UserEntity userEntity = savingGoal.getUserEntity();
-        BadgeEntity badgeEntity1 = badgeRepository.findBadgeEntityByName("Supersparings-gris");
-        BadgeEntity badgeEntity2 = badgeRepository.findBadgeEntityByName("Svinerik");
-
-        if (userEntity.getBadgeProgressEntityByName("Svinerik") == null) {
-          BadgeProgressEntity badgeProgressEntity =
-              BadgeProgressEntity.builder()
-                  .userEntity(userEntity)
-                  .badgeEntity(badgeEntity2)
-                  .build();
-
-          CompletedBadgeEntity completedBadgeEntity =
-              CompletedBadgeEntity.builder()
-                  .name(badgeEntity2.getName())
-                  .description(badgeEntity2.getDescription())
-                  .build();
-          userEntity.addBadgeProgress(badgeProgressEntity);
-          userEntity.addCompletedBadge(completedBadgeEntity);
-        }
-
-        if (userEntity.getBadgeProgressEntityByName("Supersparings-gris") == null) {
-          BadgeProgressEntity badgeProgressEntity =
-              BadgeProgressEntity.builder()
-                  .userEntity(userEntity)
-                  .progress(1)
-                  .badgeEntity(badgeEntity1)
-                  .build();
-          userEntity.addBadgeProgress(badgeProgressEntity);
-        } else {
-          userEntity.getBadgeProgressEntityByName("Supersparings-gris").increaseProgress();
-        }
-
-        for (BadgeTierEntity badgeTier : badgeEntity1.getBadgeTiers()) {
-          CompletedBadgeEntity completedBadge =
-              CompletedBadgeEntity.builder()
-                  .name(badgeEntity1.getName())
-                  .tier(badgeTier.getTier())
-                  .description(badgeTier.getDescription())
-                  .build();
-          if (userEntity.getBadgeProgressEntityByName("Supersparings-gris").getProgress()
-                  >= badgeTier.getTarget()
-              && !userEntity.getCompletedBadges().stream()
-                  .anyMatch(
-                      completed ->
-                          completed.getName().equals(badgeEntity1.getName())
-                              && completed.getTier().equals(badgeTier.getTier()))) {
-            userEntity.addCompletedBadge(completedBadge);
-          }
-        }
-        userEntity.increaseCompletedGoals();
-        savingGoal.setState(GoalState.COMPLETED);
-        updateChallengesInProgress(savingGoal.getSavingChallenges(), ChallengeState.COMPLETED);
-        return true;
-      } else if (savingGoal.getEndingDate().isBefore(LocalDate.now())) {
-        savingGoal.setState(GoalState.FAILED);
-        updateChallengesInProgress(savingGoal.getSavingChallenges(), ChallengeState.FAILED);
-        return true;
-      }
+    GoalState dueState = dueStateOf(savingGoal);
+    if (dueState == GoalState.COMPLETED) {
+      UserEntity userEntity = savingGoal.getUserEntity();
+      userEntity.increaseCompletedGoals();
+      badgeRulesEngine.evaluate(userEntity, BadgeTrigger.GOAL_COMPLETED);
+      savingGoal.setState(GoalState.COMPLETED);
+      updateChallengesInProgress(savingGoal.getSavingChallenges(), ChallengeState.COMPLETED);
+      return true;
+    } else if (dueState == GoalState.FAILED) {
+      savingGoal.setState(GoalState.FAILED);
+      updateChallengesInProgress(savingGoal.getSavingChallenges(), ChallengeState.FAILED);
+      return true;
     }
     return false;
   }
 
+  /**
+   * Finds the state a saving goal in progress is due to get. A goal is due to be COMPLETED if the
+   * amount saved is greater than or equal to the goal sum, and otherwise due to be FAILED if the
+   * current date is past its ending date.
+   *
+   * @param savingGoal the saving goal entity
+   * @return the state the goal is due to get, or null if it is not in progress or not due
+   */
+  private GoalState dueStateOf(SavingGoalEntity savingGoal) {
+    if (!GoalState.IN_PROGRESS.equals(savingGoal.getState())) {
+      return null;
+    }
+    if (savingGoal.getGoalSum() <= savingGoal.getAmountSaved()) {
+      return GoalState.COMPLETED;
+    } else if (savingGoal.getEndingDate().isBefore(LocalDate.now())) {
+      return GoalState.FAILED;
+    }
+    return null;
+  }
+
   /**
    * Updates all challenges that are still in progress to a certain ChallengeState.
    *
@@ -350,10 +491,34 @@ public class SavingGoalServiceImpl implements SavingGoalService {
    * @return The found BankAccountEntity
    */
   private BankAccountEntity findBankAccountEntity(Long accountId) {
-    return bankAccountRepository
-        .findById(accountId)
-        .orElseThrow(
-            () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No account with that id."));
+    return entityLookupCache.find(
+        BankAccountEntity.class,
+        accountId,
+        () ->
+            bankAccountRepository
+                .findById(accountId)
+                .orElseThrow(
+                    () ->
+                        new ResponseStatusException(
+                            HttpStatus.NOT_FOUND, "No account with that id.")));
+  }
+
+  /**
+   * Helper method to find a bank account entity that belongs to a user. Whether the account belongs
+   * to the user is checked with an exists query, so the accounts of the user are not loaded.
+   *
+   * @param accountId ID of the bank account to look for
+   * @param username Username of the user the account should belong to
+   * @return The bank account entity if it exists and belongs to the user
+   * @throws ResponseStatusException if the account does not exist, or belongs to another user
+   */
+  private BankAccountEntity findOwnedBankAccountEntity(Long accountId, String username) {
+    BankAccountEntity bankAccount = findBankAccountEntity(accountId);
+    if (!bankAccountRepository.existsByIdAndUserEntityUsername(accountId, username)) {
+      throw new ResponseStatusException(
+          HttpStatus.UNAUTHORIZED, "You do not have access to this account.");
+    }
+    return bankAccount;
   }
 
   /**
@@ -378,10 +543,16 @@ public class SavingGoalServiceImpl implements SavingGoalService {
    * @return The found UserEntity
    */
   private UserEntity findUserEntity(String username) {
-    return userRepository
-        .findUserEntityByUsername(username)
-        .orElseThrow(
-            () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No user with that username."));
+    return entityLookupCache.find(
+        UserEntity.class,
+        username,
+        () ->
+            userRepository
+                .findUserEntityByUsername(username)
+                .orElseThrow(
+                    () ->
+                        new ResponseStatusException(
+                            HttpStatus.NOT_FOUND, "No user with that username.")));
   }
 
   /**
@@ -391,9 +562,15 @@ public class SavingGoalServiceImpl implements SavingGoalService {
    * @return The found SavingGoalEntity
    */
   private SavingGoalEntity findSavingGoal(Long goalId) {
-    return savingGoalRepository
-        .findById(goalId)
-        .orElseThrow(
-            () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No goal with that id."));
+    return entityLookupCache.find(
+        SavingGoalEntity.class,
+        goalId,
+        () ->
+            savingGoalRepository
+                .findById(goalId)
+                .orElseThrow(
+                    () ->
+                        new ResponseStatusException(
+                            HttpStatus.NOT_FOUND, "No goal with that id.")));
   }
 }
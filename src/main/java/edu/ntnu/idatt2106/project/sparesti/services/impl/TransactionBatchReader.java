@@ -0,0 +1,193 @@
+package edu.ntnu.idatt2106.project.sparesti.services.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchRowDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the transactions of a batch one at a time from a request body, so the whole body never has
+ * to be held in memory. The body is either a JSON array of transactions or newline-delimited JSON
+ * (one transaction per line); the format is detected from the first character.
+ *
+ * <p>A row that cannot be read as a transaction is returned with an error instead of aborting the
+ * batch. In a JSON array, a syntax error makes the rest of the body unreadable, so reading stops
+ * after reporting it. In newline-delimited JSON only the broken line is skipped.
+ */
+public class TransactionBatchReader implements Iterator<TransactionBatchRowDto>, Closeable {
+
+  private final ObjectMapper objectMapper;
+  private final BufferedReader reader;
+  private JsonParser arrayParser;
+  private TransactionBatchRowDto nextRow;
+  private boolean finished;
+  private int index;
+
+  /**
+   * Creates a reader over a request body.
+   *
+   * @param objectMapper The object mapper used to read the transactions.
+   * @param inputStream The request body, encoded as UTF-8.
+   */
+  public TransactionBatchReader(ObjectMapper objectMapper, InputStream inputStream) {
+    this.objectMapper = objectMapper;
+    this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextRow == null && !finished) {
+      try {
+        nextRow = readRow();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      finished = nextRow == null;
+    }
+    return nextRow != null;
+  }
+
+  @Override
+  public TransactionBatchRowDto next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    TransactionBatchRowDto row = nextRow;
+    nextRow = null;
+    return row;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (arrayParser != null) {
+      arrayParser.close();
+    }
+    reader.close();
+  }
+
+  /**
+   * Reads the next row, detecting the format of the body on the first call.
+   *
+   * @return The next row, or null if there are no more rows.
+   * @throws IOException If the body cannot be read.
+   */
+  private TransactionBatchRowDto readRow() throws IOException {
+    if (index == 0 && arrayParser == null && startsWithArray()) {
+      arrayParser = objectMapper.getFactory().createParser(reader);
+      arrayParser.nextToken();
+    }
+    return arrayParser != null ? readArrayElement() : readLine();
+  }
+
+  /**
+   * Checks whether the first character of the body that is not whitespace opens a JSON array,
+   * without consuming it.
+   *
+   * @return True if the body is a JSON array.
+   * @throws IOException If the body cannot be read.
+   */
+  private boolean startsWithArray() throws IOException {
+    while (true) {
+      reader.mark(1);
+      int character = reader.read();
+      if (character == -1) {
+        return false;
+      }
+      if (!Character.isWhitespace(character)) {
+        reader.reset();
+        return character == '[';
+      }
+    }
+  }
+
+  /**
+   * Reads the next element of a JSON array body.
+   *
+   * @return The next row, or null if the end of the array is reached.
+   * @throws IOException If the body cannot be read.
+   */
+  private TransactionBatchRowDto readArrayElement() throws IOException {
+    int rowIndex = index++;
+    try {
+      JsonToken token = arrayParser.nextToken();
+      if (token == null || token == JsonToken.END_ARRAY) {
+        return null;
+      }
+      if (token != JsonToken.START_OBJECT) {
+        arrayParser.skipChildren();
+        return errorRow(rowIndex, "A transaction must be a JSON object.");
+      }
+      JsonNode node = arrayParser.readValueAsTree();
+      return toRow(rowIndex, () -> objectMapper.treeToValue(node, TransactionDto.class));
+    } catch (JsonProcessingException e) {
+      finished = true;
+      return errorRow(
+          rowIndex, "Malformed JSON, the rest of the batch was skipped: " + e.getOriginalMessage());
+    }
+  }
+
+  /**
+   * Reads the next non-blank line of a newline-delimited JSON body.
+   *
+   * @return The next row, or null if the end of the body is reached.
+   * @throws IOException If the body cannot be read.
+   */
+  private TransactionBatchRowDto readLine() throws IOException {
+    String line = reader.readLine();
+    while (line != null && line.isBlank()) {
+      line = reader.readLine();
+    }
+    if (line == null) {
+      return null;
+    }
+    String json = line;
+    return toRow(index++, () -> objectMapper.readValue(json, TransactionDto.class));
+  }
+
+  /**
+   * Creates a row from a transaction, or an error row if the transaction cannot be read.
+   *
+   * @param rowIndex The position of the row in the batch.
+   * @param transactionSource Reads the transaction of the row.
+   * @return The row.
+   */
+  private TransactionBatchRowDto toRow(int rowIndex, TransactionSource transactionSource) {
+    try {
+      return TransactionBatchRowDto.builder()
+          .index(rowIndex)
+          .transaction(transactionSource.read())
+          .build();
+    } catch (JsonProcessingException e) {
+      return errorRow(rowIndex, "Could not read transaction: " + e.getOriginalMessage());
+    }
+  }
+
+  /**
+   * Creates a row holding the reason it could not be read.
+   *
+   * @param rowIndex The position of the row in the batch.
+   * @param error The reason the row could not be read.
+   * @return The row.
+   */
+  private TransactionBatchRowDto errorRow(int rowIndex, String error) {
+    return TransactionBatchRowDto.builder().index(rowIndex).error(error).build();
+  }
+
+  /** Reads a single transaction, failing if it is not valid JSON or does not match the dto. */
+  @FunctionalInterface
+  private interface TransactionSource {
+    TransactionDto read() throws JsonProcessingException;
+  }
+}
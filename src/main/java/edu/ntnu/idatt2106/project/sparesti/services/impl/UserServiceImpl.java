@@ -1,27 +1,30 @@
 package edu.ntnu.idatt2106.project.sparesti.services.impl;
 
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeRulesEngine;
+import edu.ntnu.idatt2106.project.sparesti.cache.EntityLookupCache;
+import edu.ntnu.idatt2106.project.sparesti.cache.LeaderboardIndex;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDetails;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDetailsRequestDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserLeaderboardDto;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeProgressEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.BadgeTrigger;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
-import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
 import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
 import edu.ntnu.idatt2106.project.sparesti.services.UserService;
+import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.extern.java.Log;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -37,42 +40,58 @@ import org.springframework.web.server.ResponseStatusException;
 @Service
 public class UserServiceImpl implements UserService {
 
+  private static final int MAX_LEADERBOARD_PAGE_SIZE = 100;
+
+  private static final int MAX_LEADERBOARD_NEIGHBOURS = 50;
+
+  private static final int LEADERBOARD_READ_CHUNK_SIZE = 1000;
+
   /** Used for Dependency Injection. */
   private UserRepository userRepository;
 
-  private ModelMapper modelMapper;
-
   private BankAccountRepository bankAccountRepository;
 
-  private BadgeRepository badgeRepository;
+  private BadgeRulesEngine badgeRulesEngine;
+
+  private EntityLookupCache entityLookupCache;
 
   /** Used for Dependency Injection. */
   private Mapper<UserEntity, UserDto> userMapper;
 
   private BankAccountService bankAccountService;
   private Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper;
+  private Mapper<UserEntity, UserDetails> userDetailsMapper;
+  private LeaderboardIndex leaderboardIndex;
 
   /**
    * Constructor for a new UserServiceImpl with the provided dependencies.
    *
    * @param userRepository the UserRepository instance to interact with user data in the database.
    * @param userMapper the Mapper instance to map between UserEntity and UserDto objects.
+   * @param badgeRulesEngine the engine awarding the badges of logins.
+   * @param entityLookupCache the cache of the entities looked up within a request.
+   * @param userDetailsMapper the Mapper instance to map a UserEntity to its UserDetails.
+   * @param leaderboardIndex the index of the scores of the users, ordered as on the leaderboard.
    */
   public UserServiceImpl(
       UserRepository userRepository,
       Mapper<UserEntity, UserDto> userMapper,
       BankAccountService bankAccountService,
       Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper,
-      ModelMapper modelMapper,
       BankAccountRepository bankAccountRepository,
-      BadgeRepository badgeRepository) {
+      BadgeRulesEngine badgeRulesEngine,
+      EntityLookupCache entityLookupCache,
+      Mapper<UserEntity, UserDetails> userDetailsMapper,
+      LeaderboardIndex leaderboardIndex) {
     this.userMapper = userMapper;
     this.userRepository = userRepository;
     this.bankAccountService = bankAccountService;
     this.bankAccountMapper = bankAccountMapper;
-    this.modelMapper = modelMapper;
     this.bankAccountRepository = bankAccountRepository;
-    this.badgeRepository = badgeRepository;
+    this.badgeRulesEngine = badgeRulesEngine;
+    this.entityLookupCache = entityLookupCache;
+    this.userDetailsMapper = userDetailsMapper;
+    this.leaderboardIndex = leaderboardIndex;
   }
 
   /**
@@ -102,24 +121,33 @@ public class UserServiceImpl implements UserService {
             .subId(userDto.getSubId())
             .build();
 
-    BadgeEntity badgeEntity = badgeRepository.findBadgeEntityByName("Griseglad");
-
-    CompletedBadgeEntity completedBadge =
-        CompletedBadgeEntity.builder()
-            .name("Griseglad")
-            .description(badgeEntity.getDescription())
-            .build();
-
-    BadgeProgressEntity badgeProgress =
-        BadgeProgressEntity.builder().badgeEntity(badgeEntity).userEntity(userEntity).build();
-
-    userEntity.addBadgeProgress(badgeProgress);
-    userEntity.addCompletedBadge(completedBadge);
+    badgeRulesEngine.evaluate(userEntity, BadgeTrigger.LOGIN);
 
     UserEntity savedUser = userRepository.save(userEntity);
+    leaderboardIndex.updateAfterCommit(savedUser.getId(), savedUser.getScore());
     return userMapper.mapTo(savedUser);
   }
 
+  /**
+   * Records a login of an existing user, awarding the badges for logging in. The user is found by
+   * the sub claim of their access token, so a caller can only record their own login. Does nothing
+   * if there is no user with the sub claim, since a new user is awarded the badges of their first
+   * login when they are created.
+   *
+   * @param subId the sub claim of the access token of the user logging in.
+   */
+  @Override
+  @Transactional
+  public void recordLogin(String subId) {
+    userRepository
+        .findUserEntityBySubId(subId)
+        .ifPresent(
+            userEntity -> {
+              badgeRulesEngine.evaluate(userEntity, BadgeTrigger.LOGIN);
+              userRepository.save(userEntity);
+            });
+  }
+
   /**
    * Checks if a user with the same email as the provided UserDto exists in the database.
    *
@@ -191,88 +219,161 @@ public class UserServiceImpl implements UserService {
         userRepository.save(userEntity);
       }
     }
-    return modelMapper.map(userEntity, UserDetails.class);
+    return userDetailsMapper.mapTo(userEntity);
   }
 
   /**
-   * Edits user information.
+   * Edits user information. The user and the accounts are each read once within the request, and
+   * the accounts are checked to belong to the user with indexed exists queries, without loading the
+   * accounts of the user.
    *
    * @param username Username of the user to modify
    * @param userDetailsRequestDto Updated user detail fields
    * @return Updated user details
    */
   @Override
+  @Transactional
   public UserDetails editUser(String username, UserDetailsRequestDto userDetailsRequestDto) {
     UserEntity currentUser =
-        userRepository
-            .findUserEntityByUsername(username)
-            .orElseThrow(
-                () ->
-                    new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "No user with that username"));
+        entityLookupCache.find(
+            UserEntity.class,
+            username,
+            () ->
+                userRepository
+                    .findUserEntityByUsername(username)
+                    .orElseThrow(
+                        () ->
+                            new ResponseStatusException(
+                                HttpStatus.NOT_FOUND, "No user with that username")));
     if (userDetailsRequestDto.getPreferredCheckingAccountId() != null) {
-      BankAccountEntity newCheckingAccount =
-          bankAccountRepository
-              .findById(userDetailsRequestDto.getPreferredCheckingAccountId())
-              .orElseThrow(
-                  () ->
-                      new ResponseStatusException(
-                          HttpStatus.NOT_FOUND, "No account with that id."));
-      if (currentUser.getBankAccounts().stream()
-          .anyMatch(
-              bankAccountEntity ->
-                  bankAccountEntity
-                      .getId()
-                      .equals(userDetailsRequestDto.getPreferredCheckingAccountId()))) {
-        currentUser.setPreferredCheckingAccount(newCheckingAccount);
-      } else {
-        throw new ResponseStatusException(
-            HttpStatus.UNAUTHORIZED, "You do not have access to that account.");
-      }
+      currentUser.setPreferredCheckingAccount(
+          findOwnedBankAccount(userDetailsRequestDto.getPreferredCheckingAccountId(), username));
     }
 
     if (userDetailsRequestDto.getPreferredSavingsAccountId() != null) {
-      BankAccountEntity newSavingAccount =
-          bankAccountRepository
-              .findById(userDetailsRequestDto.getPreferredSavingsAccountId())
-              .orElseThrow(
-                  () ->
-                      new ResponseStatusException(
-                          HttpStatus.NOT_FOUND, "No account with that id."));
-      if (currentUser.getBankAccounts().stream()
-          .anyMatch(
-              bankAccountEntity ->
-                  bankAccountEntity
-                      .getId()
-                      .equals(userDetailsRequestDto.getPreferredSavingsAccountId()))) {
-        currentUser.setPreferredSavingsAccount(newSavingAccount);
-      } else {
-        throw new ResponseStatusException(
-            HttpStatus.UNAUTHORIZED, "You do not have access to that account.");
-      }
+      currentUser.setPreferredSavingsAccount(
+          findOwnedBankAccount(userDetailsRequestDto.getPreferredSavingsAccountId(), username));
     }
 
     if (userDetailsRequestDto.getImageUrl() != null) {
       currentUser.setImageUrl(userDetailsRequestDto.getImageUrl());
     }
-    return modelMapper.map(userRepository.save(currentUser), UserDetails.class);
+    return userDetailsMapper.mapTo(userRepository.save(currentUser));
   }
 
   /**
-   * Method for returning the global leaderboard of users. This is ordered by user points.
+   * Finds a bank account that belongs to a user. Whether the account belongs to the user is checked
+   * with an exists query, so the accounts of the user are not loaded.
    *
-   * @return a list of every user in a point-descending order
+   * @param accountId ID of the bank account
+   * @param username Username of the user the account should belong to
+   * @return The bank account
+   * @throws ResponseStatusException if the account does not exist, or belongs to another user
+   */
+  private BankAccountEntity findOwnedBankAccount(Long accountId, String username) {
+    BankAccountEntity bankAccount =
+        entityLookupCache.find(
+            BankAccountEntity.class,
+            accountId,
+            () ->
+                bankAccountRepository
+                    .findById(accountId)
+                    .orElseThrow(
+                        () ->
+                            new ResponseStatusException(
+                                HttpStatus.NOT_FOUND, "No account with that id.")));
+    if (!bankAccountRepository.existsByIdAndUserEntityUsername(accountId, username)) {
+      throw new ResponseStatusException(
+          HttpStatus.UNAUTHORIZED, "You do not have access to that account.");
+    }
+    return bankAccount;
+  }
+
+  /**
+   * {@inheritDoc} The order is read from the {@link LeaderboardIndex}, and the users are read from
+   * the database in chunks, so the query for each chunk stays small.
    */
   @Override
   public List<UserLeaderboardDto> getGlobalLeaderboard() {
-    // Fetch all UserEntity objects ordered by score in descending order
-    List<UserEntity> users = userRepository.findAllByOrderByScoreDesc();
+    List<LeaderboardIndex.Entry> entries = leaderboardIndex.page(0, leaderboardIndex.size());
+    List<UserLeaderboardDto> leaderboard = new ArrayList<>(entries.size());
+    for (int from = 0; from < entries.size(); from += LEADERBOARD_READ_CHUNK_SIZE) {
+      leaderboard.addAll(
+          toLeaderboardDtos(
+              entries.subList(from, Math.min(entries.size(), from + LEADERBOARD_READ_CHUNK_SIZE))));
+    }
+    return leaderboard;
+  }
 
-    // Use userMapper to transform each UserEntity into a UserDto
-    return users.stream()
-        .map(userEntity -> modelMapper.map(userEntity, UserLeaderboardDto.class))
-        .toList();
-    // return users.stream().map(user -> userMapper.mapTo(user)).collect(Collectors.toList());
+  /**
+   * {@inheritDoc} The page is read from the {@link LeaderboardIndex}, so only the users on the page
+   * are read from the database.
+   */
+  @Override
+  public List<UserLeaderboardDto> getGlobalLeaderboard(int page, int size) {
+    if (page < 0 || size < 1 || size > MAX_LEADERBOARD_PAGE_SIZE) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST,
+          "The page must be at least 0, and the size between 1 and "
+              + MAX_LEADERBOARD_PAGE_SIZE
+              + ".");
+    }
+    long offset = (long) page * size;
+    if (offset >= leaderboardIndex.size()) {
+      return List.of();
+    }
+    return toLeaderboardDtos(leaderboardIndex.page((int) offset, size));
+  }
+
+  /**
+   * {@inheritDoc} The rank is looked up in the {@link LeaderboardIndex}. A user that is missing
+   * from the index is added to it first.
+   */
+  @Override
+  public List<UserLeaderboardDto> getLeaderboardAroundUser(String username, int neighbours) {
+    if (neighbours < 0 || neighbours > MAX_LEADERBOARD_NEIGHBOURS) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST,
+          "The number of neighbours must be between 0 and " + MAX_LEADERBOARD_NEIGHBOURS + ".");
+    }
+    UserEntity userEntity =
+        userRepository
+            .findUserEntityByUsername(username)
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "No user with that username."));
+    List<LeaderboardIndex.Entry> entries = leaderboardIndex.around(userEntity.getId(), neighbours);
+    if (entries.isEmpty()) {
+      leaderboardIndex.update(userEntity.getId(), userEntity.getScore());
+      entries = leaderboardIndex.around(userEntity.getId(), neighbours);
+    }
+    return toLeaderboardDtos(entries);
+  }
+
+  /**
+   * Reads the users of leaderboard entries in one query, and returns them in the order of the
+   * entries with their ranks. Entries of users that no longer exist are skipped.
+   *
+   * @param entries The entries on the leaderboard, from the top down.
+   * @return The leaderboard dtos of the entries.
+   */
+  private List<UserLeaderboardDto> toLeaderboardDtos(List<LeaderboardIndex.Entry> entries) {
+    Map<Long, UserLeaderboardDto> usersById = new HashMap<>();
+    for (UserLeaderboardDto user :
+        userRepository.findLeaderboardEntriesByIdIn(
+            entries.stream().map(LeaderboardIndex.Entry::userId).toList())) {
+      usersById.put(user.getId(), user);
+    }
+    List<UserLeaderboardDto> leaderboard = new ArrayList<>(entries.size());
+    for (LeaderboardIndex.Entry entry : entries) {
+      UserLeaderboardDto user = usersById.get(entry.userId());
+      if (user != null) {
+        user.setRank(entry.rank());
+        leaderboard.add(user);
+      }
+    }
+    return leaderboard;
   }
 
   /**
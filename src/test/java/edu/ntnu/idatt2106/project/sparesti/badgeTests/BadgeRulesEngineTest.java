@@ -0,0 +1,141 @@
+package edu.ntnu.idatt2106.project.sparesti.badgeTests;
+
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeCatalog;
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeRulesEngine;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeTierEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.BadgeTrigger;
+import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link BadgeRulesEngine}. */
+class BadgeRulesEngineTest {
+
+  @Mock private BadgeRepository badgeRepository;
+
+  private BadgeRulesEngine engine;
+  private UserEntity user;
+
+  /** Sets up a catalog with the login, challenge and streak badges, and a user without badges. */
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    List<BadgeEntity> badges =
+        List.of(
+            badge(1L, "Griseglad"),
+            badge(2L, "Sus-pig-us", 2, 5),
+            badge(3L, "Griseflink sparer"),
+            badge(4L, "Teenage Mutant Ninja-piggy", 1, 3),
+            badge(5L, "Griseflex", 3, 7, 14));
+    when(badgeRepository.findAllWithTiers()).thenReturn(badges);
+    when(badgeRepository.getReferenceById(anyLong()))
+        .thenAnswer(
+            invocation ->
+                badges.stream()
+                    .filter(badge -> badge.getId().equals(invocation.getArgument(0)))
+                    .findFirst()
+                    .orElseThrow());
+    BadgeCatalog catalog = new BadgeCatalog(badgeRepository);
+    catalog.reload();
+    engine = new BadgeRulesEngine(catalog, badgeRepository);
+
+    user = UserEntity.builder().currentStreak(0).totalSaved(0.0).build();
+  }
+
+  /** Tests that a badge without tiers is awarded the first time only. */
+  @Test
+  void badgeWithoutTiersIsAwardedOnce() {
+    List<CompletedBadgeEntity> first = engine.evaluate(user, BadgeTrigger.CHALLENGE_FINISHED);
+    List<CompletedBadgeEntity> second = engine.evaluate(user, BadgeTrigger.CHALLENGE_FINISHED);
+
+    assertTrue(first.stream().anyMatch(badge -> badge.getName().equals("Griseflink sparer")));
+    assertTrue(second.stream().noneMatch(badge -> badge.getName().equals("Griseflink sparer")));
+  }
+
+  /** Tests that a counted badge awards each tier when its target is reached. */
+  @Test
+  void countedBadgeAwardsTiersAtTheirTargets() {
+    List<Integer> tiers = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      engine.evaluate(user, BadgeTrigger.LOGIN).stream()
+          .filter(badge -> badge.getName().equals("Sus-pig-us"))
+          .forEach(badge -> tiers.add(badge.getTier()));
+    }
+
+    assertEquals(List.of(1, 2), tiers);
+    assertEquals(5, user.getBadgeProgress().get(1).getProgress());
+    assertEquals(
+        1, user.getCompletedBadges().stream().filter(b -> b.getName().equals("Griseglad")).count());
+  }
+
+  /** Tests that every tier passed by a jump in the streak is awarded, and only once. */
+  @Test
+  void highestStreakAwardsPassedTiersOnce() {
+    user.setCurrentStreak(8);
+    List<CompletedBadgeEntity> awarded = engine.evaluate(user, BadgeTrigger.STREAK_CHANGED);
+
+    user.setCurrentStreak(0);
+    engine.evaluate(user, BadgeTrigger.STREAK_CHANGED);
+    user.setCurrentStreak(8);
+    List<CompletedBadgeEntity> again = engine.evaluate(user, BadgeTrigger.STREAK_CHANGED);
+
+    assertEquals(List.of(1, 2), awarded.stream().map(CompletedBadgeEntity::getTier).toList());
+    assertTrue(again.isEmpty());
+    assertEquals(8, user.getBadgeProgress().get(0).getProgress());
+  }
+
+  /** Tests that tiers completed before the bitset existed are not awarded again. */
+  @Test
+  void completedTierIsNotAwardedTwice() {
+    user.addCompletedBadge(CompletedBadgeEntity.builder().name("Sus-pig-us").tier(1).build());
+
+    List<CompletedBadgeEntity> awarded = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      awarded.addAll(engine.evaluate(user, BadgeTrigger.LOGIN));
+    }
+
+    assertEquals(
+        List.of(2),
+        awarded.stream()
+            .filter(badge -> badge.getName().equals("Sus-pig-us"))
+            .map(CompletedBadgeEntity::getTier)
+            .toList());
+    assertNotNull(user.getCompletedBadgeMask());
+  }
+
+  /** Tests that an event with a badge missing from the catalog awards nothing. */
+  @Test
+  void missingBadgeIsSkipped() {
+    when(badgeRepository.findAllWithTiers()).thenReturn(List.of());
+    BadgeCatalog emptyCatalog = new BadgeCatalog(badgeRepository);
+    emptyCatalog.reload();
+    BadgeRulesEngine emptyEngine = new BadgeRulesEngine(emptyCatalog, badgeRepository);
+
+    assertTrue(emptyEngine.evaluate(user, BadgeTrigger.GOAL_COMPLETED).isEmpty());
+    assertNull(user.getBadgeProgress());
+    verify(badgeRepository, never()).getReferenceById(anyLong());
+  }
+
+  private static BadgeEntity badge(Long id, String name, int... targets) {
+    BadgeEntity badge = BadgeEntity.builder().id(id).name(name).description(name).build();
+    List<BadgeTierEntity> tiers = new ArrayList<>();
+    for (int i = 0; i < targets.length; i++) {
+      tiers.add(BadgeTierEntity.builder().tier(i + 1).target(targets[i]).badge(badge).build());
+    }
+    badge.setBadgeTiers(tiers);
+    return badge;
+  }
+}
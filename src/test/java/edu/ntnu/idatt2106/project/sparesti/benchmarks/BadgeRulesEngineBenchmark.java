@@ -0,0 +1,119 @@
+package edu.ntnu.idatt2106.project.sparesti.benchmarks;
+
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeCatalog;
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeRulesEngine;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeTierEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.BadgeTrigger;
+import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how fast the {@link BadgeRulesEngine} evaluates events for a user who has already
+ * completed many badges. Evaluating an event only looks at the tiers between the stored and the new
+ * progress, so the time per event should not grow with the number of completed badges.
+ *
+ * <p>Run with the main method from the test classpath, for example from the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BadgeRulesEngineBenchmark {
+
+  @Param({"10", "1000"})
+  private int completedBadges;
+
+  private BadgeRulesEngine engine;
+  private UserEntity user;
+
+  /** Sets up a catalog with tiered badges, and a user who has completed many badges. */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    List<BadgeEntity> badges =
+        List.of(
+            badge(1L, "Griseglad"),
+            badge(2L, "Sus-pig-us", 10, 100, 1000, 10000),
+            badge(3L, "Griseflink sparer"),
+            badge(4L, "Teenage Mutant Ninja-piggy", 10, 100, 1000, 10000),
+            badge(5L, "Griseflex", 7, 30, 100, 365));
+    BadgeRepository badgeRepository = Mockito.mock(BadgeRepository.class);
+    Mockito.when(badgeRepository.findAllWithTiers()).thenReturn(badges);
+    for (BadgeEntity badge : badges) {
+      Mockito.when(badgeRepository.getReferenceById(badge.getId())).thenReturn(badge);
+    }
+    BadgeCatalog catalog = new BadgeCatalog(badgeRepository);
+    catalog.reload();
+    engine = new BadgeRulesEngine(catalog, badgeRepository);
+
+    user = UserEntity.builder().currentStreak(0).totalSaved(0.0).build();
+    for (int i = 0; i < completedBadges; i++) {
+      user.addCompletedBadge(CompletedBadgeEntity.builder().name("Badge " + i).build());
+    }
+  }
+
+  /**
+   * Evaluates a finished challenge.
+   *
+   * @return The awarded badges.
+   */
+  @Benchmark
+  public List<CompletedBadgeEntity> challengeFinished() {
+    return engine.evaluate(user, BadgeTrigger.CHALLENGE_FINISHED);
+  }
+
+  /**
+   * Evaluates a changed streak.
+   *
+   * @return The awarded badges.
+   */
+  @Benchmark
+  public List<CompletedBadgeEntity> streakChanged() {
+    user.setCurrentStreak(user.getCurrentStreak() + 1);
+    return engine.evaluate(user, BadgeTrigger.STREAK_CHANGED);
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args Not used.
+   * @throws RunnerException If the benchmarks could not be run.
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(BadgeRulesEngineBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  private static BadgeEntity badge(Long id, String name, int... targets) {
+    BadgeEntity badge = BadgeEntity.builder().id(id).name(name).description(name).build();
+    List<BadgeTierEntity> tiers = new ArrayList<>();
+    for (int i = 0; i < targets.length; i++) {
+      tiers.add(BadgeTierEntity.builder().tier(i + 1).target(targets[i]).badge(badge).build());
+    }
+    badge.setBadgeTiers(tiers);
+    return badge;
+  }
+}
@@ -0,0 +1,146 @@
+package edu.ntnu.idatt2106.project.sparesti.benchmarks;
+
+import static org.mockito.Mockito.mock;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.LeaderboardIndex;
+import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the {@link LeaderboardIndex} with a million users: reading the top page, a page deep
+ * down the leaderboard, the rank of a user with their neighbours, and updating the score of a user.
+ * The leaderboard was built before by sorting every user, and a rank could only be found by
+ * counting the users with a higher score, which the baselines do on the scores in memory.
+ *
+ * <p>Run with the main method from the test classpath, for example from the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class LeaderboardIndexBenchmark {
+
+  private static final int PAGE_SIZE = 10;
+
+  @Param({"1000000"})
+  private int users;
+
+  private LeaderboardIndex index;
+  private int[] scores;
+  private SplittableRandom random;
+
+  /** Sets up an index of users with random scores. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    random = new SplittableRandom(42);
+    index = new LeaderboardIndex(mock(UserRepository.class));
+    scores = new int[users];
+    for (int userId = 0; userId < users; userId++) {
+      scores[userId] = random.nextInt(100_000);
+      index.update((long) userId, scores[userId]);
+    }
+  }
+
+  /**
+   * Reads the top page of the leaderboard.
+   *
+   * @return The entries on the page.
+   */
+  @Benchmark
+  public List<LeaderboardIndex.Entry> topPage() {
+    return index.page(0, PAGE_SIZE);
+  }
+
+  /**
+   * Reads a page in the middle of the leaderboard.
+   *
+   * @return The entries on the page.
+   */
+  @Benchmark
+  public List<LeaderboardIndex.Entry> middlePage() {
+    return index.page(users / 2, PAGE_SIZE);
+  }
+
+  /**
+   * Reads the rank of a random user with two users above and below them.
+   *
+   * @return The entries around the user.
+   */
+  @Benchmark
+  public List<LeaderboardIndex.Entry> aroundUser() {
+    return index.around((long) random.nextInt(users), 2);
+  }
+
+  /** Gives a random user a new score. */
+  @Benchmark
+  public void updateScore() {
+    int userId = random.nextInt(users);
+    scores[userId] = random.nextInt(100_000);
+    index.update((long) userId, scores[userId]);
+  }
+
+  /**
+   * Sorts every user to read the top page, as the leaderboard was read before.
+   *
+   * @return The ids and scores of the users on the top page.
+   */
+  @Benchmark
+  public long[] sortAllForTopPage() {
+    long[] ordered = new long[users];
+    for (int userId = 0; userId < users; userId++) {
+      ordered[userId] = ((long) (Integer.MAX_VALUE - scores[userId]) << 32) | userId;
+    }
+    Arrays.sort(ordered);
+    return Arrays.copyOf(ordered, PAGE_SIZE);
+  }
+
+  /**
+   * Counts the users ranked above a random user.
+   *
+   * @return The rank of the user.
+   */
+  @Benchmark
+  public int scanForRank() {
+    int userId = random.nextInt(users);
+    int score = scores[userId];
+    int above = 0;
+    for (int other = 0; other < users; other++) {
+      if (scores[other] > score || (scores[other] == score && other < userId)) {
+        above++;
+      }
+    }
+    return above + 1;
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args Not used.
+   * @throws RunnerException If the benchmarks could not be run.
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(LeaderboardIndexBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
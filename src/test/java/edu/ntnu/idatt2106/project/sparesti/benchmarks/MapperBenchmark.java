@@ -0,0 +1,317 @@
+package edu.ntnu.idatt2106.project.sparesti.benchmarks;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransferDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoGeneralResponse;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDetails;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeProgressEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BadgeTierEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.CompletedBadgeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransferEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.BadgeMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.BadgeProgressMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.BankAccountMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.CompletedBadgeMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.SavingChallengeMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.SavingGoalMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.TransactionCategoryMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.TransactionMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.TransferMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.UserDetailsMapperImpl;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the hand-written mappers with the shared {@link ModelMapper} with the loose matching
+ * strategy, which mapped the entities to dtos before, for the dtos returned by the busiest
+ * endpoints. The ModelMapper has mapped every pair once before measuring, so only the mapping
+ * itself is compared, not the building of the type maps.
+ *
+ * <p>Run with the main method from the test classpath, for example from the IDE. Add {@code -prof
+ * gc} to the options to compare the allocation per call as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+  private UserEntity user;
+  private SavingGoalEntity savingGoal;
+  private SavingChallengeEntity savingChallenge;
+  private TransactionEntity transaction;
+  private TransferEntity transfer;
+
+  private ModelMapper modelMapper;
+  private UserDetailsMapperImpl userDetailsMapper;
+  private SavingGoalMapperImpl savingGoalMapper;
+  private SavingChallengeMapperImpl savingChallengeMapper;
+  private TransactionMapperImpl transactionMapper;
+  private TransferMapperImpl transferMapper;
+
+  /** Sets up a user with accounts and badges, a goal with a challenge, and account activity. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    user =
+        UserEntity.builder()
+            .id(1L)
+            .username("john_doe")
+            .email("john@doe.com")
+            .fullName("John Doe")
+            .score(120)
+            .completedChallenges(4)
+            .completedGoals(1)
+            .currentStreak(3)
+            .totalSaved(2500.0)
+            .lastCompletedChallengeDate(LocalDate.now())
+            .build();
+    BankAccountEntity checking =
+        BankAccountEntity.builder().id(1L).name("Checking").sum(5000).userEntity(user).build();
+    BankAccountEntity savings =
+        BankAccountEntity.builder().id(2L).name("Savings").sum(20000).userEntity(user).build();
+    user.setPreferredCheckingAccount(checking);
+    user.setPreferredSavingsAccount(savings);
+
+    List<BadgeProgressEntity> badgeProgress = new ArrayList<>();
+    for (long i = 0; i < 5; i++) {
+      BadgeEntity badge =
+          BadgeEntity.builder().id(i).name("Badge " + i).description("Description").build();
+      List<BadgeTierEntity> tiers = new ArrayList<>();
+      for (int tier = 1; tier <= 3; tier++) {
+        tiers.add(
+            BadgeTierEntity.builder()
+                .id(i * 3 + tier)
+                .tier(tier)
+                .target(tier * 10)
+                .description("Tier " + tier)
+                .badge(badge)
+                .build());
+      }
+      badge.setBadgeTiers(tiers);
+      badgeProgress.add(
+          BadgeProgressEntity.builder()
+              .id(i)
+              .progress(5)
+              .userEntity(user)
+              .badgeEntity(badge)
+              .build());
+    }
+    user.setBadgeProgress(badgeProgress);
+    List<CompletedBadgeEntity> completedBadges = new ArrayList<>();
+    for (long i = 0; i < 3; i++) {
+      completedBadges.add(
+          CompletedBadgeEntity.builder()
+              .id(i)
+              .name("Badge " + i)
+              .description("Description")
+              .tier(1)
+              .build());
+    }
+    user.setCompletedBadges(completedBadges);
+
+    TransactionCategoryEntity category =
+        TransactionCategoryEntity.builder().id(1L).name("Food").build();
+    savingGoal =
+        SavingGoalEntity.builder()
+            .id(1L)
+            .title("New car")
+            .goalSum(10000)
+            .amountSaved(2500)
+            .endingDate(LocalDate.now().plusMonths(6))
+            .state(GoalState.IN_PROGRESS)
+            .userEntity(user)
+            .sourceBankAccount(checking)
+            .destinationBankAccount(savings)
+            .build();
+    savingChallenge =
+        SavingChallengeEntity.builder()
+            .id(1L)
+            .expectedExpense(1000)
+            .spendingGoal(800)
+            .amountSaved(100.0)
+            .startDate(LocalDate.now())
+            .endingDate(LocalDate.now().plusDays(7))
+            .state(ChallengeState.IN_PROGRESS)
+            .savingGoal(savingGoal)
+            .transactionCategory(category)
+            .build();
+    transaction =
+        TransactionEntity.builder()
+            .id(1L)
+            .description("Groceries")
+            .sum(-250)
+            .date(LocalDateTime.now())
+            .bankAccount(checking)
+            .transactionCategoryEntity(category)
+            .build();
+    transfer =
+        TransferEntity.builder()
+            .id(1L)
+            .description("Saving")
+            .sum(100)
+            .date(LocalDateTime.now())
+            .sourceBankAccount(checking)
+            .destinationBankAccount(savings)
+            .build();
+
+    modelMapper = new ModelMapper();
+    modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.LOOSE);
+    modelMapper.map(user, UserDetails.class);
+    modelMapper.map(savingGoal, SavingGoalDtoGeneralResponse.class);
+    modelMapper.map(savingChallenge, SavingChallengeResponseDto.class);
+    modelMapper.map(transaction, TransactionDto.class);
+    modelMapper.map(transfer, TransferDto.class);
+
+    BankAccountMapperImpl bankAccountMapper = new BankAccountMapperImpl();
+    userDetailsMapper =
+        new UserDetailsMapperImpl(
+            bankAccountMapper,
+            new BadgeProgressMapperImpl(new BadgeMapperImpl()),
+            new CompletedBadgeMapperImpl());
+    savingGoalMapper = new SavingGoalMapperImpl(bankAccountMapper);
+    savingChallengeMapper = new SavingChallengeMapperImpl(new TransactionCategoryMapperImpl());
+    transactionMapper = new TransactionMapperImpl();
+    transferMapper = new TransferMapperImpl();
+  }
+
+  /**
+   * Maps the details of a user with the ModelMapper.
+   *
+   * @return The details of the user.
+   */
+  @Benchmark
+  public UserDetails userDetailsModelMapper() {
+    return modelMapper.map(user, UserDetails.class);
+  }
+
+  /**
+   * Maps the details of a user with the hand-written mapper.
+   *
+   * @return The details of the user.
+   */
+  @Benchmark
+  public UserDetails userDetailsMapper() {
+    return userDetailsMapper.mapTo(user);
+  }
+
+  /**
+   * Maps a goal with the ModelMapper.
+   *
+   * @return The goal.
+   */
+  @Benchmark
+  public SavingGoalDtoGeneralResponse savingGoalModelMapper() {
+    return modelMapper.map(savingGoal, SavingGoalDtoGeneralResponse.class);
+  }
+
+  /**
+   * Maps a goal with the hand-written mapper.
+   *
+   * @return The goal.
+   */
+  @Benchmark
+  public SavingGoalDtoGeneralResponse savingGoalMapper() {
+    return savingGoalMapper.mapTo(savingGoal);
+  }
+
+  /**
+   * Maps a challenge with the ModelMapper.
+   *
+   * @return The challenge.
+   */
+  @Benchmark
+  public SavingChallengeResponseDto savingChallengeModelMapper() {
+    return modelMapper.map(savingChallenge, SavingChallengeResponseDto.class);
+  }
+
+  /**
+   * Maps a challenge with the hand-written mapper.
+   *
+   * @return The challenge.
+   */
+  @Benchmark
+  public SavingChallengeResponseDto savingChallengeMapper() {
+    return savingChallengeMapper.mapTo(savingChallenge);
+  }
+
+  /**
+   * Maps a transaction with the ModelMapper.
+   *
+   * @return The transaction.
+   */
+  @Benchmark
+  public TransactionDto transactionModelMapper() {
+    return modelMapper.map(transaction, TransactionDto.class);
+  }
+
+  /**
+   * Maps a transaction with the hand-written mapper.
+   *
+   * @return The transaction.
+   */
+  @Benchmark
+  public TransactionDto transactionMapper() {
+    return transactionMapper.mapTo(transaction);
+  }
+
+  /**
+   * Maps a transfer with the ModelMapper.
+   *
+   * @return The transfer.
+   */
+  @Benchmark
+  public TransferDto transferModelMapper() {
+    return modelMapper.map(transfer, TransferDto.class);
+  }
+
+  /**
+   * Maps a transfer with the hand-written mapper.
+   *
+   * @return The transfer.
+   */
+  @Benchmark
+  public TransferDto transferMapper() {
+    return transferMapper.mapTo(transfer);
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args Not used.
+   * @throws RunnerException If the benchmarks could not be run.
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MapperBenchmark.class.getSimpleName()).build()).run();
+  }
+}
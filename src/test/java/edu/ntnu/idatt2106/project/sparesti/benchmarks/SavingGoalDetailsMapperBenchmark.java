@@ -0,0 +1,146 @@
+package edu.ntnu.idatt2106.project.sparesti.benchmarks;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoDetailsResponse;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.BankAccountMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.SavingChallengeMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.SavingGoalDetailsMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.TransactionCategoryMapperImpl;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the mapping of a saving goal to its detailed view by a new {@link ModelMapper} per call,
+ * as the goal details were mapped before, by one shared {@link ModelMapper}, and by the {@link
+ * SavingGoalDetailsMapperImpl}.
+ *
+ * <p>Run with the main method from the test classpath, for example from the IDE. Add {@code -prof
+ * gc} to the options to compare the allocation per call as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SavingGoalDetailsMapperBenchmark {
+
+  @Param({"1", "10"})
+  private int savingChallenges;
+
+  private SavingGoalEntity savingGoal;
+  private ModelMapper sharedModelMapper;
+  private SavingGoalDetailsMapperImpl savingGoalDetailsMapper;
+
+  /** Sets up a goal with accounts, and challenges in different categories. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    UserEntity user = UserEntity.builder().id(1L).username("john_doe").build();
+    savingGoal =
+        SavingGoalEntity.builder()
+            .id(1L)
+            .title("New car")
+            .goalSum(10000)
+            .amountSaved(2500)
+            .endingDate(LocalDate.now().plusMonths(6))
+            .state(GoalState.IN_PROGRESS)
+            .userEntity(user)
+            .sourceBankAccount(account(1L, "Checking", user))
+            .destinationBankAccount(account(2L, "Savings", user))
+            .build();
+    List<SavingChallengeEntity> challenges = new ArrayList<>();
+    for (long i = 0; i < savingChallenges; i++) {
+      challenges.add(
+          SavingChallengeEntity.builder()
+              .id(i)
+              .expectedExpense(1000)
+              .spendingGoal(800)
+              .amountSaved(100.0)
+              .startDate(LocalDate.now())
+              .endingDate(LocalDate.now().plusDays(7))
+              .state(ChallengeState.IN_PROGRESS)
+              .savingGoal(savingGoal)
+              .transactionCategory(
+                  TransactionCategoryEntity.builder().id(i).name("Category " + i).build())
+              .build());
+    }
+    savingGoal.setSavingChallenges(challenges);
+    sharedModelMapper = new ModelMapper();
+    savingGoalDetailsMapper =
+        new SavingGoalDetailsMapperImpl(
+            new BankAccountMapperImpl(),
+            new SavingChallengeMapperImpl(new TransactionCategoryMapperImpl()));
+  }
+
+  /**
+   * Maps the goal with a new ModelMapper, as it was mapped before.
+   *
+   * @return The detailed view of the goal.
+   */
+  @Benchmark
+  public SavingGoalDtoDetailsResponse newModelMapperPerCall() {
+    return new ModelMapper().map(savingGoal, SavingGoalDtoDetailsResponse.class);
+  }
+
+  /**
+   * Maps the goal with a ModelMapper whose type maps are already built.
+   *
+   * @return The detailed view of the goal.
+   */
+  @Benchmark
+  public SavingGoalDtoDetailsResponse sharedModelMapper() {
+    return sharedModelMapper.map(savingGoal, SavingGoalDtoDetailsResponse.class);
+  }
+
+  /**
+   * Maps the goal with the hand-written mapper.
+   *
+   * @return The detailed view of the goal.
+   */
+  @Benchmark
+  public SavingGoalDtoDetailsResponse savingGoalDetailsMapper() {
+    return savingGoalDetailsMapper.mapTo(savingGoal);
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args Not used.
+   * @throws RunnerException If the benchmarks could not be run.
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(SavingGoalDetailsMapperBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+
+  private static BankAccountEntity account(Long id, String name, UserEntity user) {
+    return BankAccountEntity.builder().id(id).name(name).sum(5000).userEntity(user).build();
+  }
+}
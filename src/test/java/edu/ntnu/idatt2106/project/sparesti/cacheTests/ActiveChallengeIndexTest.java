@@ -0,0 +1,66 @@
+package edu.ntnu.idatt2106.project.sparesti.cacheTests;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.ActiveChallengeIndex;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
+import edu.ntnu.idatt2106.project.sparesti.repositories.SavingChallengeRepository;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link ActiveChallengeIndex}. */
+class ActiveChallengeIndexTest {
+
+  @Mock private SavingChallengeRepository savingChallengeRepository;
+
+  private ActiveChallengeIndex index;
+
+  /** Sets up an index built from challenges 1 and 2 on account 10 and category 20. */
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(savingChallengeRepository.findSpendingKeysByState(ChallengeState.IN_PROGRESS))
+        .thenReturn(List.of(new Object[] {1L, 10L, 20L}, new Object[] {2L, 10L, 20L}));
+    index = new ActiveChallengeIndex(savingChallengeRepository);
+    index.rebuild();
+  }
+
+  /** Tests that adding a challenge under another account moves it there. */
+  @Test
+  void addMovesChallengeToAnotherAccount() {
+    index.add(2L, 11L, 20L);
+
+    assertEquals(List.of(1L), index.find(10L, 20L));
+    assertEquals(List.of(2L), index.find(11L, 20L));
+    assertEquals(2, index.size());
+  }
+
+  /**
+   * Tests that lookups from another thread during a rebuild find the challenges of the previous
+   * build, and that the rebuilt challenges replace them once the rebuild is done.
+   */
+  @Test
+  void lookupsDuringRebuildFindPreviousBuild() throws Exception {
+    when(savingChallengeRepository.findSpendingKeysByState(ChallengeState.IN_PROGRESS))
+        .thenAnswer(
+            invocation -> {
+              List<Long> found =
+                  CompletableFuture.supplyAsync(() -> index.find(10L, 20L))
+                      .get(5, TimeUnit.SECONDS);
+              assertEquals(2, found.size());
+              assertTrue(found.containsAll(List.of(1L, 2L)));
+              return List.<Object[]>of(new Object[] {3L, 10L, 20L});
+            });
+
+    index.rebuild();
+
+    assertEquals(List.of(3L), index.find(10L, 20L));
+    assertEquals(1, index.size());
+  }
+}
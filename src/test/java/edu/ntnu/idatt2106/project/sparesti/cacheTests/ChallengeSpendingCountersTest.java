@@ -0,0 +1,201 @@
+package edu.ntnu.idatt2106.project.sparesti.cacheTests;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.ActiveChallengeIndex;
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
+import edu.ntnu.idatt2106.project.sparesti.cache.SpendingSeeder;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingChallengeEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.SavingGoalEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
+import edu.ntnu.idatt2106.project.sparesti.events.TransactionRecordedEvent;
+import edu.ntnu.idatt2106.project.sparesti.repositories.SavingChallengeRepository;
+import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link ChallengeSpendingCounters}. */
+class ChallengeSpendingCountersTest {
+
+  private static final LocalDate START = LocalDate.of(2024, 4, 1);
+  private static final LocalDate END = LocalDate.of(2024, 4, 30);
+
+  @Mock private BankAccountService bankAccountService;
+
+  @Mock private SavingChallengeRepository savingChallengeRepository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private ChallengeSpendingCounters counters;
+  private SavingChallengeEntity challenge;
+
+  /** Sets up a challenge in progress on account 1 and category 2, with 50 spent so far. */
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ActiveChallengeIndex index = new ActiveChallengeIndex(savingChallengeRepository);
+    index.add(3L, 1L, 2L);
+    counters =
+        new ChallengeSpendingCounters(
+            bankAccountService, index, new SpendingSeeder(transactionManager));
+
+    challenge =
+        SavingChallengeEntity.builder()
+            .id(3L)
+            .state(ChallengeState.IN_PROGRESS)
+            .startDate(START)
+            .endingDate(END)
+            .savingGoal(
+                SavingGoalEntity.builder()
+                    .sourceBankAccount(BankAccountEntity.builder().id(1L).build())
+                    .build())
+            .transactionCategory(TransactionCategoryEntity.builder().id(2L).build())
+            .build();
+    when(bankAccountService.getAmountUsedOnCategoryBetweenDays(1L, 2L, START, END))
+        .thenReturn(50.0);
+  }
+
+  /** Clears any transaction synchronization a test started. */
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    TransactionSynchronizationManager.setActualTransactionActive(false);
+  }
+
+  /**
+   * Tests that the spending is read once in a transaction of its own, both to answer the caller and
+   * to seed the counter, and then answered from memory.
+   */
+  @Test
+  void getSpendingSeedsCounterOnFirstAccess() {
+    assertEquals(50.0, counters.getSpending(challenge));
+    assertEquals(50.0, counters.getSpending(challenge));
+
+    verify(transactionManager, times(1)).getTransaction(any());
+    verify(bankAccountService, times(1))
+        .getAmountUsedOnCategoryBetweenDays(any(), any(), any(), any());
+    CacheStatisticsDto statistics = counters.getStatistics();
+    assertEquals(1, statistics.getSize());
+    assertEquals(1, statistics.getHits());
+    assertEquals(1, statistics.getMisses());
+  }
+
+  /** Tests that recorded expenses are added to the counter, but only within its period. */
+  @Test
+  void recordedExpensesAreAddedWithinPeriod() {
+    counters.getSpending(challenge);
+
+    counters.onTransactionRecorded(
+        new TransactionRecordedEvent(
+            1L, 2L, Map.of(START.plusDays(3), 20.0, END.plusDays(1), 100.0)));
+    counters.onTransactionRecorded(new TransactionRecordedEvent(1L, 5L, Map.of(START, 40.0)));
+
+    assertEquals(70.0, counters.getSpending(challenge));
+  }
+
+  /** Tests that expenses are only added once the transaction recording them commits. */
+  @Test
+  void recordedExpensesAreAddedAfterCommit() {
+    counters.getSpending(challenge);
+    TransactionSynchronizationManager.initSynchronization();
+
+    counters.onTransactionRecorded(new TransactionRecordedEvent(1L, 2L, Map.of(START, 20.0)));
+    assertEquals(50.0, counters.getSpending(challenge));
+
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    synchronizations.forEach(
+        synchronization ->
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    assertEquals(70.0, counters.getSpending(challenge));
+  }
+
+  /** Tests that a counter is not seeded while an expense is being recorded. */
+  @Test
+  void counterIsNotSeededWhileExpenseInFlight() {
+    TransactionSynchronizationManager.initSynchronization();
+    counters.onTransactionRecorded(new TransactionRecordedEvent(1L, 2L, Map.of(START, 20.0)));
+
+    assertEquals(50.0, counters.getSpending(challenge));
+    assertEquals(0, counters.getStatistics().getSize());
+  }
+
+  /**
+   * Tests that a counter is not seeded for a caller within a transaction, which reads the spending
+   * itself without a second transaction.
+   */
+  @Test
+  void counterIsNotSeededWithinTransaction() {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    assertEquals(50.0, counters.getSpending(challenge));
+    assertEquals(0, counters.getStatistics().getSize());
+    verify(transactionManager, times(0)).getTransaction(any());
+  }
+
+  /** Tests that a counter is not seeded if an expense is recorded while it is read. */
+  @Test
+  void counterIsNotSeededIfExpenseRecordedWhileRead() {
+    TransactionSynchronizationManager.initSynchronization();
+    when(bankAccountService.getAmountUsedOnCategoryBetweenDays(1L, 2L, START, END))
+        .thenAnswer(
+            invocation -> {
+              counters.onTransactionRecorded(
+                  new TransactionRecordedEvent(1L, 2L, Map.of(START, 20.0)));
+              return 50.0;
+            });
+
+    counters.getSpending(challenge);
+    assertEquals(0, counters.getStatistics().getSize());
+  }
+
+  /** Tests that expenses in flight on other categories do not prevent seeding. */
+  @Test
+  void counterIsSeededWhileOtherCategoryInFlight() {
+    TransactionSynchronizationManager.initSynchronization();
+    counters.onTransactionRecorded(new TransactionRecordedEvent(1L, 5L, Map.of(START, 20.0)));
+
+    counters.getSpending(challenge);
+    assertEquals(1, counters.getStatistics().getSize());
+  }
+
+  /** Tests that challenges that are no longer in progress are read from the database. */
+  @Test
+  void challengeNotInProgressIsNotKept() {
+    counters.getSpending(challenge);
+    challenge.setState(ChallengeState.FAILED);
+
+    assertEquals(50.0, counters.getSpending(challenge));
+    assertEquals(0, counters.getStatistics().getSize());
+  }
+
+  /** Tests that clearing the counters makes them seed again, and counts as a rebuild. */
+  @Test
+  void clearDropsEveryCounter() {
+    counters.getSpending(challenge);
+    counters.clear();
+    counters.getSpending(challenge);
+
+    verify(bankAccountService, times(2))
+        .getAmountUsedOnCategoryBetweenDays(any(), any(), any(), any());
+    assertEquals(1, counters.getStatistics().getRebuilds());
+  }
+}
@@ -0,0 +1,72 @@
+package edu.ntnu.idatt2106.project.sparesti.cacheTests;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSuggestionCache;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CacheStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Unit tests for {@link ChallengeSuggestionCache}. */
+class ChallengeSuggestionCacheTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 4, 1);
+
+  private ChallengeSuggestionCache cache;
+  private AtomicInteger loads;
+  private Supplier<List<SavingChallengeResponseDto>> loader;
+
+  /** Sets up a cache holding at most two goals, and a loader counting its calls. */
+  @BeforeEach
+  void setUp() {
+    cache = new ChallengeSuggestionCache(2);
+    loads = new AtomicInteger();
+    loader =
+        () -> {
+          loads.incrementAndGet();
+          return List.of(SavingChallengeResponseDto.builder().spendingGoal(100).build());
+        };
+  }
+
+  /** Tests that the suggestions are only loaded again when what they were computed from changes. */
+  @Test
+  void suggestionsAreLoadedAgainWhenTheirInputsChange() {
+    cache.get(1L, 7L, 3, List.of(2L), TODAY, loader);
+    cache.get(1L, 7L, 3, List.of(2L), TODAY, loader);
+    assertEquals(1, loads.get());
+
+    cache.get(1L, 7L, 4, List.of(2L), TODAY, loader);
+    cache.get(1L, 7L, 4, List.of(2L, 5L), TODAY, loader);
+    cache.get(1L, 7L, 4, List.of(2L, 5L), TODAY.plusDays(1), loader);
+    cache.get(1L, 8L, 4, List.of(2L, 5L), TODAY.plusDays(1), loader);
+    assertEquals(5, loads.get());
+
+    CacheStatisticsDto statistics = cache.getStatistics();
+    assertEquals(1, statistics.getHits());
+    assertEquals(5, statistics.getMisses());
+    assertEquals(1 / 6.0, statistics.getHitRatio(), 0.0001);
+  }
+
+  /** Tests that the least recently used goal is evicted when the cache is full. */
+  @Test
+  void leastRecentlyUsedGoalIsEvicted() {
+    cache.get(1L, 7L, 0, List.of(), TODAY, loader);
+    cache.get(2L, 7L, 0, List.of(), TODAY, loader);
+    cache.get(1L, 7L, 0, List.of(), TODAY, loader);
+    cache.get(3L, 7L, 0, List.of(), TODAY, loader);
+    assertEquals(3, loads.get());
+
+    cache.get(1L, 7L, 0, List.of(), TODAY, loader);
+    assertEquals(3, loads.get());
+    cache.get(2L, 7L, 0, List.of(), TODAY, loader);
+    assertEquals(4, loads.get());
+
+    assertEquals(2, cache.getStatistics().getSize());
+    assertEquals(2, cache.getStatistics().getRebuilds());
+  }
+}
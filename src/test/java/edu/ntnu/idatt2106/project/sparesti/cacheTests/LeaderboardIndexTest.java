@@ -0,0 +1,131 @@
+package edu.ntnu.idatt2106.project.sparesti.cacheTests;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.LeaderboardIndex;
+import edu.ntnu.idatt2106.project.sparesti.cache.LeaderboardIndex.Entry;
+import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link LeaderboardIndex}. */
+class LeaderboardIndexTest {
+
+  @Mock private UserRepository userRepository;
+
+  private LeaderboardIndex index;
+
+  /** Sets up an index built from five users, where users 2 and 4 have the same score. */
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(userRepository.findAllScores())
+        .thenReturn(
+            List.of(
+                new Object[] {1L, 10},
+                new Object[] {2L, 50},
+                new Object[] {3L, 30},
+                new Object[] {4L, 50},
+                new Object[] {5L, 0}));
+    index = new LeaderboardIndex(userRepository);
+    index.rebuild();
+  }
+
+  /** Tests that the pages are ordered by score, and by user id among equal scores. */
+  @Test
+  void pagesAreOrderedByScoreAndThenByUserId() {
+    assertEquals(
+        List.of(new Entry(2L, 50, 1), new Entry(4L, 50, 2), new Entry(3L, 30, 3)),
+        index.page(0, 3));
+    assertEquals(List.of(new Entry(1L, 10, 4), new Entry(5L, 0, 5)), index.page(3, 3));
+    assertEquals(List.of(), index.page(6, 3));
+  }
+
+  /** Tests that the users around a user are cut off at the top and bottom of the leaderboard. */
+  @Test
+  void usersAroundAUserAreCutOffAtTheEnds() {
+    assertEquals(
+        List.of(new Entry(4L, 50, 2), new Entry(3L, 30, 3), new Entry(1L, 10, 4)),
+        index.around(3L, 1));
+    assertEquals(List.of(new Entry(2L, 50, 1), new Entry(4L, 50, 2)), index.around(2L, 1));
+    assertEquals(List.of(new Entry(1L, 10, 4), new Entry(5L, 0, 5)), index.around(5L, 1));
+    assertEquals(List.of(), index.around(6L, 1));
+
+    assertEquals(3, index.getStatistics().getHits());
+    assertEquals(1, index.getStatistics().getMisses());
+  }
+
+  /** Tests that an updated user moves to their new rank, and that new users are added. */
+  @Test
+  void updatedUsersMoveToTheirNewRank() {
+    index.update(5L, 40);
+    index.update(6L, 30);
+
+    assertEquals(6, index.size());
+    assertEquals(
+        List.of(
+            new Entry(2L, 50, 1),
+            new Entry(4L, 50, 2),
+            new Entry(5L, 40, 3),
+            new Entry(3L, 30, 4),
+            new Entry(6L, 30, 5),
+            new Entry(1L, 10, 6)),
+        index.page(0, 10));
+  }
+
+  /** Tests that updates made while the scores are read are kept when the index is rebuilt. */
+  @Test
+  void updatesDuringRebuildAreKept() {
+    when(userRepository.findAllScores())
+        .thenAnswer(
+            invocation -> {
+              index.update(1L, 60);
+              index.update(6L, 20);
+              return List.of(new Object[] {1L, 10}, new Object[] {2L, 50});
+            });
+
+    index.rebuild();
+
+    assertEquals(
+        List.of(new Entry(1L, 60, 1), new Entry(2L, 50, 2), new Entry(6L, 20, 3)),
+        index.page(0, 10));
+    index.update(2L, 70);
+    assertEquals(new Entry(2L, 70, 1), index.page(0, 1).get(0));
+  }
+
+  /** Tests that the index agrees with sorting the scores after many random updates. */
+  @Test
+  void indexAgreesWithSortingAfterRandomUpdates() {
+    Random random = new Random(42);
+    Map<Long, Integer> scores = new HashMap<>(Map.of(1L, 10, 2L, 50, 3L, 30, 4L, 50, 5L, 0));
+    for (int i = 0; i < 5000; i++) {
+      long userId = random.nextInt(500);
+      int score = random.nextInt(100);
+      scores.put(userId, score);
+      index.update(userId, score);
+    }
+
+    List<Map.Entry<Long, Integer>> sorted = new ArrayList<>(scores.entrySet());
+    sorted.sort(
+        Comparator.<Map.Entry<Long, Integer>>comparingInt(entry -> -entry.getValue())
+            .thenComparing(Map.Entry::getKey));
+    List<Entry> expected = new ArrayList<>();
+    for (int i = 0; i < sorted.size(); i++) {
+      expected.add(new Entry(sorted.get(i).getKey(), sorted.get(i).getValue(), i + 1));
+    }
+
+    assertEquals(expected, index.page(0, sorted.size()));
+    for (Entry entry : expected) {
+      assertEquals(entry, index.around(entry.userId(), 0).get(0));
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package edu.ntnu.idatt2106.project.sparesti.cacheTests;
+
+import com.zaxxer.hikari.HikariDataSource;
+import edu.ntnu.idatt2106.project.sparesti.cache.SpendingSeeder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Unit tests for {@link SpendingSeeder} against a connection pool. */
+class SpendingSeederTest {
+
+  private static final int THREADS = 8;
+  private static final int SEEDS_PER_THREAD = 20;
+
+  private HikariDataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readOnlyTransaction;
+  private SpendingSeeder spendingSeeder;
+
+  /** Sets up a seeder over a pool of two connections to a table of spending of 50. */
+  @BeforeEach
+  void setUp() {
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl("jdbc:h2:mem:spending-seeder;DB_CLOSE_DELAY=-1");
+    dataSource.setMaximumPoolSize(2);
+    dataSource.setConnectionTimeout(1000);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("create table spending (category_id bigint, spent double)");
+    jdbcTemplate.update("insert into spending values (2, 50)");
+
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    readOnlyTransaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction.setReadOnly(true);
+    spendingSeeder = new SpendingSeeder(transactionManager);
+  }
+
+  /** Drops the table and closes the pool. */
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("drop table spending");
+    dataSource.close();
+  }
+
+  /**
+   * Tests that concurrent seeds, half of them from within a transaction, complete on a pool of two
+   * connections without any of them waiting for a second connection, and that only the seeds from
+   * outside a transaction are stored.
+   */
+  @Test
+  void concurrentSeedsDoNotExhaustSmallPool() throws Exception {
+    Map<Long, Double> stored = new ConcurrentHashMap<>();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      long accountId = thread;
+      boolean withinTransaction = thread % 2 == 0;
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                for (int i = 0; i < SEEDS_PER_THREAD; i++) {
+                  if (withinTransaction) {
+                    readOnlyTransaction.executeWithoutResult(
+                        status -> assertEquals(50.0, seed(accountId, stored)));
+                  } else {
+                    assertEquals(50.0, seed(accountId, stored));
+                  }
+                }
+                return null;
+              }));
+    }
+    start.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    for (Future<?> future : futures) {
+      future.get();
+    }
+
+    for (long accountId = 0; accountId < THREADS; accountId++) {
+      assertEquals(accountId % 2 == 0 ? null : 50.0, stored.get(accountId));
+    }
+  }
+
+  /**
+   * Seeds the spending of an account in category 2, reading it within the transaction of the caller
+   * if the seeder does not read it.
+   */
+  private double seed(long accountId, Map<Long, Double> stored) {
+    Map<Long, Double> values =
+        spendingSeeder.seed(
+            accountId,
+            Collections.singletonList(2L),
+            () -> Collections.singletonMap(2L, readSpending()),
+            (categoryId, spent) -> stored.put(accountId, spent));
+    return values != null ? values.get(2L) : readSpending();
+  }
+
+  private double readSpending() {
+    try {
+      Thread.sleep(5);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return jdbcTemplate.queryForObject(
+        "select spent from spending where category_id = 2", Double.class);
+  }
+}
@@ -0,0 +1,232 @@
+package edu.ntnu.idatt2106.project.sparesti.cacheTests;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.SpendingSeeder;
+import edu.ntnu.idatt2106.project.sparesti.cache.SpendingStatisticsStore;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.SpendingStatisticsDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.DailySpendingEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.DailySpendingId;
+import edu.ntnu.idatt2106.project.sparesti.events.TransactionRecordedEvent;
+import edu.ntnu.idatt2106.project.sparesti.repositories.DailySpendingRepository;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Unit tests for {@link SpendingStatisticsStore}. */
+class SpendingStatisticsStoreTest {
+
+  private static final LocalDate TODAY = LocalDate.now();
+
+  @Mock private DailySpendingRepository dailySpendingRepository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private SpendingStatisticsStore store;
+
+  /** Sets up a store over spending of 10 today, 20 ten days ago and 40 sixty days ago. */
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    store =
+        new SpendingStatisticsStore(
+            dailySpendingRepository, new SpendingSeeder(transactionManager), 100);
+    when(dailySpendingRepository.findByAccountAndCategoriesBetweenDays(
+            anyLong(), any(), any(), any()))
+        .thenReturn(
+            List.of(
+                spending(2L, TODAY, 10),
+                spending(2L, TODAY.minusDays(10), 20),
+                spending(2L, TODAY.minusDays(60), 40)));
+  }
+
+  /** Clears any transaction synchronization a test started. */
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  /**
+   * Tests that the rolling sums are read once, both to answer the caller and to seed the entry, and
+   * then answered from memory.
+   */
+  @Test
+  void rollingSumsAreSeededOnFirstAccess() {
+    SpendingStatisticsDto statistics = store.find(1L, 2L);
+    store.find(1L, 2L);
+
+    assertEquals(10, statistics.getSpentLast7Days(), 0.001);
+    assertEquals(30, statistics.getSpentLast30Days(), 0.001);
+    assertEquals(70, statistics.getSpentLast90Days(), 0.001);
+    verify(dailySpendingRepository, times(1))
+        .findByAccountAndCategoriesBetweenDays(anyLong(), any(), any(), any());
+    assertEquals(1, store.getStatistics().getHits());
+    assertEquals(1, store.getStatistics().getMisses());
+  }
+
+  /**
+   * Tests that every missing category is read and seeded with one query, including those without
+   * rows.
+   */
+  @Test
+  void missingCategoriesAreSeededTogether() {
+    Map<Long, SpendingStatisticsDto> statistics = store.findAll(1L, List.of(2L, 3L));
+
+    assertEquals(30, statistics.get(2L).getSpentLast30Days(), 0.001);
+    assertEquals(0, statistics.get(3L).getSpentLast90Days(), 0.001);
+    verify(dailySpendingRepository, times(1))
+        .findByAccountAndCategoriesBetweenDays(anyLong(), any(), any(), any());
+    assertEquals(2, store.getStatistics().getSize());
+  }
+
+  /** Tests that only the categories without expenses in flight are stored. */
+  @Test
+  void onlyQuietCategoriesAreStored() {
+    TransactionSynchronizationManager.initSynchronization();
+    store.onTransactionRecorded(new TransactionRecordedEvent(1L, 2L, Map.of(TODAY, 5.0)));
+
+    store.findAll(1L, List.of(2L, 3L));
+    store.find(1L, 3L);
+
+    assertEquals(1, store.getStatistics().getSize());
+    assertEquals(1, store.getStatistics().getHits());
+  }
+
+  /** Tests that an expense is only added once the transaction that recorded it commits. */
+  @Test
+  void expenseIsAddedAfterCommit() {
+    store.find(1L, 2L);
+
+    TransactionSynchronizationManager.initSynchronization();
+    store.onTransactionRecorded(new TransactionRecordedEvent(1L, 2L, Map.of(TODAY, 5.0)));
+    assertEquals(10, store.find(1L, 2L).getSpentLast7Days(), 0.001);
+    completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+    assertEquals(15, store.find(1L, 2L).getSpentLast7Days(), 0.001);
+
+    TransactionSynchronizationManager.initSynchronization();
+    store.onTransactionRecorded(new TransactionRecordedEvent(1L, 2L, Map.of(TODAY, 5.0)));
+    completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+    assertEquals(15, store.find(1L, 2L).getSpentLast7Days(), 0.001);
+  }
+
+  /** Tests that statistics read while an expense is in flight are not stored. */
+  @Test
+  void statisticsAreNotStoredWhileExpensesAreInFlight() {
+    TransactionSynchronizationManager.initSynchronization();
+    store.onTransactionRecorded(new TransactionRecordedEvent(1L, 2L, Map.of(TODAY, 5.0)));
+
+    assertEquals(30, store.find(1L, 2L).getSpentLast30Days(), 0.001);
+    store.find(1L, 2L);
+
+    verify(dailySpendingRepository, times(2))
+        .findByAccountAndCategoriesBetweenDays(anyLong(), any(), any(), any());
+    assertEquals(0, store.getStatistics().getSize());
+  }
+
+  /** Tests that each rolling sum covers exactly its number of days, today included. */
+  @Test
+  void rollingSumsCoverExactlyTheirDays() {
+    when(dailySpendingRepository.findByAccountAndCategoriesBetweenDays(
+            anyLong(), any(), any(), any()))
+        .thenReturn(
+            List.of(
+                spending(4L, TODAY.minusDays(6), 1),
+                spending(4L, TODAY.minusDays(7), 2),
+                spending(4L, TODAY.minusDays(29), 4),
+                spending(4L, TODAY.minusDays(30), 8),
+                spending(4L, TODAY.minusDays(89), 16),
+                spending(4L, TODAY.minusDays(90), 32)));
+
+    SpendingStatisticsDto statistics = store.find(1L, 4L);
+
+    assertEquals(1, statistics.getSpentLast7Days(), 0.001);
+    assertEquals(7, statistics.getSpentLast30Days(), 0.001);
+    assertEquals(31, statistics.getSpentLast90Days(), 0.001);
+  }
+
+  /** Tests the weekly average, median and 90th percentile of full weeks of spending. */
+  @Test
+  void weeklyFiguresFollowTheFullWeeks() {
+    LocalDate lastMonday = TODAY.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    List<DailySpendingEntity> rows = new ArrayList<>();
+    for (int week = 1; week <= 12; week++) {
+      rows.add(spending(4L, lastMonday.minusWeeks(week), week == 1 ? 200 : 100));
+    }
+    when(dailySpendingRepository.findByAccountAndCategoriesBetweenDays(
+            anyLong(), any(), any(), any()))
+        .thenReturn(rows);
+
+    SpendingStatisticsDto statistics = store.find(1L, 4L);
+
+    assertEquals(12, statistics.getWeeksCounted());
+    assertEquals(130, statistics.getWeeklyAverage(), 0.001);
+    assertEquals(100, statistics.getWeeklyMedian(), 5);
+    assertEquals(100, statistics.getWeeklyNinetiethPercentile(), 5);
+  }
+
+  /** Tests that the least recently used entry is evicted when the store is full. */
+  @Test
+  void leastRecentlyUsedEntryIsEvictedWhenFull() {
+    store =
+        new SpendingStatisticsStore(
+            dailySpendingRepository, new SpendingSeeder(transactionManager), 2);
+    when(dailySpendingRepository.findByAccountAndCategoriesBetweenDays(
+            anyLong(), any(), any(), any()))
+        .thenReturn(List.of());
+    store.find(1L, 2L);
+    store.find(1L, 3L);
+    store.find(1L, 2L);
+    store.find(1L, 4L);
+
+    assertEquals(2, store.getStatistics().getSize());
+    assertEquals(1, store.getStatistics().getRebuilds());
+    long hits = store.getStatistics().getHits();
+    store.find(1L, 2L);
+    store.find(1L, 3L);
+    assertEquals(hits + 1, store.getStatistics().getHits());
+  }
+
+  /** Tests that clearing the store seeds it again from the rollup. */
+  @Test
+  void clearSeedsAgain() {
+    store.find(1L, 2L);
+    store.clear();
+    store.find(1L, 2L);
+
+    verify(dailySpendingRepository, times(2))
+        .findByAccountAndCategoriesBetweenDays(anyLong(), any(), any(), any());
+    assertEquals(1, store.getStatistics().getRebuilds());
+  }
+
+  private static void completeTransaction(int status) {
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+  }
+
+  private static DailySpendingEntity spending(Long categoryId, LocalDate day, double spent) {
+    DailySpendingEntity row = new DailySpendingEntity();
+    row.setId(new DailySpendingId(1L, categoryId, day));
+    row.setSpent(spent);
+    return row;
+  }
+}
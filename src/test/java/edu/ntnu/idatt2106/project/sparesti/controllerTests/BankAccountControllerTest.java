@@ -2,16 +2,23 @@ package edu.ntnu.idatt2106.project.sparesti.controllerTests;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ntnu.idatt2106.project.sparesti.controllers.BankAccountController;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchErrorDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchResultDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchRowDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.ProjectedDailyExpenseDto;
 import edu.ntnu.idatt2106.project.sparesti.security.UserInfoFromTokenService;
 import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
+import edu.ntnu.idatt2106.project.sparesti.services.IdempotencyService;
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.Iterator;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -44,13 +51,20 @@ public class BankAccountControllerTest {
       userInfoFromTokenService; // Mock of the UserInfoFromTokenService for user authentication
   // simulation.
 
+  @Mock
+  private IdempotencyService
+      idempotencyService; // Mock of the IdempotencyService, running every request once.
+
   @InjectMocks
   private BankAccountController
       bankAccountController; // The controller under test with injected mocks.
 
   private MockMvc mockMvc; // Entry point for server-side Spring MVC test support.
+
+  @Spy
   private ObjectMapper objectMapper =
-      new ObjectMapper(); // Utility for converting objects to JSON strings.
+      new ObjectMapper()
+          .findAndRegisterModules(); // Utility for converting objects to JSON strings.
 
   /**
    * Setup method to initialize the mockMvc object with the BankAccountController and configure
@@ -62,6 +76,8 @@ public class BankAccountControllerTest {
     when(userInfoFromTokenService.validateUserAuthorization(
             any(HttpServletRequest.class), anyString()))
         .thenReturn(true);
+    when(idempotencyService.execute(any(), any(), any(), any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
   }
 
   /**
@@ -75,6 +91,8 @@ public class BankAccountControllerTest {
   public void testAddTransactionToAccount() throws Exception {
     TransactionDto transactionDto = new TransactionDto(); // Example data for the transaction.
     Long accountId = 1L;
+    when(userInfoFromTokenService.getSubFromAccessToken(any(HttpServletRequest.class)))
+        .thenReturn("subject-1");
 
     mockMvc
         .perform(
@@ -86,6 +104,8 @@ public class BankAccountControllerTest {
 
     verify(bankAccountService, times(1))
         .addTransactionToAccount(eq(accountId), any(TransactionDto.class));
+    verify(idempotencyService)
+        .execute(eq("subjects/subject-1/accounts/1/transactions"), any(), any(), any(), any());
   }
 
   /**
@@ -127,4 +147,86 @@ public class BankAccountControllerTest {
     verify(bankAccountService, times(1)).getAverageExpenditureOnCategory(accountId, categoryId, 1);
     verify(bankAccountService, times(1)).convertToProjectedExpenseDto(150.00);
   }
+
+  /**
+   * Test the addition of a batch of transactions as newline-delimited JSON. Checks that every line
+   * is passed on to the service as its own row, and that a malformed line is reported as a row
+   * error instead of failing the request.
+   *
+   * @throws Exception if there's an issue with the mock MVC operations.
+   */
+  @Test
+  public void testAddTransactionBatchAsNdjson() throws Exception {
+    Long accountId = 1L;
+    when(bankAccountService.addTransactionBatchToAccount(eq(accountId), any()))
+        .thenAnswer(invocation -> summarizeRows(invocation.getArgument(1)));
+
+    String body =
+        "{\"sum\": -100.0, \"date\": \"2024-04-01T12:00:00\", \"categoryEntityId\": 1}\n"
+            + "\n"
+            + "{\"sum\": \"not a number\"}\n"
+            + "{\"sum\": 50.0, \"date\": \"2024-04-02T12:00:00\", \"categoryEntityId\": 1}\n";
+
+    mockMvc
+        .perform(
+            post("/api/secure/accounts/{accountId}/transactions/batch", accountId)
+                .contentType("application/x-ndjson")
+                .content(body))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.received").value(3))
+        .andExpect(jsonPath("$.accepted").value(2))
+        .andExpect(jsonPath("$.balanceChange").value(-50.0))
+        .andExpect(jsonPath("$.errors[0].index").value(1));
+  }
+
+  /**
+   * Test the addition of a batch of transactions as a JSON array. Checks that an element that is
+   * not an object is reported as a row error while the rest of the array is still read.
+   *
+   * @throws Exception if there's an issue with the mock MVC operations.
+   */
+  @Test
+  public void testAddTransactionBatchAsJsonArray() throws Exception {
+    Long accountId = 1L;
+    when(bankAccountService.addTransactionBatchToAccount(eq(accountId), any()))
+        .thenAnswer(invocation -> summarizeRows(invocation.getArgument(1)));
+
+    String body =
+        " [{\"sum\": -20.0, \"date\": \"2024-04-01T12:00:00\", \"categoryEntityId\": 1},"
+            + " 42,"
+            + " {\"sum\": -30.0, \"date\": \"2024-04-01T13:00:00\", \"categoryEntityId\": 2}]";
+
+    mockMvc
+        .perform(
+            post("/api/secure/accounts/{accountId}/transactions/batch", accountId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.received").value(3))
+        .andExpect(jsonPath("$.accepted").value(2))
+        .andExpect(jsonPath("$.balanceChange").value(-50.0))
+        .andExpect(jsonPath("$.errors[0].index").value(1));
+  }
+
+  /**
+   * Stands in for the service by reading every row of a batch, accepting the rows that could be
+   * read.
+   *
+   * @param rows The rows of the batch.
+   * @return A summary of the rows.
+   */
+  private TransactionBatchResultDto summarizeRows(Iterator<TransactionBatchRowDto> rows) {
+    TransactionBatchResultDto result = new TransactionBatchResultDto();
+    while (rows.hasNext()) {
+      TransactionBatchRowDto row = rows.next();
+      result.setReceived(result.getReceived() + 1);
+      if (row.getError() != null) {
+        result.getErrors().add(new TransactionBatchErrorDto(row.getIndex(), row.getError()));
+      } else {
+        result.setAccepted(result.getAccepted() + 1);
+        result.setBalanceChange(result.getBalanceChange() + row.getTransaction().getSum());
+      }
+    }
+    return result;
+  }
 }
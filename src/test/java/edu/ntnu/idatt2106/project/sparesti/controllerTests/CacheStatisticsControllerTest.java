@@ -0,0 +1,30 @@
+package edu.ntnu.idatt2106.project.sparesti.controllerTests;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/** Tests the CacheStatisticsController. */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class CacheStatisticsControllerTest {
+  @Autowired private MockMvc mockMvc;
+
+  /** Tests that the statistics of every in-memory cache are returned. */
+  @Test
+  void getCacheStatistics() throws Exception {
+    mockMvc
+        .perform(get("/api/secure/cache-statistics"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.name == 'challenge-spending')]").exists())
+        .andExpect(jsonPath("$[?(@.name == 'active-challenges')].rebuilds").value(1));
+  }
+}
@@ -104,6 +104,30 @@ class SavingChallengeControllerTest {
     verify(savingChallengeService).createSavingChallenge(requestDto, 1L);
   }
 
+  @Test
+  void createSavingChallengesValidInputReturnsCreated() throws Exception {
+    List<SavingChallengeRequestDto> requestDtos =
+        List.of(new SavingChallengeRequestDto(), new SavingChallengeRequestDto());
+    SavingChallengeResponseDto firstResponseDto = new SavingChallengeResponseDto();
+    firstResponseDto.setId(1L);
+    SavingChallengeResponseDto secondResponseDto = new SavingChallengeResponseDto();
+    secondResponseDto.setId(2L);
+
+    given(savingChallengeService.createSavingChallenges(anyList(), eq(1L)))
+        .willReturn(List.of(firstResponseDto, secondResponseDto));
+
+    mockMvc
+        .perform(
+            post("/api/secure/users/1/goals/1/challenges/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestDtos)))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$[0].id").value(1))
+        .andExpect(jsonPath("$[1].id").value(2));
+
+    verify(savingChallengeService).createSavingChallenges(requestDtos, 1L);
+  }
+
   @Test
   void getEverySavingChallengeFromUserEntity() throws Exception {
     // Asserts test response
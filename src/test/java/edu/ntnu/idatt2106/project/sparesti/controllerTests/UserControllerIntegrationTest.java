@@ -26,6 +26,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
@@ -86,6 +87,30 @@ class UserControllerIntegrationTest {
         .andExpect(jsonPath("$.username").value("testUsername"));
   }
 
+  /**
+   * Tests that the login is recorded for the user of the access token, not for the email in the
+   * body.
+   *
+   * @throws Exception if objectMapper cannot write the userDto as text.
+   */
+  @Test
+  void saveUserRecordsLoginOfTokenSubject() throws Exception {
+    UserDto userDto =
+        UserDto.builder().username("otherUser").email("other@mail.com").fullName("other").build();
+    given(userInfoFromTokenService.getSubFromAccessToken(any(HttpServletRequest.class)))
+        .willReturn("caller-sub");
+    given(userService.createUserWithDefaultBankAccounts(any(UserDto.class))).willReturn(userDto);
+
+    mockMvc
+        .perform(
+            post("/api/secure/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+        .andExpect(status().isCreated());
+
+    verify(userService).recordLogin("caller-sub");
+  }
+
   /**
    * Sjekker at en respons med statuskode 4xx gis når UserDto gis med en epost som allerede er
    * registrert.
@@ -219,4 +244,24 @@ class UserControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(editingData)))
         .andExpect(status().isOk());
   }
+
+  /**
+   * Tests that the whole leaderboard is returned without page and size, and a page of 10 with only
+   * the page.
+   *
+   * @throws Exception if the request cannot be performed.
+   */
+  @Test
+  void leaderboardIsUnpagedWithoutPageAndSize() throws Exception {
+    given(userService.getGlobalLeaderboard()).willReturn(List.of());
+    given(userService.getGlobalLeaderboard(1, 10)).willReturn(List.of());
+
+    mockMvc.perform(get("/api/secure/users/leaderboard")).andExpect(status().isOk());
+    verify(userService).getGlobalLeaderboard();
+
+    mockMvc
+        .perform(get("/api/secure/users/leaderboard").param("page", "1"))
+        .andExpect(status().isOk());
+    verify(userService).getGlobalLeaderboard(1, 10);
+  }
 }
@@ -0,0 +1,262 @@
+package edu.ntnu.idatt2106.project.sparesti.jobTests;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobCheckpointEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobLeaseEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.JobRunEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.JobRunStatus;
+import edu.ntnu.idatt2106.project.sparesti.jobs.BatchJob;
+import edu.ntnu.idatt2106.project.sparesti.jobs.BatchJobRunner;
+import edu.ntnu.idatt2106.project.sparesti.repositories.JobCheckpointRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.JobLeaseRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.JobRunRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BatchJobRunner}, using a job over the keys 1 to 1000 that only records which
+ * keys it processed. The tests are not transactional, as the runner commits each chunk in its own
+ * transaction, so the runs and checkpoints they create are removed after each test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchJobRunnerTest {
+
+  private static final long ROWS = 1000;
+
+  @Autowired private BatchJobRunner batchJobRunner;
+
+  @Autowired private JobRunRepository jobRunRepository;
+
+  @Autowired private JobCheckpointRepository jobCheckpointRepository;
+
+  @Autowired private JobLeaseRepository jobLeaseRepository;
+
+  /** Removes the data committed by the test. */
+  @AfterEach
+  public void tearDown() {
+    jobRunRepository.deleteAll();
+    jobCheckpointRepository.deleteAll();
+    jobLeaseRepository.deleteAll();
+  }
+
+  /** Tests that every row is processed once, with chunks processed in parallel. */
+  @Test
+  public void runProcessesEveryRowInParallel() {
+    TestJob job = new TestJob(ROWS, Set.of(), Long.MAX_VALUE);
+
+    JobRunEntity run = batchJobRunner.run(job);
+
+    assertEquals(JobRunStatus.COMPLETED, run.getStatus());
+    assertEquals(ROWS, run.getRowsProcessed());
+    assertEquals(0, run.getFailures());
+    assertNotNull(run.getDurationMillis());
+    assertEquals(ROWS, job.processed.size());
+    assertTrue(job.maxConcurrentChunks.get() > 1);
+    assertTrue(job.maxConcurrentChunks.get() <= 4);
+    assertFalse(jobCheckpointRepository.existsById(job.getName()));
+    assertEquals(1, jobRunRepository.findByJobNameOrderByStartedAtDesc(job.getName()).size());
+  }
+
+  /** Tests that a failing row is counted as a failure without stopping the rest of its chunk. */
+  @Test
+  public void runCountsFailedRows() {
+    TestJob job = new TestJob(ROWS, Set.of(250L), Long.MAX_VALUE);
+
+    JobRunEntity run = batchJobRunner.run(job);
+
+    assertEquals(JobRunStatus.COMPLETED, run.getStatus());
+    assertEquals(ROWS, run.getRowsProcessed());
+    assertEquals(1, run.getFailures());
+    assertEquals(ROWS - 1, job.processed.size());
+    assertFalse(job.processed.contains(250L));
+  }
+
+  /** Tests that a job that stops halfway keeps its checkpoint, and continues from it. */
+  @Test
+  public void runResumesAfterCheckpoint() {
+    TestJob failingJob = new TestJob(ROWS, Set.of(), 300);
+
+    JobRunEntity failedRun = batchJobRunner.run(failingJob);
+
+    assertEquals(JobRunStatus.FAILED, failedRun.getStatus());
+    assertEquals(300, failedRun.getRowsProcessed());
+    assertEquals(300, jobCheckpointRepository.findById(failingJob.getName()).get().getLastKey());
+
+    TestJob job = new TestJob(ROWS, Set.of(), Long.MAX_VALUE);
+    JobRunEntity run = batchJobRunner.run(job);
+
+    assertEquals(JobRunStatus.COMPLETED, run.getStatus());
+    assertEquals(ROWS - 300, run.getRowsProcessed());
+    assertFalse(job.processed.contains(300L));
+    assertTrue(job.processed.contains(301L));
+    assertFalse(jobCheckpointRepository.existsById(job.getName()));
+  }
+
+  /**
+   * Tests that an error while processing a chunk, which is not a failure of its rows, stops the job
+   * and marks the run as FAILED, keeping the checkpoint before the chunk.
+   */
+  @Test
+  public void runFailsOnErrorInChunk() {
+    TestJob crashingJob = new TestJob(ROWS, Set.of(), Long.MAX_VALUE, 550L);
+
+    JobRunEntity failedRun = batchJobRunner.run(crashingJob);
+
+    assertEquals(JobRunStatus.FAILED, failedRun.getStatus());
+    assertFalse(crashingJob.processed.contains(550L));
+    long checkpoint = jobCheckpointRepository.findById(crashingJob.getName()).get().getLastKey();
+    assertTrue(checkpoint < 550);
+    assertTrue(LongStream.rangeClosed(1, checkpoint).allMatch(crashingJob.processed::contains));
+  }
+
+  /** Tests that runs left RUNNING by a restart are marked as INTERRUPTED on startup. */
+  @Test
+  public void resumeInterruptedJobsMarksRunningRuns() {
+    JobRunEntity run =
+        jobRunRepository.save(
+            JobRunEntity.builder()
+                .jobName("test")
+                .startedAt(LocalDateTime.now())
+                .status(JobRunStatus.RUNNING)
+                .build());
+
+    batchJobRunner.resumeInterruptedJobs();
+
+    assertEquals(
+        JobRunStatus.INTERRUPTED, jobRunRepository.findById(run.getId()).get().getStatus());
+  }
+
+  /**
+   * Tests that a job is not run while another instance holds a live lease on it, and that the lease
+   * can be claimed once its heartbeat is stale.
+   */
+  @Test
+  public void runClaimsLeaseOnlyOnceStale() {
+    jobLeaseRepository.save(
+        JobLeaseEntity.builder()
+            .jobName("test")
+            .owner("other-instance")
+            .heartbeatAt(LocalDateTime.now())
+            .build());
+    TestJob job = new TestJob(ROWS, Set.of(), Long.MAX_VALUE);
+
+    assertNull(batchJobRunner.run(job));
+    assertTrue(job.processed.isEmpty());
+
+    jobLeaseRepository.save(
+        JobLeaseEntity.builder()
+            .jobName("test")
+            .owner("other-instance")
+            .heartbeatAt(LocalDateTime.now().minusHours(1))
+            .build());
+    JobRunEntity run = batchJobRunner.run(job);
+
+    assertEquals(JobRunStatus.COMPLETED, run.getStatus());
+    assertEquals(ROWS, job.processed.size());
+    assertNull(jobLeaseRepository.findById("test").get().getOwner());
+  }
+
+  /** Tests that runs of an instance that still holds a live lease are not marked on startup. */
+  @Test
+  public void resumeInterruptedJobsLeavesRunsOfLiveInstances() {
+    jobLeaseRepository.save(
+        JobLeaseEntity.builder()
+            .jobName("test")
+            .owner("live-instance")
+            .heartbeatAt(LocalDateTime.now())
+            .build());
+    JobRunEntity liveRun =
+        jobRunRepository.save(
+            JobRunEntity.builder()
+                .jobName("test")
+                .owner("live-instance")
+                .startedAt(LocalDateTime.now())
+                .status(JobRunStatus.RUNNING)
+                .build());
+    JobRunEntity staleRun =
+        jobRunRepository.save(
+            JobRunEntity.builder()
+                .jobName("test")
+                .owner("stopped-instance")
+                .startedAt(LocalDateTime.now())
+                .status(JobRunStatus.RUNNING)
+                .build());
+
+    batchJobRunner.resumeInterruptedJobs();
+
+    assertEquals(
+        JobRunStatus.RUNNING, jobRunRepository.findById(liveRun.getId()).get().getStatus());
+    assertEquals(
+        JobRunStatus.INTERRUPTED, jobRunRepository.findById(staleRun.getId()).get().getStatus());
+  }
+
+  /**
+   * Job over the keys 1 to a given number, recording the keys it processed and how many chunks it
+   * processed at once.
+   */
+  private static class TestJob implements BatchJob {
+
+    private final long rows;
+    private final Set<Long> failingKeys;
+    private final long failReadingAfter;
+    private final long crashingKey;
+    private final Set<Long> processed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger concurrentChunks = new AtomicInteger();
+    private final AtomicInteger maxConcurrentChunks = new AtomicInteger();
+
+    TestJob(long rows, Set<Long> failingKeys, long failReadingAfter) {
+      this(rows, failingKeys, failReadingAfter, -1);
+    }
+
+    TestJob(long rows, Set<Long> failingKeys, long failReadingAfter, long crashingKey) {
+      this.rows = rows;
+      this.failingKeys = failingKeys;
+      this.failReadingAfter = failReadingAfter;
+      this.crashingKey = crashingKey;
+    }
+
+    @Override
+    public String getName() {
+      return "test";
+    }
+
+    @Override
+    public List<Long> readChunk(long afterKey, int limit) {
+      if (afterKey >= failReadingAfter) {
+        throw new IllegalStateException("Reading failed.");
+      }
+      return LongStream.rangeClosed(afterKey + 1, Math.min(afterKey + limit, rows))
+          .boxed()
+          .toList();
+    }
+
+    @Override
+    public void processChunk(List<Long> keys) {
+      maxConcurrentChunks.accumulateAndGet(concurrentChunks.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      concurrentChunks.decrementAndGet();
+      if (keys.contains(crashingKey)) {
+        throw new AssertionError("Processing crashed.");
+      }
+      if (keys.stream().anyMatch(failingKeys::contains)) {
+        throw new IllegalStateException("Processing failed.");
+      }
+      processed.addAll(keys);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package edu.ntnu.idatt2106.project.sparesti.repositoryTests;
 
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CategorySpendingDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionEntity;
@@ -161,4 +162,100 @@ public class TransactionRepositoryTests {
             bankAccount.getId(), invalidCategoryId);
     assertThat(found).isEmpty();
   }
+
+  /**
+   * Tests the aggregate sum of expenses for a bank account, category and date range. Expected to
+   * only include negative transactions that meet all specified criteria.
+   */
+  @Test
+  public void sumExpensesInAccountByCategoryAndDate() {
+    bankAccount.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory1)
+            .sum(-100)
+            .date(startDate.plusDays(1))
+            .build());
+    bankAccount.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory1)
+            .sum(-50)
+            .date(startDate.plusDays(2))
+            .build());
+    bankAccount.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory1)
+            .sum(200)
+            .date(startDate.plusDays(3))
+            .build());
+    bankAccount.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory1)
+            .sum(-75)
+            .date(endDate.plusDays(1))
+            .build());
+    entityManager.flush();
+
+    double sum =
+        transactionRepository.sumExpensesByAccountAndCategoryBetweenDate(
+            bankAccount.getId(), transactionCategory1.getId(), startDate, endDate);
+    assertThat(sum).isEqualTo(-150.0);
+  }
+
+  /**
+   * Tests the aggregate sum of expenses when no transactions match. Expected to be 0 rather than
+   * null.
+   */
+  @Test
+  public void sumExpensesWithNoMatchingTransactions() {
+    double sum =
+        transactionRepository.sumExpensesByAccountAndCategoryBetweenDate(
+            bankAccount.getId(), 999L, startDate, endDate);
+    assertThat(sum).isEqualTo(0.0);
+  }
+
+  /**
+   * Tests the aggregate sums of expenses grouped per category. Expected to find one total for each
+   * category with expenses in the date range.
+   */
+  @Test
+  public void sumExpensesInAccountPerCategoryAndDate() {
+    bankAccount.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory1)
+            .sum(-100)
+            .date(startDate.plusDays(1))
+            .build());
+    bankAccount.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory1)
+            .sum(-50)
+            .date(startDate.plusDays(2))
+            .build());
+    bankAccount.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory2)
+            .sum(-25)
+            .date(startDate.plusDays(2))
+            .build());
+    entityManager.flush();
+
+    List<CategorySpendingDto> found =
+        transactionRepository.sumExpensesByAccountPerCategoryBetweenDate(
+            bankAccount.getId(),
+            List.of(transactionCategory1.getId(), transactionCategory2.getId()),
+            startDate,
+            endDate);
+
+    assertThat(found).hasSize(2);
+    assertThat(found)
+        .anyMatch(
+            spending ->
+                spending.getCategoryId().equals(transactionCategory1.getId())
+                    && spending.getTotalSpent() == -150.0);
+    assertThat(found)
+        .anyMatch(
+            spending ->
+                spending.getCategoryId().equals(transactionCategory2.getId())
+                    && spending.getTotalSpent() == -25.0);
+  }
 }
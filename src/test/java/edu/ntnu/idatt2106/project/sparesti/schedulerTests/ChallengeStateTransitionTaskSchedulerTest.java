@@ -0,0 +1,61 @@
+package edu.ntnu.idatt2106.project.sparesti.schedulerTests;
+
+import edu.ntnu.idatt2106.project.sparesti.events.ChallengeStateTransitionQueue;
+import edu.ntnu.idatt2106.project.sparesti.schedulers.ChallengeStateTransitionTaskScheduler;
+import edu.ntnu.idatt2106.project.sparesti.services.SavingChallengeService;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/** Tests the ChallengeStateTransitionTaskScheduler. */
+public class ChallengeStateTransitionTaskSchedulerTest {
+
+  private final SavingChallengeService savingChallengeService =
+      Mockito.mock(SavingChallengeService.class);
+
+  private final ChallengeStateTransitionQueue queue = new ChallengeStateTransitionQueue();
+
+  private final ChallengeStateTransitionTaskScheduler taskScheduler =
+      new ChallengeStateTransitionTaskScheduler(queue, savingChallengeService, 2);
+
+  /** Test method that verifies that the queued challenges are settled once each, in batches. */
+  @Test
+  public void testDrainStateTransitions() {
+    queue.offer(1L);
+    queue.offer(2L);
+    queue.offer(1L);
+    queue.offer(3L);
+    assertEquals(3, queue.size());
+
+    taskScheduler.drainStateTransitions();
+
+    verify(savingChallengeService).updateSavingChallengeStates(List.of(1L, 2L));
+    verify(savingChallengeService).updateSavingChallengeStates(List.of(3L));
+    verifyNoMoreInteractions(savingChallengeService);
+    assertEquals(0, queue.size());
+  }
+
+  /**
+   * Test method that verifies that a batch that fails to settle does not stop the other batches,
+   * and that its challenges are queued again.
+   */
+  @Test
+  public void testFailedBatchIsQueuedAgain() {
+    queue.offer(1L);
+    queue.offer(2L);
+    queue.offer(3L);
+    doThrow(new IllegalStateException("Deadlock"))
+        .when(savingChallengeService)
+        .updateSavingChallengeStates(List.of(1L, 2L));
+
+    taskScheduler.drainStateTransitions();
+
+    verify(savingChallengeService).updateSavingChallengeStates(List.of(3L));
+    assertEquals(List.of(1L, 2L), queue.drain(2));
+  }
+}
@@ -0,0 +1,36 @@
+package edu.ntnu.idatt2106.project.sparesti.schedulerTests;
+
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
+import edu.ntnu.idatt2106.project.sparesti.schedulers.DailySpendingTaskScheduler;
+import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.mockito.Mockito.verify;
+
+/** Tests the DailySpendingTaskScheduler. */
+@SpringBootTest
+@ActiveProfiles("test")
+public class DailySpendingTaskSchedulerTest {
+
+  @Mock private BankAccountService bankAccountService;
+
+  @Mock private ChallengeSpendingCounters challengeSpendingCounters;
+
+  @InjectMocks private DailySpendingTaskScheduler taskScheduler;
+
+  /**
+   * Test method that verifies that rebuildDailySpending is run, and the running spending of the
+   * challenges cleared, when the scheduler rebuilds the daily spending rollup.
+   */
+  @Test
+  public void testRebuildDailySpending() {
+    taskScheduler.rebuildDailySpending();
+
+    verify(bankAccountService).rebuildDailySpending();
+    verify(challengeSpendingCounters).clear();
+  }
+}
@@ -0,0 +1,29 @@
+package edu.ntnu.idatt2106.project.sparesti.schedulerTests;
+
+import edu.ntnu.idatt2106.project.sparesti.schedulers.IdempotencyKeyTaskScheduler;
+import edu.ntnu.idatt2106.project.sparesti.services.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.mockito.Mockito.verify;
+
+/** Tests the IdempotencyKeyTaskScheduler. */
+@SpringBootTest
+@ActiveProfiles("test")
+public class IdempotencyKeyTaskSchedulerTest {
+
+  @Mock private IdempotencyService idempotencyService;
+
+  @InjectMocks private IdempotencyKeyTaskScheduler taskScheduler;
+
+  /** Test method that verifies that the scheduler purges the expired idempotency keys. */
+  @Test
+  public void testPurgeExpiredKeys() {
+    taskScheduler.purgeExpiredKeys();
+
+    verify(idempotencyService).purgeExpiredKeys();
+  }
+}
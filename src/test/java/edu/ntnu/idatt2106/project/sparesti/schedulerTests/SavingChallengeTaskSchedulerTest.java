@@ -1,7 +1,10 @@
 package edu.ntnu.idatt2106.project.sparesti.schedulerTests;
 
+import edu.ntnu.idatt2106.project.sparesti.cache.ActiveChallengeIndex;
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
+import edu.ntnu.idatt2106.project.sparesti.jobs.BatchJobRunner;
+import edu.ntnu.idatt2106.project.sparesti.jobs.SavingChallengeStateJob;
 import edu.ntnu.idatt2106.project.sparesti.schedulers.SavingChallengeTaskScheduler;
-import edu.ntnu.idatt2106.project.sparesti.services.SavingChallengeService;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -17,18 +20,26 @@ import static org.mockito.Mockito.verify;
 @ActiveProfiles("test")
 public class SavingChallengeTaskSchedulerTest {
 
-  @Mock private SavingChallengeService savingChallengeService;
+  @Mock private BatchJobRunner batchJobRunner;
+
+  @Mock private SavingChallengeStateJob savingChallengeStateJob;
+
+  @Mock private ActiveChallengeIndex activeChallengeIndex;
+
+  @Mock private ChallengeSpendingCounters challengeSpendingCounters;
 
   @InjectMocks private SavingChallengeTaskScheduler scheduler;
 
   /**
-   * Test method that verifies that updateAllSavingChallengeStates is run when the scheduler tries
-   * to update the saving challenges state.
+   * Test method that verifies that the SavingChallengeStateJob is run when the scheduler tries to
+   * update the saving challenges state.
    */
   @Test
   public void testUpdateSavingGoalsState() {
     scheduler.updateSavingChallengesState();
 
-    verify(savingChallengeService).updateAllSavingChallengeStates();
+    verify(batchJobRunner).run(savingChallengeStateJob);
+    verify(activeChallengeIndex).rebuild();
+    verify(challengeSpendingCounters).clear();
   }
 }
@@ -0,0 +1,60 @@
+package edu.ntnu.idatt2106.project.sparesti.schedulerTests;
+
+import edu.ntnu.idatt2106.project.sparesti.events.SavingGoalStateTransitionQueue;
+import edu.ntnu.idatt2106.project.sparesti.schedulers.SavingGoalStateTransitionTaskScheduler;
+import edu.ntnu.idatt2106.project.sparesti.services.SavingGoalService;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/** Tests the SavingGoalStateTransitionTaskScheduler. */
+public class SavingGoalStateTransitionTaskSchedulerTest {
+
+  private final SavingGoalService savingGoalService = Mockito.mock(SavingGoalService.class);
+
+  private final SavingGoalStateTransitionQueue queue = new SavingGoalStateTransitionQueue();
+
+  private final SavingGoalStateTransitionTaskScheduler taskScheduler =
+      new SavingGoalStateTransitionTaskScheduler(queue, savingGoalService, 2);
+
+  /** Test method that verifies that the goals of the queued users are settled once, in batches. */
+  @Test
+  public void testDrainStateTransitions() {
+    queue.offer(4L);
+    queue.offer(7L);
+    queue.offer(4L);
+    queue.offer(9L);
+    assertEquals(3, queue.size());
+
+    taskScheduler.drainStateTransitions();
+
+    verify(savingGoalService).updateSavingGoalStatesForUsers(List.of(4L, 7L));
+    verify(savingGoalService).updateSavingGoalStatesForUsers(List.of(9L));
+    verifyNoMoreInteractions(savingGoalService);
+    assertEquals(0, queue.size());
+  }
+
+  /**
+   * Test method that verifies that a batch that fails to settle does not stop the other batches,
+   * and that its users are queued again.
+   */
+  @Test
+  public void testFailedBatchIsQueuedAgain() {
+    queue.offer(4L);
+    queue.offer(7L);
+    queue.offer(9L);
+    doThrow(new IllegalStateException("Deadlock"))
+        .when(savingGoalService)
+        .updateSavingGoalStatesForUsers(List.of(4L, 7L));
+
+    taskScheduler.drainStateTransitions();
+
+    verify(savingGoalService).updateSavingGoalStatesForUsers(List.of(9L));
+    assertEquals(List.of(4L, 7L), queue.drain(2));
+  }
+}
@@ -1,7 +1,8 @@
 package edu.ntnu.idatt2106.project.sparesti.schedulerTests;
 
+import edu.ntnu.idatt2106.project.sparesti.jobs.BatchJobRunner;
+import edu.ntnu.idatt2106.project.sparesti.jobs.SavingGoalStateJob;
 import edu.ntnu.idatt2106.project.sparesti.schedulers.SavingGoalTaskScheduler;
-import edu.ntnu.idatt2106.project.sparesti.services.SavingGoalService;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -15,18 +16,20 @@ import static org.mockito.Mockito.verify;
 @ActiveProfiles("test")
 public class SavingGoalTaskSchedulerTest {
 
-  @Mock private SavingGoalService savingGoalService;
+  @Mock private BatchJobRunner batchJobRunner;
+
+  @Mock private SavingGoalStateJob savingGoalStateJob;
 
   @InjectMocks private SavingGoalTaskScheduler taskScheduler;
 
   /**
-   * Test method that verifies that updateAllSavingGoalStates is run when the scheduler tries to
-   * update the saving goals state.
+   * Test method that verifies that the SavingGoalStateJob is run when the scheduler tries to update
+   * the saving goals state.
    */
   @Test
   public void testUpdateSavingGoalsState() {
     taskScheduler.updateSavingGoalsState();
 
-    verify(savingGoalService).updateAllSavingGoalsStates();
+    verify(batchJobRunner).run(savingGoalStateJob);
   }
 }
@@ -0,0 +1,249 @@
+package edu.ntnu.idatt2106.project.sparesti.serviceTests;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.DailySpendingId;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
+import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.DailySpendingRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.IdempotencyKeyRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionCategoryRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionRepository;
+import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
+import edu.ntnu.idatt2106.project.sparesti.services.impl.IdempotencyServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link IdempotencyServiceImpl}. The tests are not transactional, as responses are only
+ * stored and cached once the transaction of the request commits, so the data they create is removed
+ * after each test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+  private static final long ACCOUNT_ID = 910L;
+  private static final String SCOPE = "subjects/subject-1/accounts/910/transactions";
+
+  @Autowired private IdempotencyServiceImpl idempotencyService;
+
+  @Autowired private BankAccountService bankAccountService;
+
+  @SpyBean private BankAccountRepository bankAccountRepository;
+
+  @Autowired private TransactionRepository transactionRepository;
+
+  @Autowired private TransactionCategoryRepository transactionCategoryRepository;
+
+  @Autowired private DailySpendingRepository dailySpendingRepository;
+
+  @Autowired private IdempotencyKeyRepository idempotencyKeyRepository;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  private TransactionCategoryEntity transactionCategory;
+  private LocalDateTime date;
+
+  /** Setup before each test. */
+  @BeforeEach
+  public void setUp() {
+    bankAccountRepository.save(BankAccountEntity.builder().id(ACCOUNT_ID).sum(1000.0).build());
+    transactionCategory =
+        transactionCategoryRepository.save(TransactionCategoryEntity.builder().build());
+    date = LocalDateTime.of(2024, 4, 1, 12, 0);
+  }
+
+  /** Removes the data committed by the test. */
+  @AfterEach
+  public void tearDown() {
+    idempotencyKeyRepository.deleteAll();
+    transactionRepository.deleteAll(
+        transactionRepository.findAll().stream()
+            .filter(transaction -> transaction.getBankAccount().getId().equals(ACCOUNT_ID))
+            .toList());
+    dailySpendingRepository.deleteById(
+        new DailySpendingId(ACCOUNT_ID, transactionCategory.getId(), date.toLocalDate()));
+    bankAccountRepository.deleteById(ACCOUNT_ID);
+    transactionCategoryRepository.delete(transactionCategory);
+  }
+
+  /**
+   * Tests that a retry with the same key gets the stored response, without adding the transaction
+   * again and without touching the bank account repository.
+   */
+  @Test
+  void retryIsReplayedWithoutTouchingAccounts() {
+    AtomicInteger runs = new AtomicInteger();
+
+    ResponseEntity<String> first = postExpense(idempotencyService, "key-1", runs);
+    clearInvocations(bankAccountRepository);
+    ResponseEntity<String> retry = postExpense(idempotencyService, "key-1", runs);
+
+    verifyNoInteractions(bankAccountRepository);
+    assertEquals(1, runs.get());
+    assertEquals(HttpStatus.CREATED, first.getStatusCode());
+    assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+    assertEquals(first.getBody(), retry.getBody());
+    assertEquals("true", retry.getHeaders().getFirst("Idempotent-Replayed"));
+    assertEquals(900.0, bankAccountRepository.findById(ACCOUNT_ID).get().getSum(), 0.01);
+  }
+
+  /**
+   * Tests that a stored response is found in the database when it is not in the cache, as after a
+   * restart.
+   */
+  @Test
+  void retryIsReplayedAfterRestart() {
+    AtomicInteger runs = new AtomicInteger();
+    postExpense(idempotencyService, "key-2", runs);
+
+    IdempotencyServiceImpl restartedService =
+        new IdempotencyServiceImpl(idempotencyKeyRepository, transactionTemplate, objectMapper);
+    ResponseEntity<String> retry = postExpense(restartedService, "key-2", runs);
+
+    assertEquals(1, runs.get());
+    assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+    assertEquals(900.0, bankAccountRepository.findById(ACCOUNT_ID).get().getSum(), 0.01);
+  }
+
+  /**
+   * Tests that a request that fails does not use up its key, so the retry runs the request, and
+   * that requests with different keys are not replayed.
+   */
+  @Test
+  void failedRequestCanBeRetried() {
+    assertThrows(
+        ResponseStatusException.class,
+        () ->
+            idempotencyService.execute(
+                SCOPE,
+                "key-3",
+                expense(100.0),
+                String.class,
+                () -> {
+                  throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+                }));
+
+    AtomicInteger runs = new AtomicInteger();
+    postExpense(idempotencyService, "key-3", runs);
+    postExpense(idempotencyService, "key-4", runs);
+
+    assertEquals(2, runs.get());
+    assertEquals(800.0, bankAccountRepository.findById(ACCOUNT_ID).get().getSum(), 0.01);
+  }
+
+  /**
+   * Tests that a key reused with a different request body is rejected with 422 Unprocessable
+   * Entity, without running the request.
+   */
+  @Test
+  void keyReusedWithDifferentRequestIsRejected() {
+    AtomicInteger runs = new AtomicInteger();
+    postExpense(idempotencyService, "key-5", runs);
+
+    ResponseStatusException exception =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> postExpense(idempotencyService, "key-5", 200.0, runs));
+
+    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatusCode());
+    assertEquals(1, runs.get());
+    assertEquals(900.0, bankAccountRepository.findById(ACCOUNT_ID).get().getSum(), 0.01);
+  }
+
+  /**
+   * Tests that a data integrity violation thrown by the request itself is passed on, instead of
+   * being taken as a concurrent request with the same key, and does not use up the key.
+   */
+  @Test
+  void integrityViolationOfRequestIsPassedOn() {
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () ->
+            idempotencyService.execute(
+                SCOPE,
+                "key-6",
+                expense(100.0),
+                String.class,
+                () -> {
+                  throw new DataIntegrityViolationException("Constraint of the request.");
+                }));
+
+    AtomicInteger runs = new AtomicInteger();
+    postExpense(idempotencyService, "key-6", runs);
+
+    assertEquals(1, runs.get());
+  }
+
+  /**
+   * Posts an expense of 100 to the test account through an idempotency service.
+   *
+   * @param service The idempotency service to use.
+   * @param key The idempotency key of the request.
+   * @param runs Counts the times the request actually runs.
+   * @return The response of the request.
+   */
+  private ResponseEntity<String> postExpense(
+      IdempotencyServiceImpl service, String key, AtomicInteger runs) {
+    return postExpense(service, key, 100.0, runs);
+  }
+
+  /**
+   * Posts an expense to the test account through an idempotency service.
+   *
+   * @param service The idempotency service to use.
+   * @param key The idempotency key of the request.
+   * @param amount The amount of the expense.
+   * @param runs Counts the times the request actually runs.
+   * @return The response of the request.
+   */
+  private ResponseEntity<String> postExpense(
+      IdempotencyServiceImpl service, String key, double amount, AtomicInteger runs) {
+    TransactionDto expense = expense(amount);
+    return service.execute(
+        SCOPE,
+        key,
+        expense,
+        String.class,
+        () -> {
+          runs.incrementAndGet();
+          bankAccountService.addTransactionToAccount(ACCOUNT_ID, expense);
+          return new ResponseEntity<>(
+              "Transaction successfully added to the account.", HttpStatus.CREATED);
+        });
+  }
+
+  /**
+   * Creates an expense in the test category.
+   *
+   * @param amount The amount of the expense.
+   * @return The expense.
+   */
+  private TransactionDto expense(double amount) {
+    return TransactionDto.builder()
+        .sum(-amount)
+        .date(date)
+        .categoryEntityId(transactionCategory.getId())
+        .build();
+  }
+}
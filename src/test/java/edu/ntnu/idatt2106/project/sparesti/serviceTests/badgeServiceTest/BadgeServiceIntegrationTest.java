@@ -3,6 +3,7 @@ package edu.ntnu.idatt2106.project.sparesti.serviceTests.badgeServiceTest;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeProgressDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.BadgeTierDto;
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeCatalog;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.badges.CompletedBadgeDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.*;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
@@ -16,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.AfterTransaction;
 
 import java.util.Arrays;
 import java.util.List;
@@ -33,6 +35,8 @@ public class BadgeServiceIntegrationTest {
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired private BadgeCatalog badgeCatalog;
+
   @BeforeEach
   public void setup() {
     BadgeEntity badge1 = BadgeEntity.builder().name("Griseflink Sparer").build();
@@ -129,6 +133,7 @@ public class BadgeServiceIntegrationTest {
 
     badgeRepository.saveAll(Arrays.asList(badge1, badge2));
     userRepository.save(userEntity);
+    badgeCatalog.reload();
   }
 
   @AfterEach
@@ -136,6 +141,12 @@ public class BadgeServiceIntegrationTest {
     userRepository.deleteAll();
   }
 
+  /** Forgets the badges saved by a test, since they are rolled back with its transaction. */
+  @AfterTransaction
+  public void reloadBadgeCatalog() {
+    badgeCatalog.reload();
+  }
+
   @Test
   void testCanGetAllBadges() {
     List<BadgeDto> badges = badgeService.getAllBadges();
@@ -0,0 +1,238 @@
+package edu.ntnu.idatt2106.project.sparesti.serviceTests.bankAccountServiceTest;
+
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransferDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.DailySpendingId;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
+import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionEntity;
+import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.DailySpendingRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionCategoryRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.TransferRepository;
+import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests for concurrent balance updates in the BankAccountService. These tests are not
+ * transactional, as every posted transaction has to commit in its own transaction, so the data they
+ * create is removed after each test.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+public class BankAccountServiceConcurrencyTest {
+
+  private static final Logger LOGGER =
+      Logger.getLogger(BankAccountServiceConcurrencyTest.class.getName());
+  private static final long ACCOUNT_ID = 900L;
+  private static final long OTHER_ACCOUNT_ID = 901L;
+  private static final int THREADS = 16;
+
+  @Autowired private BankAccountService bankAccountService;
+
+  @Autowired private BankAccountRepository bankAccountRepository;
+
+  @Autowired private TransactionRepository transactionRepository;
+
+  @Autowired private TransactionCategoryRepository transactionCategoryRepository;
+
+  @Autowired private DailySpendingRepository dailySpendingRepository;
+
+  @Autowired private TransferRepository transferRepository;
+
+  private TransactionCategoryEntity transactionCategory;
+  private LocalDateTime date;
+
+  /** Setup before each test. */
+  @BeforeEach
+  public void setUp() {
+    transactionCategory =
+        transactionCategoryRepository.save(TransactionCategoryEntity.builder().build());
+    date = LocalDateTime.of(2024, 4, 1, 12, 0);
+  }
+
+  /** Removes the data committed by the test. */
+  @AfterEach
+  public void tearDown() {
+    transactionRepository.deleteAll(transactionsOfAccount());
+    transferRepository.deleteAll(
+        transferRepository.findAll().stream()
+            .filter(transfer -> transfer.getSourceBankAccount().getId().equals(ACCOUNT_ID))
+            .toList());
+    transferRepository.deleteAll(
+        transferRepository.findAll().stream()
+            .filter(transfer -> transfer.getSourceBankAccount().getId().equals(OTHER_ACCOUNT_ID))
+            .toList());
+    dailySpendingRepository.deleteById(
+        new DailySpendingId(ACCOUNT_ID, transactionCategory.getId(), date.toLocalDate()));
+    bankAccountRepository.deleteById(ACCOUNT_ID);
+    bankAccountRepository.deleteById(OTHER_ACCOUNT_ID);
+    transactionCategoryRepository.delete(transactionCategory);
+  }
+
+  /**
+   * Posts thousands of deposits and withdrawals to one account from many threads at once, and
+   * checks that no update of the balance is lost.
+   */
+  @Test
+  public void concurrentTransactionsKeepBalanceConsistent() throws Exception {
+    bankAccountRepository.save(BankAccountEntity.builder().id(ACCOUNT_ID).sum(1000.0).build());
+
+    List<Double> sums = new ArrayList<>();
+    for (int i = 0; i < 1500; i++) {
+      sums.add(2.0);
+      sums.add(-1.0);
+    }
+    AtomicInteger rejected = postConcurrently(sums);
+
+    assertEquals(0, rejected.get());
+    assertEquals(2500.0, bankAccountRepository.findById(ACCOUNT_ID).get().getSum(), 0.01);
+    assertEquals(3000, transactionsOfAccount().size());
+    assertEquals(
+        1500.0,
+        bankAccountService.getAmountUsedOnCategoryBetweenDays(
+            ACCOUNT_ID, transactionCategory.getId(), date.toLocalDate(), date.toLocalDate()),
+        0.01);
+  }
+
+  /**
+   * Posts more withdrawals than the balance covers from many threads at once, and checks that
+   * exactly the withdrawals the balance covers are accepted, leaving the balance at zero.
+   */
+  @Test
+  public void concurrentWithdrawalsNeverOverdrawAccount() throws Exception {
+    bankAccountRepository.save(BankAccountEntity.builder().id(ACCOUNT_ID).sum(2000.0).build());
+
+    List<Double> sums = new ArrayList<>();
+    for (int i = 0; i < 2500; i++) {
+      sums.add(-1.0);
+    }
+    AtomicInteger rejected = postConcurrently(sums);
+
+    assertEquals(500, rejected.get());
+    assertEquals(0.0, bankAccountRepository.findById(ACCOUNT_ID).get().getSum(), 0.01);
+    assertEquals(2000, transactionsOfAccount().size());
+  }
+
+  /**
+   * Benchmarks transfers in both directions between the same two accounts from many threads at
+   * once. Transfers in opposite directions are the ones that deadlock when the accounts are locked
+   * in argument order. Reports the throughput and the number of transfers that failed on a lock,
+   * and checks that none did and that no money was created or lost.
+   */
+  @Test
+  public void concurrentOppositeTransfersDoNotDeadlock() throws Exception {
+    bankAccountRepository.save(BankAccountEntity.builder().id(ACCOUNT_ID).sum(10000.0).build());
+    bankAccountRepository.save(
+        BankAccountEntity.builder().id(OTHER_ACCOUNT_ID).sum(10000.0).build());
+
+    int transfers = 2000;
+    AtomicInteger lockFailures = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    long start = System.nanoTime();
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < transfers; i++) {
+        boolean forward = i % 2 == 0;
+        futures.add(
+            executor.submit(
+                () -> {
+                  try {
+                    bankAccountService.addTransferToAccounts(
+                        TransferDto.builder()
+                            .date(date)
+                            .sum(1.0)
+                            .sourceBankAccountId(forward ? ACCOUNT_ID : OTHER_ACCOUNT_ID)
+                            .destinationBankAccountId(forward ? OTHER_ACCOUNT_ID : ACCOUNT_ID)
+                            .build());
+                  } catch (PessimisticLockingFailureException e) {
+                    lockFailures.incrementAndGet();
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    LOGGER.info(
+        String.format(
+            "%d transfers on %d threads: %.0f transfers/s, %d deadlocks or lock timeouts",
+            transfers, THREADS, transfers / seconds, lockFailures.get()));
+    assertEquals(0, lockFailures.get());
+    double total =
+        bankAccountRepository.findById(ACCOUNT_ID).get().getSum()
+            + bankAccountRepository.findById(OTHER_ACCOUNT_ID).get().getSum();
+    assertEquals(20000.0, total, 0.01);
+    assertEquals(10000.0, bankAccountRepository.findById(ACCOUNT_ID).get().getSum(), 0.01);
+  }
+
+  /**
+   * Finds the transactions stored on the test account.
+   *
+   * @return The transactions of the test account.
+   */
+  private List<TransactionEntity> transactionsOfAccount() {
+    return transactionRepository.findAll().stream()
+        .filter(transaction -> transaction.getBankAccount().getId().equals(ACCOUNT_ID))
+        .toList();
+  }
+
+  /**
+   * Posts one transaction per sum to the test account, spread over a pool of threads.
+   *
+   * @param sums The sums of the transactions.
+   * @return The number of transactions rejected because they would overdraw the account.
+   */
+  private AtomicInteger postConcurrently(List<Double> sums) throws Exception {
+    AtomicInteger rejected = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (double sum : sums) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  try {
+                    bankAccountService.addTransactionToAccount(
+                        ACCOUNT_ID,
+                        TransactionDto.builder()
+                            .sum(sum)
+                            .date(date)
+                            .categoryEntityId(transactionCategory.getId())
+                            .build());
+                  } catch (ResponseStatusException e) {
+                    rejected.incrementAndGet();
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    return rejected;
+  }
+}
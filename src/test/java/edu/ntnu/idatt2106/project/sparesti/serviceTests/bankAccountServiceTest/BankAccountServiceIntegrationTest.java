@@ -1,6 +1,8 @@
 package edu.ntnu.idatt2106.project.sparesti.serviceTests.bankAccountServiceTest;
 
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchResultDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionBatchRowDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransferDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
@@ -11,11 +13,18 @@ import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionCategoryRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.TransferRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
 import edu.ntnu.idatt2106.project.sparesti.services.impl.BankAccountServiceImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,6 +49,12 @@ public class BankAccountServiceIntegrationTest {
 
   @Autowired private TransactionCategoryRepository transactionCategoryRepository;
 
+  @Autowired private TransferRepository transferRepository;
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
   private BankAccountEntity bankAccountEntity;
   private LocalDateTime date1;
   private LocalDateTime date2;
@@ -90,13 +105,107 @@ public class BankAccountServiceIntegrationTest {
             .build();
 
     bankAccountService.addTransactionToAccount(1L, transactionDto);
-    BankAccountEntity bankAccountFromDB =
-        bankAccountRepository.findById(bankAccountEntity.getId()).get();
-    TransactionEntity createdTransaction = bankAccountFromDB.getTransactions().get(0);
+    TransactionEntity createdTransaction = transactionRepository.findAll().get(0);
 
     assertNotNull(createdTransaction);
     assertTrue(transactionRepository.existsById(createdTransaction.getId()));
-    assertTrue(bankAccountFromDB.getTransactions().contains(createdTransaction));
+    assertEquals(bankAccountEntity.getId(), createdTransaction.getBankAccount().getId());
+  }
+
+  /**
+   * Tests that adding a transaction runs the same number of statements no matter how many
+   * transactions the account already has, as the history of the account is never loaded.
+   */
+  @Test
+  public void addTransactionToAccountDoesNotLoadHistory() {
+    bankAccountRepository.save(bankAccountEntity);
+
+    TransactionCategoryEntity transactionCategory = TransactionCategoryEntity.builder().build();
+    transactionCategoryRepository.save(transactionCategory);
+
+    long statementsWithoutHistory = countStatementsOfAddingTransaction(transactionCategory.getId());
+    addTransactionHistory(transactionCategory, 200);
+    long statementsWithHistory = countStatementsOfAddingTransaction(transactionCategory.getId());
+
+    assertEquals(statementsWithoutHistory, statementsWithHistory);
+    assertFalse(
+        Hibernate.isInitialized(bankAccountRepository.findById(1L).get().getTransactions()));
+  }
+
+  /**
+   * Tests that adding expenses to a bank account keeps the daily spending rollup up to date, and
+   * that income is left out of it.
+   */
+  @Test
+  public void addTransactionToAccountUpdatesDailySpending() {
+    bankAccountRepository.save(bankAccountEntity);
+
+    TransactionCategoryEntity transactionCategory = TransactionCategoryEntity.builder().build();
+    transactionCategoryRepository.save(transactionCategory);
+
+    for (double sum : new double[] {-100.0, -50.0, 300.0}) {
+      bankAccountService.addTransactionToAccount(
+          1L,
+          TransactionDto.builder()
+              .sum(sum)
+              .date(date1)
+              .categoryEntityId(transactionCategory.getId())
+              .build());
+    }
+
+    double spent =
+        bankAccountService.getAmountUsedOnCategoryBetweenDays(
+            1L, transactionCategory.getId(), date1.toLocalDate(), date1.toLocalDate());
+    assertEquals(150.0, spent, 0.01);
+  }
+
+  /**
+   * Tests adding a batch of transactions. Verifies that invalid rows are reported without stopping
+   * the batch, that the valid rows are stored across several chunks, and that the balance and the
+   * daily spending rollup reflect the net sum of the added rows.
+   */
+  @Test
+  public void addTransactionBatchToAccount() {
+    bankAccountRepository.save(bankAccountEntity);
+
+    TransactionCategoryEntity transactionCategory = TransactionCategoryEntity.builder().build();
+    transactionCategoryRepository.save(transactionCategory);
+
+    List<TransactionBatchRowDto> rows = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      rows.add(
+          TransactionBatchRowDto.builder()
+              .index(i)
+              .transaction(
+                  TransactionDto.builder()
+                      .sum(-0.5)
+                      .date(date1)
+                      .categoryEntityId(transactionCategory.getId())
+                      .build())
+              .build());
+    }
+    rows.add(
+        TransactionBatchRowDto.builder()
+            .index(1200)
+            .transaction(
+                TransactionDto.builder().sum(-10.0).date(date1).categoryEntityId(-1L).build())
+            .build());
+    rows.add(
+        TransactionBatchRowDto.builder().index(1201).error("Could not read transaction").build());
+
+    TransactionBatchResultDto result =
+        bankAccountService.addTransactionBatchToAccount(1L, rows.iterator());
+
+    assertEquals(1202, result.getReceived());
+    assertEquals(1200, result.getAccepted());
+    assertEquals(-600.0, result.getBalanceChange(), 0.01);
+    assertEquals(List.of(1200, 1201), result.getErrors().stream().map(e -> e.getIndex()).toList());
+    assertEquals(400.0, bankAccountRepository.findById(1L).get().getSum(), 0.01);
+    assertEquals(
+        600.0,
+        bankAccountService.getAmountUsedOnCategoryBetweenDays(
+            1L, transactionCategory.getId(), date1.toLocalDate(), date1.toLocalDate()),
+        0.01);
   }
 
   /**
@@ -176,26 +285,17 @@ public class BankAccountServiceIntegrationTest {
 
     bankAccountService.addTransferToAccounts(transferDto);
 
-    TransferEntity createdTransferFromSourceAccount =
-        bankAccountRepository
-            .findById(bankAccountEntitySource.getId())
-            .get()
-            .getTransfersSent()
-            .get(0);
-    TransferEntity createdTransferFromDestinationAccount =
-        bankAccountRepository
-            .findById(bankAccountEntityDestination.getId())
-            .get()
-            .getTransfersReceived()
-            .get(0);
+    TransferEntity createdTransfer = transferRepository.findAll().get(0);
 
     BankAccountEntity sourceBankAccountEntityFromDB =
         bankAccountRepository.findById(bankAccountEntitySource.getId()).get();
     BankAccountEntity destinationBankAccountEntityFromDB =
         bankAccountRepository.findById(bankAccountEntityDestination.getId()).get();
 
-    assertNotNull(createdTransferFromSourceAccount);
-    assertNotNull(createdTransferFromDestinationAccount);
+    assertNotNull(createdTransfer);
+    assertEquals(bankAccountEntitySource.getId(), createdTransfer.getSourceBankAccount().getId());
+    assertEquals(
+        bankAccountEntityDestination.getId(), createdTransfer.getDestinationBankAccount().getId());
     assertEquals(800.0, sourceBankAccountEntityFromDB.getSum(), 0.01);
     assertEquals(1200.0, destinationBankAccountEntityFromDB.getSum(), 0.01);
   }
@@ -263,10 +363,82 @@ public class BankAccountServiceIntegrationTest {
     bankAccountEntity.addTransaction(transaction3);
     bankAccountEntity.addTransaction(transaction4);
     bankAccountRepository.save(bankAccountEntity);
+    bankAccountService.rebuildDailySpending();
 
     double result =
         bankAccountService.getAverageExpenditureOnCategory(
             bankAccountEntity.getId(), transactionCategory1.getId(), 30);
     assertEquals(20, result);
   }
+
+  /**
+   * Tests that the average expenditure covers the 30 days it is divided by, so an expense 29 days
+   * ago is counted and an expense 30 days ago is not.
+   */
+  @Test
+  public void averageExpenditureCoversExactlyThirtyDays() {
+    TransactionCategoryEntity transactionCategory = TransactionCategoryEntity.builder().build();
+    transactionCategoryRepository.save(transactionCategory);
+    bankAccountRepository.save(bankAccountEntity);
+
+    LocalDateTime localDateTime = LocalDateTime.now();
+    bankAccountEntity.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory)
+            .date(localDateTime.minusDays(29))
+            .sum(-30.0)
+            .build());
+    bankAccountEntity.addTransaction(
+        TransactionEntity.builder()
+            .transactionCategoryEntity(transactionCategory)
+            .date(localDateTime.minusDays(30))
+            .sum(-300.0)
+            .build());
+    bankAccountRepository.save(bankAccountEntity);
+    bankAccountService.rebuildDailySpending();
+
+    assertEquals(
+        30,
+        bankAccountService.getAverageExpenditureOnCategory(
+            bankAccountEntity.getId(), transactionCategory.getId(), 30));
+  }
+
+  /**
+   * Adds an expense to account 1 with the service, starting from an empty persistence context, and
+   * counts the statements it runs.
+   *
+   * @param categoryId The category of the expense.
+   * @return The number of statements prepared while adding the expense.
+   */
+  private long countStatementsOfAddingTransaction(Long categoryId) {
+    entityManager.flush();
+    entityManager.clear();
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    bankAccountService.addTransactionToAccount(
+        1L, TransactionDto.builder().sum(-1.0).date(date1).categoryEntityId(categoryId).build());
+    entityManager.flush();
+
+    return statistics.getPrepareStatementCount();
+  }
+
+  /**
+   * Stores transactions on account 1 directly, to give the account a history.
+   *
+   * @param transactionCategory The category of the transactions.
+   * @param count The number of transactions to store.
+   */
+  private void addTransactionHistory(TransactionCategoryEntity transactionCategory, int count) {
+    BankAccountEntity bankAccount = bankAccountRepository.getReferenceById(1L);
+    for (int i = 0; i < count; i++) {
+      transactionRepository.save(
+          TransactionEntity.builder()
+              .bankAccount(bankAccount)
+              .transactionCategoryEntity(transactionCategory)
+              .date(date1.minusDays(i))
+              .sum(-1.0)
+              .build());
+    }
+  }
 }
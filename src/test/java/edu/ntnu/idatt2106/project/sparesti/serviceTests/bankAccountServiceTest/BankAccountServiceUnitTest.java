@@ -1,32 +1,38 @@
 package edu.ntnu.idatt2106.project.sparesti.serviceTests.bankAccountServiceTest;
 
+import edu.ntnu.idatt2106.project.sparesti.cache.SpendingStatisticsStore;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.CategorySpendingDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.SpendingStatisticsDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransferDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
-import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionCategoryEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransactionEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.TransferEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
+import edu.ntnu.idatt2106.project.sparesti.events.TransactionRecordedEvent;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.DailySpendingRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionCategoryRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.TransferRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
 import edu.ntnu.idatt2106.project.sparesti.services.TestIdCounterService;
 import edu.ntnu.idatt2106.project.sparesti.services.impl.BankAccountServiceImpl;
+import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.server.ResponseStatusException;
@@ -43,11 +49,15 @@ public class BankAccountServiceUnitTest {
   @Mock private TransactionRepository transactionRepository;
   @Mock private TransactionCategoryRepository transactionCategoryRepository;
   @Mock private TransferRepository transferRepository;
+  @Mock private DailySpendingRepository dailySpendingRepository;
+  @Mock private SpendingStatisticsStore spendingStatisticsStore;
   @Mock private TestIdCounterService testIdCounterService;
   @InjectMocks private BankAccountServiceImpl bankAccountService;
   @Mock private Mapper<BankAccountEntity, BankAccountDto> bankAccountMapper;
   @Mock private Mapper<TransactionEntity, TransactionDto> transactionMapper;
   @Mock private Mapper<TransferEntity, TransferDto> transferMapper;
+  @Mock private EntityManager entityManager;
+  @Mock private ApplicationEventPublisher eventPublisher;
 
   /** Sets up mocks and injects mock dependencies before each test. */
   @BeforeEach
@@ -113,7 +123,7 @@ public class BankAccountServiceUnitTest {
 
   @Test
   public void shouldThrowWhenFetchingTransactionAmountsWithMissingBankAccount() {
-    when(bankAccountRepository.findById(anyLong())).thenReturn(Optional.empty());
+    when(bankAccountRepository.existsById(anyLong())).thenReturn(false);
 
     ResponseStatusException expectedException =
         new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not find Bank Account.");
@@ -133,9 +143,8 @@ public class BankAccountServiceUnitTest {
    */
   @Test
   public void shouldThrowWhenFetchingTransactionAmountsWithMissingCategory() {
-    when(bankAccountRepository.findById(anyLong()))
-        .thenReturn(Optional.of(mock(BankAccountEntity.class)));
-    when(transactionCategoryRepository.findById(anyLong())).thenReturn(Optional.empty());
+    when(bankAccountRepository.existsById(anyLong())).thenReturn(true);
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(false);
 
     ResponseStatusException expectedException =
         new ResponseStatusException(HttpStatus.NOT_FOUND, "Could not find Transaction category.");
@@ -158,23 +167,49 @@ public class BankAccountServiceUnitTest {
     LocalDateTime startDate = LocalDateTime.now().minusDays(1);
     LocalDateTime endDate = LocalDateTime.now();
 
-    TransactionEntity transaction1 = TransactionEntity.builder().sum(-100.0).build();
-    TransactionEntity transaction2 = TransactionEntity.builder().sum(-150.0).build();
-    List<TransactionEntity> transactions = Arrays.asList(transaction1, transaction2);
-
-    when(bankAccountRepository.findById(anyLong()))
-        .thenReturn(Optional.of(mock(BankAccountEntity.class)));
-    when(transactionCategoryRepository.findById(anyLong()))
-        .thenReturn(Optional.of(mock(TransactionCategoryEntity.class)));
-    when(transactionRepository.findByBankAccount_IdAndTransactionCategoryEntity_IdAndDateBetween(
+    when(bankAccountRepository.existsById(anyLong())).thenReturn(true);
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(true);
+    when(transactionRepository.sumExpensesByAccountAndCategoryBetweenDate(
             anyLong(), anyLong(), any(), any()))
-        .thenReturn(transactions);
+        .thenReturn(-250.0);
 
     double result =
         bankAccountService.getAmountUsedOnTransactionsOnCategoryBetweenDate(
             1L, 1L, startDate, endDate);
 
     assertEquals(250.0, result, 0.01);
+    verify(bankAccountRepository, never()).findById(anyLong());
+    verify(transactionRepository, never())
+        .findByBankAccount_IdAndTransactionCategoryEntity_IdAndDateBetween(
+            anyLong(), anyLong(), any(), any());
+  }
+
+  /**
+   * Tests that the amounts used on several categories are fetched with one aggregate query, and
+   * that categories without any expenses are reported as 0.
+   */
+  @Test
+  public void testGetAmountUsedOnTransactionsPerCategoryBetweenDate() {
+    LocalDateTime startDate = LocalDateTime.now().minusDays(1);
+    LocalDateTime endDate = LocalDateTime.now();
+    List<Long> categoryIds = List.of(1L, 2L, 3L);
+
+    when(bankAccountRepository.existsById(anyLong())).thenReturn(true);
+    when(transactionRepository.sumExpensesByAccountPerCategoryBetweenDate(
+            1L, categoryIds, startDate, endDate))
+        .thenReturn(
+            List.of(new CategorySpendingDto(1L, -100.0), new CategorySpendingDto(3L, -50.0)));
+
+    Map<Long, Double> result =
+        bankAccountService.getAmountUsedOnTransactionsPerCategoryBetweenDate(
+            1L, categoryIds, startDate, endDate);
+
+    assertEquals(3, result.size());
+    assertEquals(100.0, result.get(1L), 0.01);
+    assertEquals(0.0, result.get(2L), 0.01);
+    assertEquals(50.0, result.get(3L), 0.01);
+    verify(transactionRepository, times(1))
+        .sumExpensesByAccountPerCategoryBetweenDate(anyLong(), any(), any(), any());
   }
 
   /** Tests that an exception is thrown when adding a transaction with an invalid category ID. */
@@ -197,8 +232,7 @@ public class BankAccountServiceUnitTest {
   /** Tests that an exception is thrown when attempting to add a transaction with a null date. */
   @Test
   public void shouldThrowWhenAddingTransactionWithNullDate() {
-    when(transactionCategoryRepository.findById(anyLong()))
-        .thenReturn(Optional.of(mock(TransactionCategoryEntity.class)));
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(true);
     TransactionDto transactionDto = TransactionDto.builder().categoryEntityId(1L).build();
 
     ResponseStatusException expectedException =
@@ -216,8 +250,7 @@ public class BankAccountServiceUnitTest {
   /** Tests that an exception is thrown when adding a transaction to a non-existent bank account. */
   @Test
   public void shouldThrowWhenAddingTransactionToNonExistentBankAccount() {
-    when(transactionCategoryRepository.findById(anyLong()))
-        .thenReturn(Optional.of(mock(TransactionCategoryEntity.class)));
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(true);
     TransactionDto transactionDto =
         TransactionDto.builder().categoryEntityId(1L).date(LocalDateTime.now()).build();
 
@@ -265,15 +298,38 @@ public class BankAccountServiceUnitTest {
     BankAccountEntity bankAccountEntity = BankAccountEntity.builder().id(1L).build();
     TransactionEntity transactionEntity = TransactionEntity.builder().build();
 
-    when(bankAccountRepository.findById(anyLong())).thenReturn(Optional.of(bankAccountEntity));
+    when(bankAccountRepository.adjustBalance(anyLong(), anyDouble())).thenReturn(1);
+    when(bankAccountRepository.getReferenceById(1L)).thenReturn(bankAccountEntity);
     when(transactionMapper.mapFrom(any(TransactionDto.class))).thenReturn(transactionEntity);
-    when(transactionCategoryRepository.findById(anyLong()))
-        .thenReturn(Optional.of(mock(TransactionCategoryEntity.class)));
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(true);
 
     bankAccountService.addTransactionToAccount(1L, transactionDto);
 
-    verify(bankAccountRepository).save(bankAccountEntity);
-    assertTrue(bankAccountEntity.getTransactions().contains(transactionEntity));
+    verify(bankAccountRepository).adjustBalance(1L, 0.0);
+    verify(transactionRepository).save(transactionEntity);
+    assertSame(bankAccountEntity, transactionEntity.getBankAccount());
+    assertNull(bankAccountEntity.getTransactions());
+    verifyNoInteractions(eventPublisher);
+  }
+
+  /** Tests that adding an expense publishes an event for its account and category. */
+  @Test
+  public void testAddExpenseToAccountPublishesEvent() {
+    TransactionDto transactionDto =
+        TransactionDto.builder().sum(-100.0).date(LocalDateTime.now()).categoryEntityId(1L).build();
+    TransactionEntity transactionEntity =
+        TransactionEntity.builder().sum(-100.0).date(transactionDto.getDate()).build();
+
+    when(bankAccountRepository.adjustBalance(anyLong(), anyDouble())).thenReturn(1);
+    when(transactionMapper.mapFrom(any(TransactionDto.class))).thenReturn(transactionEntity);
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(true);
+
+    bankAccountService.addTransactionToAccount(1L, transactionDto);
+
+    verify(eventPublisher)
+        .publishEvent(
+            new TransactionRecordedEvent(
+                1L, 1L, Map.of(transactionDto.getDate().toLocalDate(), 100.0)));
   }
 
   /** Tests that an exception is thrown when adding a transfer with a null date. */
@@ -297,8 +353,7 @@ public class BankAccountServiceUnitTest {
   /** Tests that an exception is thrown when adding a transfer with non-null ID. */
   @Test
   public void shouldThrowWhenAddingTransactionWithNonNullId() {
-    when(transactionCategoryRepository.findById(anyLong()))
-        .thenReturn(Optional.of(mock(TransactionCategoryEntity.class)));
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(true);
     TransactionDto transactionDto = TransactionDto.builder().id(1L).categoryEntityId(1L).build();
 
     ResponseStatusException expectedException =
@@ -351,16 +406,18 @@ public class BankAccountServiceUnitTest {
             .destinationBankAccount(destinationAccount)
             .build();
 
-    when(bankAccountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-    when(bankAccountRepository.findById(2L)).thenReturn(Optional.of(destinationAccount));
+    when(bankAccountRepository.adjustBalance(anyLong(), anyDouble())).thenReturn(1);
+    when(bankAccountRepository.getReferenceById(1L)).thenReturn(sourceAccount);
+    when(bankAccountRepository.getReferenceById(2L)).thenReturn(destinationAccount);
     when(transferMapper.mapFrom(any(TransferDto.class))).thenReturn(transferEntity);
 
     when(transferRepository.save(transferEntity)).thenReturn(transferEntity);
 
     bankAccountService.addTransferToAccounts(transferDto);
 
-    assertTrue(sourceAccount.getTransfersSent().contains(transferEntity));
-    assertTrue(destinationAccount.getTransfersReceived().contains(transferEntity));
+    verify(transferRepository).save(transferEntity);
+    assertNull(sourceAccount.getTransfersSent());
+    assertNull(destinationAccount.getTransfersReceived());
 
     assertSame(sourceAccount, transferEntity.getSourceBankAccount());
     assertSame(destinationAccount, transferEntity.getDestinationBankAccount());
@@ -387,14 +444,68 @@ public class BankAccountServiceUnitTest {
             .sum(100)
             .build();
 
-    when(bankAccountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-    when(bankAccountRepository.findById(2L)).thenReturn(Optional.of(destinationAccount));
+    when(bankAccountRepository.adjustBalance(anyLong(), anyDouble())).thenReturn(1);
     when(transferMapper.mapFrom(any(TransferDto.class))).thenReturn(transferEntity);
 
     bankAccountService.addTransferToAccounts(transferDto);
 
-    assertEquals(900, sourceAccount.getSum());
-    assertEquals(600, destinationAccount.getSum());
+    verify(bankAccountRepository).adjustBalance(1L, -100.0);
+    verify(bankAccountRepository).adjustBalance(2L, 100.0);
+  }
+
+  /**
+   * Tests that the balances of a transfer are updated in ascending account id order, also when the
+   * transfer goes from the higher id to the lower one.
+   */
+  @Test
+  public void testAddTransferUpdatesAccountsInIdOrder() {
+    TransferDto transferDto =
+        TransferDto.builder()
+            .date(LocalDateTime.now())
+            .sum(100)
+            .sourceBankAccountId(2L)
+            .destinationBankAccountId(1L)
+            .build();
+    TransferEntity transferEntity =
+        TransferEntity.builder()
+            .sourceBankAccount(BankAccountEntity.builder().id(2L).build())
+            .destinationBankAccount(BankAccountEntity.builder().id(1L).build())
+            .sum(100)
+            .build();
+
+    when(bankAccountRepository.adjustBalance(anyLong(), anyDouble())).thenReturn(1);
+    when(transferMapper.mapFrom(any(TransferDto.class))).thenReturn(transferEntity);
+
+    bankAccountService.addTransferToAccounts(transferDto);
+
+    InOrder inOrder = inOrder(bankAccountRepository);
+    inOrder.verify(bankAccountRepository).adjustBalance(1L, 100.0);
+    inOrder.verify(bankAccountRepository).adjustBalance(2L, -100.0);
+  }
+
+  /**
+   * Tests that an exception is thrown when a transaction would bring the balance of an existing
+   * account below zero.
+   */
+  @Test
+  public void shouldThrowWhenTransactionOverdrawsAccount() {
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(true);
+    when(bankAccountRepository.adjustBalance(anyLong(), anyDouble())).thenReturn(0);
+    when(bankAccountRepository.existsById(1L)).thenReturn(true);
+    TransactionDto transactionDto =
+        TransactionDto.builder().sum(-100.0).categoryEntityId(1L).date(LocalDateTime.now()).build();
+
+    ResponseStatusException expectedException =
+        new ResponseStatusException(
+            HttpStatus.BAD_REQUEST,
+            "A bank account's balance cannot be updated to be less than zero");
+    Exception exception =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> bankAccountService.addTransactionToAccount(1L, transactionDto));
+
+    assertEquals(expectedException.getMessage(), exception.getMessage());
+    verify(transactionRepository, never()).save(any());
   }
 
   /** Tests that an exception is thrown when searching for a non-existent bank account. */
@@ -464,23 +575,10 @@ public class BankAccountServiceUnitTest {
   /** Tests the findAverageExpenditure method. */
   @Test
   public void testFindAverageExpenditure() {
-    TransactionEntity transaction1 = TransactionEntity.builder().sum(-100).build();
-    TransactionEntity transaction2 = TransactionEntity.builder().sum(-300).build();
-    TransactionEntity transaction3 = TransactionEntity.builder().sum(-500).build();
-    List<TransactionEntity> transactions = new ArrayList<>();
-    transactions.add(transaction1);
-    transactions.add(transaction2);
-    transactions.add(transaction3);
-
-    BankAccountEntity bankAccountEntity = BankAccountEntity.builder().build();
-
-    when(transactionCategoryRepository.findById(anyLong()))
-        .thenReturn(Optional.ofNullable(TransactionCategoryEntity.builder().build()));
-    when(bankAccountRepository.findById(anyLong()))
-        .thenReturn(Optional.ofNullable(bankAccountEntity));
-    when(transactionRepository.findByBankAccount_IdAndTransactionCategoryEntity_IdAndDateBetween(
-            any(), any(), any(), any()))
-        .thenReturn(transactions);
+    when(transactionCategoryRepository.existsById(anyLong())).thenReturn(true);
+    when(bankAccountRepository.existsById(anyLong())).thenReturn(true);
+    when(spendingStatisticsStore.find(1L, 1L))
+        .thenReturn(SpendingStatisticsDto.builder().spentLast30Days(900.0).build());
 
     double average = bankAccountService.getAverageExpenditureOnCategory(1L, 1L, 7);
     assertEquals(210, average);
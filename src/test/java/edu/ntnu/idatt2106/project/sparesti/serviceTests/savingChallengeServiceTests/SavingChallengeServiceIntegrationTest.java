@@ -1,14 +1,22 @@
 package edu.ntnu.idatt2106.project.sparesti.serviceTests.savingChallengeServiceTests;
 
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeCatalog;
+import edu.ntnu.idatt2106.project.sparesti.cache.ActiveChallengeIndex;
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSuggestionCache;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.TransactionDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeRequestDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.*;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
+import edu.ntnu.idatt2106.project.sparesti.events.ChallengeStateTransitionQueue;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
 import edu.ntnu.idatt2106.project.sparesti.repositories.*;
+import edu.ntnu.idatt2106.project.sparesti.schedulers.ChallengeStateTransitionTaskScheduler;
 import edu.ntnu.idatt2106.project.sparesti.services.BankAccountService;
 import edu.ntnu.idatt2106.project.sparesti.services.SavingChallengeService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -18,12 +26,15 @@ import java.util.List;
 import java.util.Optional;
 
 import org.h2.engine.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.AfterTransaction;
 import org.springframework.web.server.ResponseStatusException;
 
 import static org.assertj.core.api.BDDAssumptions.given;
@@ -59,6 +70,20 @@ public class SavingChallengeServiceIntegrationTest {
 
   @Autowired private BadgeRepository badgeRepository;
 
+  @Autowired private BadgeCatalog badgeCatalog;
+
+  @Autowired private ChallengeSuggestionCache challengeSuggestionCache;
+
+  @Autowired private ActiveChallengeIndex activeChallengeIndex;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private ChallengeStateTransitionQueue challengeStateTransitionQueue;
+
+  @Autowired private ChallengeStateTransitionTaskScheduler challengeStateTransitionTaskScheduler;
+
   private SavingChallengeEntity savingChallenge1;
   private SavingChallengeEntity savingChallenge2;
   private SavingGoalEntity savingGoal;
@@ -125,7 +150,7 @@ public class SavingChallengeServiceIntegrationTest {
     user =
         UserEntity.builder()
             .username("John Doe")
-            .savingGoals(List.of(savingGoal))
+            .savingGoals(new ArrayList<>(List.of(savingGoal)))
             .badgeProgress(new ArrayList<>())
             .score(200)
             .completedGoals(1)
@@ -164,6 +189,8 @@ public class SavingChallengeServiceIntegrationTest {
    */
   @Test
   public void getAllChallengesFromUserTracksChallengeState() {
+    bankAccountService.rebuildDailySpending();
+
     List<SavingChallengeResponseDto> savingChallengesFound =
         savingChallengeService.getAndProcessUserChallenges(user.getUsername());
 
@@ -171,6 +198,38 @@ public class SavingChallengeServiceIntegrationTest {
     assertEquals(ChallengeState.COMPLETED, savingChallengesFound.get(1).getState());
   }
 
+  /**
+   * Tests that listing the challenges of a user writes nothing, and that the challenges whose state
+   * changed are queued and updated once the queue is drained.
+   */
+  @Test
+  public void getAllChallengesFromUserQueuesStateTransitionsWithoutWriting() {
+    bankAccountService.rebuildDailySpending();
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    List<SavingChallengeResponseDto> savingChallengesFound =
+        savingChallengeService.getAndProcessUserChallenges(user.getUsername());
+
+    assertEquals(ChallengeState.FAILED, savingChallengesFound.get(0).getState());
+    assertEquals(0, statistics.getEntityUpdateCount());
+    assertEquals(0, statistics.getEntityInsertCount());
+    assertEquals(
+        ChallengeState.IN_PROGRESS,
+        savingChallengeRepository.findById(savingChallenge1.getId()).get().getState());
+    assertTrue(challengeStateTransitionQueue.size() >= 2);
+
+    challengeStateTransitionTaskScheduler.drainStateTransitions();
+
+    assertEquals(0, challengeStateTransitionQueue.size());
+    assertEquals(
+        ChallengeState.FAILED,
+        savingChallengeRepository.findById(savingChallenge1.getId()).get().getState());
+    assertEquals(
+        ChallengeState.COMPLETED,
+        savingChallengeRepository.findById(savingChallenge2.getId()).get().getState());
+  }
+
   /**
    * Tests retrieving all saving challenges associated with a specific goal, ensuring that all
    * related challenges are correctly identified and their details are accurately fetched.
@@ -216,6 +275,114 @@ public class SavingChallengeServiceIntegrationTest {
     assertEquals(savingGoal.getId(), savingChallengeInDB.getSavingGoal().getId());*/
   }
 
+  /**
+   * Tests that the number of challenges loaded to create a challenge does not grow with the number
+   * of challenges the user has had before.
+   */
+  @Test
+  public void createChallengeLoadsConstantNumberOfEntities() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    TransactionCategoryEntity firstCategory =
+        transactionCategoryRepository.save(TransactionCategoryEntity.builder().build());
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics.clear();
+    createChallengeInCategory(firstCategory, 100);
+    long entitiesLoadedWithFewChallenges =
+        statistics.getEntityLoadCount() + statistics.getCollectionFetchCount();
+
+    for (int i = 0; i < 8; i++) {
+      savingChallengeRepository.save(
+          SavingChallengeEntity.builder()
+              .state(ChallengeState.FAILED)
+              .expectedExpense(100)
+              .spendingGoal(80)
+              .startDate(LocalDate.now().minusDays(10))
+              .endingDate(LocalDate.now().minusDays(1))
+              .transactionCategory(transactionCategory)
+              .savingGoal(savingGoalRepository.getReferenceById(savingGoal.getId()))
+              .build());
+    }
+    TransactionCategoryEntity secondCategory =
+        transactionCategoryRepository.save(TransactionCategoryEntity.builder().build());
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics.clear();
+    createChallengeInCategory(secondCategory, 100);
+    long entitiesLoadedWithManyChallenges =
+        statistics.getEntityLoadCount() + statistics.getCollectionFetchCount();
+
+    assertEquals(entitiesLoadedWithFewChallenges, entitiesLoadedWithManyChallenges);
+    assertThrows(
+        ResponseStatusException.class, () -> createChallengeInCategory(secondCategory, 100));
+  }
+
+  /**
+   * Tests that a batch of challenges is checked with one query for the categories in progress and
+   * one for the requested categories, and returned in the order they were requested.
+   */
+  @Test
+  public void createChallengesInsertsTheWholeBatch() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    List<TransactionCategoryEntity> categories = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      categories.add(
+          transactionCategoryRepository.save(TransactionCategoryEntity.builder().build()));
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics.clear();
+    List<SavingChallengeResponseDto> created =
+        savingChallengeService.createSavingChallenges(
+            categories.stream().map(category -> challengeRequest(category, 100)).toList(),
+            savingGoal.getId());
+    entityManager.flush();
+
+    assertEquals(
+        categories.stream().map(TransactionCategoryEntity::getId).toList(),
+        created.stream().map(challenge -> challenge.getTransactionCategory().getId()).toList());
+    assertEquals(3, statistics.getEntityInsertCount());
+    assertEquals(2, statistics.getQueryExecutionCount());
+    assertTrue(
+        created.stream()
+            .allMatch(
+                challenge ->
+                    savingChallengeRepository.findById(challenge.getId()).get().getState()
+                        == ChallengeState.IN_PROGRESS));
+  }
+
+  /**
+   * Tests that a batch of challenges is rejected as a whole if one of its categories already has a
+   * challenge in progress, or appears twice in the batch.
+   */
+  @Test
+  public void createChallengesRejectsCategoriesInProgress() {
+    TransactionCategoryEntity newCategory =
+        transactionCategoryRepository.save(TransactionCategoryEntity.builder().build());
+    long challenges = savingChallengeRepository.count();
+
+    assertThrows(
+        ResponseStatusException.class,
+        () ->
+            savingChallengeService.createSavingChallenges(
+                List.of(
+                    challengeRequest(newCategory, 100), challengeRequest(transactionCategory, 100)),
+                savingGoal.getId()));
+    assertThrows(
+        ResponseStatusException.class,
+        () ->
+            savingChallengeService.createSavingChallenges(
+                List.of(challengeRequest(newCategory, 100), challengeRequest(newCategory, 50)),
+                savingGoal.getId()));
+    assertThrows(
+        ResponseStatusException.class,
+        () -> savingChallengeService.createSavingChallenges(List.of(), savingGoal.getId()));
+    assertEquals(challenges, savingChallengeRepository.count());
+  }
+
   /**
    * Tests completing a saving challenge, verifying that the challenge completes successfully,
    * transfers the saved amount appropriately, and updates the balances of the involved bank
@@ -237,6 +404,7 @@ public class SavingChallengeServiceIntegrationTest {
 
     badgeRepository.save(badgeEntity);
     badgeRepository.save(badgeEntity2);
+    badgeCatalog.reload();
 
     BadgeProgressEntity badgeProgressEntity =
         BadgeProgressEntity.builder().userEntity(user).badgeEntity(badgeEntity).progress(1).build();
@@ -269,9 +437,6 @@ public class SavingChallengeServiceIntegrationTest {
 
     savingChallengeRepository.save(savingChallenge3);
 
-    ArrayList<SavingGoalEntity> savingGoals = new ArrayList<>();
-    savingGoals.add(savingGoal);
-
     //    UserEntity user =
     //        UserEntity.builder()
     //            .username("JohnDoe")
@@ -281,7 +446,6 @@ public class SavingChallengeServiceIntegrationTest {
     //
     //            .build();
 
-    user.setSavingGoals(savingGoals);
     userRepository.save(user);
     System.out.println(user);
     SavingChallengeResponseDto responseDto =
@@ -292,6 +456,15 @@ public class SavingChallengeServiceIntegrationTest {
     assertEquals(amountSaved, originalBalance - savingGoal.getSourceBankAccount().getSum(), 0.01);
     assertEquals(amountSaved, savingGoal.getDestinationBankAccount().getSum());
     assertEquals(ChallengeState.COMPLETED_AND_TRANSFERRED, savingChallenge3.getState());
+    assertEquals(
+        2,
+        user.getBadgeProgressEntityByName("Teenage Mutant Ninja-piggy").getProgress().intValue());
+  }
+
+  /** Forgets the badges saved by a test, since they are rolled back with its transaction. */
+  @AfterTransaction
+  public void reloadBadgeCatalog() {
+    badgeCatalog.reload();
   }
 
   /**
@@ -314,6 +487,7 @@ public class SavingChallengeServiceIntegrationTest {
 
     bankAccountEntity1.addTransaction(transaction2);
     bankAccountRepository.save(bankAccountEntity1);
+    bankAccountService.rebuildDailySpending();
 
     List<SavingChallengeResponseDto> savingChallengeResponseDtos =
         savingChallengeService.getChallengeSuggestions(savingGoal.getId());
@@ -346,6 +520,7 @@ public class SavingChallengeServiceIntegrationTest {
 
     bankAccountEntity1.addTransaction(transaction2);
     bankAccountRepository.save(bankAccountEntity1);
+    bankAccountService.rebuildDailySpending();
 
     List<SavingChallengeResponseDto> savingChallengeResponseDtos =
         savingChallengeService.getChallengeSuggestions(savingGoal.getId());
@@ -399,6 +574,7 @@ public class SavingChallengeServiceIntegrationTest {
     bankAccountEntity1.addTransaction(transaction2);
     bankAccountEntity1.addTransaction(transaction3);
     bankAccountRepository.save(bankAccountEntity1);
+    bankAccountService.rebuildDailySpending();
 
     List<SavingChallengeResponseDto> savingChallengeResponseDtos =
         savingChallengeService.getChallengeSuggestions(savingGoal.getId());
@@ -410,11 +586,180 @@ public class SavingChallengeServiceIntegrationTest {
     assertEquals(transaction2.getId(), savingChallengeResponseDtos.get(2).getId());
   }
 
-  /** Tests that challenge states are updated when using the updateAllSavingChallengeStates. */
+  /**
+   * Tests that the number of statements issued to generate saving challenge suggestions does not
+   * grow with the number of transaction categories the source account has spent money on.
+   */
+  @Test
+  public void generateSavingChallengesUsesConstantNumberOfQueries() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    addCategoryWithSpending(400);
+    bankAccountService.rebuildDailySpending();
+
+    statistics.clear();
+    int suggestionsWithFewCategories =
+        savingChallengeService.getChallengeSuggestions(savingGoal.getId()).size();
+    long queriesWithFewCategories = statistics.getPrepareStatementCount();
+
+    for (int i = 0; i < 8; i++) {
+      addCategoryWithSpending(400);
+    }
+    addExpense(transactionCategory, -10);
+    bankAccountService.rebuildDailySpending();
+
+    statistics.clear();
+    int suggestionsWithManyCategories =
+        savingChallengeService.getChallengeSuggestions(savingGoal.getId()).size();
+    long queriesWithManyCategories = statistics.getPrepareStatementCount();
+
+    assertEquals(suggestionsWithFewCategories + 8, suggestionsWithManyCategories);
+    assertEquals(queriesWithFewCategories, queriesWithManyCategories);
+  }
+
+  /**
+   * Tests that the suggestions of a goal are answered from the cache until an expense is added to
+   * the source account of the goal, or a challenge is started.
+   */
+  @Test
+  public void challengeSuggestionsAreCachedUntilTheAccountOrChallengesChange() {
+    TransactionCategoryEntity category = addCategoryWithSpending(400);
+    bankAccountService.rebuildDailySpending();
+
+    List<SavingChallengeResponseDto> first =
+        savingChallengeService.getChallengeSuggestions(savingGoal.getId());
+    long hits = challengeSuggestionCache.getStatistics().getHits();
+    List<SavingChallengeResponseDto> cached =
+        savingChallengeService.getChallengeSuggestions(savingGoal.getId());
+
+    assertSame(first, cached);
+    assertEquals(hits + 1, challengeSuggestionCache.getStatistics().getHits());
+
+    addExpense(transactionCategory, -10);
+    List<SavingChallengeResponseDto> afterExpense =
+        savingChallengeService.getChallengeSuggestions(savingGoal.getId());
+
+    assertNotSame(cached, afterExpense);
+    assertTrue(
+        afterExpense.stream()
+            .anyMatch(dto -> dto.getTransactionCategory().getId().equals(category.getId())));
+
+    createChallengeInCategory(category, 100);
+    List<SavingChallengeResponseDto> afterChallenge =
+        savingChallengeService.getChallengeSuggestions(savingGoal.getId());
+
+    assertTrue(
+        afterChallenge.stream()
+            .noneMatch(dto -> dto.getTransactionCategory().getId().equals(category.getId())));
+  }
+
+  /**
+   * Saves a new transaction category with a spending of the given amount on the source account of
+   * the saving goal a week ago.
+   *
+   * @param amount The amount spent on the new category.
+   * @return The new category.
+   */
+  private TransactionCategoryEntity addCategoryWithSpending(double amount) {
+    TransactionCategoryEntity category =
+        TransactionCategoryEntity.builder().suggestedAmount(10).build();
+    transactionCategoryRepository.save(category);
+
+    bankAccountEntity1.addTransaction(
+        TransactionEntity.builder()
+            .sum(-amount)
+            .transactionCategoryEntity(category)
+            .date(LocalDateTime.now().minusDays(7))
+            .build());
+    bankAccountRepository.save(bankAccountEntity1);
+    return category;
+  }
+
+  /** Tests that challenge states are updated when using the updateSavingChallengeStates. */
+  @Test
+  public void updateSavingChallengeStates() {
+    bankAccountService.rebuildDailySpending();
+
+    List<Long> challengeIds = savingChallengeService.findEndedSavingChallengeIdsInProgress(0, 100);
+    int updated = savingChallengeService.updateSavingChallengeStates(challengeIds);
+    assertEquals(2, updated);
+    assertEquals(
+        ChallengeState.FAILED,
+        savingChallengeRepository.findById(savingChallenge1.getId()).get().getState());
+    assertEquals(
+        ChallengeState.COMPLETED,
+        savingChallengeRepository.findById(savingChallenge2.getId()).get().getState());
+    assertEquals(0, savingChallengeService.updateSavingChallengeStates(challengeIds));
+    assertTrue(
+        savingChallengeService.findEndedSavingChallengeIdsInProgress(0, 100).stream()
+            .noneMatch(id -> id.equals(savingChallenge1.getId())));
+  }
+
+  /**
+   * Tests that an expense that makes a challenge overspend marks the challenge as FAILED as soon as
+   * it is added, without waiting for the scheduled update. A new challenge is only indexed once its
+   * transaction commits, which the test transaction never does, so it is indexed by the test.
+   */
   @Test
-  public void updateAllSavingChallengeStates() {
-    savingChallengeService.updateAllSavingChallengeStates();
-    assertEquals(ChallengeState.FAILED, savingChallenge1.getState());
-    assertEquals(ChallengeState.COMPLETED, savingChallenge2.getState());
+  public void addTransactionFailsOverspentChallenge() {
+    TransactionCategoryEntity category =
+        transactionCategoryRepository.save(TransactionCategoryEntity.builder().build());
+    SavingChallengeResponseDto challenge = createChallengeInCategory(category, 100);
+    assertTrue(activeChallengeIndex.find(bankAccountEntity1.getId(), category.getId()).isEmpty());
+    activeChallengeIndex.add(challenge.getId(), bankAccountEntity1.getId(), category.getId());
+
+    addExpense(category, -60);
+    assertEquals(
+        ChallengeState.IN_PROGRESS,
+        savingChallengeRepository.findById(challenge.getId()).get().getState());
+
+    addExpense(category, -60);
+    assertEquals(
+        ChallengeState.FAILED,
+        savingChallengeRepository.findById(challenge.getId()).get().getState());
+  }
+
+  /** Tests that an expense in another category does not fail the challenge. */
+  @Test
+  public void addTransactionInOtherCategoryKeepsChallengeInProgress() {
+    TransactionCategoryEntity category =
+        transactionCategoryRepository.save(TransactionCategoryEntity.builder().build());
+    TransactionCategoryEntity otherCategory =
+        transactionCategoryRepository.save(TransactionCategoryEntity.builder().build());
+    SavingChallengeResponseDto challenge = createChallengeInCategory(category, 100);
+
+    addExpense(otherCategory, -500);
+
+    assertEquals(
+        ChallengeState.IN_PROGRESS,
+        savingChallengeRepository.findById(challenge.getId()).get().getState());
+    assertEquals(0, savingChallengeService.failOverspentChallenges(1L, otherCategory.getId()));
+  }
+
+  private SavingChallengeResponseDto createChallengeInCategory(
+      TransactionCategoryEntity category, int spendingGoal) {
+    return savingChallengeService.createSavingChallenge(
+        challengeRequest(category, spendingGoal), savingGoal.getId());
+  }
+
+  private SavingChallengeRequestDto challengeRequest(
+      TransactionCategoryEntity category, int spendingGoal) {
+    SavingChallengeRequestDto savingChallengeRequestDto = new SavingChallengeRequestDto();
+    savingChallengeRequestDto.setCategoryId(category.getId());
+    savingChallengeRequestDto.setSpendingGoal(spendingGoal);
+    savingChallengeRequestDto.setStartDate(LocalDate.now().minusDays(1));
+    savingChallengeRequestDto.setEndingDate(LocalDate.now().plusDays(10));
+    savingChallengeRequestDto.setExpectedExpense(spendingGoal * 2);
+    return savingChallengeRequestDto;
+  }
+
+  private void addExpense(TransactionCategoryEntity category, double sum) {
+    bankAccountService.addTransactionToAccount(
+        bankAccountEntity1.getId(),
+        TransactionDto.builder()
+            .sum(sum)
+            .date(LocalDateTime.now())
+            .categoryEntityId(category.getId())
+            .description("Expense")
+            .build());
   }
 }
@@ -1,8 +1,10 @@
 package edu.ntnu.idatt2106.project.sparesti.serviceTests.savingChallengeServiceTests;
 
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.BankAccountDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeRequestDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeResponseDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savingchallenges.SavingChallengeView;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.*;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
@@ -14,6 +16,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,6 +57,8 @@ class SavingChallengeServiceUnitTest {
 
   @MockBean private BadgeRepository badgeRepository;
 
+  @Autowired private ChallengeSpendingCounters challengeSpendingCounters;
+
   private SavingChallengeEntity challenge;
   private SavingChallengeRequestDto savingChallengeRequestDto;
   private SavingGoalEntity mockSavingGoalEntity;
@@ -66,6 +71,7 @@ class SavingChallengeServiceUnitTest {
    */
   @BeforeEach
   void setUp() {
+    challengeSpendingCounters.clear();
     mockSavingGoalEntity = new SavingGoalEntity();
     mockSavingGoalEntity.setId(1L);
     mockSavingGoalEntity.setState(GoalState.IN_PROGRESS);
@@ -100,17 +106,37 @@ class SavingChallengeServiceUnitTest {
     expectedDto.setId(1L);
 
     given(savingGoalRepository.findById(1L)).willReturn(Optional.of(mockSavingGoalEntity));
+    given(savingGoalRepository.existsById(1L)).willReturn(true);
+    given(savingChallengeRepository.findViewsBySavingGoalId(1L))
+        .willReturn(List.of(viewOf(challenge)));
     given(transactionCategoryRepository.findById(1L))
         .willReturn(Optional.of(mockTransactionCategoryEntity));
     given(savingChallengeRepository.save(any(SavingChallengeEntity.class))).willReturn(challenge);
     given(savingChallengeRepository.findById(anyLong())).willReturn(Optional.ofNullable(challenge));
     given(savingChallengeMapper.mapTo(any(SavingChallengeEntity.class))).willReturn(expectedDto);
-    given(
-            bankAccountService.getAmountUsedOnTransactionsOnCategoryBetweenDate(
-                any(), any(), any(), any()))
+    given(bankAccountService.getAmountUsedOnCategoryBetweenDays(any(), any(), any(), any()))
         .willReturn(100.0);
   }
 
+  /**
+   * Creates the view the repository would read for a challenge.
+   *
+   * @param challenge The challenge to create the view of.
+   * @return The view of the challenge.
+   */
+  private SavingChallengeView viewOf(SavingChallengeEntity challenge) {
+    return SavingChallengeView.builder()
+        .id(challenge.getId())
+        .expectedExpense(challenge.getExpectedExpense())
+        .spendingGoal(challenge.getSpendingGoal())
+        .startDate(challenge.getStartDate())
+        .endingDate(challenge.getEndingDate())
+        .state(challenge.getState())
+        .sourceBankAccountId(challenge.getSavingGoal().getSourceBankAccount().getId())
+        .transactionCategoryId(challenge.getTransactionCategory().getId())
+        .build();
+  }
+
   /** Tests the creation of a saving challenge using a valid saving goal. */
   @Test
   void testCreateSavingChallenge() {
@@ -119,6 +145,11 @@ class SavingChallengeServiceUnitTest {
 
     mockSavingGoalEntity.setUserEntity(user);
     savingGoalRepository.save(mockSavingGoalEntity);
+    given(
+            savingChallengeRepository
+                .existsBySavingGoalUserEntityIdAndStateAndTransactionCategoryId(
+                    any(), eq(ChallengeState.IN_PROGRESS), eq(1L)))
+        .willReturn(true);
 
     assertThrows(
         ResponseStatusException.class,
@@ -138,8 +169,7 @@ class SavingChallengeServiceUnitTest {
    */
   @Test
   public void testGetAllChallengesInGoal() {
-    when(bankAccountService.getAmountUsedOnTransactionsOnCategoryBetweenDate(
-            any(), any(), any(), any()))
+    when(bankAccountService.getAmountUsedOnCategoryBetweenDays(any(), any(), any(), any()))
         .thenReturn(100.0);
 
     List<SavingChallengeResponseDto> result =
@@ -179,10 +209,12 @@ class SavingChallengeServiceUnitTest {
     UserEntity user = UserEntity.builder().username("testUser").savingGoals(List.of(goal)).build();
 
     when(userRepository.findUserEntityByUsername(user.getUsername())).thenReturn(Optional.of(user));
+    when(userRepository.existsByUsername(user.getUsername())).thenReturn(true);
+    when(savingChallengeRepository.findViewsByUsername(user.getUsername()))
+        .thenReturn(List.of(viewOf(challenge)));
     when(savingChallengeRepository.findById(anyLong())).thenReturn(Optional.of(challenge));
     when(savingGoalRepository.findById(goalId)).thenReturn(Optional.of(goal));
-    when(bankAccountService.getAmountUsedOnTransactionsOnCategoryBetweenDate(
-            any(), any(), any(), any()))
+    when(bankAccountService.getAmountUsedOnCategoryBetweenDays(any(), any(), any(), any()))
         .thenReturn(100.0);
     when(savingChallengeMapper.mapTo(challenge)).thenReturn(savingChallengeResponseDto);
 
@@ -200,6 +232,7 @@ class SavingChallengeServiceUnitTest {
   void testFinishChallenge() {
     UserEntity user =
         UserEntity.builder()
+            .id(1L)
             .username("testUser")
             .badgeProgress(new ArrayList<>())
             .completedChallenges(1)
@@ -342,8 +375,8 @@ class SavingChallengeServiceUnitTest {
     savingChallengeResponseDto.setExpectedExpense(100);
     savingChallengeResponseDto.setAmountSaved(200);
 
-    when(bankAccountService.getAverageExpenditureOnCategory(anyLong(), anyLong(), anyInt()))
-        .thenReturn(300.0);
+    when(bankAccountService.getAverageExpenditurePerCategory(anyLong(), any(), anyInt()))
+        .thenReturn(Map.of(1L, 300.0));
     when(savingGoalRepository.findById(anyLong())).thenReturn(Optional.of(goal));
     when(transactionCategoryRepository.findByIdNotIn(any())).thenReturn(transactionCategories);
     when(transactionCategoryRepository.findAll()).thenReturn(transactionCategories);
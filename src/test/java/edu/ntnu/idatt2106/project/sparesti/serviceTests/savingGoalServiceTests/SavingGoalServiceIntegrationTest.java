@@ -1,5 +1,6 @@
 package edu.ntnu.idatt2106.project.sparesti.serviceTests.savingGoalServiceTests;
 
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoDetailsResponse;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoGeneralResponse;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoPost;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.*;
@@ -13,18 +14,26 @@ import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.SavingGoalRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.TransactionCategoryRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
+import edu.ntnu.idatt2106.project.sparesti.schedulers.SavingGoalStateTransitionTaskScheduler;
 import edu.ntnu.idatt2106.project.sparesti.services.SavingGoalService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,8 +51,16 @@ public class SavingGoalServiceIntegrationTest {
 
   @Autowired private BadgeRepository badgeRepository;
 
+  @Autowired private TransactionCategoryRepository transactionCategoryRepository;
+
   @Autowired private Mapper<SavingGoalEntity, SavingGoalDtoGeneralResponse> savingGoalMapper;
 
+  @Autowired private SavingGoalStateTransitionTaskScheduler savingGoalStateTransitionTaskScheduler;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private EntityManager entityManager;
+
   private BankAccountEntity bankAccountEntity1;
   private BankAccountEntity bankAccountEntity2;
   private UserEntity user;
@@ -111,6 +128,8 @@ public class SavingGoalServiceIntegrationTest {
             .build();
 
     user.addBadgeProgress(badgeProgressEntity);
+    bankAccountEntity1.setUserEntity(user);
+    bankAccountEntity2.setUserEntity(user);
 
     userRepository.save(user);
   }
@@ -152,6 +171,7 @@ public class SavingGoalServiceIntegrationTest {
             .destinationBankAccount(bankAccountEntity1)
             .sourceBankAccount(bankAccountEntity2)
             .title("Title")
+            .userEntity(user)
             .build();
 
     savingGoalRepository.save(savingGoalEntity);
@@ -187,6 +207,7 @@ public class SavingGoalServiceIntegrationTest {
             .destinationBankAccount(bankAccountEntity1)
             .sourceBankAccount(bankAccountEntity2)
             .title("Title")
+            .userEntity(user)
             .build();
 
     SavingGoalEntity savingGoalEntity2 =
@@ -197,6 +218,7 @@ public class SavingGoalServiceIntegrationTest {
             .destinationBankAccount(bankAccountEntity1)
             .sourceBankAccount(bankAccountEntity2)
             .title("Title")
+            .userEntity(user)
             .build();
 
     savingGoalRepository.save(savingGoalEntity1);
@@ -226,6 +248,7 @@ public class SavingGoalServiceIntegrationTest {
             .destinationBankAccount(bankAccountEntity1)
             .sourceBankAccount(bankAccountEntity2)
             .title("Title")
+            .userEntity(user)
             .build();
 
     SavingGoalEntity savingGoalEntity2 =
@@ -236,6 +259,7 @@ public class SavingGoalServiceIntegrationTest {
             .destinationBankAccount(bankAccountEntity1)
             .sourceBankAccount(bankAccountEntity2)
             .title("Title")
+            .userEntity(user)
             .build();
 
     savingGoalRepository.save(savingGoalEntity1);
@@ -255,6 +279,10 @@ public class SavingGoalServiceIntegrationTest {
     assertEquals(2, foundSavingGoals.size());
   }
 
+  /**
+   * Tests that listing the goals writes nothing, but lists due goals with their new states and
+   * queues them, and that the goals and their challenges are settled when the queue is drained.
+   */
   @Test
   public void getAllSavingGoalsForUserUpdatesChallengeState() {
     SavingChallengeEntity savingChallenge1 =
@@ -293,6 +321,8 @@ public class SavingGoalServiceIntegrationTest {
             .title("Title")
             .savingChallenges(savingChallenges2)
             .build();
+    savingChallenge1.setSavingGoal(savingGoalEntity1);
+    savingChallenge2.setSavingGoal(savingGoalEntity2);
 
     savingGoalRepository.save(savingGoalEntity1);
     savingGoalRepository.save(savingGoalEntity2);
@@ -305,20 +335,153 @@ public class SavingGoalServiceIntegrationTest {
     user.setSavingGoals(savingGoals);
     userRepository.save(user);
 
-    savingGoalService.getAllSavingGoalsForUser(user.getUsername());
+    List<SavingGoalDtoGeneralResponse> listed =
+        savingGoalService.getAllSavingGoalsForUser(user.getUsername());
+    assertEquals(
+        List.of(GoalState.COMPLETED, GoalState.FAILED),
+        listed.stream().map(SavingGoalDtoGeneralResponse::getState).toList());
+    assertEquals(
+        GoalState.IN_PROGRESS,
+        savingGoalRepository.findById(savingGoalEntity1.getId()).get().getState());
+
+    savingGoalStateTransitionTaskScheduler.drainStateTransitions();
 
     SavingGoalEntity savingGoal1Result =
         savingGoalRepository.findById(savingGoalEntity1.getId()).get();
     SavingGoalEntity savingGoal2Result =
         savingGoalRepository.findById(savingGoalEntity2.getId()).get();
 
+    assertEquals(GoalState.COMPLETED, savingGoal1Result.getState());
     assertEquals(
         ChallengeState.COMPLETED, savingGoal1Result.getSavingChallenges().get(0).getState());
     assertEquals(ChallengeState.FAILED, savingGoal2Result.getSavingChallenges().get(0).getState());
   }
 
+  /**
+   * Tests that the goals of a user are listed with a number of queries that does not grow with the
+   * number of goals.
+   */
+  @Test
+  public void getAllSavingGoalsForUserUsesConstantNumberOfQueries() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    saveGoalInProgress();
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics.clear();
+    assertEquals(1, savingGoalService.getAllSavingGoalsForUser(user.getUsername()).size());
+    long queriesWithOneGoal = statistics.getPrepareStatementCount();
+
+    for (int i = 0; i < 4; i++) {
+      saveGoalInProgress();
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics.clear();
+    assertEquals(5, savingGoalService.getAllSavingGoalsForUser(user.getUsername()).size());
+    long queriesWithManyGoals = statistics.getPrepareStatementCount();
+
+    assertEquals(queriesWithOneGoal, queriesWithManyGoals);
+  }
+
+  /**
+   * Tests that the details of a goal are read in one query, and mapped with its accounts, its
+   * challenges and their categories.
+   */
+  @Test
+  public void getSavingGoalReadsTheDetailsInOneQuery() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    SavingGoalEntity savingGoal = saveGoalInProgress();
+    TransactionCategoryEntity category =
+        transactionCategoryRepository.save(
+            TransactionCategoryEntity.builder().name("Food").build());
+    savingGoal.setSavingChallenges(
+        new ArrayList<>(
+            List.of(
+                SavingChallengeEntity.builder()
+                    .state(ChallengeState.IN_PROGRESS)
+                    .savingGoal(savingGoal)
+                    .transactionCategory(category)
+                    .expectedExpense(500)
+                    .spendingGoal(300)
+                    .amountSaved(50.0)
+                    .startDate(LocalDate.now().minusDays(2))
+                    .endingDate(LocalDate.now().plusDays(5))
+                    .build())));
+    savingGoalRepository.save(savingGoal);
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics.clear();
+    SavingGoalDtoDetailsResponse details = savingGoalService.getSavingGoal(savingGoal.getId());
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(savingGoal.getId(), details.getId());
+    assertEquals("Title", details.getTitle());
+    assertEquals(GoalState.IN_PROGRESS, details.getState());
+    assertEquals(100.0, details.getAmountSaved());
+    assertEquals(bankAccountEntity2.getId(), details.getSourceBankAccount().getId());
+    assertEquals(user.getId(), details.getSourceBankAccount().getUserEntityId());
+    assertEquals(bankAccountEntity1.getId(), details.getDestinationBankAccount().getId());
+    assertEquals(1, details.getSavingChallenges().size());
+    assertEquals(300, details.getSavingChallenges().get(0).getSpendingGoal());
+    assertEquals(50.0, details.getSavingChallenges().get(0).getAmountSaved());
+    assertEquals("Food", details.getSavingChallenges().get(0).getTransactionCategory().getName());
+  }
+
+  /**
+   * Tests that a goal is edited with a number of queries that does not grow with the number of
+   * goals and accounts of its user, reading the goal only once, and that the accounts of other
+   * users are rejected.
+   */
+  @Test
+  public void editSavingGoalUsesConstantNumberOfQueries() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    Long goalId = saveGoalInProgress().getId();
+    SavingGoalDtoPost swapAccounts = new SavingGoalDtoPost();
+    swapAccounts.setTitle("Edited Title");
+    swapAccounts.setSourceBankAccountId(bankAccountEntity1.getId());
+    swapAccounts.setDestinationBankAccountId(bankAccountEntity2.getId());
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics.clear();
+    savingGoalService.editSavingGoal(swapAccounts, user.getUsername(), goalId);
+    long queriesWithOneGoal = statistics.getPrepareStatementCount();
+    assertEquals(
+        1, statistics.getEntityStatistics(SavingGoalEntity.class.getName()).getLoadCount());
+
+    UserEntity owner = userRepository.findById(user.getId()).get();
+    for (long accountId = 3; accountId < 7; accountId++) {
+      owner.addBankAccount(BankAccountEntity.builder().id(accountId).build());
+      saveGoalInProgress();
+    }
+    userRepository.save(owner);
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics.clear();
+    savingGoalService.editSavingGoal(swapAccounts, user.getUsername(), goalId);
+    assertEquals(queriesWithOneGoal, statistics.getPrepareStatementCount());
+    assertEquals(
+        1, statistics.getEntityStatistics(SavingGoalEntity.class.getName()).getLoadCount());
+
+    bankAccountRepository.save(BankAccountEntity.builder().id(7L).build());
+    swapAccounts.setSourceBankAccountId(7L);
+    ResponseStatusException exception =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> savingGoalService.editSavingGoal(swapAccounts, user.getUsername(), goalId));
+    assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatusCode());
+  }
+
+  /**
+   * Tests that only the users with due goals are read, and that their goals and the challenges in
+   * progress of the goals are settled, with the completed goals counted on the user.
+   */
   @Test
-  public void updateAllSavingGoalsStates() {
+  public void updateSavingGoalStatesForUsers() {
     SavingGoalEntity savingGoalEntity1 =
         SavingGoalEntity.builder()
             .state(GoalState.IN_PROGRESS)
@@ -342,13 +505,59 @@ public class SavingGoalServiceIntegrationTest {
             .title("Title")
             .userEntity(user)
             .build();
+    SavingChallengeEntity savingChallenge =
+        SavingChallengeEntity.builder()
+            .state(ChallengeState.IN_PROGRESS)
+            .savingGoal(savingGoalEntity2)
+            .startDate(LocalDate.now().minusDays(12))
+            .endingDate(LocalDate.now().plusDays(2))
+            .build();
+    savingGoalEntity2.setSavingChallenges(new ArrayList<>(List.of(savingChallenge)));
+
+    SavingGoalEntity savingGoalEntity3 =
+        SavingGoalEntity.builder()
+            .state(GoalState.IN_PROGRESS)
+            .goalSum(200)
+            .amountSaved(100.0)
+            .endingDate(LocalDate.now().plusDays(10))
+            .destinationBankAccount(bankAccountEntity1)
+            .sourceBankAccount(bankAccountEntity2)
+            .title("Title")
+            .userEntity(user)
+            .build();
 
     savingGoalRepository.save(savingGoalEntity1);
     savingGoalRepository.save(savingGoalEntity2);
+    savingGoalRepository.save(savingGoalEntity3);
 
-    savingGoalService.updateAllSavingGoalsStates();
+    List<Long> userIds = savingGoalService.findUserIdsWithDueSavingGoals(0, 100);
+    assertEquals(List.of(user.getId()), userIds);
+    assertEquals(2, savingGoalService.updateSavingGoalStatesForUsers(userIds));
+
+    assertEquals(
+        GoalState.COMPLETED,
+        savingGoalRepository.findById(savingGoalEntity1.getId()).get().getState());
+    SavingGoalEntity failedGoal = savingGoalRepository.findById(savingGoalEntity2.getId()).get();
+    assertEquals(GoalState.FAILED, failedGoal.getState());
+    assertEquals(ChallengeState.FAILED, failedGoal.getSavingChallenges().get(0).getState());
+    assertEquals(
+        GoalState.IN_PROGRESS,
+        savingGoalRepository.findById(savingGoalEntity3.getId()).get().getState());
+    assertEquals(2, userRepository.findById(user.getId()).get().getCompletedGoals());
+    assertTrue(savingGoalService.findUserIdsWithDueSavingGoals(0, 100).isEmpty());
+  }
 
-    assertEquals(GoalState.COMPLETED, savingGoalEntity1.getState());
-    assertEquals(GoalState.FAILED, savingGoalEntity2.getState());
+  private SavingGoalEntity saveGoalInProgress() {
+    return savingGoalRepository.save(
+        SavingGoalEntity.builder()
+            .state(GoalState.IN_PROGRESS)
+            .goalSum(200)
+            .amountSaved(100.0)
+            .endingDate(LocalDate.now().plusDays(10))
+            .destinationBankAccount(bankAccountRepository.getReferenceById(1L))
+            .sourceBankAccount(bankAccountRepository.getReferenceById(2L))
+            .title("Title")
+            .userEntity(userRepository.getReferenceById(user.getId()))
+            .build());
   }
 }
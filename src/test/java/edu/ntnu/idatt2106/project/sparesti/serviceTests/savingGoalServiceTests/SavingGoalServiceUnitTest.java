@@ -1,29 +1,45 @@
 package edu.ntnu.idatt2106.project.sparesti.serviceTests.savingGoalServiceTests;
 
+import edu.ntnu.idatt2106.project.sparesti.badges.BadgeRulesEngine;
+import edu.ntnu.idatt2106.project.sparesti.cache.ActiveChallengeIndex;
+import edu.ntnu.idatt2106.project.sparesti.cache.ChallengeSpendingCounters;
+import edu.ntnu.idatt2106.project.sparesti.cache.EntityLookupCache;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoDetailsResponse;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoGeneralResponse;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.savinggoals.SavingGoalDtoPost;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.*;
+import edu.ntnu.idatt2106.project.sparesti.domain.enums.ChallengeState;
 import edu.ntnu.idatt2106.project.sparesti.domain.enums.GoalState;
+import edu.ntnu.idatt2106.project.sparesti.events.SavingGoalStateTransitionQueue;
 import edu.ntnu.idatt2106.project.sparesti.mappers.Mapper;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.BankAccountMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.SavingChallengeMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.SavingGoalDetailsMapperImpl;
+import edu.ntnu.idatt2106.project.sparesti.mappers.impl.TransactionCategoryMapperImpl;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BadgeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
+import edu.ntnu.idatt2106.project.sparesti.repositories.SavingChallengeRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.SavingGoalRepository;
 import edu.ntnu.idatt2106.project.sparesti.repositories.UserRepository;
 import edu.ntnu.idatt2106.project.sparesti.services.impl.SavingGoalServiceImpl;
+import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.modelmapper.ModelMapper;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +63,25 @@ public class SavingGoalServiceUnitTest {
 
   @Mock private BadgeRepository badgeRepository;
 
+  @Mock private BadgeRulesEngine badgeRulesEngine;
+
+  @Mock private ActiveChallengeIndex activeChallengeIndex;
+
+  @Mock private ChallengeSpendingCounters challengeSpendingCounters;
+
+  @Mock private SavingChallengeRepository savingChallengeRepository;
+
+  @Mock private SavingGoalStateTransitionQueue savingGoalStateTransitionQueue;
+
+  @Spy
+  private EntityLookupCache entityLookupCache = new EntityLookupCache(mock(EntityManager.class));
+
+  @Spy
+  private Mapper<SavingGoalEntity, SavingGoalDtoDetailsResponse> savingGoalDetailsMapper =
+      new SavingGoalDetailsMapperImpl(
+          new BankAccountMapperImpl(),
+          new SavingChallengeMapperImpl(new TransactionCategoryMapperImpl()));
+
   @InjectMocks private SavingGoalServiceImpl savingGoalService;
 
   private BankAccountEntity bankAccountEntity1;
@@ -147,6 +182,7 @@ public class SavingGoalServiceUnitTest {
     when(savingGoalMapper.mapTo(any(SavingGoalEntity.class)))
         .thenReturn(new SavingGoalDtoGeneralResponse());
     when(savingGoalRepository.findById(anyLong())).thenReturn(Optional.of(new SavingGoalEntity()));
+    when(userRepository.existsByUsername("john_doe")).thenReturn(true);
 
     Exception exception =
         assertThrows(
@@ -161,11 +197,10 @@ public class SavingGoalServiceUnitTest {
    */
   @Test
   public void testGetAllSavingGoalsForUser() {
-    List<SavingGoalEntity> savingGoalEntities = new ArrayList<>();
-    savingGoalEntities.add(savingGoalEntity);
-    userEntity.setSavingGoals(savingGoalEntities);
+    savingGoalEntity.setUserEntity(userEntity);
 
-    when(userRepository.findUserEntityByUsername("john_doe")).thenReturn(Optional.of(userEntity));
+    when(savingGoalRepository.findWithBankAccountsByUsername("john_doe"))
+        .thenReturn(List.of(savingGoalEntity));
     when(savingGoalMapper.mapTo(any())).thenReturn(new SavingGoalDtoGeneralResponse());
 
     var response = savingGoalService.getAllSavingGoalsForUser("john_doe");
@@ -181,7 +216,7 @@ public class SavingGoalServiceUnitTest {
    */
   @Test
   public void testGetSavingGoalNotFound() {
-    when(savingGoalRepository.findById(anyLong())).thenReturn(Optional.empty());
+    when(savingGoalRepository.findWithChallengesById(anyLong())).thenReturn(Optional.empty());
 
     Exception exception =
         assertThrows(ResponseStatusException.class, () -> savingGoalService.getSavingGoal(1L));
@@ -221,7 +256,7 @@ public class SavingGoalServiceUnitTest {
     badgeRepository.save(badgeEntity);
     userEntity.addBadgeProgress(badgeProgressEntity);
 
-    when(savingGoalRepository.findById(goalId)).thenReturn(Optional.of(goal));
+    when(savingGoalRepository.findWithChallengesById(goalId)).thenReturn(Optional.of(goal));
     when(savingGoalRepository.save(any(SavingGoalEntity.class))).thenReturn(goal);
     when(badgeRepository.findBadgeEntityByName(anyString())).thenReturn(badgeEntity);
 
@@ -301,6 +336,7 @@ public class SavingGoalServiceUnitTest {
             .state(GoalState.IN_PROGRESS)
             .sourceBankAccount(bankAccountEntity1)
             .destinationBankAccount(bankAccountEntity2)
+            .userEntity(userEntity)
             .build();
 
     userEntity.setSavingGoals(List.of(existingGoal));
@@ -314,17 +350,72 @@ public class SavingGoalServiceUnitTest {
     assertEquals(GoalState.IN_PROGRESS, existingGoal.getState());
   }
 
+  /**
+   * Tests that moving a goal to another source account reindexes its challenges in progress only
+   * once the transaction of the edit commits.
+   */
+  @Test
+  public void testChallengesReindexedAfterCommitOnSourceAccountEdit() {
+    Long goalId = 1L;
+    BankAccountEntity bankAccountEntity3 = BankAccountEntity.builder().id(3L).build();
+    SavingGoalDtoPost dto = new SavingGoalDtoPost();
+    dto.setSourceBankAccountId(3L);
+
+    SavingGoalEntity existingGoal =
+        SavingGoalEntity.builder()
+            .goalSum(2000)
+            .amountSaved(1000)
+            .endingDate(LocalDate.now().plusDays(10))
+            .state(GoalState.IN_PROGRESS)
+            .sourceBankAccount(bankAccountEntity1)
+            .destinationBankAccount(bankAccountEntity2)
+            .userEntity(userEntity)
+            .build();
+    existingGoal.setSavingChallenges(
+        List.of(
+            SavingChallengeEntity.builder()
+                .id(7L)
+                .state(ChallengeState.IN_PROGRESS)
+                .transactionCategory(TransactionCategoryEntity.builder().id(4L).build())
+                .build(),
+            SavingChallengeEntity.builder()
+                .id(8L)
+                .state(ChallengeState.COMPLETED)
+                .transactionCategory(TransactionCategoryEntity.builder().id(4L).build())
+                .build()));
+
+    when(savingGoalRepository.findById(goalId)).thenReturn(Optional.of(existingGoal));
+    when(bankAccountRepository.findById(3L)).thenReturn(Optional.of(bankAccountEntity3));
+    when(bankAccountRepository.existsByIdAndUserEntityUsername(3L, "john_doe")).thenReturn(true);
+    when(savingGoalRepository.save(any(SavingGoalEntity.class))).thenReturn(existingGoal);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      savingGoalService.editSavingGoal(dto, "john_doe", goalId);
+
+      verifyNoInteractions(activeChallengeIndex, challengeSpendingCounters);
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    verify(activeChallengeIndex).add(7L, 3L, 4L);
+    verify(activeChallengeIndex, never()).add(eq(8L), anyLong(), anyLong());
+    verify(challengeSpendingCounters).drop(Set.of(7L));
+  }
+
   /**
    * Tests the retrieval of all saving goals for a user with a focus on state transition to FAILED.
    * This test ensures that when retrieving saving goals, those that are overdue and underfunded are
-   * automatically transitioned to FAILED state. It also checks if the changes are correctly saved
-   * in the repository.
+   * listed as FAILED without being saved, and that their user is queued to have them settled.
    */
   @Test
   public void testGetAllSavingGoalsStateTransitionToFailed() {
     String username = "john_doe";
     Long goalId = 1L;
     LocalDate pastDueDate = LocalDate.now().minusDays(10);
+    UserEntity user = UserEntity.builder().id(5L).username(username).build();
     SavingGoalEntity overdueGoal =
         SavingGoalEntity.builder()
             .id(goalId)
@@ -332,24 +423,34 @@ public class SavingGoalServiceUnitTest {
             .amountSaved(5000)
             .endingDate(pastDueDate)
             .state(GoalState.IN_PROGRESS)
+            .userEntity(user)
             .build();
 
-    UserEntity user = new UserEntity();
-    user.setUsername(username);
-    user.setSavingGoals(Arrays.asList(overdueGoal));
-
-    when(userRepository.findUserEntityByUsername(username)).thenReturn(Optional.of(user));
-    when(savingGoalRepository.save(any(SavingGoalEntity.class))).thenReturn(overdueGoal);
+    when(savingGoalRepository.findWithBankAccountsByUsername(username))
+        .thenReturn(List.of(overdueGoal));
     when(savingGoalMapper.mapTo(any(SavingGoalEntity.class)))
         .thenReturn(new SavingGoalDtoGeneralResponse());
 
     List<SavingGoalDtoGeneralResponse> results =
         savingGoalService.getAllSavingGoalsForUser(username);
 
-    assertNotNull(results);
-    assertFalse(results.isEmpty());
     assertEquals(1, results.size());
-    verify(savingGoalRepository, times(1)).save(overdueGoal);
-    assertEquals(GoalState.FAILED, overdueGoal.getState());
+    assertEquals(GoalState.FAILED, results.get(0).getState());
+    assertEquals(GoalState.IN_PROGRESS, overdueGoal.getState());
+    verify(savingGoalRepository, never()).save(any());
+    verify(savingGoalStateTransitionQueue).offer(5L);
+  }
+
+  /** Tests that listing the goals of a user that does not exist fails with 404. */
+  @Test
+  public void testGetAllSavingGoalsForMissingUser() {
+    when(savingGoalRepository.findWithBankAccountsByUsername("nobody")).thenReturn(List.of());
+    when(userRepository.existsByUsername("nobody")).thenReturn(false);
+
+    ResponseStatusException exception =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> savingGoalService.getAllSavingGoalsForUser("nobody"));
+    assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
   }
 }
@@ -1,7 +1,10 @@
 package edu.ntnu.idatt2106.project.sparesti.serviceTests.userServiceTest;
 
+import edu.ntnu.idatt2106.project.sparesti.cache.LeaderboardIndex;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDetails;
 import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDetailsRequestDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserDto;
+import edu.ntnu.idatt2106.project.sparesti.domain.dto.users.UserLeaderboardDto;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.BankAccountEntity;
 import edu.ntnu.idatt2106.project.sparesti.domain.entities.UserEntity;
 import edu.ntnu.idatt2106.project.sparesti.repositories.BankAccountRepository;
@@ -10,18 +13,22 @@ import edu.ntnu.idatt2106.project.sparesti.services.UserService;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
 @Transactional
@@ -32,10 +39,10 @@ public class UserServiceIntegrationTest {
 
   @Autowired private UserService userService;
 
-  @Autowired private ModelMapper modelMapper;
-
   @Autowired private BankAccountRepository bankAccountRepository;
 
+  @Autowired private LeaderboardIndex leaderboardIndex;
+
   @BeforeEach
   public void setup() {
     BankAccountEntity savingsAccount =
@@ -71,8 +78,10 @@ public class UserServiceIntegrationTest {
             .lastCompletedChallengeDate(LocalDate.now())
             .build();
 
-    userEntity.setBankAccounts(
-        Arrays.asList(savingsAccount, savingsAccount2, checkingAccount, checkingAccount2));
+    for (BankAccountEntity bankAccount :
+        Arrays.asList(savingsAccount, savingsAccount2, checkingAccount, checkingAccount2)) {
+      userEntity.addBankAccount(bankAccount);
+    }
 
     userRepository.save(userEntity);
   }
@@ -107,4 +116,68 @@ public class UserServiceIntegrationTest {
     assertEquals("username", updatedUser.getUsername());
     assertEquals("Test user", updatedUser.getFullName());
   }
+
+  /** Tests that an account of another user cannot be set as a preferred account. */
+  @Test
+  void testCannotEditUserDetailsWithAccountOfAnotherUser() {
+    UserDetailsRequestDto editedUser =
+        UserDetailsRequestDto.builder().preferredCheckingAccountId(5L).build();
+
+    ResponseStatusException exception =
+        assertThrows(
+            ResponseStatusException.class, () -> userService.editUser("username", editedUser));
+    assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatusCode());
+    assertEquals(1L, userService.getUserDetails("username").getPreferredCheckingAccount().getId());
+  }
+
+  /** Tests that the leaderboard is paged from the top, with the rank of each user. */
+  @Test
+  void testLeaderboardIsPagedWithRanks() {
+    userRepository.save(
+        UserEntity.builder().username("first").score(1_000_000).currentStreak(3).build());
+    userRepository.save(UserEntity.builder().username("second").score(999_999).build());
+    leaderboardIndex.rebuild();
+
+    List<UserLeaderboardDto> top = userService.getGlobalLeaderboard(0, 2);
+    assertEquals(List.of("first", "second"), top.stream().map(UserDto::getUsername).toList());
+    assertEquals(List.of(1, 2), top.stream().map(UserLeaderboardDto::getRank).toList());
+    assertEquals(3, top.get(0).getCurrentStreak());
+
+    List<UserLeaderboardDto> around = userService.getLeaderboardAroundUser("first", 1);
+    assertEquals(List.of("first", "second"), around.stream().map(UserDto::getUsername).toList());
+    assertEquals(List.of(1, 2), around.stream().map(UserLeaderboardDto::getRank).toList());
+  }
+
+  /** Tests that the whole leaderboard is returned when no page is asked for. */
+  @Test
+  void testWholeLeaderboardIsReturnedWithoutPage() {
+    userRepository.save(UserEntity.builder().username("first").score(1_000_000).build());
+    leaderboardIndex.rebuild();
+
+    List<UserLeaderboardDto> leaderboard = userService.getGlobalLeaderboard();
+    assertEquals(userRepository.count(), leaderboard.size());
+    assertEquals("first", leaderboard.get(0).getUsername());
+    assertEquals(
+        IntStream.rangeClosed(1, leaderboard.size()).boxed().toList(),
+        leaderboard.stream().map(UserLeaderboardDto::getRank).toList());
+  }
+
+  /** Tests that a user missing from the leaderboard index is added when their rank is read. */
+  @Test
+  void testUserMissingFromTheLeaderboardIsAdded() {
+    UserEntity user = userRepository.findUserEntityByUsername("username").orElseThrow();
+
+    List<UserLeaderboardDto> around = userService.getLeaderboardAroundUser("username", 0);
+    assertEquals(1, around.size());
+    assertEquals(user.getId(), around.get(0).getId());
+    assertEquals(user.getId(), leaderboardIndex.around(user.getId(), 0).get(0).userId());
+  }
+
+  /** Tests that pages larger than the maximum page size are rejected. */
+  @Test
+  void testLeaderboardRejectsTooLargePages() {
+    ResponseStatusException exception =
+        assertThrows(ResponseStatusException.class, () -> userService.getGlobalLeaderboard(0, 101));
+    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+  }
 }
@@ -314,7 +314,8 @@ class UserServiceUnitTest {
     when(userRepository.findUserEntityByUsername("user"))
         .thenReturn(Optional.ofNullable(userDetails));
 
-    // when(modelMapper.map(userDetails, UserDetails.class)).thenReturn(returnedUserDto);
+    when(bankAccountMapper.mapTo(savingsAccount)).thenReturn(savingsAccountDto);
+    when(bankAccountMapper.mapTo(checkingAccount)).thenReturn(checkingAccountDto);
 
     UserDetails foundDetails = userService.getUserDetails("user");
     System.out.println(foundDetails);